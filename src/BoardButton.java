@@ -8,7 +8,7 @@ import java.awt.*;
  * @author Andrei Constantin
  * @version 31-03-2021
  */
-public class BoardButton extends JPanel
+public class BoardButton extends JPanel implements FlipAnimator.Animated
 {
     public static final int NOPLAYER=0, PLAYER1=1, PLAYER2=2;
 
@@ -19,6 +19,10 @@ public class BoardButton extends JPanel
     private int position;
     private int player;
     private Theme theme;
+    private String hintText;
+    private Color hintColor;
+    private int frame = FlipAnimator.FRAMES;
+    private Color fromColor;
 
     /**
      * Constructor for the board button.
@@ -64,6 +68,7 @@ public class BoardButton extends JPanel
      */
     public void setPlayer(int player)
     {
+        frame = FlipAnimator.FRAMES;
         if(player==NOPLAYER)
         {
             unhighlight();
@@ -83,6 +88,36 @@ public class BoardButton extends JPanel
         }
     }
 
+    /**
+     * Change the player owner of this button with an animation: a placed disc grows, and a flipped disc turns over.
+     * @param player The new player
+     * @param delay The number of frames to wait before the animation starts
+     */
+    public void animatePlayer(int player, int delay)
+    {
+        Color from = frame < 0 ? fromColor : (this.player==NOPLAYER ? null : getForeground());
+        setPlayer(player);
+        fromColor = from;
+        frame = -delay;
+        repaint();
+        FlipAnimator.start(this);
+    }
+
+    /**
+     * Move the animation of the disc to its next frame.
+     * @return true, if the disc is still animating, false otherwise
+     */
+    @Override
+    public boolean nextFrame()
+    {
+        if(frame >= FlipAnimator.FRAMES)
+            return false;
+        frame++;
+        if(frame >= 0)
+            repaint();
+        return frame < FlipAnimator.FRAMES;
+    }
+
     /**
      * Generates some dark gray borders for the button
      */
@@ -96,14 +131,59 @@ public class BoardButton extends JPanel
     public void paintComponent(Graphics g)
     {
         super.paintComponent(g);
-        ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         Dimension size = this.getSize();
         int d = Math.min(size.width, size.height) - 10;
         int x = (size.width - d) / 2;
         int y = (size.height - d) / 2;
-        g.fillOval(x, y, d, d);
-        g.setColor(NORMAL);
-        g.drawOval(x, y, d, d);
+        if(frame < 0 && fromColor!=null)
+            DiscSprites.drawDisc(g, fromColor, x, y, d);
+        else if(frame >= 0 && frame < FlipAnimator.FRAMES)
+            FlipAnimator.paintDisc(g, fromColor, getForeground(), frame, x, y, d);
+        else if(!getForeground().equals(getBackground()))
+            DiscSprites.drawDisc(g, getForeground(), x, y, d);
+
+        if(hintText!=null)
+            paintHint(g, size);
+    }
+
+    /**
+     * Paint the hint overlay on top of the button: a translucent tint and the score of the move.
+     * @param g The graphics
+     * @param size The size of the button
+     */
+    private void paintHint(Graphics g, Dimension size)
+    {
+        g.setColor(hintColor);
+        g.fillRect(0, 0, size.width, size.height);
+        g.setColor(Color.BLACK);
+        g.setFont(g.getFont().deriveFont(Font.BOLD, Math.max(10f, size.height / 4f)));
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString(hintText, (size.width - metrics.stringWidth(hintText)) / 2, (size.height - metrics.getHeight()) / 2 + metrics.getAscent());
+    }
+
+    /**
+     * Show a hint on top of the button.
+     * @param text The text of the hint
+     * @param color The tint of the hint
+     */
+    public void setHint(String text, Color color)
+    {
+        hintText = text;
+        hintColor = color;
+        repaint();
+    }
+
+    /**
+     * Remove the hint from the button, if there is one.
+     */
+    public void clearHint()
+    {
+        if(hintText!=null)
+        {
+            hintText = null;
+            hintColor = null;
+            repaint();
+        }
     }
 
     /**
@@ -0,0 +1,420 @@
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.function.IntConsumer;
+
+/**
+ * A view of the board painted by a single component. It looks like the grid of board buttons, but it keeps the state of the cells
+ * in arrays, works out the pressed cell from the mouse coordinates, and only repaints the cells which change, so large boards need
+ * neither one component per cell nor a layout of all of them.
+ *
+ * The cells are drawn into an image of the whole board, which is kept between paints: only the cells which changed since the last
+ * paint are drawn again, and painting the component copies the image to the screen.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class BoardCanvas extends JComponent implements BoardView
+{
+    private static final int PREFERRED_CELL_SIZE = 80;
+    private static final int MARGIN = 7;
+
+    private static final MetricsRegistry.Histogram paintTimes = MetricsRegistry.get().histogram(MetricsRegistry.PAINT_TIME);
+
+    private final int size;
+    private final int[] owners;
+    private final boolean[] highlighted;
+    private final String[] hintTexts;
+    private final Color[] hintColors;
+    private final boolean[] dirty;
+    private final int[] dirtyPositions;
+    private int dirtyCount;
+    private int updateDepth;
+    private final boolean[] stale;
+    private final int[] stalePositions;
+    private int staleCount;
+    private final int[] frames, fromOwners;
+    private final boolean[] animating;
+    private final int[] animatingPositions;
+    private int animatingCount;
+    private final FlipAnimator.Animated animation = this::nextFrame;
+    private BufferedImage boardImage;
+    private Graphics2D boardGraphics;
+    private int imageCellSize;
+    private double imageScale;
+    private Theme theme;
+    private IntConsumer cellListener;
+
+    /**
+     * Constructor for the board canvas.
+     * @param size The size of the board
+     * @param theme The theme
+     */
+    public BoardCanvas(int size, Theme theme)
+    {
+        if(size<=0)
+            throw new IllegalSizeException("The size must be positive.");
+        if(theme==null)
+            throw new IllegalArgumentException("The theme cannot be null.");
+        this.size = size;
+        this.theme = theme;
+        owners = new int[size * size];
+        highlighted = new boolean[size * size];
+        hintTexts = new String[size * size];
+        hintColors = new Color[size * size];
+        dirty = new boolean[size * size];
+        dirtyPositions = new int[size * size];
+        stale = new boolean[size * size];
+        stalePositions = new int[size * size];
+        frames = new int[size * size];
+        fromOwners = new int[size * size];
+        animating = new boolean[size * size];
+        animatingPositions = new int[size * size];
+
+        setBorder(new EmptyBorder(MARGIN, MARGIN, MARGIN, MARGIN));
+        setPreferredSize(new Dimension(size * PREFERRED_CELL_SIZE + 2 * MARGIN, size * PREFERRED_CELL_SIZE + 2 * MARGIN));
+        setOpaque(true);
+        addMouseListener(new MouseAdapter() {
+            /**
+             * Handles the click on the board.
+             *
+             * @param e The mouse event
+             */
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int position = getPositionAt(e.getX(), e.getY());
+                if(position>=0 && cellListener!=null)
+                    cellListener.accept(position);
+            }
+        });
+    }
+
+    @Override
+    public JComponent getComponent()
+    {
+        return this;
+    }
+
+    @Override
+    public void setPlayer(int position, int player)
+    {
+        if(owners[position]!=player || highlighted[position] || animating[position])
+        {
+            owners[position] = player;
+            highlighted[position] = false;
+            frames[position] = FlipAnimator.FRAMES;
+            repaintCell(position);
+        }
+    }
+
+    @Override
+    public void animatePlayer(int position, int player, int delay)
+    {
+        fromOwners[position] = animating[position] && frames[position] < 0 ? fromOwners[position] : owners[position];
+        owners[position] = player;
+        highlighted[position] = false;
+        frames[position] = -delay;
+        if(!animating[position])
+        {
+            animating[position] = true;
+            animatingPositions[animatingCount++] = position;
+        }
+        repaintCell(position);
+        FlipAnimator.start(animation);
+    }
+
+    /**
+     * Move the animating cells to their next frame, and repaint the ones which changed.
+     * @return true, if some cells are still animating, false otherwise
+     */
+    private boolean nextFrame()
+    {
+        beginUpdate();
+        for(int i = animatingCount - 1; i >= 0; i--)
+        {
+            int position = animatingPositions[i];
+            if(++frames[position] >= FlipAnimator.FRAMES)
+            {
+                animating[position] = false;
+                animatingPositions[i] = animatingPositions[--animatingCount];
+                repaintCell(position);
+            }
+            else if(frames[position] >= 0)
+                repaintCell(position);
+        }
+        endUpdate();
+        return animatingCount > 0;
+    }
+
+    @Override
+    public void highlight(int position)
+    {
+        if(!highlighted[position])
+        {
+            highlighted[position] = true;
+            repaintCell(position);
+        }
+    }
+
+    @Override
+    public void unhighlight(int position)
+    {
+        if(highlighted[position])
+        {
+            highlighted[position] = false;
+            repaintCell(position);
+        }
+    }
+
+    @Override
+    public void beginUpdate()
+    {
+        updateDepth++;
+    }
+
+    /**
+     * End a batch of changes, and repaint the smallest rectangle containing all of the changed cells with a single request.
+     */
+    @Override
+    public void endUpdate()
+    {
+        if(updateDepth==0)
+            throw new IllegalStateException("There is no batch of changes to end.");
+        if(--updateDepth > 0 || dirtyCount==0)
+            return;
+
+        int firstColumn = size, lastColumn = -1, firstRow = size, lastRow = -1;
+        for(int i = 0; i < dirtyCount; i++)
+        {
+            int position = dirtyPositions[i];
+            dirty[position] = false;
+            firstColumn = Math.min(firstColumn, position % size);
+            lastColumn = Math.max(lastColumn, position % size);
+            firstRow = Math.min(firstRow, position / size);
+            lastRow = Math.max(lastRow, position / size);
+        }
+        dirtyCount = 0;
+
+        int cell = getCellSize();
+        repaint(getBoardX(cell) + firstColumn * cell, getBoardY(cell) + firstRow * cell,
+                (lastColumn - firstColumn + 1) * cell, (lastRow - firstRow + 1) * cell);
+    }
+
+    @Override
+    public void setHint(int position, String text, Color color)
+    {
+        hintTexts[position] = text;
+        hintColors[position] = color;
+        repaintCell(position);
+    }
+
+    @Override
+    public void clearHint(int position)
+    {
+        if(hintTexts[position]!=null)
+        {
+            hintTexts[position] = null;
+            hintColors[position] = null;
+            repaintCell(position);
+        }
+    }
+
+    @Override
+    public void changeTheme(Theme theme)
+    {
+        this.theme = theme;
+        boardImage = null;
+        repaint();
+    }
+
+    @Override
+    public void setCellListener(IntConsumer listener)
+    {
+        cellListener = listener;
+    }
+
+    /**
+     * Get the size of a cell, in pixels.
+     * @return The size of a cell
+     */
+    private int getCellSize()
+    {
+        Insets insets = getInsets();
+        int width = getWidth() - insets.left - insets.right, height = getHeight() - insets.top - insets.bottom;
+        return Math.max(1, Math.min(width, height) / size);
+    }
+
+    /**
+     * Get the x coordinate of the left edge of the board.
+     * @param cell The size of a cell
+     * @return The x coordinate
+     */
+    private int getBoardX(int cell)
+    {
+        Insets insets = getInsets();
+        return insets.left + (getWidth() - insets.left - insets.right - cell * size) / 2;
+    }
+
+    /**
+     * Get the y coordinate of the top edge of the board.
+     * @param cell The size of a cell
+     * @return The y coordinate
+     */
+    private int getBoardY(int cell)
+    {
+        Insets insets = getInsets();
+        return insets.top + (getHeight() - insets.top - insets.bottom - cell * size) / 2;
+    }
+
+    /**
+     * Get the cell at the given coordinates.
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @return The list position of the cell, or -1 if the coordinates are outside of the board
+     */
+    private int getPositionAt(int x, int y)
+    {
+        int cell = getCellSize();
+        int column = Math.floorDiv(x - getBoardX(cell), cell), row = Math.floorDiv(y - getBoardY(cell), cell);
+        if(column<0 || column>=size || row<0 || row>=size)
+            return -1;
+        return GameBoard.getListPosition(column, row, size);
+    }
+
+    /**
+     * Repaint the rectangle of a single cell, or remember the cell until the end of the current batch of changes.
+     * @param position The list position of the cell
+     */
+    private void repaintCell(int position)
+    {
+        if(!stale[position])
+        {
+            stale[position] = true;
+            stalePositions[staleCount++] = position;
+        }
+        if(updateDepth > 0)
+        {
+            if(!dirty[position])
+            {
+                dirty[position] = true;
+                dirtyPositions[dirtyCount++] = position;
+            }
+            return;
+        }
+        int cell = getCellSize();
+        repaint(getBoardX(cell) + position % size * cell, getBoardY(cell) + position / size * cell, cell, cell);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        long start = System.nanoTime();
+        Graphics2D g2 = (Graphics2D) g;
+        int cell = getCellSize();
+        int boardX = getBoardX(cell), boardY = getBoardY(cell);
+        AffineTransform transform = g2.getTransform();
+        double scale = Math.max(1, Math.max(transform.getScaleX(), transform.getScaleY()));
+
+        if(boardImage==null || imageCellSize!=cell || imageScale!=scale)
+            createBoardImage(cell, scale);
+        else
+            for(int i = 0; i < staleCount; i++)
+            {
+                int position = stalePositions[i];
+                stale[position] = false;
+                paintCell(boardGraphics, position, position % size * cell, position / size * cell, cell);
+            }
+        staleCount = 0;
+
+        g2.setColor(getBackground()!=null ? getBackground() : UIManager.getColor("Panel.background"));
+        g2.fillRect(0, 0, getWidth(), boardY);
+        g2.fillRect(0, boardY + cell * size, getWidth(), getHeight() - boardY - cell * size);
+        g2.fillRect(0, boardY, boardX, cell * size);
+        g2.fillRect(boardX + cell * size, boardY, getWidth() - boardX - cell * size, cell * size);
+        g2.drawImage(boardImage, boardX, boardY, cell * size, cell * size, null);
+        paintTimes.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Create the image of the board for the given cell size and screen scale, and draw every cell into it.
+     * @param cell The size of a cell
+     * @param scale The scale of the screen
+     */
+    private void createBoardImage(int cell, double scale)
+    {
+        if(boardGraphics!=null)
+            boardGraphics.dispose();
+
+        int pixels = (int) Math.ceil(cell * size * scale);
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        boardImage = configuration!=null ? configuration.createCompatibleImage(pixels, pixels, Transparency.OPAQUE)
+                : new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_RGB);
+        boardGraphics = boardImage.createGraphics();
+        boardGraphics.scale(pixels / (double) (cell * size), pixels / (double) (cell * size));
+        boardGraphics.setFont(getFont()!=null ? getFont() : new Font(Font.DIALOG, Font.PLAIN, 12));
+        boardGraphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        imageCellSize = cell;
+        imageScale = scale;
+
+        for(int position = 0; position < size * size; position++)
+        {
+            stale[position] = false;
+            paintCell(boardGraphics, position, position % size * cell, position / size * cell, cell);
+        }
+    }
+
+    /**
+     * Paint a single cell, the same way as a board button.
+     * @param g The graphics
+     * @param position The list position of the cell
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     * @param cell The size of the cell
+     */
+    private void paintCell(Graphics2D g, int position, int x, int y, int cell)
+    {
+        g.setColor(highlighted[position] ? BoardButton.HIGHLIGHT : BoardButton.NORMAL);
+        g.fillRect(x, y, cell, cell);
+        g.setColor(Color.DARK_GRAY);
+        g.drawRect(x, y, cell - 1, cell - 1);
+
+        int owner = owners[position];
+        if(animating[position] && frames[position] < FlipAnimator.FRAMES)
+        {
+            Color from = fromOwners[position]==BoardButton.NOPLAYER ? null : getColor(fromOwners[position]);
+            if(frames[position] >= 0)
+                FlipAnimator.paintDisc(g, from, getColor(owner), frames[position], x + 5, y + 5, cell - 10);
+            else if(from!=null)
+                DiscSprites.drawDisc(g, from, x + 5, y + 5, cell - 10);
+        }
+        else if(owner!=BoardButton.NOPLAYER || highlighted[position])
+            DiscSprites.drawDisc(g, owner==BoardButton.NOPLAYER ? BoardButton.HIGHLIGHT_CIRCLE : getColor(owner), x + 5, y + 5, cell - 10);
+
+        if(hintTexts[position]!=null)
+        {
+            g.setColor(hintColors[position]);
+            g.fillRect(x, y, cell, cell);
+            g.setColor(Color.BLACK);
+            Font font = g.getFont();
+            g.setFont(font.deriveFont(Font.BOLD, Math.max(10f, cell / 4f)));
+            FontMetrics metrics = g.getFontMetrics();
+            String text = hintTexts[position];
+            g.drawString(text, x + (cell - metrics.stringWidth(text)) / 2, y + (cell - metrics.getHeight()) / 2 + metrics.getAscent());
+            g.setFont(font);
+        }
+    }
+
+    /**
+     * Get the colour of a player's discs.
+     * @param owner PLAYER1 or PLAYER2
+     * @return The colour of the discs
+     */
+    private Color getColor(int owner)
+    {
+        return owner==BoardButton.PLAYER1 ? theme.getColor1() : theme.getColor2();
+    }
+}
@@ -0,0 +1,159 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Draws a game board into an image of any resolution, without using any Swing component, so that boards can be drawn on any thread
+ * and without a display. The board looks like the one in the game: grey cells with dark grid lines, and the discs in the colours
+ * of the theme.
+ *
+ * Run on its own, the renderer writes a PNG thumbnail of the board of every save file in a folder:
+ * BoardRenderer &lt;saves folder&gt; &lt;output folder&gt; [size in pixels]
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class BoardRenderer
+{
+    public static final int DEFAULT_THUMBNAIL_SIZE = 256;
+
+    private final Theme theme;
+
+    /**
+     * Constructor for the board renderer.
+     * @param theme The theme of the discs
+     */
+    public BoardRenderer(Theme theme)
+    {
+        if(theme==null)
+            throw new IllegalArgumentException("The theme cannot be null.");
+        this.theme = theme;
+    }
+
+    /**
+     * Render a game board into a new image.
+     * @param gameBoard The game board
+     * @param pixels The width and height of the image
+     * @return The image
+     */
+    public BufferedImage render(GameBoard gameBoard, int pixels)
+    {
+        if(gameBoard==null)
+            throw new IllegalArgumentException("The game board cannot be null.");
+        int[] owners = new int[gameBoard.getSize() * gameBoard.getSize()];
+        for(int position = 0; position < owners.length; position++)
+            owners[position] = gameBoard.getOwner(position);
+        return render(owners, gameBoard.getSize(), pixels);
+    }
+
+    /**
+     * Render the cells of a board into a new image.
+     * @param owners The owner of every cell (NOPLAYER, PLAYER1 or PLAYER2), by list position
+     * @param size The size of the board
+     * @param pixels The width and height of the image
+     * @return The image
+     */
+    public BufferedImage render(int[] owners, int size, int pixels)
+    {
+        if(pixels<=0)
+            throw new IllegalArgumentException("The size of the image must be positive.");
+        BufferedImage image = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        paint(g, owners, size, 0, 0, pixels);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Paint the cells of a board into a square area of the given graphics.
+     * @param g The graphics
+     * @param owners The owner of every cell (NOPLAYER, PLAYER1 or PLAYER2), by list position
+     * @param size The size of the board
+     * @param x The x coordinate of the board
+     * @param y The y coordinate of the board
+     * @param pixels The width and height of the board
+     */
+    public void paint(Graphics2D g, int[] owners, int size, int x, int y, int pixels)
+    {
+        if(owners==null)
+            throw new IllegalArgumentException("The owners cannot be null.");
+        if(size<=0 || owners.length!=size * size)
+            throw new IllegalArgumentException("The owners do not match the size of the board.");
+
+        Object antialiasing = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        for(int row = 0; row < size; row++)
+        {
+            int top = y + row * pixels / size, bottom = y + (row + 1) * pixels / size;
+            for(int column = 0; column < size; column++)
+            {
+                int left = x + column * pixels / size, right = x + (column + 1) * pixels / size;
+                int width = right - left, height = bottom - top;
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+                g.setColor(BoardButton.NORMAL);
+                g.fillRect(left, top, width, height);
+                g.setColor(Color.DARK_GRAY);
+                g.drawRect(left, top, width - 1, height - 1);
+
+                int owner = owners[GameBoard.getListPosition(column, row, size)];
+                if(owner!=GameBoard.NOPLAYER)
+                {
+                    int inset = Math.max(1, Math.min(width, height) / 12);
+                    g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                    g.setColor(owner==GameBoard.PLAYER1 ? theme.getColor1() : theme.getColor2());
+                    g.fillOval(left + inset, top + inset, width - 2 * inset, height - 2 * inset);
+                    g.setColor(BoardButton.NORMAL);
+                    g.drawOval(left + inset, top + inset, width - 2 * inset, height - 2 * inset);
+                }
+            }
+        }
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+    }
+
+    /**
+     * Write a thumbnail of the board of every save file in a folder, using the classic theme. The thumbnails are rendered in
+     * parallel, and named after the save files.
+     * @param args The saves folder, the output folder and, optionally, the size of the thumbnails in pixels
+     */
+    public static void main(String[] args)
+    {
+        if(args.length<2)
+        {
+            System.out.println("Usage: BoardRenderer <saves folder> <output folder> [size in pixels]");
+            return;
+        }
+        int pixels = args.length>2 ? Integer.parseInt(args[2]) : DEFAULT_THUMBNAIL_SIZE;
+        File output = new File(args[1]);
+        if(!output.isDirectory() && !output.mkdirs())
+        {
+            System.out.println("The output folder could not be created.");
+            return;
+        }
+        File[] saves = new File(args[0]).listFiles(file -> file.getName().endsWith(".rev") && SessionFormat.isValidSaveFile(file));
+        if(saves==null)
+        {
+            System.out.println("The saves folder could not be read.");
+            return;
+        }
+
+        BoardRenderer renderer = new BoardRenderer(new Theme("Classic", Color.BLACK, "Black", Color.WHITE, "White"));
+        AtomicInteger written = new AtomicInteger();
+        long start = System.nanoTime();
+        Arrays.stream(saves).parallel().forEach(save -> {
+            String name = save.getName().substring(0, save.getName().length() - ".rev".length());
+            try {
+                GameBoard gameBoard = Session.loadFromFile(save.getPath()).getGameBoard();
+                if(gameBoard==null)
+                    return;
+                ImageIO.write(renderer.render(gameBoard, pixels), "png", new File(output, name + ".png"));
+                written.incrementAndGet();
+            } catch (LoadSessionException | IOException e) {
+                System.out.println("Could not create the thumbnail of " + save.getName() + ".");
+            }
+        });
+        System.out.println(written.get() + " thumbnails written in " + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+}
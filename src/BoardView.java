@@ -0,0 +1,97 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.function.IntConsumer;
+
+/**
+ * A view of the cells of a game board. The cells are identified by their list position, and their owners use the constants of
+ * BoardButton (NOPLAYER, PLAYER1, PLAYER2).
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public interface BoardView
+{
+    /**
+     * Create a view of a board of the given size. Large boards always get a zoomable viewport, since they do not fit on the screen.
+     * @param size The size of the board
+     * @param theme The theme
+     * @param singleComponent true, for a view painted by a single component, false for a grid of board buttons
+     * @return The view
+     */
+    static BoardView create(int size, Theme theme, boolean singleComponent)
+    {
+        if(size>=BoardViewport.LARGE_BOARD_SIZE)
+            return new BoardViewport(size, theme);
+        return singleComponent ? new BoardCanvas(size, theme) : new ButtonGridView(size, theme);
+    }
+
+    /**
+     * Get the component which shows the board.
+     * @return The component
+     */
+    JComponent getComponent();
+
+    /**
+     * Change the owner of a cell.
+     * @param position The list position of the cell
+     * @param player The new owner
+     */
+    void setPlayer(int position, int player);
+
+    /**
+     * Change the owner of a cell with an animation: a placed disc grows, and a flipped disc turns over.
+     * @param position The list position of the cell
+     * @param player The new owner
+     * @param delay The number of frames to wait before the animation starts
+     */
+    void animatePlayer(int position, int player, int delay);
+
+    /**
+     * Highlight a cell which the current player can press.
+     * @param position The list position of the cell
+     */
+    void highlight(int position);
+
+    /**
+     * Remove the highlight of a cell, if it has one.
+     * @param position The list position of the cell
+     */
+    void unhighlight(int position);
+
+    /**
+     * Start a batch of changes. The cells changed until the matching endUpdate() are repainted together, when the batch ends.
+     * Batches can be nested; only the outermost one repaints.
+     */
+    void beginUpdate();
+
+    /**
+     * End a batch of changes started by beginUpdate().
+     */
+    void endUpdate();
+
+    /**
+     * Show a hint on top of a cell.
+     * @param position The list position of the cell
+     * @param text The text of the hint
+     * @param color The tint of the hint
+     */
+    void setHint(int position, String text, Color color);
+
+    /**
+     * Remove the hint from a cell, if there is one.
+     * @param position The list position of the cell
+     */
+    void clearHint(int position);
+
+    /**
+     * Change the theme of the board.
+     * @param theme The new theme
+     */
+    void changeTheme(Theme theme);
+
+    /**
+     * Set the listener called with the list position of every pressed cell.
+     * @param listener The listener, or null to stop reacting to the mouse
+     */
+    void setCellListener(IntConsumer listener);
+}
@@ -0,0 +1,740 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * A zoomable view of the board for boards too large to be shown whole, such as 256 x 256. The mouse wheel zooms around the
+ * pointer, dragging the board pans it, and the + and - keys zoom around the centre, while 0 fits the whole board again. A
+ * click which does not move the board plays the cell under the pointer.
+ *
+ * Only the cells inside the repainted area are drawn, and how they are drawn depends on the size of a cell on the screen: large
+ * cells look like board buttons, with animations and hints; medium cells are drawn as plain discs on a grid; small cells down to
+ * a single pixel are copied from an image of the board with one pixel per cell, which is updated with every change and also shows
+ * the minimap of the board in the corner, with the visible area outlined. The minimap can be pressed or dragged to move there.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class BoardViewport extends JComponent implements BoardView
+{
+    public static final int LARGE_BOARD_SIZE = 14;
+
+    private static final int VIEWPORT_SIZE = 720;
+    private static final int MARGIN = 7;
+    private static final double MAX_CELL_SIZE = 80;
+    private static final double ZOOM_STEP = 1.25;
+    private static final double CELL_DETAIL = 6, SPRITE_DETAIL = 16, TEXT_DETAIL = 24;
+    private static final int MINIMAP_SIZE = 160;
+    private static final int DRAG_THRESHOLD = 4;
+    private static final Color VISIBLE_AREA = Color.YELLOW;
+    private static final int HIGHLIGHTED = 3;
+
+    private static final MetricsRegistry.Histogram paintTimes = MetricsRegistry.get().histogram(MetricsRegistry.PAINT_TIME);
+
+    private final int size;
+    private final int[] owners;
+    private final boolean[] highlighted;
+    private final String[] hintTexts;
+    private final Color[] hintColors;
+    private final int[] frames, fromOwners;
+    private final boolean[] animating;
+    private final int[] animatingPositions;
+    private int animatingCount;
+    private final FlipAnimator.Animated animation = this::nextFrame;
+    private final BufferedImage cellImage;
+    private final HashMap<Integer, BufferedImage> stamps = new HashMap<>();
+    private int updateDepth;
+    private Rectangle dirtyArea;
+    private double cellSize, offsetX, offsetY;
+    private boolean fitted = true;
+    private Point pressPoint, dragPoint;
+    private boolean dragging, minimapDragging;
+    private Theme theme;
+    private IntConsumer cellListener;
+
+    /**
+     * Constructor for the board viewport.
+     * @param size The size of the board
+     * @param theme The theme
+     */
+    public BoardViewport(int size, Theme theme)
+    {
+        if(size<=0)
+            throw new IllegalSizeException("The size must be positive.");
+        if(theme==null)
+            throw new IllegalArgumentException("The theme cannot be null.");
+        this.size = size;
+        this.theme = theme;
+        owners = new int[size * size];
+        highlighted = new boolean[size * size];
+        hintTexts = new String[size * size];
+        hintColors = new Color[size * size];
+        frames = new int[size * size];
+        fromOwners = new int[size * size];
+        animating = new boolean[size * size];
+        animatingPositions = new int[size * size];
+        cellImage = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        redrawCellImage();
+
+        int preferred = (int) Math.min(size * MAX_CELL_SIZE, VIEWPORT_SIZE) + 2 * MARGIN;
+        setPreferredSize(new Dimension(preferred, preferred));
+        setOpaque(true);
+
+        MouseAdapter mouse = new MouseAdapter() {
+            /**
+             * Start dragging the board or the minimap.
+             *
+             * @param e The mouse event
+             */
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if(isMinimapShown() && getMinimapBounds().contains(e.getPoint()))
+                {
+                    minimapDragging = true;
+                    moveToMinimap(e.getX(), e.getY());
+                    return;
+                }
+                pressPoint = e.getPoint();
+                dragPoint = e.getPoint();
+                dragging = false;
+            }
+
+            /**
+             * Pan the board, once the mouse has moved far enough from where it was pressed.
+             *
+             * @param e The mouse event
+             */
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if(minimapDragging)
+                {
+                    moveToMinimap(e.getX(), e.getY());
+                    return;
+                }
+                if(pressPoint==null)
+                    return;
+                if(!dragging && pressPoint.distance(e.getPoint()) > DRAG_THRESHOLD)
+                {
+                    dragging = true;
+                    setCursor(Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR));
+                }
+                if(dragging)
+                {
+                    panBy(e.getX() - dragPoint.x, e.getY() - dragPoint.y);
+                    dragPoint = e.getPoint();
+                }
+            }
+
+            /**
+             * Play the pressed cell, unless the board was dragged.
+             *
+             * @param e The mouse event
+             */
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if(!minimapDragging && pressPoint!=null && !dragging)
+                {
+                    int position = getPositionAt(pressPoint.x, pressPoint.y);
+                    if(position>=0 && cellListener!=null)
+                        cellListener.accept(position);
+                }
+                minimapDragging = false;
+                pressPoint = null;
+                dragging = false;
+                setCursor(null);
+            }
+
+            /**
+             * Zoom around the mouse pointer.
+             *
+             * @param e The mouse wheel event
+             */
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+
+        addComponentListener(new ComponentAdapter() {
+            /**
+             * Keep the whole board visible while it fits, and the view on the board otherwise.
+             *
+             * @param e The component event
+             */
+            @Override
+            public void componentResized(ComponentEvent e) {
+                if(fitted || cellSize==0)
+                    cellSize = getFitCellSize();
+                clampOffsets();
+                repaint();
+            }
+        });
+
+        InputMap keys = getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_EQUALS, 0), "zoomIn");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_PLUS, 0), "zoomIn");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_ADD, 0), "zoomIn");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_MINUS, 0), "zoomOut");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_SUBTRACT, 0), "zoomOut");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_0, 0), "fit");
+        getActionMap().put("zoomIn", zoomAction(ZOOM_STEP));
+        getActionMap().put("zoomOut", zoomAction(1 / ZOOM_STEP));
+        getActionMap().put("fit", zoomAction(0));
+    }
+
+    @Override
+    public JComponent getComponent()
+    {
+        return this;
+    }
+
+    @Override
+    public void setPlayer(int position, int player)
+    {
+        if(owners[position]!=player || highlighted[position] || animating[position])
+        {
+            owners[position] = player;
+            highlighted[position] = false;
+            frames[position] = FlipAnimator.FRAMES;
+            updateCell(position);
+        }
+    }
+
+    /**
+     * Change the owner of a cell with an animation. The animation is only shown when the cells are large enough to show discs.
+     * @param position The list position of the cell
+     * @param player The new owner
+     * @param delay The number of frames to wait before the animation starts
+     */
+    @Override
+    public void animatePlayer(int position, int player, int delay)
+    {
+        if(cellSize < SPRITE_DETAIL)
+        {
+            setPlayer(position, player);
+            return;
+        }
+        fromOwners[position] = animating[position] && frames[position] < 0 ? fromOwners[position] : owners[position];
+        owners[position] = player;
+        highlighted[position] = false;
+        frames[position] = -delay;
+        if(!animating[position])
+        {
+            animating[position] = true;
+            animatingPositions[animatingCount++] = position;
+        }
+        updateCell(position);
+        FlipAnimator.start(animation);
+    }
+
+    /**
+     * Move the animating cells to their next frame, and repaint the ones which changed.
+     * @return true, if some cells are still animating, false otherwise
+     */
+    private boolean nextFrame()
+    {
+        beginUpdate();
+        for(int i = animatingCount - 1; i >= 0; i--)
+        {
+            int position = animatingPositions[i];
+            if(++frames[position] >= FlipAnimator.FRAMES)
+            {
+                animating[position] = false;
+                animatingPositions[i] = animatingPositions[--animatingCount];
+                repaintCell(position);
+            }
+            else if(frames[position] >= 0)
+                repaintCell(position);
+        }
+        endUpdate();
+        return animatingCount > 0;
+    }
+
+    @Override
+    public void highlight(int position)
+    {
+        if(!highlighted[position])
+        {
+            highlighted[position] = true;
+            updateCell(position);
+        }
+    }
+
+    @Override
+    public void unhighlight(int position)
+    {
+        if(highlighted[position])
+        {
+            highlighted[position] = false;
+            updateCell(position);
+        }
+    }
+
+    @Override
+    public void beginUpdate()
+    {
+        updateDepth++;
+    }
+
+    /**
+     * End a batch of changes, and repaint the smallest rectangle containing all of the changed cells with a single request.
+     */
+    @Override
+    public void endUpdate()
+    {
+        if(updateDepth==0)
+            throw new IllegalStateException("There is no batch of changes to end.");
+        if(--updateDepth > 0 || dirtyArea==null)
+            return;
+        repaint(dirtyArea);
+        dirtyArea = null;
+        if(isMinimapShown())
+            repaint(getMinimapBounds());
+    }
+
+    @Override
+    public void setHint(int position, String text, Color color)
+    {
+        hintTexts[position] = text;
+        hintColors[position] = color;
+        repaintCell(position);
+    }
+
+    @Override
+    public void clearHint(int position)
+    {
+        if(hintTexts[position]!=null)
+        {
+            hintTexts[position] = null;
+            hintColors[position] = null;
+            repaintCell(position);
+        }
+    }
+
+    @Override
+    public void changeTheme(Theme theme)
+    {
+        this.theme = theme;
+        stamps.clear();
+        redrawCellImage();
+        repaint();
+    }
+
+    @Override
+    public void setCellListener(IntConsumer listener)
+    {
+        cellListener = listener;
+    }
+
+    /**
+     * Create the action of a zoom key.
+     * @param factor The factor by which the cells grow around the centre of the view, or 0 to fit the whole board
+     * @return The action
+     */
+    private Action zoomAction(double factor)
+    {
+        return new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                zoom(factor, getWidth() / 2.0, getHeight() / 2.0);
+            }
+        };
+    }
+
+    /**
+     * Zoom the board around a point, which stays over the same spot of the board.
+     * @param factor The factor by which the cells grow, or 0 to fit the whole board
+     * @param x The x coordinate of the point
+     * @param y The y coordinate of the point
+     */
+    private void zoom(double factor, double x, double y)
+    {
+        double fit = getFitCellSize();
+        double newCellSize = factor==0 ? fit : Math.max(fit, Math.min(MAX_CELL_SIZE, cellSize * factor));
+        if(newCellSize==cellSize)
+            return;
+        offsetX = x - (x - offsetX) * newCellSize / cellSize;
+        offsetY = y - (y - offsetY) * newCellSize / cellSize;
+        cellSize = newCellSize;
+        fitted = newCellSize<=fit;
+        clampOffsets();
+        repaint();
+    }
+
+    /**
+     * Move the board by the given number of pixels.
+     * @param dx The horizontal distance
+     * @param dy The vertical distance
+     */
+    private void panBy(int dx, int dy)
+    {
+        double oldX = offsetX, oldY = offsetY;
+        offsetX += dx;
+        offsetY += dy;
+        clampOffsets();
+        if(offsetX!=oldX || offsetY!=oldY)
+            repaint();
+    }
+
+    /**
+     * Centre the view on the spot of the board shown at the given point of the minimap.
+     * @param x The x coordinate of the point
+     * @param y The y coordinate of the point
+     */
+    private void moveToMinimap(int x, int y)
+    {
+        Rectangle minimap = getMinimapBounds();
+        double column = (x - minimap.x) * (double) size / minimap.width, row = (y - minimap.y) * (double) size / minimap.height;
+        offsetX = getWidth() / 2.0 - column * cellSize;
+        offsetY = getHeight() / 2.0 - row * cellSize;
+        clampOffsets();
+        repaint();
+    }
+
+    /**
+     * Get the size of a cell for which the whole board fits in the view.
+     * @return The size of a cell, in pixels
+     */
+    private double getFitCellSize()
+    {
+        int width = getWidth() > 0 ? getWidth() : getPreferredSize().width;
+        int height = getHeight() > 0 ? getHeight() : getPreferredSize().height;
+        return Math.max(0.25, Math.min(MAX_CELL_SIZE, (Math.min(width, height) - 2 * MARGIN) / (double) size));
+    }
+
+    /**
+     * Centre the board along every axis on which it fits, and keep it in view along the others.
+     */
+    private void clampOffsets()
+    {
+        offsetX = clampOffset(offsetX, getWidth());
+        offsetY = clampOffset(offsetY, getHeight());
+    }
+
+    /**
+     * Get the offset of the board along an axis, centred if the board fits, or kept within the margins otherwise.
+     * @param offset The offset of the board, in pixels
+     * @param length The length of the view along the axis
+     * @return The clamped offset
+     */
+    private double clampOffset(double offset, int length)
+    {
+        double board = size * cellSize;
+        if(board + 2 * MARGIN <= length)
+            return (length - board) / 2;
+        return Math.max(length - MARGIN - board, Math.min(MARGIN, offset));
+    }
+
+    /**
+     * Get the x coordinate of the left edge of a column, or of the right edge of the previous one.
+     * @param column The column
+     * @return The x coordinate
+     */
+    private int getColumnX(int column)
+    {
+        return (int) Math.floor(offsetX + column * cellSize);
+    }
+
+    /**
+     * Get the y coordinate of the top edge of a row, or of the bottom edge of the previous one.
+     * @param row The row
+     * @return The y coordinate
+     */
+    private int getRowY(int row)
+    {
+        return (int) Math.floor(offsetY + row * cellSize);
+    }
+
+    /**
+     * Get the cell at the given coordinates.
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @return The list position of the cell, or -1 if the coordinates are outside of the board
+     */
+    private int getPositionAt(int x, int y)
+    {
+        if(cellSize==0)
+            return -1;
+        int column = (int) Math.floor((x - offsetX) / cellSize), row = (int) Math.floor((y - offsetY) / cellSize);
+        if(column<0 || column>=size || row<0 || row>=size)
+            return -1;
+        return GameBoard.getListPosition(column, row, size);
+    }
+
+    /**
+     * Checks whether part of the board is outside of the view, in which case the minimap is shown.
+     * @return true, if the minimap is shown, false otherwise
+     */
+    private boolean isMinimapShown()
+    {
+        return size * cellSize + 2 * MARGIN > Math.min(getWidth(), getHeight()) && getWidth() > 2 * MINIMAP_SIZE
+                && getHeight() > 2 * MINIMAP_SIZE;
+    }
+
+    /**
+     * Get the bounds of the minimap, in the bottom right corner of the view.
+     * @return The bounds of the minimap
+     */
+    private Rectangle getMinimapBounds()
+    {
+        return new Rectangle(getWidth() - MARGIN - MINIMAP_SIZE, getHeight() - MARGIN - MINIMAP_SIZE, MINIMAP_SIZE, MINIMAP_SIZE);
+    }
+
+    /**
+     * Update the pixel of a cell in the image of the board, and repaint the cell.
+     * @param position The list position of the cell
+     */
+    private void updateCell(int position)
+    {
+        cellImage.setRGB(position % size, position / size, getPixelColor(position).getRGB());
+        repaintCell(position);
+    }
+
+    /**
+     * Draw every cell into the image of the board.
+     */
+    private void redrawCellImage()
+    {
+        for(int position = 0; position < size * size; position++)
+            cellImage.setRGB(position % size, position / size, getPixelColor(position).getRGB());
+    }
+
+    /**
+     * Get the colour of a cell in the image of the board.
+     * @param position The list position of the cell
+     * @return The colour of the disc, or of the empty cell
+     */
+    private Color getPixelColor(int position)
+    {
+        if(owners[position]!=BoardButton.NOPLAYER)
+            return getColor(owners[position]);
+        return highlighted[position] ? BoardButton.HIGHLIGHT : BoardButton.NORMAL;
+    }
+
+    /**
+     * Repaint the rectangle of a single cell and the minimap, or remember the cell until the end of the current batch of changes.
+     * @param position The list position of the cell
+     */
+    private void repaintCell(int position)
+    {
+        int column = position % size, row = position / size;
+        int x = getColumnX(column), y = getRowY(row);
+        Rectangle bounds = new Rectangle(x, y, Math.max(1, getColumnX(column + 1) - x), Math.max(1, getRowY(row + 1) - y));
+        if(updateDepth > 0)
+        {
+            dirtyArea = dirtyArea==null ? bounds : dirtyArea.union(bounds);
+            return;
+        }
+        repaint(bounds);
+        if(isMinimapShown())
+            repaint(getMinimapBounds());
+    }
+
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        long start = System.nanoTime();
+        if(cellSize==0)
+        {
+            cellSize = getFitCellSize();
+            clampOffsets();
+        }
+        Graphics2D g2 = (Graphics2D) g.create();
+        Rectangle clip = g2.getClipBounds();
+        if(clip==null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g2.setColor(getBackground()!=null ? getBackground() : UIManager.getColor("Panel.background"));
+        g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int firstColumn = Math.max(0, (int) Math.floor((clip.x - offsetX) / cellSize));
+        int lastColumn = Math.min(size - 1, (int) Math.floor((clip.x + clip.width - offsetX) / cellSize));
+        int firstRow = Math.max(0, (int) Math.floor((clip.y - offsetY) / cellSize));
+        int lastRow = Math.min(size - 1, (int) Math.floor((clip.y + clip.height - offsetY) / cellSize));
+        if(firstColumn<=lastColumn && firstRow<=lastRow)
+        {
+            if(cellSize < CELL_DETAIL)
+                paintPixels(g2, firstColumn, lastColumn, firstRow, lastRow);
+            else
+                paintCells(g2, firstColumn, lastColumn, firstRow, lastRow);
+        }
+
+        if(isMinimapShown() && clip.intersects(getMinimapBounds()))
+            paintMinimap(g2);
+        g2.dispose();
+        paintTimes.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Paint the visible cells by scaling their part of the image of the board, one pixel per cell.
+     * @param g The graphics
+     * @param firstColumn The first visible column
+     * @param lastColumn The last visible column
+     * @param firstRow The first visible row
+     * @param lastRow The last visible row
+     */
+    private void paintPixels(Graphics2D g, int firstColumn, int lastColumn, int firstRow, int lastRow)
+    {
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.drawImage(cellImage, getColumnX(firstColumn), getRowY(firstRow), getColumnX(lastColumn + 1), getRowY(lastRow + 1),
+                firstColumn, firstRow, lastColumn + 1, lastRow + 1, null);
+    }
+
+    /**
+     * Paint the visible cells one by one: as board buttons when they are large, and as plain discs on a grid otherwise.
+     * @param g The graphics
+     * @param firstColumn The first visible column
+     * @param lastColumn The last visible column
+     * @param firstRow The first visible row
+     * @param lastRow The last visible row
+     */
+    private void paintCells(Graphics2D g, int firstColumn, int lastColumn, int firstRow, int lastRow)
+    {
+        boolean sprites = cellSize >= SPRITE_DETAIL;
+        if(sprites)
+        {
+            g.setFont(getFont()!=null ? getFont() : new Font(Font.DIALOG, Font.PLAIN, 12));
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        }
+        for(int row = firstRow; row <= lastRow; row++)
+        {
+            int y = getRowY(row), height = getRowY(row + 1) - y;
+            for(int column = firstColumn; column <= lastColumn; column++)
+            {
+                int x = getColumnX(column), width = getColumnX(column + 1) - x;
+                int position = GameBoard.getListPosition(column, row, size);
+                if(sprites)
+                    paintCell(g, position, x, y, Math.min(width, height));
+                else
+                    paintSimpleCell(g, position, x, y, width, height);
+            }
+        }
+    }
+
+    /**
+     * Paint a cell with a plain disc and no hint, for cells too small to show the details of a board button. The cell is copied from
+     * a stamp of its owner, highlight and size, drawn the first time it is needed.
+     * @param g The graphics
+     * @param position The list position of the cell
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     * @param width The width of the cell
+     * @param height The height of the cell
+     */
+    private void paintSimpleCell(Graphics2D g, int position, int x, int y, int width, int height)
+    {
+        int state = owners[position]!=BoardButton.NOPLAYER ? owners[position] : (highlighted[position] ? HIGHLIGHTED : BoardButton.NOPLAYER);
+        int key = state << 16 | width << 8 | height;
+        BufferedImage stamp = stamps.get(key);
+        if(stamp==null)
+        {
+            stamp = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D stampGraphics = stamp.createGraphics();
+            stampGraphics.setColor(state==HIGHLIGHTED ? BoardButton.HIGHLIGHT : BoardButton.NORMAL);
+            stampGraphics.fillRect(0, 0, width, height);
+            stampGraphics.setColor(Color.DARK_GRAY);
+            stampGraphics.drawRect(0, 0, width - 1, height - 1);
+            if(state==BoardButton.PLAYER1 || state==BoardButton.PLAYER2)
+            {
+                int inset = Math.max(1, width / 8);
+                stampGraphics.setColor(getColor(state));
+                stampGraphics.fillOval(inset, inset, width - 2 * inset, height - 2 * inset);
+            }
+            stampGraphics.dispose();
+            stamps.put(key, stamp);
+        }
+        g.drawImage(stamp, x, y, null);
+    }
+
+    /**
+     * Paint a single cell, the same way as a board button.
+     * @param g The graphics
+     * @param position The list position of the cell
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     * @param cell The size of the cell
+     */
+    private void paintCell(Graphics2D g, int position, int x, int y, int cell)
+    {
+        g.setColor(highlighted[position] ? BoardButton.HIGHLIGHT : BoardButton.NORMAL);
+        g.fillRect(x, y, cell, cell);
+        g.setColor(Color.DARK_GRAY);
+        g.drawRect(x, y, cell - 1, cell - 1);
+
+        int inset = Math.max(1, cell / 16);
+        int owner = owners[position];
+        if(animating[position] && frames[position] < FlipAnimator.FRAMES)
+        {
+            Color from = fromOwners[position]==BoardButton.NOPLAYER ? null : getColor(fromOwners[position]);
+            if(frames[position] >= 0)
+                FlipAnimator.paintDisc(g, from, getColor(owner), frames[position], x + inset, y + inset, cell - 2 * inset);
+            else if(from!=null)
+                DiscSprites.drawDisc(g, from, x + inset, y + inset, cell - 2 * inset);
+        }
+        else if(owner!=BoardButton.NOPLAYER || highlighted[position])
+            DiscSprites.drawDisc(g, owner==BoardButton.NOPLAYER ? BoardButton.HIGHLIGHT_CIRCLE : getColor(owner), x + inset, y + inset,
+                    cell - 2 * inset);
+
+        if(hintTexts[position]!=null)
+        {
+            g.setColor(hintColors[position]);
+            g.fillRect(x, y, cell, cell);
+            if(cellSize >= TEXT_DETAIL)
+            {
+                g.setColor(Color.BLACK);
+                Font font = g.getFont();
+                g.setFont(font.deriveFont(Font.BOLD, Math.max(10f, cell / 4f)));
+                FontMetrics metrics = g.getFontMetrics();
+                String text = hintTexts[position];
+                g.drawString(text, x + (cell - metrics.stringWidth(text)) / 2, y + (cell - metrics.getHeight()) / 2 + metrics.getAscent());
+                g.setFont(font);
+            }
+        }
+    }
+
+    /**
+     * Paint the minimap: the whole board, one pixel per cell, scaled to the minimap, with the visible area outlined.
+     * @param g The graphics
+     */
+    private void paintMinimap(Graphics2D g)
+    {
+        Rectangle minimap = getMinimapBounds();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.drawImage(cellImage, minimap.x, minimap.y, minimap.width, minimap.height, null);
+        g.setColor(Color.DARK_GRAY);
+        g.drawRect(minimap.x - 1, minimap.y - 1, minimap.width + 1, minimap.height + 1);
+
+        double board = size * cellSize;
+        int x = minimap.x + (int) Math.round(Math.max(0, -offsetX) / board * minimap.width);
+        int y = minimap.y + (int) Math.round(Math.max(0, -offsetY) / board * minimap.height);
+        int width = (int) Math.round(Math.min(1, getWidth() / board) * minimap.width);
+        int height = (int) Math.round(Math.min(1, getHeight() / board) * minimap.height);
+        width = Math.max(1, Math.min(width, minimap.x + minimap.width - x) - 1);
+        height = Math.max(1, Math.min(height, minimap.y + minimap.height - y) - 1);
+        g.setColor(Color.DARK_GRAY);
+        g.drawRect(x - 1, y - 1, width + 2, height + 2);
+        g.setColor(VISIBLE_AREA);
+        g.drawRect(x, y, width, height);
+    }
+
+    /**
+     * Get the colour of a player's discs.
+     * @param owner PLAYER1 or PLAYER2
+     * @return The colour of the discs
+     */
+    private Color getColor(int owner)
+    {
+        return owner==BoardButton.PLAYER1 ? theme.getColor1() : theme.getColor2();
+    }
+}
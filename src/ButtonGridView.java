@@ -0,0 +1,127 @@
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.IntConsumer;
+
+/**
+ * A view of the board made of one board button per cell, laid out in a grid.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class ButtonGridView extends JPanel implements BoardView
+{
+    private IntConsumer cellListener;
+
+    /**
+     * Constructor for the button grid view.
+     * @param size The size of the board
+     * @param theme The theme
+     */
+    public ButtonGridView(int size, Theme theme)
+    {
+        super(new GridLayout(size, size));
+        if(theme==null)
+            throw new IllegalArgumentException("The theme cannot be null.");
+        setBorder(new EmptyBorder(7, 7, 7, 7));
+
+        for(int i = 0; i < size * size; i++)
+        {
+            BoardButton button = new BoardButton(i, theme);
+            button.addMouseListener(new MouseAdapter() {
+                /**
+                 * Handles the click on the button.
+                 *
+                 * @param e The mouse event
+                 */
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    if(cellListener!=null)
+                        cellListener.accept(button.getPosition());
+                }
+            });
+            add(button);
+        }
+    }
+
+    @Override
+    public JComponent getComponent()
+    {
+        return this;
+    }
+
+    @Override
+    public void setPlayer(int position, int player)
+    {
+        getButton(position).setPlayer(player);
+    }
+
+    @Override
+    public void animatePlayer(int position, int player, int delay)
+    {
+        getButton(position).animatePlayer(player, delay);
+    }
+
+    @Override
+    public void highlight(int position)
+    {
+        getButton(position).highlight();
+    }
+
+    @Override
+    public void unhighlight(int position)
+    {
+        getButton(position).unhighlight();
+    }
+
+    /**
+     * Every button repaints itself, only when its colours change, and the repaint manager paints all of them together, so a batch
+     * needs no work of its own.
+     */
+    @Override
+    public void beginUpdate()
+    {
+    }
+
+    @Override
+    public void endUpdate()
+    {
+    }
+
+    @Override
+    public void setHint(int position, String text, Color color)
+    {
+        getButton(position).setHint(text, color);
+    }
+
+    @Override
+    public void clearHint(int position)
+    {
+        getButton(position).clearHint();
+    }
+
+    @Override
+    public void changeTheme(Theme theme)
+    {
+        for(Component component : getComponents())
+            ((BoardButton) component).changeTheme(theme);
+    }
+
+    @Override
+    public void setCellListener(IntConsumer listener)
+    {
+        cellListener = listener;
+    }
+
+    /**
+     * Get the button of a cell.
+     * @param position The list position of the cell
+     * @return The button
+     */
+    private BoardButton getButton(int position)
+    {
+        return (BoardButton) getComponent(position);
+    }
+}
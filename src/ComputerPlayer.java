@@ -0,0 +1,232 @@
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A computer player, which picks its moves with an alpha-beta search of the given depth, or at random. The search scores a board
+ * by the piece difference, with a bonus for every corner held, and a finished game by its result, which outweighs any heuristic
+ * score. A player has no state, so one player can play any number of games at once, on any number of threads.
+ *
+ * Players are described as "random", "greedy" (a search of depth 1), or "search:depth[:corner bonus]", for example "search:3:16".
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class ComputerPlayer
+{
+    public static final int DEFAULT_CORNER_BONUS = 8;
+    public static final int WIN_SCORE = 10000;
+    public static final int MAX_DEPTH = 8;
+
+    private final String name;
+    private final int depth;
+    private final int cornerBonus;
+
+    /**
+     * Constructor for a computer player.
+     * @param name The name of the player
+     * @param depth The depth of the search, or 0 to play at random
+     * @param cornerBonus The score of a corner, in pieces
+     */
+    public ComputerPlayer(String name, int depth, int cornerBonus)
+    {
+        if(name==null || name.isBlank())
+            throw new IllegalArgumentException("The name cannot be null or empty.");
+        if(depth < 0 || depth > MAX_DEPTH)
+            throw new IllegalArgumentException("The depth has to be between 0 and " + MAX_DEPTH + ".");
+        this.name = name;
+        this.depth = depth;
+        this.cornerBonus = cornerBonus;
+    }
+
+    /**
+     * Create a computer player from its description, which is also its name.
+     * @param description "random", "greedy", or "search:depth[:corner bonus]"
+     * @return The player
+     */
+    public static ComputerPlayer parse(String description)
+    {
+        if(description==null)
+            throw new IllegalArgumentException("The description cannot be null.");
+        String[] parts = description.trim().split(":");
+        try {
+            switch(parts[0])
+            {
+                case "random":
+                    if(parts.length==1)
+                        return new ComputerPlayer(description.trim(), 0, 0);
+                    break;
+                case "greedy":
+                    if(parts.length==1)
+                        return new ComputerPlayer(description.trim(), 1, DEFAULT_CORNER_BONUS);
+                    break;
+                case "search":
+                    if(parts.length==2 || parts.length==3)
+                        return new ComputerPlayer(description.trim(), Integer.parseInt(parts[1]),
+                                parts.length==3 ? Integer.parseInt(parts[2]) : DEFAULT_CORNER_BONUS);
+                    break;
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            //reported below, like any other invalid description
+        }
+        throw new IllegalArgumentException("Unknown computer player \"" + description + "\".");
+    }
+
+    /**
+     * Get the name of the player.
+     * @return The name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Get the depth of the search of the player.
+     * @return The depth, or 0 if it plays at random
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * Get the score of a corner for the player.
+     * @return The score of a corner, in pieces
+     */
+    public int getCornerBonus()
+    {
+        return cornerBonus;
+    }
+
+    /**
+     * Choose the move of the player to move. Moves with the same score are chosen between at random.
+     * @param gameBoard The game board, which is not modified
+     * @param random The source of randomness of the game
+     * @return The list position of the move, or -1 if the player to move has no legal move
+     */
+    public int chooseMove(GameBoard gameBoard, Random random)
+    {
+        ArrayList<Integer> moves = gameBoard.getPossiblePositions();
+        if(moves.isEmpty())
+            return -1;
+        if(depth==0)
+            return moves.get(random.nextInt(moves.size()));
+
+        BoardPlayer mover = gameBoard.getCurrentPlayer();
+        int best = -WIN_SCORE - 1, ties = 0, choice = -1;
+        for(int position : moves)
+        {
+            GameBoard child = new GameBoard(gameBoard);
+            child.onPositionPlayed(position);
+            int score = search(child, mover, depth - 1, best - 1, WIN_SCORE + 1, cornerBonus, () -> false);
+            if(score > best)
+            {
+                best = score;
+                choice = position;
+                ties = 1;
+            }
+            else if(score==best && random.nextInt(++ties)==0)
+                choice = position;
+        }
+        return choice;
+    }
+
+    /**
+     * Alpha-beta search of the given board, scored from the point of view of the given player.
+     * @param gameBoard The board to search
+     * @param player The player for whom the score is computed
+     * @param depth The remaining depth
+     * @param alpha The lower bound of the search window
+     * @param beta The upper bound of the search window
+     * @param cornerBonus The score of a corner, in pieces
+     * @param stopped Tells whether the search has been cancelled, in which case the boards are scored without searching deeper
+     * @return The score of the board
+     */
+    public static int search(GameBoard gameBoard, BoardPlayer player, int depth, int alpha, int beta, int cornerBonus,
+            BooleanSupplier stopped)
+    {
+        ArrayList<Integer> moves = gameBoard.getPossiblePositions();
+        if(moves.size()==0)
+        {
+            GameBoard passed = new GameBoard(gameBoard);
+            passed.skipTurn();
+            if(passed.getPossiblePositions().size()==0)
+                return finalScore(gameBoard, player);
+            if(depth==0)
+                return score(gameBoard, player, cornerBonus);
+            return search(passed, player, depth - 1, alpha, beta, cornerBonus, stopped);
+        }
+        if(depth==0 || stopped.getAsBoolean())
+            return score(gameBoard, player, cornerBonus);
+
+        boolean maximising = gameBoard.getCurrentPlayer()==player;
+        int best = maximising ? -WIN_SCORE - 1 : WIN_SCORE + 1;
+        for(int position : moves)
+        {
+            GameBoard child = new GameBoard(gameBoard);
+            child.onPositionPlayed(position);
+            int value = search(child, player, depth - 1, alpha, beta, cornerBonus, stopped);
+            if(maximising)
+            {
+                best = Math.max(best, value);
+                alpha = Math.max(alpha, value);
+            }
+            else
+            {
+                best = Math.min(best, value);
+                beta = Math.min(beta, value);
+            }
+            if(alpha>=beta)
+                break;
+        }
+        return best;
+    }
+
+    /**
+     * Heuristic score of a board: the piece difference, with a bonus for every corner held.
+     * @param gameBoard The board
+     * @param player The player for whom the score is computed
+     * @param cornerBonus The score of a corner, in pieces
+     * @return The score
+     */
+    public static int score(GameBoard gameBoard, BoardPlayer player, int cornerBonus)
+    {
+        int difference = gameBoard.getPlayerOnePieces() - gameBoard.getPlayerTwoPieces();
+        int size = gameBoard.getSize();
+        int[] corners = {0, size - 1, size * (size - 1), size * size - 1};
+        for(int corner : corners)
+        {
+            int owner = gameBoard.getOwner(corner);
+            if(owner==GameBoard.PLAYER1)
+                difference += cornerBonus;
+            else if(owner==GameBoard.PLAYER2)
+                difference -= cornerBonus;
+        }
+        return player==gameBoard.getPlayer1() ? difference : -difference;
+    }
+
+    /**
+     * Score of a finished game, which always outweighs any heuristic score.
+     * @param gameBoard The board
+     * @param player The player for whom the score is computed
+     * @return The score
+     */
+    public static int finalScore(GameBoard gameBoard, BoardPlayer player)
+    {
+        int difference = gameBoard.getPlayerOnePieces() - gameBoard.getPlayerTwoPieces();
+        if(player==gameBoard.getPlayer2())
+            difference = -difference;
+        if(difference==0)
+            return 0;
+        return difference>0 ? WIN_SCORE - 1 : -WIN_SCORE + 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
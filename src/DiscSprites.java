@@ -0,0 +1,131 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of pre-rendered discs. Every disc is drawn once per colour and pixel size, antialiased and with its outline, and then
+ * copied onto the board whenever a cell is painted. The discs are rendered at the resolution of the screen, so they stay sharp on
+ * HiDPI displays. Only the most recently used discs are kept, so the discs of old cell sizes are dropped when the board is resized,
+ * and the cache is cleared when the theme changes.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public final class DiscSprites
+{
+    private static final int MAX_SPRITES = 128;
+    private static final int MAX_SIZE = (1 << 12) - 1;
+
+    private static final Map<Long, Image> sprites = new LinkedHashMap<Long, Image>(MAX_SPRITES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Image> eldest)
+        {
+            return size() > MAX_SPRITES;
+        }
+    };
+
+    /**
+     * The sprites are only used through the static methods.
+     */
+    private DiscSprites()
+    {
+    }
+
+    /**
+     * Draw a disc with the given colour and a BoardButton.NORMAL outline, as fillOval() and drawOval() would.
+     * @param g The graphics
+     * @param fill The colour of the disc
+     * @param x The x coordinate of the disc
+     * @param y The y coordinate of the disc
+     * @param diameter The diameter of the disc
+     */
+    public static void drawDisc(Graphics g, Color fill, int x, int y, int diameter)
+    {
+        drawDisc(g, fill, x, y, diameter, diameter);
+    }
+
+    /**
+     * Draw a disc, squashed to the given width and height, with the given colour and a BoardButton.NORMAL outline.
+     * @param g The graphics
+     * @param fill The colour of the disc
+     * @param x The x coordinate of the disc
+     * @param y The y coordinate of the disc
+     * @param width The width of the disc
+     * @param height The height of the disc
+     */
+    public static void drawDisc(Graphics g, Color fill, int x, int y, int width, int height)
+    {
+        if(width<=0 || height<=0)
+            return;
+        if(width>=MAX_SIZE || height>=MAX_SIZE)
+        {
+            g.setColor(fill);
+            g.fillOval(x, y, width, height);
+            g.setColor(BoardButton.NORMAL);
+            g.drawOval(x, y, width, height);
+            return;
+        }
+        AffineTransform transform = ((Graphics2D) g).getTransform();
+        int scale = (int) Math.round(Math.max(1, Math.min(15, Math.max(transform.getScaleX(), transform.getScaleY()))) * 16);
+        g.drawImage(getSprite(fill, width, height, scale), x, y, width + 1, height + 1, null);
+    }
+
+    /**
+     * Remove all of the sprites from the cache.
+     */
+    public static synchronized void clear()
+    {
+        sprites.clear();
+    }
+
+    /**
+     * Get the sprite of a disc, rendering it if it is not in the cache.
+     * @param fill The colour of the disc
+     * @param width The width of the disc
+     * @param height The height of the disc
+     * @param scale The scale of the screen, in sixteenths
+     * @return The sprite
+     */
+    private static synchronized Image getSprite(Color fill, int width, int height, int scale)
+    {
+        long key = (fill.getRGB() & 0xFFFFFFFFL) << 32 | (long) width << 20 | (long) height << 8 | scale;
+        Image sprite = sprites.get(key);
+        if(sprite==null)
+        {
+            sprite = render(fill, width, height, scale / 16.0);
+            sprites.put(key, sprite);
+        }
+        return sprite;
+    }
+
+    /**
+     * Render a disc into a new translucent image.
+     * @param fill The colour of the disc
+     * @param width The width of the disc
+     * @param height The height of the disc
+     * @param scale The scale of the screen
+     * @return The image
+     */
+    private static Image render(Color fill, int width, int height, double scale)
+    {
+        int pixelWidth = (int) Math.ceil((width + 1) * scale), pixelHeight = (int) Math.ceil((height + 1) * scale);
+        BufferedImage image;
+        if(GraphicsEnvironment.isHeadless())
+            image = new BufferedImage(pixelWidth, pixelHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        else
+            image = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                    .createCompatibleImage(pixelWidth, pixelHeight, Transparency.TRANSLUCENT);
+
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.scale((double) pixelWidth / (width + 1), (double) pixelHeight / (height + 1));
+        g.setColor(fill);
+        g.fillOval(0, 0, width, height);
+        g.setColor(BoardButton.NORMAL);
+        g.drawOval(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,110 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+
+/**
+ * The animation of placed and flipped discs. A single Swing timer drives every animation at a fixed frame rate: on every frame it
+ * asks each animated view to move its discs to the next frame and repaint only the cells which are animating. The shape of a disc
+ * in every frame is looked up in tables computed once, when the class is loaded, so a frame neither computes nor allocates anything.
+ *
+ * A flipped disc shrinks horizontally to a line and grows back in its new colour; a placed disc grows from its centre. Flips can be
+ * delayed by a number of frames, so that the discs further from the placed one turn over later.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public final class FlipAnimator
+{
+    public static final int FRAMES_PER_SECOND = 60;
+    public static final int FRAMES = 18;
+    public static final int STAGGER_FRAMES = 3;
+
+    private static final int[] FLIP_WIDTHS = new int[FRAMES];
+    private static final int[] PLACE_SIZES = new int[FRAMES];
+    private static final int SCALE = 1024;
+
+    private static final ArrayList<Animated> animated = new ArrayList<>();
+    private static final Timer timer = new Timer(1000 / FRAMES_PER_SECOND, e -> nextFrame());
+    private static final MetricsRegistry.Histogram frameTimes = MetricsRegistry.get().histogram(MetricsRegistry.FRAME_TIME);
+
+    static
+    {
+        for(int frame = 0; frame < FRAMES; frame++)
+        {
+            double progress = (frame + 1) / (double) FRAMES;
+            FLIP_WIDTHS[frame] = (int) Math.round(Math.abs(Math.cos(Math.PI * progress)) * SCALE);
+            PLACE_SIZES[frame] = (int) Math.round((1 - (1 - progress) * (1 - progress)) * SCALE);
+        }
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * Something animated by the frame timer.
+     */
+    public interface Animated
+    {
+        /**
+         * Move to the next frame of the animation, and repaint what changed.
+         * @return true, if the animation is still running, false if it has finished
+         */
+        boolean nextFrame();
+    }
+
+    /**
+     * The animator is only used through the static methods.
+     */
+    private FlipAnimator()
+    {
+    }
+
+    /**
+     * Start animating the given object on every frame, until its animation finishes. Must be called on the event dispatch thread.
+     * @param object The animated object
+     */
+    public static void start(Animated object)
+    {
+        if(!animated.contains(object))
+            animated.add(object);
+        if(!timer.isRunning())
+            timer.start();
+    }
+
+    /**
+     * Move every animation to its next frame, and stop the timer when no animation is running. The time taken is recorded in the
+     * metrics; the repaints themselves are recorded by the views which paint them.
+     */
+    private static void nextFrame()
+    {
+        long start = System.nanoTime();
+        for(int i = animated.size() - 1; i >= 0; i--)
+            if(!animated.get(i).nextFrame())
+                animated.remove(i);
+        if(animated.isEmpty())
+            timer.stop();
+        frameTimes.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Paint a disc in the given frame of its animation.
+     * @param g The graphics
+     * @param from The colour of the disc before the move, or null if the disc is being placed
+     * @param to The colour of the disc after the move
+     * @param frame The frame of the animation, between 0 and FRAMES - 1
+     * @param x The x coordinate of the disc
+     * @param y The y coordinate of the disc
+     * @param diameter The diameter of the disc when it is not animating
+     */
+    public static void paintDisc(Graphics g, Color from, Color to, int frame, int x, int y, int diameter)
+    {
+        if(from==null)
+        {
+            int size = diameter * PLACE_SIZES[frame] / SCALE;
+            DiscSprites.drawDisc(g, to, x + (diameter - size) / 2, y + (diameter - size) / 2, size);
+        }
+        else
+        {
+            int width = Math.max(1, diameter * FLIP_WIDTHS[frame] / SCALE);
+            DiscSprites.drawDisc(g, frame < FRAMES / 2 ? from : to, x + (diameter - width) / 2, y, width, diameter);
+        }
+    }
+}
@@ -0,0 +1,394 @@
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports a recorded game as an animation, with one frame for the starting position and one for every move, either as an animated
+ * GIF or as a sequence of numbered PNG files. The frames are drawn by a BoardRenderer in the colours of a theme, so the export
+ * works without a display.
+ *
+ * The frames are drawn in parallel by a pool of worker threads, and written in order by the thread which called export(). Only a
+ * few frames are drawn ahead of the one being written, so the memory used does not grow with the length of the game. For GIFs, the
+ * workers also reduce every frame to a fixed palette built from the theme, so that the writer only has to compress it.
+ *
+ * Run on its own, the exporter animates every game of a move-list file:
+ * GameAnimationExporter &lt;games file&gt; &lt;output folder&gt; [gif|png] [size in pixels]
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class GameAnimationExporter
+{
+    public static final int DEFAULT_SIZE = 480;
+    public static final int DEFAULT_FRAME_DELAY = 600;
+
+    private static final int LAST_FRAME_DELAY_FACTOR = 4;
+    private static final int FRAMES_AHEAD_PER_THREAD = 2;
+    private static final int BLEND_STEPS = 16;
+
+    /**
+     * The formats of an exported animation.
+     */
+    public enum Format
+    {
+        GIF,
+        PNG_SEQUENCE
+    }
+
+    private final BoardRenderer renderer;
+    private final IndexColorModel palette;
+    private final int pixels;
+    private final int frameDelay;
+    private final int threads;
+
+    /**
+     * Constructor for the game animation exporter.
+     * @param theme The theme of the discs
+     * @param pixels The width and height of every frame
+     * @param frameDelay The time every move is shown for, in milliseconds
+     * @param threads The number of threads drawing the frames
+     */
+    public GameAnimationExporter(Theme theme, int pixels, int frameDelay, int threads)
+    {
+        if(pixels<=0)
+            throw new IllegalArgumentException("The size of the frames must be positive.");
+        if(frameDelay<=0)
+            throw new IllegalArgumentException("The frame delay must be positive.");
+        if(threads<=0)
+            throw new IllegalArgumentException("The number of threads must be positive.");
+        renderer = new BoardRenderer(theme);
+        palette = createPalette(theme);
+        this.pixels = pixels;
+        this.frameDelay = frameDelay;
+        this.threads = threads;
+    }
+
+    /**
+     * Export a game. The frames are written while they are drawn, one at a time.
+     * @param game The game
+     * @param output The GIF file, or the folder of the PNG files, which are named frame_0000.png, frame_0001.png and so on
+     * @param format The format of the animation
+     * @return The number of frames written
+     * @throws IOException If the animation could not be written
+     */
+    public int export(GameTranscript game, File output, Format format) throws IOException
+    {
+        if(game==null)
+            throw new IllegalArgumentException("The game cannot be null.");
+        if(output==null)
+            throw new IllegalArgumentException("The output cannot be null.");
+        if(format==null)
+            throw new IllegalArgumentException("The format cannot be null.");
+
+        GameReplay replay = new GameReplay(game);
+        if(format==Format.PNG_SEQUENCE && !output.isDirectory() && !output.mkdirs())
+            throw new IOException("The folder " + output + " could not be created.");
+
+        AtomicInteger workers = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Reversi animation export " + workers.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            if(format==Format.GIF)
+                writeGif(replay, output, pool);
+            else
+                writePngSequence(replay, output, pool);
+        } finally {
+            pool.shutdownNow();
+        }
+        return replay.getLength() + 1;
+    }
+
+    /**
+     * Write every frame of a game into an animated GIF.
+     * @param replay The replay of the game
+     * @param file The GIF file
+     * @param pool The pool drawing the frames
+     * @throws IOException If the file could not be written
+     */
+    private void writeGif(GameReplay replay, File file, ExecutorService pool) throws IOException
+    {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        if(file.exists() && !file.delete())
+            throw new IOException("The file " + file + " could not be replaced.");
+        try(ImageOutputStream out = ImageIO.createImageOutputStream(file))
+        {
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+            ImageTypeSpecifier type = new ImageTypeSpecifier(palette, palette.createCompatibleSampleModel(pixels, pixels));
+            int last = replay.getLength();
+            IIOMetadata firstFrameMetadata = createGifMetadata(writer, type, last==0 ? frameDelay * LAST_FRAME_DELAY_FACTOR : frameDelay, true);
+            IIOMetadata frameMetadata = createGifMetadata(writer, type, frameDelay, false);
+            IIOMetadata lastFrameMetadata = createGifMetadata(writer, type, frameDelay * LAST_FRAME_DELAY_FACTOR, false);
+
+            FrameQueue frames = new FrameQueue(replay, pool, true);
+            for(int ply = 0; ply <= last; ply++)
+                writer.writeToSequence(new IIOImage(frames.next(), null, ply==0 ? firstFrameMetadata : ply==last ? lastFrameMetadata
+                        : frameMetadata), null);
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Write every frame of a game into its own PNG file.
+     * @param replay The replay of the game
+     * @param folder The folder of the files
+     * @param pool The pool drawing the frames
+     * @throws IOException If a file could not be written
+     */
+    private void writePngSequence(GameReplay replay, File folder, ExecutorService pool) throws IOException
+    {
+        FrameQueue frames = new FrameQueue(replay, pool, false);
+        for(int ply = 0; ply <= replay.getLength(); ply++)
+            if(!ImageIO.write(frames.next(), "png", new File(folder, String.format("frame_%04d.png", ply))))
+                throw new IOException("There is no PNG writer.");
+    }
+
+    /**
+     * The frames of a game, in order. Each frame is drawn by the pool, and a few frames are always being drawn ahead of the one
+     * which is taken next.
+     */
+    private class FrameQueue
+    {
+        private final GameReplay replay;
+        private final ExecutorService pool;
+        private final boolean indexed;
+        private final ArrayDeque<Future<BufferedImage>> pending = new ArrayDeque<>();
+        private int nextPly;
+
+        /**
+         * Constructor for a frame queue, which starts drawing the first frames.
+         * @param replay The replay of the game
+         * @param pool The pool drawing the frames
+         * @param indexed true, if the frames are reduced to the palette, false for full colour frames
+         */
+        private FrameQueue(GameReplay replay, ExecutorService pool, boolean indexed)
+        {
+            this.replay = replay;
+            this.pool = pool;
+            this.indexed = indexed;
+            while(pending.size() < threads * FRAMES_AHEAD_PER_THREAD && nextPly <= replay.getLength())
+                submit();
+        }
+
+        /**
+         * Take the next frame, waiting until it is drawn, and start drawing another one.
+         * @return The frame
+         * @throws IOException If the frame could not be drawn
+         */
+        private BufferedImage next() throws IOException
+        {
+            Future<BufferedImage> frame = pending.poll();
+            if(frame==null)
+                throw new IllegalStateException("There are no more frames.");
+            if(nextPly <= replay.getLength())
+                submit();
+            try {
+                return frame.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("The export was interrupted.");
+            } catch (ExecutionException e) {
+                throw new IOException("A frame could not be drawn.", e.getCause());
+            }
+        }
+
+        /**
+         * Start drawing the frame of the next ply.
+         */
+        private void submit()
+        {
+            int ply = nextPly++;
+            pending.add(pool.submit(() -> {
+                int[] owners = new int[replay.getSize() * replay.getSize()];
+                replay.positionAt(ply, owners);
+                BufferedImage frame = renderer.render(owners, replay.getSize(), pixels);
+                return indexed ? toPalette(frame) : frame;
+            }));
+        }
+    }
+
+    /**
+     * Reduce a frame to the palette, mapping every colour to the nearest colour of the palette. Frames only contain a few colours, so
+     * the nearest colour of each is only looked for once.
+     * @param frame The full colour frame
+     * @return The frame, using the palette
+     */
+    private BufferedImage toPalette(BufferedImage frame)
+    {
+        BufferedImage indexed = new BufferedImage(frame.getWidth(), frame.getHeight(), BufferedImage.TYPE_BYTE_INDEXED, palette);
+        HashMap<Integer, Integer> nearest = new HashMap<>();
+        int[] row = new int[frame.getWidth()];
+        byte[] indices = new byte[frame.getWidth()];
+        for(int y = 0; y < frame.getHeight(); y++)
+        {
+            frame.getRGB(0, y, row.length, 1, row, 0, row.length);
+            for(int x = 0; x < row.length; x++)
+                indices[x] = (byte) (int) nearest.computeIfAbsent(row[x] & 0xFFFFFF, this::findNearest);
+            indexed.getRaster().setDataElements(0, y, row.length, 1, indices);
+        }
+        return indexed;
+    }
+
+    /**
+     * Find the colour of the palette nearest to the given colour.
+     * @param rgb The colour
+     * @return The index of the nearest colour in the palette
+     */
+    private int findNearest(int rgb)
+    {
+        int red = rgb >> 16 & 0xFF, green = rgb >> 8 & 0xFF, blue = rgb & 0xFF;
+        int best = 0;
+        long bestDistance = Long.MAX_VALUE;
+        for(int i = 0; i < palette.getMapSize(); i++)
+        {
+            long dr = palette.getRed(i) - red, dg = palette.getGreen(i) - green, db = palette.getBlue(i) - blue;
+            long distance = dr * dr + dg * dg + db * db;
+            if(distance < bestDistance)
+            {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Create the palette of the GIF frames: the colours of the board and of the theme, and the blends between them which appear on the
+     * antialiased edges of the discs.
+     * @param theme The theme
+     * @return The palette
+     */
+    private static IndexColorModel createPalette(Theme theme)
+    {
+        if(theme==null)
+            throw new IllegalArgumentException("The theme cannot be null.");
+        Color[] pairs = {BoardButton.NORMAL, theme.getColor1(), BoardButton.NORMAL, theme.getColor2(), BoardButton.NORMAL, Color.DARK_GRAY,
+                theme.getColor1(), Color.DARK_GRAY, theme.getColor2(), Color.DARK_GRAY};
+        int colours = pairs.length / 2 * (BLEND_STEPS + 1);
+        byte[] red = new byte[colours], green = new byte[colours], blue = new byte[colours];
+        int index = 0;
+        for(int pair = 0; pair < pairs.length; pair += 2)
+            for(int step = 0; step <= BLEND_STEPS; step++, index++)
+            {
+                Color from = pairs[pair], to = pairs[pair + 1];
+                red[index] = (byte) (from.getRed() + (to.getRed() - from.getRed()) * step / BLEND_STEPS);
+                green[index] = (byte) (from.getGreen() + (to.getGreen() - from.getGreen()) * step / BLEND_STEPS);
+                blue[index] = (byte) (from.getBlue() + (to.getBlue() - from.getBlue()) * step / BLEND_STEPS);
+            }
+        return new IndexColorModel(8, colours, red, green, blue);
+    }
+
+    /**
+     * Create the metadata of a GIF frame, with its delay and, for the first frame, the extension which makes the animation loop
+     * forever.
+     * @param writer The GIF writer
+     * @param type The type of the frames
+     * @param delay The time the frame is shown for, in milliseconds
+     * @param loop true, to add the extension which makes the animation loop
+     * @return The metadata
+     * @throws IOException If the metadata could not be created
+     */
+    private static IIOMetadata createGifMetadata(ImageWriter writer, ImageTypeSpecifier type, int delay, boolean loop) throws IOException
+    {
+        IIOMetadata metadata = writer.getDefaultImageMetadata(type, null);
+        String format = metadata.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+        IIOMetadataNode control = getChild(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("delayTime", Integer.toString(Math.max(1, delay / 10)));
+        control.setAttribute("transparentColorIndex", "0");
+
+        if(loop)
+        {
+            IIOMetadataNode extension = new IIOMetadataNode("ApplicationExtension");
+            extension.setAttribute("applicationID", "NETSCAPE");
+            extension.setAttribute("authenticationCode", "2.0");
+            extension.setUserObject(new byte[]{1, 0, 0});
+            getChild(root, "ApplicationExtensions").appendChild(extension);
+        }
+        metadata.setFromTree(format, root);
+        return metadata;
+    }
+
+    /**
+     * Get the child of a metadata node with the given name, adding it if there is none.
+     * @param node The node
+     * @param name The name of the child
+     * @return The child
+     */
+    private static IIOMetadataNode getChild(IIOMetadataNode node, String name)
+    {
+        for(int i = 0; i < node.getLength(); i++)
+            if(node.item(i).getNodeName().equals(name))
+                return (IIOMetadataNode) node.item(i);
+        IIOMetadataNode child = new IIOMetadataNode(name);
+        node.appendChild(child);
+        return child;
+    }
+
+    /**
+     * Export every game of a move-list file, one animation per game, using the classic theme.
+     * @param args The games file, the output folder and, optionally, the format (gif or png) and the size of the frames in pixels
+     */
+    public static void main(String[] args)
+    {
+        if(args.length<2)
+        {
+            System.out.println("Usage: GameAnimationExporter <games file> <output folder> [gif|png] [size in pixels]");
+            return;
+        }
+        Format format = args.length>2 && args[2].equalsIgnoreCase("png") ? Format.PNG_SEQUENCE : Format.GIF;
+        int pixels = args.length>3 ? Integer.parseInt(args[3]) : DEFAULT_SIZE;
+        File output = new File(args[1]);
+        if(!output.isDirectory() && !output.mkdirs())
+        {
+            System.out.println("The output folder could not be created.");
+            return;
+        }
+
+        GameAnimationExporter exporter = new GameAnimationExporter(new Theme("Classic", Color.BLACK, "Black", Color.WHITE, "White"),
+                pixels, DEFAULT_FRAME_DELAY, Runtime.getRuntime().availableProcessors());
+        long start = System.nanoTime();
+        int games = 0, frames = 0;
+        try(TranscriptReader reader = new TranscriptReader(new File(args[0])))
+        {
+            for(GameTranscript game = reader.read(); game!=null; game = reader.read())
+            {
+                games++;
+                String name = String.format("game_%06d", games);
+                try {
+                    frames += exporter.export(game, new File(output, format==Format.GIF ? name + ".gif" : name), format);
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Game " + games + " could not be replayed.");
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("The games could not be exported: " + e.getMessage());
+        }
+        System.out.println(games + " games (" + frames + " frames) exported in " + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+}
@@ -1,28 +1,77 @@
-import java.awt.*;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The Reversi game board. This class handles the game logic of the board itself.
  *
+ * The owners of the cells are packed two bits to a cell, 32 cells to a long, so even a 256 x 256 board takes 16 KB. The board also
+ * keeps its frontier, the empty cells next to at least one piece, as a bitset: a legal move always captures a neighbouring piece,
+ * so only the frontier is searched for legal moves, and a move only changes the frontier around the placed piece. The number of
+ * pieces of each player is updated with every move instead of being counted again. The cost of a move therefore depends on the
+ * pieces it flips and not on the size of the board.
+ *
+ * The moves played are kept in chunks of 64. Full chunks are never changed again, so copies of a board share them and only copy
+ * the last, partly filled chunk: copying a board for a search or a snapshot does not get slower as the game gets longer.
+ *
  * @author Andrei Constantin
  * @version 31-03-2021
  */
 public class GameBoard implements Serializable {
+    private static final long serialVersionUID = 6482176592394815922L;
+
+    /**
+     * The fields of the serialized form, which is the one of older versions of the game, where every cell was a CellState.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("playerOnePieces", int.class),
+            new ObjectStreamField("playerTwoPieces", int.class),
+            new ObjectStreamField("size", int.class),
+            new ObjectStreamField("gameBoard", CellState[][].class),
+            new ObjectStreamField("player1", BoardPlayer.class),
+            new ObjectStreamField("player2", BoardPlayer.class),
+            new ObjectStreamField("currentPlayer", BoardPlayer.class),
+            new ObjectStreamField("history", ArrayList.class),
+            new ObjectStreamField("historyComplete", boolean.class)
+    };
+
     public transient static final int MIN_BOARD_SIZE = 4;
-    public transient static final int MAX_BOARD_SIZE = 12;
+    public transient static final int MAX_BOARD_SIZE = 256;
 
     public transient static final BoardPlayer tiePlayer = new BoardPlayer("Tie");
 
+    public transient static final int NOPLAYER = 0, PLAYER1 = 1, PLAYER2 = 2;
+
+    public transient static final int PASS = -1;
+
+    private transient static final AtomicLong gameIds = new AtomicLong();
+
+    private transient static final int HISTORY_CHUNK = 64;
+    private transient static final int[][] NO_CHUNKS = new int[0][];
+
     private transient static final int N = 0, NE = 1, E = 2, SE = 3, S = 4, SW = 5, W = 6, NW = 7;
+    private transient static final int[] DX = {0, 1, 1, 1, 0, -1, -1, -1};
+    private transient static final int[] DY = {-1, -1, 0, 1, 1, 1, 0, -1};
 
     private int playerOnePieces, playerTwoPieces;
     private int size;
-    private CellState[][] gameBoard;
+    private transient long[] cells;
+    private transient long[] frontier;
     private BoardPlayer player1;
     private BoardPlayer player2;
     private BoardPlayer currentPlayer;
+    private transient int[][] historyChunks = NO_CHUNKS;
+    private transient int[] historyTail = new int[HISTORY_CHUNK];
+    private transient int historyLength;
+    private boolean historyComplete = true;
+    private transient long gameId = gameIds.incrementAndGet();
 
     /**
      * Create a game board of the respective size.
@@ -42,598 +91,402 @@ public class GameBoard implements Serializable {
         this.player2 = player2;
         currentPlayer = player1;
         this.size = size;
-        gameBoard = new CellState[size][];
-
-        for (int i = 0; i < size; i++) {
-            gameBoard[i] = new CellState[size];
-            for (int j = 0; j < size; j++)
-                gameBoard[i][j] = new CellState(i, j, getListPosition(i, j, size));
-        }
+        allocateCells();
 
-        getCell(size / 2, size / 2).setPlayer(player1);
-        getCell(size / 2 - 1, size / 2 - 1).setPlayer(player1);
-        getCell(size / 2 - 1, size / 2).setPlayer(player2);
-        getCell(size / 2, size / 2 - 1).setPlayer(player2);
+        occupy(getListPosition(size / 2, size / 2, size), PLAYER1);
+        occupy(getListPosition(size / 2 - 1, size / 2 - 1, size), PLAYER1);
+        occupy(getListPosition(size / 2 - 1, size / 2, size), PLAYER2);
+        occupy(getListPosition(size / 2, size / 2 - 1, size), PLAYER2);
 
         setPlayerOnePieces(2);
         setPlayerTwoPieces(2);
     }
 
     /**
-     * Change the state of the cell at the given position and any other cells that should be affected.
+     * Create a game board from the owners of its cells, as stored by getOwner().
      *
-     * @param listPosition The position of the cell in the list
-     * @return An array list of all of the positions of the modified cells, or null if none are found
+     * @param player1          The first player
+     * @param player2          The second player
+     * @param size             The number of rows/columns of the board
+     * @param owners           The owner of every cell, in list order (NOPLAYER, PLAYER1 or PLAYER2)
+     * @param playerOneToMove  true, if player 1 is the current player, false if it is player 2
      */
-    public ArrayList<Integer> onPositionPlayed(int listPosition) {
-        if (listPosition < 0)
-            throw new ListPositionNegativeException("onPositionPlayed", "GameBoard");
-        CellState currentCell = getCell(listPosition);
-
-        if (currentCell.getPlayer() != null)
-            return null;
-
-        if (!isPlaceable(currentCell))
-            return null;
-
-        ArrayList<Integer> toChange = new ArrayList<>();
-        toChange.add(currentCell.getListPosition());
-        currentCell.setPlayer(currentPlayer);
-
-        for (int direction = N; direction <= NW; direction++) {
-            ArrayList<Integer> changed = changeDirection(currentCell, direction);
-            if (changed != null && changed.size() > 0)
-                toChange.addAll(changed);
-        }
-
-        setPlayerOnePieces(calculatePlayerPieces(player1));
-        setPlayerTwoPieces(calculatePlayerPieces(player2));
-
-        changeCurrentPlayer();
-
-        return toChange;
+    public GameBoard(BoardPlayer player1, BoardPlayer player2, int size, int[] owners, boolean playerOneToMove) {
+        this(player1, player2, size, owners, playerOneToMove, null);
     }
 
     /**
-     * Checks whether the currentCell can be modified by the current player.
+     * Create a game board from the owners of its cells, as stored by getOwner(), and the moves that led to them.
      *
-     * @param currentCell The cell to verify
-     * @return true, if the cell is changeable, false otherwise
+     * @param player1          The first player
+     * @param player2          The second player
+     * @param size             The number of rows/columns of the board
+     * @param owners           The owner of every cell, in list order (NOPLAYER, PLAYER1 or PLAYER2)
+     * @param playerOneToMove  true, if player 1 is the current player, false if it is player 2
+     * @param history          All of the moves played since the start of the game, or null if they are not known
      */
-    private boolean isPlaceable(CellState currentCell) {
-        if (currentCell.getPlayer() != null)
-            return false;
+    public GameBoard(BoardPlayer player1, BoardPlayer player2, int size, int[] owners, boolean playerOneToMove, int[] history) {
+        if (player1 == null)
+            throw new IllegalArgumentException("Player 1 cannot be null");
+        if (player2 == null)
+            throw new IllegalArgumentException("Player 2 cannot be null");
+        checkProperSize(size);
+        if (owners == null || owners.length != size * size)
+            throw new IllegalArgumentException("There must be an owner for every cell");
 
-        for (int direction = N; direction <= NW; direction++)
-            if (checkDirection(currentCell, direction))
-                return true;
+        this.player1 = player1;
+        this.player2 = player2;
+        currentPlayer = playerOneToMove ? player1 : player2;
+        this.size = size;
+        allocateCells();
+        placeOwners(owners);
 
-        return false;
+        if (history != null)
+            for (int move : history)
+                recordMove(move);
+        historyComplete = history != null;
     }
 
     /**
-     * Get a list of all of the positions where the current player can place a piece.
+     * Create a deep copy of the given game board. The copy shares the players and the full chunks of the history, but not the cells, so it can be played on independently of the original.
      *
-     * @return An array list of all possible positions
+     * @param other The game board to copy
      */
-    public ArrayList<Integer> getPossiblePositions() {
-        ArrayList<Integer> clickable = new ArrayList<>();
+    public GameBoard(GameBoard other) {
+        if (other == null)
+            throw new IllegalArgumentException("The game board cannot be null");
 
-        for (int i = 0; i < size; i++)
-            for (int j = 0; j < size; j++) {
-                if (isPlaceable(gameBoard[j][i]))
-                    clickable.add(gameBoard[j][i].getListPosition());
-            }
-
-        return clickable;
+        player1 = other.player1;
+        player2 = other.player2;
+        currentPlayer = other.currentPlayer;
+        size = other.size;
+        playerOnePieces = other.playerOnePieces;
+        playerTwoPieces = other.playerTwoPieces;
+        historyChunks = other.historyChunks;
+        historyTail = other.historyTail.clone();
+        historyLength = other.historyLength;
+        historyComplete = other.historyComplete;
+        gameId = other.gameId;
+        cells = other.cells.clone();
+        frontier = other.frontier.clone();
     }
 
     /**
-     * Changes all of the opponent's pieces to the current player's pieces in the given direction, if it is possible to do so. It will return an array list of the positions of all the changed pieces.
+     * Change the state of the cell at the given position and any other cells that should be affected.
      *
-     * @param startingCell The starting cell from which to check
-     * @param direction    The direction to check (N, NE, E, SE, S, SW, W, NW)
-     * @return An array list of all the modified positions, or null if none are found
+     * @param listPosition The position of the cell in the list
+     * @return An array list of all of the positions of the modified cells, or null if none are found
      */
-    private ArrayList<Integer> changeDirection(CellState startingCell, int direction) {
-        if (startingCell == null)
-            return null;
-        int x = startingCell.getXPosition(), y = startingCell.getYPosition();
-        BoardPlayer secondPlayer = getOtherPlayer();
-        switch (direction) {
-            case N:
-                return changeNorth(x, y, secondPlayer);
-            case NE:
-                return changeNorthEast(x, y, secondPlayer);
-            case E:
-                return changeEast(x, y, secondPlayer);
-            case SE:
-                return changeSouthEast(x, y, secondPlayer);
-            case S:
-                return changeSouth(x, y, secondPlayer);
-            case SW:
-                return changeSouthWest(x, y, secondPlayer);
-            case W:
-                return changeWest(x, y, secondPlayer);
-            case NW:
-                return changeNorthWest(x, y, secondPlayer);
-            default:
-                throw new IllegalArgumentException("The cardinal direction does not exist");
+    public ArrayList<Integer> onPositionPlayed(int listPosition) {
+        GameEvents.MovePlayed event = new GameEvents.MovePlayed();
+        event.begin();
+        ArrayList<Integer> toChange = placePiece(listPosition);
+        event.end();
+        if (event.shouldCommit()) {
+            event.position = listPosition;
+            event.boardSize = size;
+            event.legal = toChange != null;
+            event.flipped = toChange == null ? 0 : toChange.size() - 1;
+            event.commit();
         }
+        return toChange;
     }
 
     /**
-     * Changes all of the opponent's pieces to the current player's pieces to the north, if it is possible to do so. It will return an array list of the positions of all the changed pieces.
+     * Place a piece of the current player at the given position, and flip the opponent's pieces it captures.
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the north, false otherwise
+     * @param listPosition The position of the cell in the list
+     * @return An array list of all of the positions of the modified cells, the placed piece first, or null if the move is illegal
      */
-    private ArrayList<Integer> changeNorth(int x, int y, BoardPlayer secondPlayer) {
-        if (!checkNorth(x, y, secondPlayer))
+    private ArrayList<Integer> placePiece(int listPosition) {
+        if (listPosition < 0)
+            throw new ListPositionNegativeException("onPositionPlayed", "GameBoard");
+        if (listPosition >= size * size || ownerAt(listPosition) != NOPLAYER)
             return null;
-        y--;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
+
+        int x = listPosition % size, y = listPosition / size;
+        int player = getCurrentOwner(), opponent = PLAYER1 + PLAYER2 - player;
+        if (!isPlaceable(x, y, player, opponent))
             return null;
 
-        ArrayList<Integer> changed = new ArrayList<>();
-        for (int i = y; i >= 0; i--) {
-            CellState cell = getCell(x, i);
-            if (cell.getPlayer() == currentPlayer)
-                return changed;
-            else {
-                cell.setPlayer(currentPlayer);
-                changed.add(cell.getListPosition());
-            }
+        ArrayList<Integer> toChange = new ArrayList<>();
+        toChange.add(listPosition);
+        occupy(listPosition, player);
+
+        for (int direction = N; direction <= NW; direction++)
+            if (checkDirection(x, y, direction, player, opponent))
+                changeDirection(x, y, direction, player, toChange);
+
+        int flipped = toChange.size() - 1;
+        if (player == PLAYER1) {
+            setPlayerOnePieces(playerOnePieces + flipped + 1);
+            setPlayerTwoPieces(playerTwoPieces - flipped);
+        } else {
+            setPlayerTwoPieces(playerTwoPieces + flipped + 1);
+            setPlayerOnePieces(playerOnePieces - flipped);
         }
 
-        return changed;
+        changeCurrentPlayer();
+        recordMove(listPosition);
+
+        return toChange;
     }
 
     /**
-     * Changes all of the opponent's pieces to the current player's pieces to the north-east, if it is possible to do so. It will return an array list of the positions of all the changed pieces.
+     * Checks whether the given empty cell can be taken by the player, which is the case if it captures a piece in any direction.
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the north-east, false otherwise
+     * @param x        The column of the cell
+     * @param y        The row of the cell
+     * @param player   The owner value of the player placing the piece
+     * @param opponent The owner value of the other player
+     * @return true, if the cell is changeable, false otherwise
      */
-    private ArrayList<Integer> changeNorthEast(int x, int y, BoardPlayer secondPlayer) {
-        if (!checkNorthEast(x, y, secondPlayer))
-            return null;
-        x++;
-        y--;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return null;
-
-        ArrayList<Integer> changed = new ArrayList<>();
-        for (int i = y, j = x; i >= 0 && j < size; i--, j++) {
-            CellState cell = getCell(j, i);
-            if (cell.getPlayer() == currentPlayer)
-                return changed;
-            else {
-                cell.setPlayer(currentPlayer);
-                changed.add(cell.getListPosition());
-            }
-        }
+    private boolean isPlaceable(int x, int y, int player, int opponent) {
+        for (int direction = N; direction <= NW; direction++)
+            if (checkDirection(x, y, direction, player, opponent))
+                return true;
 
-        return changed;
+        return false;
     }
 
     /**
-     * Changes all of the opponent's pieces to the current player's pieces to the east, if it is possible to do so. It will return an array list of the positions of all the changed pieces.
+     * Get a list of all of the positions where the current player can place a piece. Only the cells of the frontier are checked.
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the east, false otherwise
+     * @return An array list of all possible positions, in list order
      */
-    private ArrayList<Integer> changeEast(int x, int y, BoardPlayer secondPlayer) {
-        if (!checkEast(x, y, secondPlayer))
-            return null;
-        x++;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return null;
+    public ArrayList<Integer> getPossiblePositions() {
+        GameEvents.LegalMoves event = new GameEvents.LegalMoves();
+        event.begin();
+        ArrayList<Integer> clickable = new ArrayList<>();
+        int player = getCurrentOwner(), opponent = PLAYER1 + PLAYER2 - player;
 
-        ArrayList<Integer> changed = new ArrayList<>();
-        for (int j = x; j < size; j++) {
-            CellState cell = getCell(j, y);
-            if (cell.getPlayer() == currentPlayer)
-                return changed;
-            else {
-                cell.setPlayer(currentPlayer);
-                changed.add(cell.getListPosition());
+        for (int word = 0; word < frontier.length; word++)
+            for (long bits = frontier[word]; bits != 0; bits &= bits - 1) {
+                int position = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if (isPlaceable(position % size, position / size, player, opponent))
+                    clickable.add(position);
             }
-        }
 
-        return changed;
+        event.end();
+        if (event.shouldCommit()) {
+            event.boardSize = size;
+            event.moves = clickable.size();
+            event.commit();
+        }
+        return clickable;
     }
 
     /**
-     * Changes all of the opponent's pieces to the current player's pieces to the south-east, if it is possible to do so. It will return an array list of the positions of all the changed pieces.
+     * Checks whether the current player can place a piece anywhere, stopping at the first legal move.
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the south-east, false otherwise
+     * @return true, if the current player has a legal move, false otherwise
      */
-    private ArrayList<Integer> changeSouthEast(int x, int y, BoardPlayer secondPlayer) {
-        if (!checkSouthEast(x, y, secondPlayer))
-            return null;
-        x++;
-        y++;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return null;
+    public boolean hasPossiblePositions() {
+        int player = getCurrentOwner(), opponent = PLAYER1 + PLAYER2 - player;
 
-        ArrayList<Integer> changed = new ArrayList<>();
-        for (int i = y, j = x; i < size && j < size; i++, j++) {
-            CellState cell = getCell(j, i);
-            if (cell.getPlayer() == currentPlayer)
-                return changed;
-            else {
-                cell.setPlayer(currentPlayer);
-                changed.add(cell.getListPosition());
+        for (int word = 0; word < frontier.length; word++)
+            for (long bits = frontier[word]; bits != 0; bits &= bits - 1) {
+                int position = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if (isPlaceable(position % size, position / size, player, opponent))
+                    return true;
             }
-        }
-
-        return changed;
+        return false;
     }
 
     /**
-     * Changes all of the opponent's pieces to the current player's pieces to the south, if it is possible to do so. It will return an array list of the positions of all the changed pieces.
+     * Changes all of the opponent's pieces to the player's pieces in the given direction, up to the player's closest piece. The
+     * direction must have been checked with checkDirection().
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the south, false otherwise
+     * @param x         The column of the starting cell
+     * @param y         The row of the starting cell
+     * @param direction The direction to change (N, NE, E, SE, S, SW, W, NW)
+     * @param player    The owner value of the player placing the piece
+     * @param changed   The list to which the positions of the changed pieces are added, in order of distance from the starting cell
      */
-    private ArrayList<Integer> changeSouth(int x, int y, BoardPlayer secondPlayer) {
-        if (!checkSouth(x, y, secondPlayer))
-            return null;
-        y++;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return null;
-
-        ArrayList<Integer> changed = new ArrayList<>();
-        for (int i = y; i < size; i++) {
-            CellState cell = getCell(x, i);
-            if (cell.getPlayer() == currentPlayer)
-                return changed;
-            else {
-                cell.setPlayer(currentPlayer);
-                changed.add(cell.getListPosition());
-            }
+    private void changeDirection(int x, int y, int direction, int player, ArrayList<Integer> changed) {
+        int dx = DX[direction], dy = DY[direction];
+        for (int i = x + dx, j = y + dy; ; i += dx, j += dy) {
+            int position = getListPosition(i, j, size);
+            if (ownerAt(position) == player)
+                return;
+            setOwner(position, player);
+            changed.add(position);
         }
-
-        return changed;
     }
 
     /**
-     * Changes all of the opponent's pieces to the current player's pieces to the south-west, if it is possible to do so. It will return an array list of the positions of all the changed pieces.
+     * Checks if placing a piece on the given starting cell will change any pieces on the given direction. It will return true if it will change at least one piece in that direction, or false otherwise.
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the south-west, false otherwise
+     * @param x         The column of the starting cell
+     * @param y         The row of the starting cell
+     * @param direction The direction to check (N, NE, E, SE, S, SW, W, NW)
+     * @param player    The owner value of the player placing the piece
+     * @param opponent  The owner value of the other player
+     * @return true, if the new piece changes any other pieces in the direction, false otherwise
      */
-    private ArrayList<Integer> changeSouthWest(int x, int y, BoardPlayer secondPlayer) {
-        if (!checkSouthWest(x, y, secondPlayer))
-            return null;
-        x--;
-        y++;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return null;
-
-        ArrayList<Integer> changed = new ArrayList<>();
-        for (int i = y, j = x; i < size && j >= 0; i++, j--) {
-            CellState cell = getCell(j, i);
-            if (cell.getPlayer() == currentPlayer)
-                return changed;
-            else {
-                cell.setPlayer(currentPlayer);
-                changed.add(cell.getListPosition());
-            }
-        }
-
-        return changed;
+    private boolean checkDirection(int x, int y, int direction, int player, int opponent) {
+        int dx = DX[direction], dy = DY[direction];
+        int i = x + dx, j = y + dy;
+        if (!isInside(i, j) || ownerAt(getListPosition(i, j, size)) != opponent)
+            return false;
+        do {
+            i += dx;
+            j += dy;
+        } while (isInside(i, j) && ownerAt(getListPosition(i, j, size)) == opponent);
+        return isInside(i, j) && ownerAt(getListPosition(i, j, size)) == player;
     }
 
     /**
-     * Changes all of the opponent's pieces to the current player's pieces to the west, if it is possible to do so. It will return an array list of the positions of all the changed pieces.
+     * Checks whether the given column and row are on the board.
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the west, false otherwise
+     * @param x The column
+     * @param y The row
+     * @return true, if the cell is on the board, false otherwise
      */
-    private ArrayList<Integer> changeWest(int x, int y, BoardPlayer secondPlayer) {
-        if (!checkWest(x, y, secondPlayer))
-            return null;
-        x--;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return null;
-
-        ArrayList<Integer> changed = new ArrayList<>();
-        for (int j = x; j >= 0; j--) {
-            CellState cell = getCell(j, y);
-            if (cell.getPlayer() == currentPlayer)
-                return changed;
-            else {
-                cell.setPlayer(currentPlayer);
-                changed.add(cell.getListPosition());
-            }
-        }
-
-        return changed;
+    private boolean isInside(int x, int y) {
+        return x >= 0 && y >= 0 && x < size && y < size;
     }
 
     /**
-     * Changes all of the opponent's pieces to the current player's pieces to the north-west, if it is possible to do so. It will return an array list of the positions of all the changed pieces.
-     *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the north-west, false otherwise
+     * Create the empty cells and frontier of the board.
      */
-    private ArrayList<Integer> changeNorthWest(int x, int y, BoardPlayer secondPlayer) {
-        if (!checkNorthWest(x, y, secondPlayer))
-            return null;
-        x--;
-        y--;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return null;
-
-        ArrayList<Integer> changed = new ArrayList<>();
-        for (int i = y, j = x; i >= 0 && j >= 0; i--, j--) {
-            CellState cell = getCell(j, i);
-            if (cell.getPlayer() == currentPlayer)
-                return changed;
-            else {
-                cell.setPlayer(currentPlayer);
-                changed.add(cell.getListPosition());
-            }
-        }
-
-        return changed;
+    private void allocateCells() {
+        cells = new long[(size * size + 31) >> 5];
+        frontier = new long[(size * size + 63) >> 6];
     }
 
     /**
-     * Checks if placing a piece on the given starting cell will change any pieces on the given direction. It will return true if it will change at least one piece in that direction, or false otherwise.
+     * Place the given owners on the empty board, and count the pieces of both players.
      *
-     * @param startingCell The starting cell from which to check
-     * @param direction    The direction to check (N, NE, E, SE, S, SW, W, NW)
-     * @return true, if the new piece changes any other pieces in the direction, false otherwise
+     * @param owners The owner of every cell, in list order (NOPLAYER, PLAYER1 or PLAYER2)
      */
-    private boolean checkDirection(CellState startingCell, int direction) {
-        if (startingCell == null)
-            return false;
-        int x = startingCell.getXPosition(), y = startingCell.getYPosition();
-        BoardPlayer secondPlayer = getOtherPlayer();
-        switch (direction) {
-            case N:
-                return checkNorth(x, y, secondPlayer);
-            case NE:
-                return checkNorthEast(x, y, secondPlayer);
-            case E:
-                return checkEast(x, y, secondPlayer);
-            case SE:
-                return checkSouthEast(x, y, secondPlayer);
-            case S:
-                return checkSouth(x, y, secondPlayer);
-            case SW:
-                return checkSouthWest(x, y, secondPlayer);
-            case W:
-                return checkWest(x, y, secondPlayer);
-            case NW:
-                return checkNorthWest(x, y, secondPlayer);
-            default:
-                throw new IllegalArgumentException("The cardinal direction does not exist");
+    private void placeOwners(int[] owners) {
+        int piecesP1 = 0, piecesP2 = 0;
+        for (int position = 0; position < owners.length; position++) {
+            if (owners[position] == PLAYER1)
+                piecesP1++;
+            else if (owners[position] == PLAYER2)
+                piecesP2++;
+            else if (owners[position] != NOPLAYER)
+                throw new IllegalArgumentException("Unknown owner " + owners[position] + " at position " + position);
+            if (owners[position] != NOPLAYER)
+                occupy(position, owners[position]);
         }
+        setPlayerOnePieces(piecesP1);
+        setPlayerTwoPieces(piecesP2);
     }
 
     /**
-     * Checks if placing a piece on the given starting cell will change any pieces to the north of the cell. It will return true if it will change at least one piece in that direction, or false otherwise.
+     * Put a piece on an empty cell, and move the frontier past it: the cell leaves the frontier and its empty neighbours join it.
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the north, false otherwise
-     */
-    private boolean checkNorth(int x, int y, BoardPlayer secondPlayer) {
-        y--;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return false;
-        for (int i = y; i >= 0; i--) {
-            CellState cell = getCell(x, i);
-            if (cell.getPlayer() == currentPlayer)
-                return true;
-            else if (cell.getPlayer() != secondPlayer)
-                return false;
-        }
-        return false;
-    }
+     * @param listPosition The list position of the cell
+     * @param owner        PLAYER1 or PLAYER2
+     */
+    private void occupy(int listPosition, int owner) {
+        setOwner(listPosition, owner);
+        frontier[listPosition >> 6] &= ~(1L << listPosition);
 
-    /**
-     * Checks if placing a piece on the given starting cell will change any pieces to the north-east of the cell. It will return true if it will change at least one piece in that direction, or false otherwise.
-     *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the north-east, false otherwise
-     */
-    private boolean checkNorthEast(int x, int y, BoardPlayer secondPlayer) {
-        x++;
-        y--;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return false;
-        for (int i = y, j = x; i >= 0 && j < size; i--, j++) {
-            CellState cell = getCell(j, i);
-            if (cell.getPlayer() == currentPlayer)
-                return true;
-            else if (cell.getPlayer() != secondPlayer)
-                return false;
+        int x = listPosition % size, y = listPosition / size;
+        for (int direction = N; direction <= NW; direction++) {
+            int i = x + DX[direction], j = y + DY[direction];
+            if (isInside(i, j)) {
+                int neighbour = getListPosition(i, j, size);
+                if (ownerAt(neighbour) == NOPLAYER)
+                    frontier[neighbour >> 6] |= 1L << neighbour;
+            }
         }
-        return false;
     }
 
     /**
-     * Checks if placing a piece on the given starting cell will change any pieces to the east of the cell. It will return true if it will change at least one piece in that direction, or false otherwise.
+     * Get the owner of a cell from the packed cells.
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the east, false otherwise
-     */
-    private boolean checkEast(int x, int y, BoardPlayer secondPlayer) {
-        x++;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return false;
-        for (int j = x; j < size; j++) {
-            CellState cell = getCell(j, y);
-            if (cell.getPlayer() == currentPlayer)
-                return true;
-            else if (cell.getPlayer() != secondPlayer)
-                return false;
-        }
-        return false;
+     * @param listPosition The list position of the cell
+     * @return NOPLAYER, PLAYER1 or PLAYER2
+     */
+    private int ownerAt(int listPosition) {
+        return (int) (cells[listPosition >> 5] >>> ((listPosition & 31) << 1)) & 3;
     }
 
     /**
-     * Checks if placing a piece on the given starting cell will change any pieces to the south-east of the cell. It will return true if it will change at least one piece in that direction, or false otherwise.
+     * Change the owner of a cell in the packed cells. The frontier is not changed.
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the south-east, false otherwise
-     */
-    private boolean checkSouthEast(int x, int y, BoardPlayer secondPlayer) {
-        x++;
-        y++;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return false;
-        for (int i = y, j = x; i < size && j < size; i++, j++) {
-            CellState cell = getCell(j, i);
-            if (cell.getPlayer() == currentPlayer)
-                return true;
-            else if (cell.getPlayer() != secondPlayer)
-                return false;
-        }
-        return false;
+     * @param listPosition The list position of the cell
+     * @param owner        NOPLAYER, PLAYER1 or PLAYER2
+     */
+    private void setOwner(int listPosition, int owner) {
+        int shift = (listPosition & 31) << 1;
+        cells[listPosition >> 5] = cells[listPosition >> 5] & ~(3L << shift) | (long) owner << shift;
     }
 
     /**
-     * Checks if placing a piece on the given starting cell will change any pieces to the south of the cell. It will return true if it will change at least one piece in that direction, or false otherwise.
+     * Get the state of the cell at the given list position. The state is a copy: changing it does not change the board.
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the south, false otherwise
-     */
-    private boolean checkSouth(int x, int y, BoardPlayer secondPlayer) {
-        y++;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return false;
-        for (int i = y; i < size; i++) {
-            CellState cell = getCell(x, i);
-            if (cell.getPlayer() == currentPlayer)
-                return true;
-            else if (cell.getPlayer() != secondPlayer)
-                return false;
-        }
-        return false;
+     * @param listPosition The list position
+     * @return The cell state, or null if does not exist
+     */
+    public CellState getCell(int listPosition) {
+        if (listPosition >= size * size || listPosition < 0)
+            return null;
+        CellState cell = new CellState(listPosition % size, listPosition / size, listPosition);
+        if (ownerAt(listPosition) != NOPLAYER)
+            cell.setPlayer(getPlayer(ownerAt(listPosition)));
+        return cell;
     }
 
     /**
-     * Checks if placing a piece on the given starting cell will change any pieces to the south-west of the cell. It will return true if it will change at least one piece in that direction, or false otherwise.
+     * Get the state of the cell at the given column and row. The state is a copy: changing it does not change the board.
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the south-west, false otherwise
-     */
-    private boolean checkSouthWest(int x, int y, BoardPlayer secondPlayer) {
-        x--;
-        y++;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return false;
-        for (int i = y, j = x; i < size && j >= 0; i++, j--) {
-            CellState cell = getCell(j, i);
-            if (cell.getPlayer() == currentPlayer)
-                return true;
-            else if (cell.getPlayer() != secondPlayer)
-                return false;
-        }
-        return false;
+     * @param x The column
+     * @param y The row
+     * @return The cell state, or null if does not exist
+     */
+    public CellState getCell(int x, int y) {
+        if (!isInside(x, y))
+            return null;
+        return getCell(getListPosition(x, y, size));
     }
 
     /**
-     * Checks if placing a piece on the given starting cell will change any pieces to the west of the cell. It will return true if it will change at least one piece in that direction, or false otherwise.
+     * Get the owner of the cell at the given list position.
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the west, false otherwise
-     */
-    private boolean checkWest(int x, int y, BoardPlayer secondPlayer) {
-        x--;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return false;
-        for (int j = x; j >= 0; j--) {
-            CellState cell = getCell(j, y);
-            if (cell.getPlayer() == currentPlayer)
-                return true;
-            else if (cell.getPlayer() != secondPlayer)
-                return false;
-        }
-        return false;
+     * @param listPosition The list position
+     * @return NOPLAYER, if the cell is empty, PLAYER1 or PLAYER2 otherwise
+     */
+    public int getOwner(int listPosition) {
+        if (listPosition >= size * size || listPosition < 0)
+            throw new IndexOutOfBoundsException("There is no cell at position " + listPosition);
+        return ownerAt(listPosition);
     }
 
     /**
-     * Checks if placing a piece on the given starting cell will change any pieces to the north-west of the cell. It will return true if it will change at least one piece in that direction, or false otherwise.
+     * Get a copy of the packed owners of the cells: two bits to a cell, 32 cells to a long, the cell at list position p in the
+     * bits 2 * (p % 32) of the long p / 32.
      *
-     * @param x            The column of the starting cell
-     * @param y            The row of the starting cell
-     * @param secondPlayer The second player
-     * @return true, if the new piece changes any other pieces to the north-west, false otherwise
-     */
-    private boolean checkNorthWest(int x, int y, BoardPlayer secondPlayer) {
-        x--;
-        y--;
-        if (getCell(x, y) == null || getCell(x, y).getPlayer() != secondPlayer)
-            return false;
-        for (int i = y, j = x; i >= 0 && j >= 0; i--, j--) {
-            CellState cell = getCell(j, i);
-            if (cell.getPlayer() == currentPlayer)
-                return true;
-            else if (cell.getPlayer() != secondPlayer)
-                return false;
-        }
-        return false;
+     * @return The packed owners
+     */
+    public long[] getPackedOwners() {
+        return cells.clone();
     }
 
     /**
-     * Get the cell state at the give list position.
+     * Get the player with the given owner value.
      *
-     * @param listPosition The list position
-     * @return The cell state, or null if does not exist
+     * @param owner NOPLAYER, PLAYER1 or PLAYER2
+     * @return The player, or null for NOPLAYER
      */
-    public CellState getCell(int listPosition) {
-        if (listPosition < size * size && listPosition >= 0)
-            return gameBoard[listPosition % size][listPosition / size];
-        return null;
+    private BoardPlayer getPlayer(int owner) {
+        if (owner == PLAYER1)
+            return player1;
+        return owner == PLAYER2 ? player2 : null;
     }
 
     /**
-     * Get the cell state at the give list position.
+     * Get the owner value of the current player.
      *
-     * @param x The column
-     * @param y The row
-     * @return The cell state, or null if does not exist
+     * @return PLAYER1 or PLAYER2
      */
-    public CellState getCell(int x, int y) {
-        int position = getListPosition(x, y, size);
-        return getCell(position);
+    private int getCurrentOwner() {
+        return currentPlayer == player1 ? PLAYER1 : PLAYER2;
     }
 
     /**
@@ -646,18 +499,6 @@ public class GameBoard implements Serializable {
             currentPlayer = player1;
     }
 
-    /**
-     * Get the other player.
-     *
-     * @return The other player
-     */
-    private BoardPlayer getOtherPlayer() {
-        if (currentPlayer == player1)
-            return player2;
-        else
-            return player1;
-    }
-
     /**
      * Get the position in a 0-indexed list of an element with the given x and y positions in a square grid with the number of rows equal to n.
      *
@@ -724,35 +565,33 @@ public class GameBoard implements Serializable {
         playerTwoPieces = pieces;
     }
 
-    /**
-     * Get the number of pieces currently on the board for the given player.
-     *
-     * @param player The player
-     * @return The number of pieces
-     */
-    private int calculatePlayerPieces(BoardPlayer player) {
-        int count = 0;
-        for (int i = 0; i < size; i++)
-            for (int j = 0; j < size; j++)
-                if (gameBoard[j][i].getPlayer() == player)
-                    count++;
-        return count;
-    }
-
     /**
      * Check if victory was achieved.
      * @return The player that won, or null if no player has won
      */
     public BoardPlayer checkVictory()
     {
-        if(getPossiblePositions().size()==0)
+        GameEvents.VictoryCheck event = new GameEvents.VictoryCheck();
+        event.begin();
+        BoardPlayer winner = null;
+        if(!hasPossiblePositions())
         {
             changeCurrentPlayer();
-            if(getPossiblePositions().size()==0)
-                return getVictoriousPlayer();
-            changeCurrentPlayer();
+            if(!hasPossiblePositions())
+                winner = getVictoriousPlayer();
+            else
+                changeCurrentPlayer();
+        }
+
+        event.end();
+        if(event.shouldCommit())
+        {
+            event.boardSize = size;
+            event.over = winner!=null;
+            event.winner = winner==null ? null : winner.getName();
+            event.commit();
         }
-        return null;
+        return winner;
     }
 
     /**
@@ -761,13 +600,10 @@ public class GameBoard implements Serializable {
      */
     private BoardPlayer getVictoriousPlayer()
     {
-        int piecesP1 = calculatePlayerPieces(player1);
-        int piecesP2 = calculatePlayerPieces(player2);
-
-        if(piecesP1==piecesP2)
+        if(playerOnePieces==playerTwoPieces)
             return tiePlayer;
 
-        return piecesP1>piecesP2?player1:player2;
+        return playerOnePieces>playerTwoPieces?player1:player2;
     }
 
     /**
@@ -794,6 +630,150 @@ public class GameBoard implements Serializable {
     public void skipTurn()
     {
         changeCurrentPlayer();
+        recordMove(PASS);
+    }
+
+    /**
+     * Add a move to the history of this board. A chunk which becomes full is added to a new array of chunks, so the chunks shared
+     * with copies of this board are never changed.
+     * @param move The list position of the move, or PASS for a skipped turn
+     */
+    private void recordMove(int move)
+    {
+        int index = historyLength % HISTORY_CHUNK;
+        historyTail[index] = move;
+        historyLength++;
+        if(index==HISTORY_CHUNK - 1)
+        {
+            historyChunks = Arrays.copyOf(historyChunks, historyChunks.length + 1);
+            historyChunks[historyChunks.length - 1] = historyTail;
+            historyTail = new int[HISTORY_CHUNK];
+        }
+    }
+
+    /**
+     * Get the moves played on this board, in order. Every move is the list position of the placed piece, or PASS for a skipped turn.
+     * @return The moves played on this board
+     */
+    public ArrayList<Integer> getHistory()
+    {
+        ArrayList<Integer> moves = new ArrayList<>(historyLength);
+        for(int index = 0; index < historyLength; index++)
+            moves.add(getMove(index));
+        return moves;
+    }
+
+    /**
+     * Get the number of moves (including skipped turns) played on this board.
+     * @return The number of moves
+     */
+    public int getMoveCount()
+    {
+        return historyLength;
+    }
+
+    /**
+     * Checks whether the history of this board contains every move since the start of the game. Boards restored from older save
+     * files only know the moves played since they were loaded.
+     * @return true, if the history is complete, false otherwise
+     */
+    public boolean isHistoryComplete()
+    {
+        return historyComplete;
+    }
+
+    /**
+     * Get the move with the given index in the history of this board.
+     * @param index The index of the move, starting from 0
+     * @return The list position of the move, or PASS for a skipped turn
+     */
+    public int getMove(int index)
+    {
+        Objects.checkIndex(index, historyLength);
+        int chunk = index / HISTORY_CHUNK;
+        return (chunk < historyChunks.length ? historyChunks[chunk] : historyTail)[index % HISTORY_CHUNK];
+    }
+
+    /**
+     * Restore a board saved by an older version of the game, packing its cells and giving it a new game identifier. Boards saved
+     * before the moves were recorded start with an empty history.
+     * @param in The input stream
+     * @throws IOException If the board could not be read
+     * @throws ClassNotFoundException If a class of the board could not be found
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream.GetField fields = in.readFields();
+        size = fields.get("size", 0);
+        player1 = (BoardPlayer) fields.get("player1", null);
+        player2 = (BoardPlayer) fields.get("player2", null);
+        currentPlayer = (BoardPlayer) fields.get("currentPlayer", null);
+        ArrayList<Integer> history = (ArrayList<Integer>) fields.get("history", null);
+        historyComplete = fields.get("historyComplete", false);
+        CellState[][] grid = (CellState[][]) fields.get("gameBoard", null);
+
+        if(size<MIN_BOARD_SIZE || size>MAX_BOARD_SIZE || grid==null || grid.length!=size)
+            throw new InvalidObjectException("The board has no valid cells.");
+        int[] owners = new int[size * size];
+        for(int x = 0; x < size; x++)
+        {
+            if(grid[x]==null || grid[x].length!=size)
+                throw new InvalidObjectException("The board has no valid cells.");
+            for(int y = 0; y < size; y++)
+            {
+                BoardPlayer player = grid[x][y]==null ? null : grid[x][y].getPlayer();
+                owners[getListPosition(x, y, size)] = player==null ? NOPLAYER : (player==player1 ? PLAYER1 : PLAYER2);
+            }
+        }
+        allocateCells();
+        placeOwners(owners);
+
+        historyChunks = NO_CHUNKS;
+        historyTail = new int[HISTORY_CHUNK];
+        historyLength = 0;
+        if(history!=null)
+            for(Integer move : history)
+            {
+                if(move==null)
+                    throw new InvalidObjectException("The history of the board is not valid.");
+                recordMove(move);
+            }
+        gameId = gameIds.incrementAndGet();
+    }
+
+    /**
+     * Write the board in the serialized form of older versions of the game, with a CellState for every cell.
+     * @param out The output stream
+     * @throws IOException If the board could not be written
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        CellState[][] grid = new CellState[size][size];
+        for(int x = 0; x < size; x++)
+            for(int y = 0; y < size; y++)
+                grid[x][y] = getCell(x, y);
+
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("playerOnePieces", playerOnePieces);
+        fields.put("playerTwoPieces", playerTwoPieces);
+        fields.put("size", size);
+        fields.put("gameBoard", grid);
+        fields.put("player1", player1);
+        fields.put("player2", player2);
+        fields.put("currentPlayer", currentPlayer);
+        fields.put("history", getHistory());
+        fields.put("historyComplete", historyComplete);
+        out.writeFields();
+    }
+
+    /**
+     * Get the identifier of the game played on this board. Copies of a board share the identifier of the original.
+     * @return The game identifier
+     */
+    public long getGameId()
+    {
+        return gameId;
     }
 
     /**
@@ -1,9 +1,11 @@
 import java.awt.*;
 import java.awt.event.*;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 
 import javax.swing.*;
-import javax.swing.border.EmptyBorder;
 
 import static javax.swing.ScrollPaneConstants.*;
 
@@ -16,10 +18,28 @@ import static javax.swing.ScrollPaneConstants.*;
 public class GameBoardGUI {
     private Reversi game;
     private JPanel parentPanel;
-    private JPanel boardPanel;
-    private GameBoard gameBoard;
+    private BoardView boardView;
+    private GameController controller;
     private PlayerStatusPanel playerStatus;
     private boolean isExample;
+    private boolean isFinished;
+    private int size;
+    private boolean[] highlighted, possible;
+    private int[] highlightedPositions = new int[0];
+    private HashMap<Integer, Integer> hintScores = new HashMap<>();
+    private GameReplay replay;
+    private int replayPly;
+    private int[] shownOwners, replayOwners;
+    private JSlider replaySlider;
+    private JLabel replayLabel;
+    private GameClient client;
+    private int gameId, localPlayer;
+    private final ArrayDeque<Integer> remoteMoves = new ArrayDeque<>();
+    private boolean applyingRemoteMove, moveSent;
+    private int remoteWinner = -1;
+
+    private static final Color LAST_MOVE = new Color(255, 255, 0, 70);
+    private static final MetricsRegistry.Histogram clickLatencies = MetricsRegistry.get().histogram(MetricsRegistry.CLICK_LATENCY);
 
     /**
      * Constructor for objects of class GameBoardGUI. It creates a board of size 8x8.
@@ -47,14 +67,14 @@ public class GameBoardGUI {
             throw new IllegalArgumentException("Player Two cannot be null.");
 
         this.game = game;
-        this.gameBoard = gameBoard;
+        controller = new GameController(new GameBoard(gameBoard));
         playerStatus = game.getPlayerStatus();
         if(playerStatus==null)
             throw new IllegalArgumentException("The player status panel cannot be null.");
 
         isExample=false;
 
-        generateGameBoardPanel(this.gameBoard, size);
+        generateGameBoardPanel(size);
     }
 
     /**
@@ -78,79 +98,100 @@ public class GameBoardGUI {
         if (playerStatus == null)
             throw new IllegalArgumentException("The player status panel cannot be null.");
         if (!isExample)
-            gameBoard = new GameBoard(player1, player2, size);
-        else
-            gameBoard = null;
+            controller = new GameController(new GameBoard(player1, player2, size));
 
-        generateGameBoardPanel(gameBoard, size);
+        generateGameBoardPanel(size);
     }
 
     /**
-     * Generate the game board panel.
-     * @param gameBoard The game board
-     * @param size The size of the board
+     * Constructor for the GameBoardGUI class in online mode, for a game hosted by a game server. Clicks on the board are sent to
+     * the server, and the board only shows the moves the server sends back, of either player.
+     * @param client The connection to the server
+     * @param gameId The game on the server
+     * @param localPlayer The player of this app, PLAYER1 or PLAYER2
+     * @param player1 The first player
+     * @param player2 The second player
+     * @param size The size of the game board
+     * @param game The Reversi object
      */
-    private void generateGameBoardPanel(GameBoard gameBoard, int size)
+    public GameBoardGUI(GameClient client, int gameId, int localPlayer, BoardPlayer player1, BoardPlayer player2, int size, Reversi game)
     {
-        boardPanel = new JPanel(new GridLayout(size, size));
-        boardPanel.setBorder(new EmptyBorder(7, 7, 7, 7));
-        /*GridLayout layout = (GridLayout) boardPanel.getLayout();
-        layout.setHgap(0);
-        layout.setVgap(0);*/
+        this(player1, player2, size, game);
+        if(client==null)
+            throw new IllegalArgumentException("The client cannot be null.");
+        if(localPlayer!=GameBoard.PLAYER1 && localPlayer!=GameBoard.PLAYER2)
+            throw new IllegalArgumentException("The local player must be player 1 or player 2.");
+        if(isExample)
+            throw new IllegalArgumentException("The names of the players cannot be empty.");
+
+        this.client = client;
+        this.gameId = gameId;
+        this.localPlayer = localPlayer;
+    }
 
-        Theme theme = game.getCurrentTheme();
+    /**
+     * Constructor for the GameBoardGUI class in spectator mode, for a game in progress on a game server. The board cannot be
+     * played on, and shows the moves the server sends.
+     * @param client The connection to the server
+     * @param gameId The game on the server
+     * @param gameBoard The board of the game, as sent by the server
+     * @param game The Reversi object
+     */
+    public GameBoardGUI(GameClient client, int gameId, GameBoard gameBoard, Reversi game)
+    {
+        this(gameBoard, game);
+        if(client==null)
+            throw new IllegalArgumentException("The client cannot be null.");
+
+        this.client = client;
+        this.gameId = gameId;
+        localPlayer = GameBoard.NOPLAYER;
+        playerStatus.changePlayerOnePieces(gameBoard.getPlayerOnePieces());
+        playerStatus.changePlayerTwoPieces(gameBoard.getPlayerTwoPieces());
+    }
 
-        for (int i = 0; i < size * size; i++) {
-            BoardButton button = new BoardButton(i, theme);
-            if (!isExample)
-            {
-                BoardPlayer player = gameBoard.getCell(i).getPlayer();
-                button.setPlayer(player==gameBoard.getPlayer1()?BoardButton.PLAYER1:(player==gameBoard.getPlayer2()?BoardButton.PLAYER2:BoardButton.NOPLAYER));
-                button.addMouseListener(new MouseAdapter() {
-                    /**
-                     * Handles the click on the player.
-                     *
-                     * @param e The mouse event
-                     */
-                    @Override
-                    public void mousePressed(MouseEvent e) {
-                        ArrayList<Integer> changed = gameBoard.onPositionPlayed(button.getPosition());
-                        if (changed != null && changed.size() > 0) {
-                            for (int position : changed) {
-                                try {
-                                    BoardButton current = (BoardButton) boardPanel.getComponent(position);
-                                    BoardPlayer player = gameBoard.getCell(position).getPlayer();
-                                    current.setPlayer(player==gameBoard.getPlayer1()?BoardButton.PLAYER1:BoardButton.PLAYER2);
-                                } catch (Exception ex) {
-                                    System.out.println("Button at position " + position + " could not be cast");
-                                }
-                            }
-                            game.setStatusPlayer(gameBoard.getCurrentPlayer());
-                        } else
-                            game.setStatusIllegalMove(gameBoard.getCurrentPlayer());
-
-                        clearHighlights();
-                        setHighlights();
-                        playerStatus.changePlayerOnePieces(gameBoard.getPlayerOnePieces());
-                        playerStatus.changePlayerTwoPieces(gameBoard.getPlayerTwoPieces());
-                        game.turnPlayed();
-                    }
-                });
-            }
+    /**
+     * Constructor for the GameBoardGUI class in replay mode. The board cannot be played on, and shows the position after any move
+     * of a recorded game.
+     * @param replay The recorded game
+     * @param game The Reversi object
+     * @param onClose Called when the replay is closed
+     */
+    public GameBoardGUI(GameReplay replay, Reversi game, Runnable onClose)
+    {
+        if(replay==null)
+            throw new IllegalArgumentException("The replay cannot be null.");
+        if(game==null)
+            throw new IllegalArgumentException("The game cannot be null");
+        if(onClose==null)
+            throw new IllegalArgumentException("The close action cannot be null.");
 
-            boardPanel.add(button);
-        }
+        this.game = game;
+        this.replay = replay;
+        playerStatus = game.getPlayerStatus();
+        if(playerStatus==null)
+            throw new IllegalArgumentException("The player status panel cannot be null.");
+        isExample = false;
 
-        if (isExample) {
-            ((BoardButton) (boardPanel.getComponent(GameBoard.getListPosition(size / 2, size / 2, size)))).setPlayer(BoardButton.PLAYER1);
-            ((BoardButton) (boardPanel.getComponent(GameBoard.getListPosition(size / 2 - 1, size / 2 - 1, size)))).setPlayer(BoardButton.PLAYER1);
-            ((BoardButton) (boardPanel.getComponent(GameBoard.getListPosition(size / 2 - 1, size / 2, size)))).setPlayer(BoardButton.PLAYER2);
-            ((BoardButton) (boardPanel.getComponent(GameBoard.getListPosition(size / 2, size / 2 - 1, size)))).setPlayer(BoardButton.PLAYER2);
-        }
+        generateReplayPanel(onClose);
+    }
+
+    /**
+     * Generate the game board panel.
+     * @param size The size of the board
+     */
+    private void generateGameBoardPanel(int size)
+    {
+        this.size = size;
+        highlighted = new boolean[size * size];
+        possible = new boolean[size * size];
+        boardView = BoardView.create(size, game.getCurrentTheme(), game.isSingleComponentBoard());
+        fillBoardView();
 
         if (!isExample) {
-            game.setStatusPlayer(gameBoard.getCurrentPlayer());
-            setHighlights();
+            game.setStatusPlayer(controller.getState().getCurrentPlayer());
+            setHighlights(controller.getState());
+            refreshHints();
         }
 
         if(playerStatus.getPlayer1()==null || playerStatus.getPlayer1().getPieces()==0) {
@@ -162,26 +203,394 @@ public class GameBoardGUI {
         if (isExample)
             parentPanel.setForeground(new Color(0.5f, 0.5f, 0.5f, 0.5f));
 
-        parentPanel.add(boardPanel);
+        parentPanel.add(boardView.getComponent());
     }
 
     /**
-     * Highlight all of the board buttons that the current player can press.
+     * Show the pieces of the board on a new board view, and let it be played on if the game is in progress.
+     */
+    private void fillBoardView()
+    {
+        if (isExample) {
+            boardView.setPlayer(GameBoard.getListPosition(size / 2, size / 2, size), BoardButton.PLAYER1);
+            boardView.setPlayer(GameBoard.getListPosition(size / 2 - 1, size / 2 - 1, size), BoardButton.PLAYER1);
+            boardView.setPlayer(GameBoard.getListPosition(size / 2 - 1, size / 2, size), BoardButton.PLAYER2);
+            boardView.setPlayer(GameBoard.getListPosition(size / 2, size / 2 - 1, size), BoardButton.PLAYER2);
+        }
+        else {
+            GameController.State state = controller.getState();
+            for (int i = 0; i < size * size; i++)
+                boardView.setPlayer(i, state.getOwner(i));
+            if (!isFinished)
+                boardView.setCellListener(this::onCellPressed);
+        }
+    }
+
+    /**
+     * Replace the view of the board with a new one of the kind chosen in the settings, keeping the pieces, highlights and hints
+     * shown on the board.
+     */
+    public void changeBoardView()
+    {
+        JComponent oldComponent = boardView.getComponent();
+        Container parent = oldComponent.getParent();
+        boardView = BoardView.create(size, game.getCurrentTheme(), game.isSingleComponentBoard());
+
+        if (replay != null) {
+            Arrays.fill(shownOwners, BoardButton.NOPLAYER);
+            int ply = replayPly;
+            replayPly = -1;
+            showReplayMove(ply);
+        }
+        else {
+            fillBoardView();
+            if (!isExample && !isFinished) {
+                for (int position : highlightedPositions)
+                    boardView.highlight(position);
+                refreshHints();
+            }
+        }
+
+        parent.remove(oldComponent);
+        parent.add(boardView.getComponent(), BorderLayout.CENTER);
+        parent.revalidate();
+        parent.repaint();
+    }
+
+    /**
+     * Handles the click on a cell of the board. The move is played by the game controller, and shown when it has been played. The
+     * time until the board has been repainted is recorded in the metrics, and as a ClickToRepaint event.
+     *
+     * @param listPosition The position of the pressed cell
      */
-    private void setHighlights() {
-        ArrayList<Integer> clickable = gameBoard.getPossiblePositions();
-        if (clickable != null && clickable.size() > 0) {
-            for (int position : clickable) {
-                try {
-                    BoardButton current = (BoardButton) boardPanel.getComponent(position);
-                    current.highlight();
-                } catch (Exception ex) {
-                    System.out.println("Button at position " + position + " could not be cast");
+    private void onCellPressed(int listPosition)
+    {
+        if (client != null) {
+            sendMove(listPosition);
+            return;
+        }
+
+        long start = System.nanoTime();
+        GameEvents.ClickToRepaint event = new GameEvents.ClickToRepaint();
+        event.begin();
+        controller.play(listPosition, state -> {
+            onMovePlayed(state);
+            SwingUtilities.invokeLater(() -> {
+                clickLatencies.record(System.nanoTime() - start);
+                event.end();
+                if(event.shouldCommit())
+                {
+                    event.position = listPosition;
+                    event.legal = state.isLegal();
+                    event.changed = state.getChanged().length;
+                    event.commit();
                 }
+            });
+        });
+    }
+
+    /**
+     * Send a move of the local player to the server, if it is their turn and the move is legal on the board shown.
+     *
+     * @param listPosition The position of the pressed cell
+     */
+    private void sendMove(int listPosition)
+    {
+        GameController.State state = controller.getState();
+        if (isFinished || moveSent || applyingRemoteMove || !isLocalTurn(state))
+            return;
+        if (!highlighted[listPosition]) {
+            game.setStatusIllegalMove(state.getCurrentPlayer());
+            return;
+        }
+        moveSent = true;
+        client.move(gameId, listPosition);
+    }
+
+    /**
+     * Check whether the local player of an online game is the player to move.
+     *
+     * @param state The state of the game
+     * @return true, if the local player is to move, false otherwise
+     */
+    private boolean isLocalTurn(GameController.State state)
+    {
+        if (localPlayer == GameBoard.NOPLAYER)
+            return false;
+        BoardPlayer local = localPlayer == GameBoard.PLAYER1 ? state.getPlayer1() : state.getPlayer2();
+        return state.getCurrentPlayer() == local;
+    }
+
+    /**
+     * Show a move of an online game sent by the server. The moves are played on the board one at a time, in the order they were
+     * received, so that none is dropped by the game controller.
+     *
+     * @param kind PLACED or PASSED
+     * @param listPosition The position of the placed piece
+     */
+    public void onRemoteMove(int kind, int listPosition)
+    {
+        remoteMoves.add(kind == GameProtocol.PASSED ? GameBoard.PASS : listPosition);
+        if (!applyingRemoteMove)
+            applyRemoteMoves();
+    }
+
+    /**
+     * Show that the server refused the move of the local player.
+     */
+    public void onRemoteIllegalMove()
+    {
+        moveSent = false;
+        game.setStatusIllegalMove(controller.getState().getCurrentPlayer());
+    }
+
+    /**
+     * End an online game, once the moves received before the end have been shown. A game which ended normally is already over on
+     * the board; a forfeited game is won by the player who stayed.
+     *
+     * @param winner The winner, PLAYER1 or PLAYER2, or NOPLAYER for a tie
+     */
+    public void onRemoteGameOver(int winner)
+    {
+        remoteWinner = winner;
+        if (!applyingRemoteMove)
+            applyRemoteMoves();
+    }
+
+    /**
+     * Play the next move received from the server, or end the game if all of them have been played and the server ended it.
+     */
+    private void applyRemoteMoves()
+    {
+        Integer move = remoteMoves.poll();
+        applyingRemoteMove = move != null;
+        if (move == null) {
+            if (remoteWinner >= 0 && !isFinished) {
+                GameController.State state = controller.getState();
+                declareWinner(remoteWinner == GameBoard.NOPLAYER ? GameBoard.tiePlayer
+                        : (remoteWinner == GameBoard.PLAYER1 ? state.getPlayer1() : state.getPlayer2()));
             }
-        } else {
-            BoardPlayer victory = gameBoard.checkVictory();
-            if (victory == null)
+            return;
+        }
+
+        moveSent = false;
+        if (move == GameBoard.PASS)
+            controller.skipTurn(state -> {
+                onTurnSkipped(state);
+                applyRemoteMoves();
+            });
+        else
+            controller.play(move, state -> {
+                onMovePlayed(state);
+                applyRemoteMoves();
+            });
+    }
+
+    /**
+     * Check whether this board shows an online game being watched.
+     *
+     * @return true, if the game is watched, false if it is played or not online
+     */
+    public boolean isSpectating()
+    {
+        return client != null && localPlayer == GameBoard.NOPLAYER;
+    }
+
+    /**
+     * Get the game on the server shown by this board.
+     *
+     * @return The game, or -1 if the board is not showing an online game
+     */
+    public int getOnlineGameId()
+    {
+        return client == null ? -1 : gameId;
+    }
+
+    /**
+     * Show a move played by the game controller.
+     *
+     * @param state The state of the game after the move
+     */
+    private void onMovePlayed(GameController.State state)
+    {
+        int[] changed = state.getChanged();
+        boardView.beginUpdate();
+        if (state.isLegal() && changed.length > 0) {
+            int placed = changed[0];
+            for (int position : changed) {
+                if (game.isAnimationsOn()) {
+                    int distance = Math.max(Math.abs(position % size - placed % size), Math.abs(position / size - placed / size));
+                    boardView.animatePlayer(position, state.getOwner(position), distance * FlipAnimator.STAGGER_FRAMES);
+                }
+                else
+                    boardView.setPlayer(position, state.getOwner(position));
+            }
+            game.setStatusPlayer(state.getCurrentPlayer());
+        } else
+            game.setStatusIllegalMove(state.getCurrentPlayer());
+
+        updateHighlights(state);
+        boardView.endUpdate();
+        checkPossibleMoves(state);
+        refreshHints();
+        playerStatus.changePlayerOnePieces(state.getPlayerOnePieces());
+        playerStatus.changePlayerTwoPieces(state.getPlayerTwoPieces());
+        game.turnPlayed();
+    }
+
+    /**
+     * Generate the game board panel of the replay mode, with the controls used to move through the game.
+     * @param onClose Called when the replay is closed
+     */
+    private void generateReplayPanel(Runnable onClose)
+    {
+        size = replay.getSize();
+        boardView = BoardView.create(size, game.getCurrentTheme(), game.isSingleComponentBoard());
+        shownOwners = new int[size * size];
+        replayOwners = new int[size * size];
+
+        JButton firstButton = new JButton("|<");
+        firstButton.addActionListener(e -> showReplayMove(0));
+        JButton previousButton = new JButton("<");
+        previousButton.addActionListener(e -> showReplayMove(replayPly - 1));
+        JButton nextButton = new JButton(">");
+        nextButton.addActionListener(e -> showReplayMove(replayPly + 1));
+        JButton lastButton = new JButton(">|");
+        lastButton.addActionListener(e -> showReplayMove(replay.getLength()));
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(e -> onClose.run());
+
+        replaySlider = new JSlider(0, replay.getLength(), 0);
+        replaySlider.addChangeListener(e -> showReplayMove(replaySlider.getValue()));
+        replayLabel = new JLabel();
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        controls.add(firstButton);
+        controls.add(previousButton);
+        controls.add(replaySlider);
+        controls.add(nextButton);
+        controls.add(lastButton);
+        controls.add(replayLabel);
+        controls.add(closeButton);
+
+        JPanel replayPanel = new JPanel(new BorderLayout());
+        replayPanel.add(boardView.getComponent(), BorderLayout.CENTER);
+        replayPanel.add(controls, BorderLayout.PAGE_END);
+
+        parentPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        parentPanel.add(replayPanel);
+
+        InputMap keys = parentPanel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_HOME, 0), "first");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_LEFT, 0), "previous");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_RIGHT, 0), "next");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_END, 0), "last");
+        ActionMap actions = parentPanel.getActionMap();
+        actions.put("first", replayAction(firstButton));
+        actions.put("previous", replayAction(previousButton));
+        actions.put("next", replayAction(nextButton));
+        actions.put("last", replayAction(lastButton));
+
+        replayPly = -1;
+        showReplayMove(0);
+    }
+
+    /**
+     * Create a key action which presses one of the replay buttons.
+     * @param button The button
+     * @return The action
+     */
+    private Action replayAction(JButton button)
+    {
+        return new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                button.doClick(0);
+            }
+        };
+    }
+
+    /**
+     * Show the position after the given move of the replay. Only the cells which differ from the position shown are repainted.
+     * @param ply The number of moves played; values outside of the game are moved to its start or end
+     */
+    private void showReplayMove(int ply)
+    {
+        ply = Math.max(0, Math.min(replay.getLength(), ply));
+        if(ply==replayPly)
+            return;
+        int previousMove = replayPly > 0 ? replay.getMove(replayPly) : GameBoard.PASS;
+        replayPly = ply;
+
+        replay.positionAt(ply, replayOwners);
+        boardView.beginUpdate();
+        for(int position = 0; position < replayOwners.length; position++)
+            if(replayOwners[position]!=shownOwners[position])
+            {
+                boardView.setPlayer(position, replayOwners[position]);
+                shownOwners[position] = replayOwners[position];
+            }
+
+        int move = ply > 0 ? replay.getMove(ply) : GameBoard.PASS;
+        if(previousMove!=GameBoard.PASS && previousMove!=move)
+            boardView.clearHint(previousMove);
+        if(move!=GameBoard.PASS)
+            boardView.setHint(move, "", LAST_MOVE);
+        boardView.endUpdate();
+
+        if(replaySlider.getValue()!=ply)
+            replaySlider.setValue(ply);
+        String played = ply==0 ? "Start" : (move==GameBoard.PASS ? "Pass" : GameTranscript.toNotation(move, replay.getSize()));
+        replayLabel.setText(played + " (" + ply + "/" + replay.getLength() + ")");
+        playerStatus.changePlayerOnePieces(replay.getPlayerOnePieces(ply));
+        playerStatus.changePlayerTwoPieces(replay.getPlayerTwoPieces(ply));
+    }
+
+    /**
+     * Highlight all of the board buttons that the current player can press.
+     * @param state The state of the game
+     */
+    private void setHighlights(GameController.State state) {
+        boardView.beginUpdate();
+        updateHighlights(state);
+        boardView.endUpdate();
+        checkPossibleMoves(state);
+    }
+
+    /**
+     * Update the highlights to the positions the current player can press. Only the cells which were highlighted and can no longer
+     * be pressed, or which can be pressed and were not highlighted, are changed.
+     * @param state The state of the game
+     */
+    private void updateHighlights(GameController.State state) {
+        int[] clickable = state.getPossiblePositions();
+        for (int position : clickable)
+            possible[position] = true;
+        for (int position : highlightedPositions)
+            if (!possible[position]) {
+                boardView.unhighlight(position);
+                highlighted[position] = false;
+            }
+        for (int position : clickable) {
+            possible[position] = false;
+            if (!highlighted[position]) {
+                boardView.highlight(position);
+                highlighted[position] = true;
+            }
+        }
+        highlightedPositions = clickable;
+    }
+
+    /**
+     * If the current player cannot press any position, skip their turn, or declare the winner if the game is over.
+     * @param state The state of the game
+     */
+    private void checkPossibleMoves(GameController.State state) {
+        if (state.getPossiblePositions().length == 0) {
+            BoardPlayer victory = state.getWinner();
+            if (victory == null && client != null)
+                game.setStatus("Player " + state.getCurrentPlayer().getName() + " has no possible moves.");
+            else if (victory == null)
                 noMoreMoves();
             else
                 declareWinner(victory);
@@ -192,10 +601,18 @@ public class GameBoardGUI {
      * Skips the turn of the current player
      */
     public void skipTurn() {
-        gameBoard.skipTurn();
-        game.setStatusPlayer(gameBoard.getCurrentPlayer());
-        clearHighlights();
-        setHighlights();
+        if (controller != null && client == null)
+            controller.skipTurn(this::onTurnSkipped);
+    }
+
+    /**
+     * Show a turn skipped by the game controller.
+     * @param state The state of the game after the skipped turn
+     */
+    private void onTurnSkipped(GameController.State state) {
+        game.setStatusPlayer(state.getCurrentPlayer());
+        setHighlights(state);
+        refreshHints();
     }
 
     /**
@@ -203,7 +620,7 @@ public class GameBoardGUI {
      */
     private void noMoreMoves()
     {
-        game.noMoreMoves(gameBoard.getCurrentPlayer());
+        game.noMoreMoves(controller.getState().getCurrentPlayer());
         skipTurn();
     }
 
@@ -213,33 +630,21 @@ public class GameBoardGUI {
      */
     private void declareWinner(BoardPlayer winningPlayer)
     {
-        for(Component c: boardPanel.getComponents())
-            c.removeMouseListener(c.getMouseListeners()[0]);
+        isFinished = true;
+        boardView.setCellListener(null);
+        game.getHintService().cancel();
+        clearHints();
 
         game.setWin(winningPlayer);
     }
 
-    /**
-     * Clears the highlights of all board pieces.
-     */
-    private void clearHighlights() {
-        for (Component component : boardPanel.getComponents()) {
-            try {
-                BoardButton current = (BoardButton) component;
-                current.unhighlight();
-            } catch (Exception ex) {
-                System.out.println("Button could not be cast");
-            }
-        }
-    }
-
     /**
      * Returns the board's panel.
      *
      * @return The board panel
      */
-    public JPanel getBoardPanel() {
-        return boardPanel;
+    public JComponent getBoardPanel() {
+        return boardView.getComponent();
     }
 
     /**
@@ -257,7 +662,7 @@ public class GameBoardGUI {
      */
     public BoardPlayer getPlayer1()
     {
-        return gameBoard.getPlayer1();
+        return controller.getState().getPlayer1();
     }
 
     /**
@@ -266,29 +671,113 @@ public class GameBoardGUI {
      */
     public BoardPlayer getPlayer2()
     {
-        return gameBoard.getPlayer2();
+        return controller.getState().getPlayer2();
     }
 
     /**
-     * Get the game board.
-     * @return The game board
+     * Get a copy of the game board, as of the latest move shown.
+     * @return The game board, or null if there is no game
      */
     public GameBoard getBoard()
     {
-        return gameBoard;
+        return controller==null ? null : controller.getState().getBoard();
+    }
+
+    /**
+     * Get the owner of every cell shown on the board: the latest move shown of the game, or the position shown in a replay.
+     * @return The owners (NOPLAYER, PLAYER1 or PLAYER2), by list position, or null if there is no game
+     */
+    public int[] getShownOwners()
+    {
+        if(replay!=null)
+            return shownOwners.clone();
+        if(controller==null)
+            return null;
+        GameController.State state = controller.getState();
+        int[] owners = new int[size * size];
+        for(int position = 0; position < owners.length; position++)
+            owners[position] = state.getOwner(position);
+        return owners;
+    }
+
+    /**
+     * Get the size of the board.
+     * @return The size of the board
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Stop the game played on this board. Moves which have been requested, but not shown yet, are cancelled. An online game in
+     * progress is resigned, or no longer watched.
+     */
+    public void close()
+    {
+        if(client!=null && !isFinished && isSpectating())
+            client.unwatch(gameId);
+        else if(client!=null && !isFinished)
+            client.leave(gameId);
+        if(controller!=null)
+            controller.close();
     }
 
     public void changeTheme()
     {
-        Theme theme = game.getCurrentTheme();
-        int size = 8;
-        if(gameBoard!=null)
-            size = gameBoard.getSize();
+        boardView.changeTheme(game.getCurrentTheme());
+
+        if(!isExample && replay==null)
+            refreshHints();
+    }
+
+    /**
+     * Restart the evaluation of the hints for the current position. Any evaluation of an older position is cancelled. Online, the
+     * hints are only evaluated on the local player's turn, and never for a watched game.
+     */
+    public void refreshHints()
+    {
+        MoveHintService hintService = game.getHintService();
+        hintService.cancel();
+        clearHints();
+        GameController.State state = controller.getState();
+        if(!isExample && replay==null && game.isHintsOn() && (client==null || isLocalTurn(state)))
+            hintService.evaluate(state.getBoard(), this::showHint);
+    }
+
+    /**
+     * Show the newest score of a move, and recolour all hints so that the best move is green and the worst is red.
+     * @param position The position of the move
+     * @param score The score of the move
+     * @param depth The depth the score was computed with
+     */
+    private void showHint(int position, int score, int depth)
+    {
+        hintScores.put(position, score);
+
+        int best = Integer.MIN_VALUE, worst = Integer.MAX_VALUE;
+        for(int value : hintScores.values())
+        {
+            best = Math.max(best, value);
+            worst = Math.min(worst, value);
+        }
 
-        for (int i = 0; i < size*size; i++)
+        for(int hinted : hintScores.keySet())
         {
-            BoardButton button = (BoardButton) boardPanel.getComponent(i);
-            button.changeTheme(theme);
+            int value = hintScores.get(hinted);
+            float quality = best==worst ? 1f : (float) (value - worst) / (best - worst);
+            Color tint = new Color((int) (255 * (1 - quality)), (int) (255 * quality), 0, 110);
+            boardView.setHint(hinted, value>0 ? "+" + value : String.valueOf(value), tint);
         }
     }
+
+    /**
+     * Remove all hints from the board.
+     */
+    private void clearHints()
+    {
+        for(int hinted : hintScores.keySet())
+            boardView.clearHint(hinted);
+        hintScores.clear();
+    }
 }
@@ -0,0 +1,448 @@
+import javax.swing.*;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A connection of the app to a game server. Messages are sent straight away on the calling thread; they are only a few bytes long,
+ * so sending them from the event dispatch thread is fine. The messages of the server are read on a thread of the client, and
+ * given to the listener on the event dispatch thread.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class GameClient implements Closeable
+{
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final DataInputStream in;
+    private final Listener listener;
+    private volatile boolean closed;
+
+    /**
+     * Receives the messages of the server, on the event dispatch thread. Every method does nothing by default.
+     */
+    public interface Listener
+    {
+        /**
+         * The server created a game, which waits for an opponent.
+         * @param gameId The game
+         * @param size The size of its board
+         */
+        default void onWaiting(int gameId, int size) { }
+
+        /**
+         * A game started.
+         * @param gameId The game
+         * @param size The size of its board
+         * @param player The player of this client, PLAYER1 or PLAYER2
+         * @param name1 The name of player 1
+         * @param name2 The name of player 2
+         */
+        default void onGameStarted(int gameId, int size, int player, String name1, String name2) { }
+
+        /**
+         * A move was played in a game, by either player.
+         * @param gameId The game
+         * @param kind PLACED or PASSED
+         * @param position The list position of the placed piece
+         */
+        default void onMovePlayed(int gameId, int kind, int position) { }
+
+        /**
+         * The server refused a move of this client.
+         * @param gameId The game
+         * @param position The list position of the refused move
+         */
+        default void onIllegalMove(int gameId, int position) { }
+
+        /**
+         * A game ended.
+         * @param gameId The game
+         * @param winner The winner, PLAYER1 or PLAYER2, or NOPLAYER for a tie
+         * @param reason NORMAL_END or FORFEIT
+         */
+        default void onGameOver(int gameId, int winner, int reason) { }
+
+        /**
+         * The server sent the games waiting for their second player and the games in progress.
+         * @param games The games
+         */
+        default void onGames(List<GameInfo> games) { }
+
+        /**
+         * The server sent the board of a watched game, when it started being watched or after the client fell behind.
+         * @param gameId The game
+         * @param moveNumber The number of moves played, skipped turns included
+         * @param gameBoard The board of the game, without the moves which led to it
+         */
+        default void onSnapshot(int gameId, int moveNumber, GameBoard gameBoard) { }
+
+        /**
+         * A move was played in a watched game.
+         * @param gameId The game
+         * @param moveNumber The number of moves played, this one included
+         * @param kind PLACED or PASSED
+         * @param position The list position of the placed piece
+         * @param flips The number of pieces flipped in every direction, from N to NW
+         */
+        default void onDelta(int gameId, int moveNumber, int kind, int position, int[] flips) { }
+
+        /**
+         * The server sent an error.
+         * @param message The description of the error
+         */
+        default void onError(String message) { }
+
+        /**
+         * The connection to the server was lost. It is not called when the client is closed.
+         */
+        default void onDisconnected() { }
+    }
+
+    /**
+     * A game listed by the server.
+     */
+    public static final class GameInfo
+    {
+        private final int gameId, size, spectators;
+        private final boolean inProgress;
+        private final String name1, name2;
+
+        /**
+         * Constructor for a listed game.
+         * @param gameId The game
+         * @param size The size of its board
+         * @param inProgress true, if the game is in progress, false if it waits for an opponent
+         * @param spectators The number of spectators
+         * @param name1 The name of player 1
+         * @param name2 The name of player 2, empty if the game waits for an opponent
+         */
+        public GameInfo(int gameId, int size, boolean inProgress, int spectators, String name1, String name2)
+        {
+            this.gameId = gameId;
+            this.size = size;
+            this.inProgress = inProgress;
+            this.spectators = spectators;
+            this.name1 = name1;
+            this.name2 = name2;
+        }
+
+        /**
+         * Get the game identifier on the server.
+         * @return The game
+         */
+        public int getGameId()
+        {
+            return gameId;
+        }
+
+        /**
+         * Get the size of the board.
+         * @return The size
+         */
+        public int getSize()
+        {
+            return size;
+        }
+
+        /**
+         * Check whether the game is in progress.
+         * @return true, if the game is in progress, false if it waits for an opponent
+         */
+        public boolean isInProgress()
+        {
+            return inProgress;
+        }
+
+        /**
+         * Get the number of spectators of the game.
+         * @return The number of spectators
+         */
+        public int getSpectators()
+        {
+            return spectators;
+        }
+
+        /**
+         * Get the name of player 1.
+         * @return The name
+         */
+        public String getName1()
+        {
+            return name1;
+        }
+
+        /**
+         * Get the name of player 2.
+         * @return The name, empty if the game waits for an opponent
+         */
+        public String getName2()
+        {
+            return name2;
+        }
+
+        @Override
+        public String toString()
+        {
+            if(!inProgress)
+                return name1 + " is waiting, " + size + " x " + size;
+            return name1 + " vs " + name2 + ", " + size + " x " + size + ", " + spectators + " watching";
+        }
+    }
+
+    /**
+     * Constructor for the client.
+     * @param socket The connected socket
+     * @param listener The listener of the messages of the server
+     * @throws IOException If the streams of the socket could not be opened
+     */
+    private GameClient(Socket socket, Listener listener) throws IOException
+    {
+        this.socket = socket;
+        this.listener = listener;
+        out = new BufferedOutputStream(socket.getOutputStream());
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    }
+
+    /**
+     * Connect to a game server. It blocks until the connection is made, so it must not be called on the event dispatch thread.
+     * @param host The host of the server
+     * @param port The port of the server
+     * @param name The name of the player
+     * @param listener The listener of the messages of the server
+     * @return The client
+     * @throws IOException If the server could not be reached
+     */
+    public static GameClient connect(String host, int port, String name, Listener listener) throws IOException
+    {
+        if(host==null || host.isBlank())
+            throw new IllegalArgumentException("The host cannot be null or empty.");
+        if(listener==null)
+            throw new IllegalArgumentException("The listener cannot be null.");
+
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+            GameClient client = new GameClient(socket, listener);
+            client.send(GameProtocol.hello(name));
+            Thread reader = new Thread(client::read, "Reversi client");
+            reader.setDaemon(true);
+            reader.start();
+            return client;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Ask for a game against the next player asking for the same size of board.
+     * @param size The size of the board
+     */
+    public void match(int size)
+    {
+        send(GameProtocol.match(size));
+    }
+
+    /**
+     * Join a game waiting for its second player.
+     * @param gameId The game
+     */
+    public void join(int gameId)
+    {
+        send(GameProtocol.join(gameId));
+    }
+
+    /**
+     * Ask for the games waiting for their second player.
+     */
+    public void list()
+    {
+        send(GameProtocol.list());
+    }
+
+    /**
+     * Start watching a game in progress.
+     * @param gameId The game
+     */
+    public void watch(int gameId)
+    {
+        send(GameProtocol.watch(gameId));
+    }
+
+    /**
+     * Stop watching a game.
+     * @param gameId The game
+     */
+    public void unwatch(int gameId)
+    {
+        send(GameProtocol.unwatch(gameId));
+    }
+
+    /**
+     * Play a move. The move is shown when the server sends it back.
+     * @param gameId The game
+     * @param position The list position of the piece
+     */
+    public void move(int gameId, int position)
+    {
+        send(GameProtocol.move(gameId, position));
+    }
+
+    /**
+     * Leave a game, resigning it if it is in progress.
+     * @param gameId The game
+     */
+    public void leave(int gameId)
+    {
+        send(GameProtocol.leave(gameId));
+    }
+
+    /**
+     * Check whether the client is closed.
+     * @return true, if the client was closed or the connection was lost, false otherwise
+     */
+    public boolean isClosed()
+    {
+        return closed || socket.isClosed();
+    }
+
+    /**
+     * Close the connection to the server.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            //the socket is closed anyway
+        }
+    }
+
+    /**
+     * Send a message to the server. A failure is reported when the reader notices the lost connection.
+     * @param frame The message
+     */
+    private synchronized void send(ByteBuffer frame)
+    {
+        if(isClosed())
+            return;
+        try {
+            out.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+            out.flush();
+        } catch (IOException e) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                //the reader reports the lost connection
+            }
+        }
+    }
+
+    /**
+     * Read the messages of the server until the connection is closed. It runs on the thread of the client.
+     */
+    private void read()
+    {
+        try {
+            while(true)
+            {
+                byte[] bytes = new byte[in.readUnsignedShort()];
+                in.readFully(bytes);
+                dispatch(ByteBuffer.wrap(bytes));
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                //already lost
+            }
+            if(!closed)
+                SwingUtilities.invokeLater(listener::onDisconnected);
+        }
+    }
+
+    /**
+     * Decode a message of the server and give it to the listener on the event dispatch thread.
+     * @param frame The message, starting with its type
+     */
+    private void dispatch(ByteBuffer frame)
+    {
+        int type = GameProtocol.getUnsignedByte(frame);
+        Runnable call;
+        switch(type)
+        {
+            case GameProtocol.WAITING: {
+                int gameId = frame.getInt(), size = GameProtocol.getUnsignedShort(frame);
+                call = () -> listener.onWaiting(gameId, size);
+                break;
+            }
+            case GameProtocol.GAME_STARTED: {
+                int gameId = frame.getInt(), size = GameProtocol.getUnsignedShort(frame), player = GameProtocol.getUnsignedByte(frame);
+                String name1 = GameProtocol.getString(frame), name2 = GameProtocol.getString(frame);
+                call = () -> listener.onGameStarted(gameId, size, player, name1, name2);
+                break;
+            }
+            case GameProtocol.MOVE_PLAYED: {
+                int gameId = frame.getInt(), kind = GameProtocol.getUnsignedByte(frame), position = GameProtocol.getUnsignedShort(frame);
+                call = () -> listener.onMovePlayed(gameId, kind, position);
+                break;
+            }
+            case GameProtocol.ILLEGAL_MOVE: {
+                int gameId = frame.getInt(), position = GameProtocol.getUnsignedShort(frame);
+                call = () -> listener.onIllegalMove(gameId, position);
+                break;
+            }
+            case GameProtocol.GAME_OVER: {
+                int gameId = frame.getInt(), winner = GameProtocol.getUnsignedByte(frame), reason = GameProtocol.getUnsignedByte(frame);
+                call = () -> listener.onGameOver(gameId, winner, reason);
+                break;
+            }
+            case GameProtocol.GAMES: {
+                int count = GameProtocol.getUnsignedShort(frame);
+                ArrayList<GameInfo> games = new ArrayList<>(count);
+                for(int index = 0; index < count; index++)
+                {
+                    int gameId = frame.getInt(), size = GameProtocol.getUnsignedShort(frame);
+                    boolean inProgress = GameProtocol.getUnsignedByte(frame)==GameProtocol.PLAYING_GAME;
+                    int spectators = GameProtocol.getUnsignedShort(frame);
+                    games.add(new GameInfo(gameId, size, inProgress, spectators, GameProtocol.getString(frame), GameProtocol.getString(frame)));
+                }
+                call = () -> listener.onGames(games);
+                break;
+            }
+            case GameProtocol.SNAPSHOT: {
+                int gameId = frame.getInt(), size = GameProtocol.getUnsignedShort(frame), moveNumber = frame.getInt();
+                boolean playerOneToMove = GameProtocol.getUnsignedByte(frame)==GameBoard.PLAYER1;
+                BoardPlayer player1 = new BoardPlayer(GameProtocol.getString(frame)), player2 = new BoardPlayer(GameProtocol.getString(frame));
+                GameBoard gameBoard = new GameBoard(player1, player2, size, GameProtocol.getOwners(frame, size), playerOneToMove);
+                call = () -> listener.onSnapshot(gameId, moveNumber, gameBoard);
+                break;
+            }
+            case GameProtocol.DELTA: {
+                int gameId = frame.getInt(), moveNumber = frame.getInt(), kind = GameProtocol.getUnsignedByte(frame);
+                int position = GameProtocol.getUnsignedShort(frame);
+                int[] flips = GameProtocol.getFlips(frame);
+                call = () -> listener.onDelta(gameId, moveNumber, kind, position, flips);
+                break;
+            }
+            case GameProtocol.ERROR: {
+                String message = GameProtocol.getString(frame);
+                call = () -> listener.onError(message);
+                break;
+            }
+            default:
+                return;
+        }
+        SwingUtilities.invokeLater(call);
+    }
+}
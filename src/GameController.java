@@ -0,0 +1,274 @@
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs the game logic of a board away from the Swing event dispatch thread. The board is only ever changed by a single worker
+ * thread, which plays the requested moves, works out everything the GUI needs to show about the new position, and publishes it
+ * back to the event dispatch thread as an immutable State.
+ *
+ * Every request is made against the latest published state. If the board has changed since then (for example, when the player
+ * clicks again before the previous move was shown), the request is stale and is dropped. When the board is replaced by a new game or
+ * a loaded one, close() cancels all pending requests, and their results are never delivered.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class GameController
+{
+    private final GameBoard gameBoard;
+    private final ExecutorService worker;
+    private final MetricsRegistry.Counter moves = MetricsRegistry.get().counter(MetricsRegistry.MOVES);
+    private volatile int generation;
+    private int workerVersion;
+    private State state;
+
+    /**
+     * A position of the game, as published by the controller. States are never changed after they are created.
+     */
+    public static final class State
+    {
+        private final GameBoard snapshot;
+        private final int version;
+        private final boolean legal;
+        private final int[] changed;
+        private final int[] possible;
+        private final BoardPlayer winner;
+
+        /**
+         * Constructor for a state.
+         * @param gameBoard The board, which is copied
+         * @param version The number of changes made to the board
+         * @param legal true, if the request which created the state was legal
+         * @param changed The positions changed by the request, the placed piece first
+         */
+        private State(GameBoard gameBoard, int version, boolean legal, int[] changed)
+        {
+            snapshot = new GameBoard(gameBoard);
+            this.version = version;
+            this.legal = legal;
+            this.changed = changed;
+
+            ArrayList<Integer> positions = snapshot.getPossiblePositions();
+            possible = new int[positions.size()];
+            for(int i = 0; i < possible.length; i++)
+                possible[i] = positions.get(i);
+            winner = possible.length==0 ? new GameBoard(snapshot).checkVictory() : null;
+        }
+
+        /**
+         * Get a copy of the board in this state. The copy can be changed without affecting the state.
+         * @return The copy of the board
+         */
+        public GameBoard getBoard()
+        {
+            return new GameBoard(snapshot);
+        }
+
+        /**
+         * Checks whether the request which created this state was legal.
+         * @return true, if it was legal, false if the move was illegal and the board did not change
+         */
+        public boolean isLegal()
+        {
+            return legal;
+        }
+
+        /**
+         * Get the positions changed by the request which created this state.
+         * @return The changed positions, the placed piece first
+         */
+        public int[] getChanged()
+        {
+            return changed.clone();
+        }
+
+        /**
+         * Get the positions where the current player can place a piece.
+         * @return The possible positions
+         */
+        public int[] getPossiblePositions()
+        {
+            return possible.clone();
+        }
+
+        /**
+         * Get the winner of the game, if it is over.
+         * @return The winner, GameBoard.tiePlayer for a tie, or null if the game is not over
+         */
+        public BoardPlayer getWinner()
+        {
+            return winner;
+        }
+
+        /**
+         * Get the owner of a cell.
+         * @param listPosition The position of the cell in the list
+         * @return NOPLAYER, PLAYER1 or PLAYER2
+         */
+        public int getOwner(int listPosition)
+        {
+            return snapshot.getOwner(listPosition);
+        }
+
+        /**
+         * Get the player to move.
+         * @return The current player
+         */
+        public BoardPlayer getCurrentPlayer()
+        {
+            return snapshot.getCurrentPlayer();
+        }
+
+        /**
+         * Get the number of pieces of player 1.
+         * @return The number of pieces
+         */
+        public int getPlayerOnePieces()
+        {
+            return snapshot.getPlayerOnePieces();
+        }
+
+        /**
+         * Get the number of pieces of player 2.
+         * @return The number of pieces
+         */
+        public int getPlayerTwoPieces()
+        {
+            return snapshot.getPlayerTwoPieces();
+        }
+
+        /**
+         * Get the first player.
+         * @return Player 1
+         */
+        public BoardPlayer getPlayer1()
+        {
+            return snapshot.getPlayer1();
+        }
+
+        /**
+         * Get the second player.
+         * @return Player 2
+         */
+        public BoardPlayer getPlayer2()
+        {
+            return snapshot.getPlayer2();
+        }
+
+        /**
+         * Get the size of the board.
+         * @return The size of the board
+         */
+        public int getSize()
+        {
+            return snapshot.getSize();
+        }
+    }
+
+    /**
+     * Constructor for the game controller. From now on, the board must only be changed through the controller.
+     * @param gameBoard The game board
+     */
+    public GameController(GameBoard gameBoard)
+    {
+        if(gameBoard==null)
+            throw new IllegalArgumentException("The game board cannot be null.");
+        this.gameBoard = gameBoard;
+        state = new State(gameBoard, 0, true, new int[0]);
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Reversi game logic");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get the latest published state. Must be called on the event dispatch thread.
+     * @return The state
+     */
+    public State getState()
+    {
+        return state;
+    }
+
+    /**
+     * Place a piece of the current player. Must be called on the event dispatch thread.
+     * @param listPosition The position of the piece
+     * @param listener Called on the event dispatch thread with the new state, unless the request is dropped
+     */
+    public void play(int listPosition, Consumer<State> listener)
+    {
+        submit(listener, () -> {
+            ArrayList<Integer> changed = gameBoard.onPositionPlayed(listPosition);
+            if(changed==null)
+                return new State(gameBoard, workerVersion, false, new int[0]);
+            moves.increment();
+            return new State(gameBoard, ++workerVersion, true, changed.stream().mapToInt(Integer::intValue).toArray());
+        });
+    }
+
+    /**
+     * Skip the turn of the current player. Must be called on the event dispatch thread.
+     * @param listener Called on the event dispatch thread with the new state, unless the request is dropped
+     */
+    public void skipTurn(Consumer<State> listener)
+    {
+        submit(listener, () -> {
+            gameBoard.skipTurn();
+            return new State(gameBoard, ++workerVersion, true, new int[0]);
+        });
+    }
+
+    /**
+     * Cancel all pending requests and stop the worker. The results of the cancelled requests are never delivered.
+     */
+    public void close()
+    {
+        generation++;
+        worker.shutdown();
+    }
+
+    /**
+     * A change of the board, run on the worker thread. It returns the new state, with the version of the board increased if the
+     * board changed.
+     */
+    private interface Change
+    {
+        /**
+         * Change the board.
+         * @return The new state
+         */
+        State apply();
+    }
+
+    /**
+     * Run a change on the worker thread, and publish its state on the event dispatch thread. The change is dropped if the board has
+     * changed since the latest state was published, or if the controller was closed.
+     * @param listener The listener of the new state
+     * @param change The change
+     */
+    private void submit(Consumer<State> listener, Change change)
+    {
+        if(listener==null)
+            throw new IllegalArgumentException("The listener cannot be null.");
+        if(worker.isShutdown())
+            return;
+
+        int requestGeneration = generation;
+        int requestVersion = state.version;
+        worker.execute(() -> {
+            if(requestGeneration!=generation || requestVersion!=workerVersion)
+                return;
+            State result = change.apply();
+            SwingUtilities.invokeLater(() -> {
+                if(requestGeneration!=generation)
+                    return;
+                state = result;
+                listener.accept(result);
+            });
+        });
+    }
+}
@@ -0,0 +1,629 @@
+import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A database of recorded games, indexed by position. For every position reached in every game, the index holds the move played
+ * there and the result of the game for the player who made it, so the database can tell how often each move was played from any
+ * position, and how well it did.
+ *
+ * The index is a file of fixed-size records sorted by the hash of the position (see PositionHash), so a position is found with a
+ * binary search over the memory-mapped file. It is built with an external merge sort: the records are collected in sorted runs of
+ * limited size, written to temporary files, and merged into the index, so the number of games is not limited by the heap.
+ *
+ * <pre>
+ * header    4 bytes 'R' 'E' 'V' 'D', int version, long number of records
+ * record    long position hash, int game id, short move, byte result (LOSS, DRAW, WIN), byte size - 1
+ * </pre>
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class GameDatabase implements Closeable
+{
+    public static final int LOSS = 0, DRAW = 1, WIN = 2;
+
+    private static final byte[] MAGIC = {'R', 'E', 'V', 'D'};
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 16;
+    private static final int DEFAULT_RUN_RECORDS = 1 << 21;
+    private static final long CHUNK_RECORDS = 1L << 26;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long recordCount;
+
+    /**
+     * The statistics of a move played from a position.
+     */
+    public static class MoveStatistics
+    {
+        private final int move;
+        private int games, wins, draws, losses;
+
+        /**
+         * Constructor for the statistics of a move.
+         * @param move The list position of the move
+         */
+        private MoveStatistics(int move)
+        {
+            this.move = move;
+        }
+
+        /**
+         * Count a game in which the move was played.
+         * @param result The result of the game for the player who made the move
+         */
+        private void add(int result)
+        {
+            games++;
+            if(result==WIN)
+                wins++;
+            else if(result==DRAW)
+                draws++;
+            else
+                losses++;
+        }
+
+        /**
+         * Get the move.
+         * @return The list position of the move
+         */
+        public int getMove()
+        {
+            return move;
+        }
+
+        /**
+         * Get the number of games in which the move was played.
+         * @return The number of games
+         */
+        public int getGames()
+        {
+            return games;
+        }
+
+        /**
+         * Get the number of those games won by the player who made the move.
+         * @return The number of wins
+         */
+        public int getWins()
+        {
+            return wins;
+        }
+
+        /**
+         * Get the number of those games which ended in a tie.
+         * @return The number of draws
+         */
+        public int getDraws()
+        {
+            return draws;
+        }
+
+        /**
+         * Get the number of those games lost by the player who made the move.
+         * @return The number of losses
+         */
+        public int getLosses()
+        {
+            return losses;
+        }
+
+        /**
+         * Get the score of the move: a win counts as 1, a draw as 0.5.
+         * @return The score, between 0 and 1
+         */
+        public double getScore()
+        {
+            return (wins + draws / 2.0) / games;
+        }
+    }
+
+    /**
+     * Open the database with the given index file.
+     * @param index The index file, built by build()
+     * @throws IOException If the index could not be opened, or is not valid
+     */
+    public GameDatabase(File index) throws IOException
+    {
+        channel = FileChannel.open(index.toPath(), StandardOpenOption.READ);
+        try
+        {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            for(int i = 0; i < MAGIC.length; i++)
+                if(header.get(i)!=MAGIC[i])
+                    throw new IOException("The file is not a Reversi game database.");
+            if(header.getInt(MAGIC.length)!=VERSION)
+                throw new IOException("The game database has an unknown version.");
+            recordCount = header.getLong(8);
+            if(HEADER_BYTES + recordCount * RECORD_BYTES!=channel.size())
+                throw new IOException("The game database is damaged.");
+
+            chunks = new MappedByteBuffer[(int) ((recordCount + CHUNK_RECORDS - 1) / CHUNK_RECORDS)];
+            for(int chunk = 0; chunk < chunks.length; chunk++)
+            {
+                long first = chunk * CHUNK_RECORDS;
+                long records = Math.min(CHUNK_RECORDS, recordCount - first);
+                chunks[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * RECORD_BYTES, records * RECORD_BYTES);
+                chunks[chunk].order(ByteOrder.BIG_ENDIAN);
+            }
+        }
+        catch(IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the statistics of the moves played from the position on the given board.
+     * @param gameBoard The board
+     * @return The statistics of every move played from the position, the most played first
+     */
+    public List<MoveStatistics> query(GameBoard gameBoard)
+    {
+        long hash = PositionHash.of(gameBoard);
+        int size = gameBoard.getSize();
+
+        LinkedHashMap<Integer, MoveStatistics> moves = new LinkedHashMap<>();
+        for(long record = lowerBound(hash); record < recordCount && hashAt(record)==hash; record++)
+        {
+            if(sizeAt(record)!=size)
+                continue;
+            moves.computeIfAbsent(moveAt(record), MoveStatistics::new).add(resultAt(record));
+        }
+
+        ArrayList<MoveStatistics> statistics = new ArrayList<>(moves.values());
+        statistics.sort((first, second) -> Integer.compare(second.getGames(), first.getGames()));
+        return statistics;
+    }
+
+    /**
+     * Find the games in which the position on the given board was reached.
+     * @param gameBoard The board
+     * @param limit The maximum number of games to return
+     * @return The ids of the games, in the order they were added to the database
+     */
+    public List<Integer> findGames(GameBoard gameBoard, int limit)
+    {
+        long hash = PositionHash.of(gameBoard);
+        ArrayList<Integer> games = new ArrayList<>();
+        for(long record = lowerBound(hash); record < recordCount && hashAt(record)==hash && games.size() < limit; record++)
+            if(sizeAt(record)==gameBoard.getSize())
+                games.add(gameAt(record));
+        return games;
+    }
+
+    /**
+     * Get the number of positions in the database.
+     * @return The number of records
+     */
+    public long getRecordCount()
+    {
+        return recordCount;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Find the first record whose hash is not lower than the given hash.
+     * @param hash The hash
+     * @return The index of the record, or the number of records if there is none
+     */
+    private long lowerBound(long hash)
+    {
+        long low = 0, high = recordCount;
+        while(low < high)
+        {
+            long middle = (low + high) >>> 1;
+            if(hashAt(middle) < hash)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    private long hashAt(long record)
+    {
+        return chunks[(int) (record / CHUNK_RECORDS)].getLong((int) (record % CHUNK_RECORDS) * RECORD_BYTES);
+    }
+
+    private int gameAt(long record)
+    {
+        return chunks[(int) (record / CHUNK_RECORDS)].getInt((int) (record % CHUNK_RECORDS) * RECORD_BYTES + 8);
+    }
+
+    private int moveAt(long record)
+    {
+        return chunks[(int) (record / CHUNK_RECORDS)].getShort((int) (record % CHUNK_RECORDS) * RECORD_BYTES + 12) & 0xFFFF;
+    }
+
+    private int resultAt(long record)
+    {
+        return chunks[(int) (record / CHUNK_RECORDS)].get((int) (record % CHUNK_RECORDS) * RECORD_BYTES + 14);
+    }
+
+    private int sizeAt(long record)
+    {
+        return (chunks[(int) (record / CHUNK_RECORDS)].get((int) (record % CHUNK_RECORDS) * RECORD_BYTES + 15) & 0xFF) + 1;
+    }
+
+    /**
+     * Build a database from the games read by the given reader, replacing the index file if it exists.
+     * @param reader The reader of the games
+     * @param index The index file to build
+     * @return The number of games added to the database
+     * @throws IOException If the games could not be read, or the index could not be written
+     */
+    public static long build(TranscriptReader reader, File index) throws IOException
+    {
+        return build(reader, index, DEFAULT_RUN_RECORDS);
+    }
+
+    /**
+     * Build a database from the games read by the given reader, replacing the index file if it exists.
+     * @param reader The reader of the games
+     * @param index The index file to build
+     * @param runRecords The number of records sorted in memory at a time
+     * @return The number of games added to the database
+     * @throws IOException If the games could not be read, or the index could not be written
+     */
+    public static long build(TranscriptReader reader, File index, int runRecords) throws IOException
+    {
+        File folder = index.getAbsoluteFile().getParentFile();
+        ArrayList<File> runs = new ArrayList<>();
+        long[] hashes = new long[runRecords];
+        long[] payloads = new long[runRecords];
+        int buffered = 0;
+        int games = 0;
+
+        BoardPlayer player1 = new BoardPlayer("1"), player2 = new BoardPlayer("2");
+        try
+        {
+            GameTranscript game;
+            while((game = reader.read())!=null)
+            {
+                long[][] positions;
+                try {
+                    positions = positionsOf(game, player1, player2, games);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Line " + reader.getLineNumber() + ": " + e.getMessage());
+                }
+                games++;
+
+                for(int i = 0; i < positions[0].length; i++)
+                {
+                    if(buffered==runRecords)
+                    {
+                        runs.add(writeRun(folder, hashes, payloads, buffered));
+                        buffered = 0;
+                    }
+                    hashes[buffered] = positions[0][i];
+                    payloads[buffered] = positions[1][i];
+                    buffered++;
+                }
+            }
+            runs.add(writeRun(folder, hashes, payloads, buffered));
+
+            File merged = File.createTempFile("reversi", ".idx", folder);
+            try {
+                merge(runs, merged);
+                replace(merged, index);
+            } finally {
+                Files.deleteIfExists(merged.toPath());
+            }
+        }
+        finally {
+            for(File run : runs)
+                Files.deleteIfExists(run.toPath());
+        }
+        return games;
+    }
+
+    /**
+     * Replay a game and collect the records of its positions.
+     * @param game The game
+     * @param player1 The first player
+     * @param player2 The second player
+     * @param gameId The id of the game
+     * @return The hashes of the positions, and the payloads of their records (game id, move, result and size)
+     */
+    private static long[][] positionsOf(GameTranscript game, BoardPlayer player1, BoardPlayer player2, int gameId)
+    {
+        int size = game.getSize();
+        PositionHash keys = PositionHash.forSize(size);
+        GameBoard gameBoard = new GameBoard(player1, player2, size);
+        long hash = PositionHash.of(gameBoard);
+
+        long[] hashes = new long[game.getMoveCount()];
+        int[] moves = new int[game.getMoveCount()];
+        boolean[] playerOneMoved = new boolean[game.getMoveCount()];
+        int count = 0;
+
+        for(int index = 0; index < game.getMoveCount(); index++)
+        {
+            int move = game.getMove(index);
+            if(move==GameBoard.PASS)
+            {
+                gameBoard.skipTurn();
+                hash = keys.afterPass(hash);
+                continue;
+            }
+
+            ArrayList<Integer> changed = gameBoard.onPositionPlayed(move);
+            if(changed==null && gameBoard.getPossiblePositions().size()==0)
+            {
+                gameBoard.skipTurn();
+                hash = keys.afterPass(hash);
+                changed = gameBoard.onPositionPlayed(move);
+            }
+            if(changed==null)
+                throw new IllegalArgumentException("The move " + GameTranscript.toNotation(move, size) + " is illegal.");
+
+            boolean playerOne = gameBoard.getCurrentPlayer()==player2;
+            hashes[count] = hash;
+            moves[count] = move;
+            playerOneMoved[count] = playerOne;
+            count++;
+            hash = keys.afterMove(hash, playerOne ? GameBoard.PLAYER1 : GameBoard.PLAYER2, changed);
+        }
+
+        int difference = Integer.compare(gameBoard.getPlayerOnePieces(), gameBoard.getPlayerTwoPieces());
+        long[][] positions = new long[2][count];
+        for(int i = 0; i < count; i++)
+        {
+            int result = difference==0 ? DRAW : ((difference > 0)==playerOneMoved[i] ? WIN : LOSS);
+            positions[0][i] = hashes[i];
+            positions[1][i] = (long) gameId << 32 | (long) moves[i] << 16 | result << 8 | (size - 1);
+        }
+        return positions;
+    }
+
+    /**
+     * Sort the buffered records and write them to a temporary run file.
+     * @param folder The folder of the run file
+     * @param hashes The hashes of the records
+     * @param payloads The payloads of the records
+     * @param count The number of records
+     * @return The run file
+     * @throws IOException If the run could not be written
+     */
+    private static File writeRun(File folder, long[] hashes, long[] payloads, int count) throws IOException
+    {
+        sort(hashes, payloads, 0, count - 1);
+        File run = File.createTempFile("reversi", ".run", folder);
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), BUFFER_SIZE)))
+        {
+            for(int i = 0; i < count; i++)
+            {
+                out.writeLong(hashes[i]);
+                out.writeLong(payloads[i]);
+            }
+        }
+        return run;
+    }
+
+    /**
+     * A sorted run being merged.
+     */
+    private static class Run implements Closeable
+    {
+        private final DataInputStream in;
+        private long remaining;
+        private long hash, payload;
+
+        private Run(File file) throws IOException
+        {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+            remaining = file.length() / RECORD_BYTES;
+        }
+
+        /**
+         * Move to the next record of the run.
+         * @return true, if there was a next record, false if the run is finished
+         * @throws IOException If the record could not be read
+         */
+        private boolean next() throws IOException
+        {
+            if(remaining==0)
+                return false;
+            remaining--;
+            hash = in.readLong();
+            payload = in.readLong();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Merge the sorted runs into the index file.
+     * @param runs The run files
+     * @param index The index file
+     * @throws IOException If the runs could not be read, or the index could not be written
+     */
+    private static void merge(List<File> runs, File index) throws IOException
+    {
+        PriorityQueue<Run> queue = new PriorityQueue<>(Math.max(1, runs.size()), (first, second) -> first.hash!=second.hash
+                ? Long.compare(first.hash, second.hash) : Long.compare(first.payload, second.payload));
+        ArrayList<Run> open = new ArrayList<>();
+        long records = 0;
+
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(index), BUFFER_SIZE)))
+        {
+            for(File file : runs)
+            {
+                Run run = new Run(file);
+                open.add(run);
+                if(run.next())
+                    queue.add(run);
+            }
+
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(0);
+
+            while(!queue.isEmpty())
+            {
+                Run run = queue.poll();
+                out.writeLong(run.hash);
+                out.writeLong(run.payload);
+                records++;
+                if(run.next())
+                    queue.add(run);
+            }
+        }
+        finally {
+            for(Run run : open)
+                run.close();
+        }
+
+        try(RandomAccessFile file = new RandomAccessFile(index, "rw"))
+        {
+            file.seek(8);
+            file.writeLong(records);
+        }
+    }
+
+    /**
+     * Replace the index with a newly built one. The new index is synced before it replaces the old one in a single rename, so a
+     * crash leaves either the old or the new index, but never a partial one.
+     * @param built The new index, in the same folder as the index
+     * @param index The index file
+     * @throws IOException If the index could not be replaced
+     */
+    private static void replace(File built, File index) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(built.toPath(), StandardOpenOption.WRITE))
+        {
+            channel.force(true);
+        }
+
+        try {
+            Files.move(built.toPath(), index.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(built.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        try(FileChannel directory = FileChannel.open(index.getAbsoluteFile().getParentFile().toPath(), StandardOpenOption.READ))
+        {
+            directory.force(true);
+        }
+        catch(IOException e) {
+            //not every platform can sync a folder; the rename itself is still atomic
+        }
+    }
+
+    /**
+     * Sort the records by hash, then by payload, with a quicksort that moves both arrays together.
+     * @param hashes The hashes of the records
+     * @param payloads The payloads of the records
+     * @param low The index of the first record to sort
+     * @param high The index of the last record to sort
+     */
+    private static void sort(long[] hashes, long[] payloads, int low, int high)
+    {
+        while(high - low > 16)
+        {
+            int middle = (low + high) >>> 1;
+            long pivotHash = hashes[middle], pivotPayload = payloads[middle];
+            int i = low, j = high;
+            while(i <= j)
+            {
+                while(compare(hashes[i], payloads[i], pivotHash, pivotPayload) < 0)
+                    i++;
+                while(compare(hashes[j], payloads[j], pivotHash, pivotPayload) > 0)
+                    j--;
+                if(i <= j)
+                    swap(hashes, payloads, i++, j--);
+            }
+            if(j - low < high - i)
+            {
+                sort(hashes, payloads, low, j);
+                low = i;
+            }
+            else
+            {
+                sort(hashes, payloads, i, high);
+                high = j;
+            }
+        }
+
+        for(int i = low + 1; i <= high; i++)
+            for(int j = i; j > low && compare(hashes[j - 1], payloads[j - 1], hashes[j], payloads[j]) > 0; j--)
+                swap(hashes, payloads, j - 1, j);
+    }
+
+    private static int compare(long firstHash, long firstPayload, long secondHash, long secondPayload)
+    {
+        return firstHash!=secondHash ? Long.compare(firstHash, secondHash) : Long.compare(firstPayload, secondPayload);
+    }
+
+    private static void swap(long[] hashes, long[] payloads, int i, int j)
+    {
+        long hash = hashes[i], payload = payloads[i];
+        hashes[i] = hashes[j];
+        payloads[i] = payloads[j];
+        hashes[j] = hash;
+        payloads[j] = payload;
+    }
+
+    /**
+     * Build or query a game database from the command line.
+     * <pre>
+     * GameDatabase build games.txt games.idx
+     * GameDatabase query games.idx f5d6c3
+     * </pre>
+     * @param args The command line arguments
+     * @throws IOException If the database could not be built or read
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if(args.length==3 && args[0].equals("build"))
+        {
+            long start = System.nanoTime();
+            try(TranscriptReader reader = new TranscriptReader(new File(args[1])))
+            {
+                long games = build(reader, new File(args[2]));
+                System.out.println(games + " games indexed in " + (System.nanoTime() - start) / 1000000 + " ms");
+            }
+        }
+        else if((args.length==2 || args.length==3) && args[0].equals("query"))
+        {
+            GameTranscript opening = GameTranscript.parse(args.length==3 ? args[2] : "");
+            GameBoard gameBoard = opening.replay(new BoardPlayer("1"), new BoardPlayer("2"));
+            try(GameDatabase database = new GameDatabase(new File(args[1])))
+            {
+                long start = System.nanoTime();
+                List<MoveStatistics> statistics = database.query(gameBoard);
+                long elapsed = System.nanoTime() - start;
+                for(MoveStatistics move : statistics)
+                    System.out.printf("%-4s %8d games  %5.1f%%  (+%d =%d -%d)%n", GameTranscript.toNotation(move.getMove(), gameBoard.getSize()),
+                            move.getGames(), move.getScore() * 100, move.getWins(), move.getDraws(), move.getLosses());
+                System.out.println("Query took " + elapsed / 1000 + " us");
+            }
+        }
+        else
+            System.out.println("Usage: GameDatabase build <games file> <index file> | GameDatabase query <index file> [moves]");
+    }
+}
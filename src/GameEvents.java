@@ -0,0 +1,149 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The Java Flight Recorder events of the game. They are only written while a recording is running, for example one started with
+ * -XX:StartFlightRecording, and cost next to nothing otherwise: the code which fills in an event only runs when shouldCommit()
+ * returns true.
+ *
+ * Legal-move generation and victory checks run many times for every move, so they are only recorded when they take longer than
+ * their threshold, which can be lowered in the recording settings (for example reversi.LegalMoves#threshold=0 ms).
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public final class GameEvents
+{
+    /**
+     * The events are only used through the nested classes.
+     */
+    private GameEvents()
+    {
+    }
+
+    /**
+     * A piece placed on the board by GameBoard.onPositionPlayed().
+     */
+    @Name("reversi.MovePlayed")
+    @Label("Move Played")
+    @Category({"Reversi", "Engine"})
+    @Description("A piece placed on the board, and the pieces it flipped")
+    @StackTrace(false)
+    public static final class MovePlayed extends Event
+    {
+        @Label("Position")
+        public int position;
+
+        @Label("Board Size")
+        public int boardSize;
+
+        @Label("Legal")
+        public boolean legal;
+
+        @Label("Flipped Pieces")
+        public int flipped;
+    }
+
+    /**
+     * The search for the positions where the current player can place a piece.
+     */
+    @Name("reversi.LegalMoves")
+    @Label("Legal Move Generation")
+    @Category({"Reversi", "Engine"})
+    @Description("The search for the positions where the current player can place a piece")
+    @StackTrace(false)
+    @Threshold("100 us")
+    public static final class LegalMoves extends Event
+    {
+        @Label("Board Size")
+        public int boardSize;
+
+        @Label("Legal Moves")
+        public int moves;
+    }
+
+    /**
+     * A check of whether the game is over.
+     */
+    @Name("reversi.VictoryCheck")
+    @Label("Victory Check")
+    @Category({"Reversi", "Engine"})
+    @Description("A check of whether neither player can move, and who won")
+    @StackTrace(false)
+    @Threshold("100 us")
+    public static final class VictoryCheck extends Event
+    {
+        @Label("Board Size")
+        public int boardSize;
+
+        @Label("Game Over")
+        public boolean over;
+
+        @Label("Winner")
+        public String winner;
+    }
+
+    /**
+     * A session written to a save file or to its autosave journal.
+     */
+    @Name("reversi.SessionSaved")
+    @Label("Session Saved")
+    @Category({"Reversi", "Persistence"})
+    @Description("A session written to a save file, or moves appended to its autosave journal")
+    public static final class SessionSaved extends Event
+    {
+        @Label("File")
+        public String file;
+
+        @Label("Kind")
+        @Description("save, snapshot or journal")
+        public String kind;
+
+        @Label("Bytes Written")
+        @DataAmount
+        public long bytes;
+    }
+
+    /**
+     * A session read from a save file.
+     */
+    @Name("reversi.SessionLoaded")
+    @Label("Session Loaded")
+    @Category({"Reversi", "Persistence"})
+    @Description("A session read from a save file, including the replay of its autosave journal")
+    public static final class SessionLoaded extends Event
+    {
+        @Label("File")
+        public String file;
+
+        @Label("Bytes Read")
+        @DataAmount
+        public long bytes;
+    }
+
+    /**
+     * The time from a click on a cell until the board has been repainted with the result of the move.
+     */
+    @Name("reversi.ClickToRepaint")
+    @Label("Click to Repaint")
+    @Category({"Reversi", "User Interface"})
+    @Description("The time from a click on a cell until the board was repainted with the result, including the game logic thread")
+    @StackTrace(false)
+    public static final class ClickToRepaint extends Event
+    {
+        @Label("Position")
+        public int position;
+
+        @Label("Legal")
+        public boolean legal;
+
+        @Label("Changed Cells")
+        public int changed;
+    }
+}
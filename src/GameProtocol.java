@@ -0,0 +1,496 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The binary protocol spoken between the game server and its clients over TCP. Every message is a frame: an unsigned short with
+ * the length of the rest of the frame, the type of the message, and its fields, big-endian. Strings are an unsigned short length
+ * followed by UTF-8 bytes, and positions are unsigned shorts, since a 256 x 256 board has 65536 cells.
+ *
+ * <pre>
+ * client to server
+ * HELLO         UTF name
+ * MATCH         u16 size                          play the next player asking for the same size, or wait for one
+ * JOIN          int game id                       join a waiting game listed by LIST
+ * LIST                                            ask for the games waiting for an opponent
+ * MOVE          int game id, u16 position
+ * LEAVE         int game id                       resign, or stop waiting
+ * WATCH         int game id                       watch a game in progress
+ * UNWATCH       int game id
+ *
+ * server to client
+ * WELCOME       u8 protocol version
+ * WAITING       int game id, u16 size
+ * GAME_STARTED  int game id, u16 size, u8 your player (PLAYER1, PLAYER2), UTF name 1, UTF name 2
+ * MOVE_PLAYED   int game id, u8 PLACED or PASSED, u16 position
+ * ILLEGAL_MOVE  int game id, u16 position
+ * GAME_OVER     int game id, u8 winner (NOPLAYER for a tie), u8 NORMAL_END or FORFEIT, int pieces 1, int pieces 2
+ * GAMES         u16 count, then per game: int game id, u16 size, u8 WAITING or PLAYING, u16 spectators, UTF name 1, UTF name 2
+ * ERROR         UTF message
+ * SNAPSHOT      int game id, u16 size, int move number, u8 player to move, UTF name 1, UTF name 2, owners
+ * DELTA         int game id, int move number, u8 PLACED or PASSED, u16 position, u8 flipped directions, u8 count per direction
+ * </pre>
+ *
+ * The server checks every move with the game engine and sends it back to both players, skipped turns included, so a client only
+ * has to replay the moves it receives on its own board.
+ *
+ * Spectators get a SNAPSHOT of the board when they start watching, then a DELTA for every move. The owners of a snapshot are
+ * packed two bits to a cell, four cells to a byte, the first cell in the lowest bits, so a 256 x 256 board takes 16 KB. A delta
+ * does not depend on the size of the board: the pieces flipped by a move always lie on the eight lines from the placed piece, so
+ * it only has a bit for every direction with flipped pieces (N, NE, E, SE, S, SW, W, NW, from the lowest bit) and the number of
+ * pieces flipped in each of them. A spectator which falls behind stops getting deltas, and gets a new snapshot once it has
+ * caught up.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public final class GameProtocol
+{
+    public static final int DEFAULT_PORT = 5757;
+    public static final int VERSION = 2;
+    public static final int HEADER_LENGTH = 2;
+    public static final int MAX_FRAME_LENGTH = HEADER_LENGTH + 0xFFFF;
+    public static final int MAX_NAME_LENGTH = 32;
+
+    public static final int HELLO = 1, MATCH = 2, JOIN = 3, LIST = 4, MOVE = 5, LEAVE = 6, WATCH = 7, UNWATCH = 8;
+    public static final int WELCOME = 65, WAITING = 66, GAME_STARTED = 67, MOVE_PLAYED = 68, ILLEGAL_MOVE = 69, GAME_OVER = 70,
+            GAMES = 71, SNAPSHOT = 72, DELTA = 73, ERROR = 79;
+
+    public static final int PLACED = 0, PASSED = 1;
+    public static final int NORMAL_END = 0, FORFEIT = 1;
+    public static final int WAITING_GAME = 0, PLAYING_GAME = 1;
+    public static final int DIRECTIONS = 8;
+
+    private static final int[] DX = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] DY = {-1, -1, 0, 1, 1, 1, 0, -1};
+
+    /**
+     * The protocol is only used through the static methods.
+     */
+    private GameProtocol()
+    {
+    }
+
+    /**
+     * Take the next complete frame from a buffer of received bytes.
+     * @param in The received bytes, ready to be read; its position is moved past the frame if there is a complete one
+     * @return The frame without its length, starting with the type, or null if the frame has not been received entirely
+     */
+    public static ByteBuffer nextFrame(ByteBuffer in)
+    {
+        if(in.remaining() < HEADER_LENGTH)
+            return null;
+        int length = in.getShort(in.position()) & 0xFFFF;
+        if(in.remaining() < HEADER_LENGTH + length)
+            return null;
+        ByteBuffer frame = in.slice(in.position() + HEADER_LENGTH, length);
+        in.position(in.position() + HEADER_LENGTH + length);
+        return frame;
+    }
+
+    /**
+     * Start a frame of the given type.
+     * @param type The type of the message
+     * @param length The length of the fields of the message
+     * @return The buffer of the frame, positioned after the type
+     */
+    private static ByteBuffer frame(int type, int length)
+    {
+        if(1 + length > 0xFFFF)
+            throw new IllegalArgumentException("The message is too long.");
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_LENGTH + 1 + length);
+        frame.putShort((short) (1 + length));
+        frame.put((byte) type);
+        return frame;
+    }
+
+    /**
+     * Encode a string, keeping at most the given number of characters.
+     * @param text The string
+     * @param maxLength The maximum number of characters
+     * @return The UTF-8 bytes of the string
+     */
+    private static byte[] encode(String text, int maxLength)
+    {
+        String value = text==null ? "" : text;
+        if(value.length() > maxLength)
+            value = value.substring(0, maxLength);
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write an encoded string, preceded by its length.
+     * @param frame The frame
+     * @param bytes The bytes of the string
+     */
+    private static void putString(ByteBuffer frame, byte[] bytes)
+    {
+        frame.putShort((short) bytes.length);
+        frame.put(bytes);
+    }
+
+    /**
+     * Read a string written by putString().
+     * @param frame The frame
+     * @return The string
+     * @throws BufferUnderflowException If the frame ends before the string
+     */
+    public static String getString(ByteBuffer frame)
+    {
+        byte[] bytes = new byte[frame.getShort() & 0xFFFF];
+        frame.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read an unsigned short, such as a size or a position.
+     * @param frame The frame
+     * @return The value
+     */
+    public static int getUnsignedShort(ByteBuffer frame)
+    {
+        return frame.getShort() & 0xFFFF;
+    }
+
+    /**
+     * Read an unsigned byte, such as a player or a kind of move.
+     * @param frame The frame
+     * @return The value
+     */
+    public static int getUnsignedByte(ByteBuffer frame)
+    {
+        return frame.get() & 0xFF;
+    }
+
+    /**
+     * Create a HELLO message.
+     * @param name The name of the player
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer hello(String name)
+    {
+        byte[] bytes = encode(name, MAX_NAME_LENGTH);
+        return frame(HELLO, 2 + bytes.length).putShort((short) bytes.length).put(bytes).flip();
+    }
+
+    /**
+     * Create a MATCH message.
+     * @param size The size of the board
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer match(int size)
+    {
+        return frame(MATCH, 2).putShort((short) size).flip();
+    }
+
+    /**
+     * Create a JOIN message.
+     * @param gameId The game to join
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer join(int gameId)
+    {
+        return frame(JOIN, 4).putInt(gameId).flip();
+    }
+
+    /**
+     * Create a LIST message.
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer list()
+    {
+        return frame(LIST, 0).flip();
+    }
+
+    /**
+     * Create a MOVE message.
+     * @param gameId The game
+     * @param position The list position of the piece
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer move(int gameId, int position)
+    {
+        return frame(MOVE, 6).putInt(gameId).putShort((short) position).flip();
+    }
+
+    /**
+     * Create a LEAVE message.
+     * @param gameId The game to leave
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer leave(int gameId)
+    {
+        return frame(LEAVE, 4).putInt(gameId).flip();
+    }
+
+    /**
+     * Create a WELCOME message.
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer welcome()
+    {
+        return frame(WELCOME, 1).put((byte) VERSION).flip();
+    }
+
+    /**
+     * Create a WAITING message.
+     * @param gameId The game waiting for an opponent
+     * @param size The size of its board
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer waiting(int gameId, int size)
+    {
+        return frame(WAITING, 6).putInt(gameId).putShort((short) size).flip();
+    }
+
+    /**
+     * Create a GAME_STARTED message.
+     * @param gameId The game
+     * @param size The size of its board
+     * @param player The player of the receiver, PLAYER1 or PLAYER2
+     * @param name1 The name of player 1
+     * @param name2 The name of player 2
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer gameStarted(int gameId, int size, int player, String name1, String name2)
+    {
+        byte[] bytes1 = encode(name1, MAX_NAME_LENGTH), bytes2 = encode(name2, MAX_NAME_LENGTH);
+        ByteBuffer frame = frame(GAME_STARTED, 11 + bytes1.length + bytes2.length);
+        frame.putInt(gameId).putShort((short) size).put((byte) player);
+        putString(frame, bytes1);
+        putString(frame, bytes2);
+        return frame.flip();
+    }
+
+    /**
+     * Create a MOVE_PLAYED message.
+     * @param gameId The game
+     * @param kind PLACED or PASSED
+     * @param position The list position of the placed piece, ignored for a skipped turn
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer movePlayed(int gameId, int kind, int position)
+    {
+        return frame(MOVE_PLAYED, 7).putInt(gameId).put((byte) kind).putShort((short) (kind==PASSED ? 0 : position)).flip();
+    }
+
+    /**
+     * Create an ILLEGAL_MOVE message.
+     * @param gameId The game
+     * @param position The list position of the refused move
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer illegalMove(int gameId, int position)
+    {
+        return frame(ILLEGAL_MOVE, 6).putInt(gameId).putShort((short) position).flip();
+    }
+
+    /**
+     * Create a GAME_OVER message.
+     * @param gameId The game
+     * @param winner The winner, PLAYER1 or PLAYER2, or NOPLAYER for a tie
+     * @param reason NORMAL_END or FORFEIT
+     * @param pieces1 The number of pieces of player 1
+     * @param pieces2 The number of pieces of player 2
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer gameOver(int gameId, int winner, int reason, int pieces1, int pieces2)
+    {
+        return frame(GAME_OVER, 14).putInt(gameId).put((byte) winner).put((byte) reason).putInt(pieces1).putInt(pieces2).flip();
+    }
+
+    /**
+     * Get the largest number of games a GAMES message can hold.
+     * @return The number of games
+     */
+    public static int getMaxListedGames()
+    {
+        return (0xFFFF - 3) / (13 + 8 * MAX_NAME_LENGTH);
+    }
+
+    /**
+     * Create a GAMES message. Games beyond getMaxListedGames() are left out.
+     * @param gameIds The games
+     * @param sizes The sizes of their boards
+     * @param states WAITING_GAME or PLAYING_GAME, for every game
+     * @param spectators The number of spectators of every game
+     * @param names1 The names of the first players
+     * @param names2 The names of the second players, empty for the games waiting for an opponent
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer games(int[] gameIds, int[] sizes, int[] states, int[] spectators, String[] names1, String[] names2)
+    {
+        int count = Math.min(gameIds.length, getMaxListedGames());
+        byte[][] encoded1 = new byte[count][], encoded2 = new byte[count][];
+        int length = 2;
+        for(int i = 0; i < count; i++)
+        {
+            encoded1[i] = encode(names1[i], MAX_NAME_LENGTH);
+            encoded2[i] = encode(names2[i], MAX_NAME_LENGTH);
+            length += 13 + encoded1[i].length + encoded2[i].length;
+        }
+        ByteBuffer frame = frame(GAMES, length).putShort((short) count);
+        for(int i = 0; i < count; i++)
+        {
+            frame.putInt(gameIds[i]).putShort((short) sizes[i]).put((byte) states[i]).putShort((short) Math.min(0xFFFF, spectators[i]));
+            putString(frame, encoded1[i]);
+            putString(frame, encoded2[i]);
+        }
+        return frame.flip();
+    }
+
+    /**
+     * Create a WATCH message.
+     * @param gameId The game to watch
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer watch(int gameId)
+    {
+        return frame(WATCH, 4).putInt(gameId).flip();
+    }
+
+    /**
+     * Create an UNWATCH message.
+     * @param gameId The game to stop watching
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer unwatch(int gameId)
+    {
+        return frame(UNWATCH, 4).putInt(gameId).flip();
+    }
+
+    /**
+     * Create a SNAPSHOT message.
+     * @param gameId The game
+     * @param moveNumber The number of moves played, skipped turns included
+     * @param gameBoard The board of the game
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer snapshot(int gameId, int moveNumber, GameBoard gameBoard)
+    {
+        int size = gameBoard.getSize();
+        byte[] name1 = encode(gameBoard.getPlayer1().getName(), MAX_NAME_LENGTH);
+        byte[] name2 = encode(gameBoard.getPlayer2().getName(), MAX_NAME_LENGTH);
+        int ownerBytes = (size * size + 3) / 4;
+        ByteBuffer frame = frame(SNAPSHOT, 15 + name1.length + name2.length + ownerBytes);
+        frame.putInt(gameId).putShort((short) size).putInt(moveNumber);
+        frame.put((byte) (gameBoard.getCurrentPlayer()==gameBoard.getPlayer1() ? GameBoard.PLAYER1 : GameBoard.PLAYER2));
+        putString(frame, name1);
+        putString(frame, name2);
+        long[] packed = gameBoard.getPackedOwners();
+        for(int i = 0; i < ownerBytes; i++)
+            frame.put((byte) (packed[i >> 3] >>> ((i & 7) << 3)));
+        return frame.flip();
+    }
+
+    /**
+     * Read the owners of the cells at the end of a SNAPSHOT message.
+     * @param frame The frame, positioned after the names of the players
+     * @param size The size of the board
+     * @return The owner of every cell (NOPLAYER, PLAYER1 or PLAYER2), in list order
+     */
+    public static int[] getOwners(ByteBuffer frame, int size)
+    {
+        int[] owners = new int[size * size];
+        for(int i = 0; i < owners.length; i += 4)
+        {
+            int packed = frame.get() & 0xFF;
+            for(int j = 0; j < 4 && i + j < owners.length; j++)
+                owners[i + j] = (packed >> (j << 1)) & 3;
+        }
+        return owners;
+    }
+
+    /**
+     * Count the pieces a move flipped in every direction.
+     * @param changed The positions changed by the move, the placed piece first, as returned by GameBoard.onPositionPlayed()
+     * @param size The size of the board
+     * @return The number of pieces flipped in every direction, from N to NW
+     */
+    public static int[] countFlips(List<Integer> changed, int size)
+    {
+        int[] flips = new int[DIRECTIONS];
+        int placed = changed.get(0), x = placed % size, y = placed / size;
+        for(int i = 1; i < changed.size(); i++)
+        {
+            int position = changed.get(i);
+            int dx = Integer.signum(position % size - x), dy = Integer.signum(position / size - y);
+            for(int direction = 0; direction < DIRECTIONS; direction++)
+                if(DX[direction]==dx && DY[direction]==dy)
+                    flips[direction]++;
+        }
+        return flips;
+    }
+
+    /**
+     * Create a DELTA message.
+     * @param gameId The game
+     * @param moveNumber The number of moves played, this one included
+     * @param kind PLACED or PASSED
+     * @param position The list position of the placed piece, ignored for a skipped turn
+     * @param flips The number of pieces flipped in every direction, from N to NW; ignored for a skipped turn
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer delta(int gameId, int moveNumber, int kind, int position, int[] flips)
+    {
+        int mask = 0, count = 0;
+        if(kind==PLACED)
+            for(int direction = 0; direction < DIRECTIONS; direction++)
+                if(flips[direction] > 0)
+                {
+                    mask |= 1 << direction;
+                    count++;
+                }
+        ByteBuffer frame = frame(DELTA, 12 + count).putInt(gameId).putInt(moveNumber).put((byte) kind);
+        frame.putShort((short) (kind==PASSED ? 0 : position)).put((byte) mask);
+        for(int direction = 0; direction < DIRECTIONS; direction++)
+            if((mask & 1 << direction)!=0)
+                frame.put((byte) flips[direction]);
+        return frame.flip();
+    }
+
+    /**
+     * Read the flipped pieces at the end of a DELTA message.
+     * @param frame The frame, positioned after the position
+     * @return The number of pieces flipped in every direction, from N to NW
+     */
+    public static int[] getFlips(ByteBuffer frame)
+    {
+        int[] flips = new int[DIRECTIONS];
+        int mask = frame.get() & 0xFF;
+        for(int direction = 0; direction < DIRECTIONS; direction++)
+            if((mask & 1 << direction)!=0)
+                flips[direction] = frame.get() & 0xFF;
+        return flips;
+    }
+
+    /**
+     * Play a move received in a DELTA message on the owners of the cells of a board: the piece is placed, and the pieces of the
+     * flipped lines take its owner. It takes time in proportion to the pieces flipped, whatever the size of the board.
+     * @param owners The owner of every cell, in list order, which is changed
+     * @param size The size of the board
+     * @param position The list position of the placed piece
+     * @param owner The owner of the placed piece, PLAYER1 or PLAYER2
+     * @param flips The number of pieces flipped in every direction, from N to NW
+     */
+    public static void applyDelta(int[] owners, int size, int position, int owner, int[] flips)
+    {
+        owners[position] = owner;
+        int x = position % size, y = position / size;
+        for(int direction = 0; direction < DIRECTIONS; direction++)
+            for(int step = 1; step <= flips[direction]; step++)
+                owners[(y + step * DY[direction]) * size + x + step * DX[direction]] = owner;
+    }
+
+    /**
+     * Create an ERROR message.
+     * @param message The description of the error
+     * @return The frame, ready to be sent
+     */
+    public static ByteBuffer error(String message)
+    {
+        byte[] bytes = encode(message, 1024);
+        return frame(ERROR, 2 + bytes.length).putShort((short) bytes.length).put(bytes).flip();
+    }
+}
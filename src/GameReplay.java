@@ -0,0 +1,256 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A recorded game which can be viewed at any of its moves. The game is played once, when the replay is created, and every move is
+ * stored as the cells it changed. The owners of all cells are also stored every few moves, so any position is rebuilt from the
+ * nearest earlier snapshot plus the changes of the moves after it, without playing the game again from the start.
+ *
+ * A snapshot holds 4 cells per byte, and the snapshots are further apart on larger boards: one every size * size / 64 moves, and
+ * never closer than 16 moves. A game fills at most one cell per move, so it has about 64 snapshots at most, which take about 16
+ * bytes per cell of the board together, and rebuilding a position replays at most one interval of moves.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class GameReplay
+{
+    private static final int MIN_SNAPSHOT_INTERVAL = 16;
+    private static final int CELLS_PER_SNAPSHOT_MOVE = 64;
+
+    private final int size;
+    private final int snapshotInterval;
+    private final int length;
+    private final int[] moves;
+    private final byte[] movers;
+    private final int[] changeStarts;
+    private final int[] changes;
+    private final boolean[] playerOneToMove;
+    private final int[] playerOnePieces, playerTwoPieces;
+    private final byte[][] snapshots;
+
+    /**
+     * Constructor for a replay. Skipped turns which are not in the transcript are worked out as when replaying it.
+     * @param transcript The transcript of the game
+     * @throws IllegalArgumentException If one of the moves is illegal
+     */
+    public GameReplay(GameTranscript transcript)
+    {
+        if(transcript==null)
+            throw new IllegalArgumentException("The transcript cannot be null.");
+        size = transcript.getSize();
+        snapshotInterval = Math.max(MIN_SNAPSHOT_INTERVAL, size * size / CELLS_PER_SNAPSHOT_MOVE);
+
+        BoardPlayer player1 = new BoardPlayer("1"), player2 = new BoardPlayer("2");
+        GameBoard gameBoard = new GameBoard(player1, player2, size);
+        ArrayList<int[]> played = new ArrayList<>();
+        ArrayList<Integer> playedMoves = new ArrayList<>();
+        ArrayList<Boolean> playedByOne = new ArrayList<>();
+
+        for(int index = 0; index < transcript.getMoveCount(); index++)
+        {
+            int move = transcript.getMove(index);
+            if(move==GameBoard.PASS)
+            {
+                playedByOne.add(gameBoard.getCurrentPlayer()==player1);
+                gameBoard.skipTurn();
+                playedMoves.add(GameBoard.PASS);
+                played.add(new int[0]);
+                continue;
+            }
+
+            boolean playerOne = gameBoard.getCurrentPlayer()==player1;
+            ArrayList<Integer> changed = gameBoard.onPositionPlayed(move);
+            if(changed==null && gameBoard.getPossiblePositions().size()==0)
+            {
+                playedByOne.add(playerOne);
+                gameBoard.skipTurn();
+                playedMoves.add(GameBoard.PASS);
+                played.add(new int[0]);
+                playerOne = !playerOne;
+                changed = gameBoard.onPositionPlayed(move);
+            }
+            if(changed==null)
+                throw new IllegalArgumentException("The move " + GameTranscript.toNotation(move, size) + " is illegal.");
+
+            playedByOne.add(playerOne);
+            playedMoves.add(move);
+            played.add(changed.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        length = played.size();
+        moves = new int[length];
+        movers = new byte[length];
+        changeStarts = new int[length + 1];
+        int total = 0;
+        for(int[] changed : played)
+            total += changed.length;
+        changes = new int[total];
+        playerOneToMove = new boolean[length + 1];
+        playerOnePieces = new int[length + 1];
+        playerTwoPieces = new int[length + 1];
+        snapshots = new byte[length / snapshotInterval + 1][];
+
+        byte[] owners = new byte[size * size];
+        GameBoard start = new GameBoard(player1, player2, size);
+        for(int position = 0; position < owners.length; position++)
+            owners[position] = (byte) start.getOwner(position);
+        playerOneToMove[0] = true;
+        playerOnePieces[0] = start.getPlayerOnePieces();
+        playerTwoPieces[0] = start.getPlayerTwoPieces();
+        snapshots[0] = pack(owners);
+
+        for(int ply = 0; ply < length; ply++)
+        {
+            int[] changed = played.get(ply);
+            boolean playerOne = playedByOne.get(ply);
+            moves[ply] = playedMoves.get(ply);
+            movers[ply] = (byte) (playerOne ? GameBoard.PLAYER1 : GameBoard.PLAYER2);
+            changeStarts[ply + 1] = changeStarts[ply] + changed.length;
+            System.arraycopy(changed, 0, changes, changeStarts[ply], changed.length);
+
+            int gained = changed.length, lost = Math.max(0, changed.length - 1);
+            playerOnePieces[ply + 1] = playerOnePieces[ply] + (playerOne ? gained : -lost);
+            playerTwoPieces[ply + 1] = playerTwoPieces[ply] + (playerOne ? -lost : gained);
+            playerOneToMove[ply + 1] = !playerOne;
+
+            applyChanges(ply, owners);
+            if((ply + 1) % snapshotInterval==0)
+                snapshots[(ply + 1) / snapshotInterval] = pack(owners);
+        }
+    }
+
+    /**
+     * Write the owners of the cells after the given number of moves into the given array.
+     * @param ply The number of moves played, between 0 and getLength()
+     * @param owners The array to write into, of length size * size, holding NOPLAYER, PLAYER1 or PLAYER2 for every cell
+     */
+    public void positionAt(int ply, int[] owners)
+    {
+        checkPly(ply);
+        if(owners==null || owners.length!=size * size)
+            throw new IllegalArgumentException("There must be an owner for every cell.");
+
+        int snapshot = ply / snapshotInterval;
+        byte[] start = snapshots[snapshot];
+        for(int position = 0; position < owners.length; position++)
+            owners[position] = (start[position >> 2] >> ((position & 3) << 1)) & 3;
+        for(int played = snapshot * snapshotInterval; played < ply; played++)
+        {
+            int mover = movers[played];
+            for(int i = changeStarts[played]; i < changeStarts[played + 1]; i++)
+                owners[changes[i]] = mover;
+        }
+    }
+
+    /**
+     * Create a game board with the position after the given number of moves.
+     * @param ply The number of moves played, between 0 and getLength()
+     * @param player1 The first player
+     * @param player2 The second player
+     * @return The game board
+     */
+    public GameBoard getBoard(int ply, BoardPlayer player1, BoardPlayer player2)
+    {
+        int[] owners = new int[size * size];
+        positionAt(ply, owners);
+        return new GameBoard(player1, player2, size, owners, playerOneToMove[ply], Arrays.copyOf(moves, ply));
+    }
+
+    /**
+     * Get the number of moves in the game, including skipped turns.
+     * @return The number of moves
+     */
+    public int getLength()
+    {
+        return length;
+    }
+
+    /**
+     * Get the size of the board.
+     * @return The size of the board
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Get the move played to reach the position after the given number of moves.
+     * @param ply The number of moves played, between 1 and getLength()
+     * @return The list position of the move, or GameBoard.PASS for a skipped turn
+     */
+    public int getMove(int ply)
+    {
+        if(ply<1 || ply>length)
+            throw new IllegalArgumentException("The move must be between 1 and " + length + ".");
+        return moves[ply - 1];
+    }
+
+    /**
+     * Checks whether player 1 is to move after the given number of moves.
+     * @param ply The number of moves played, between 0 and getLength()
+     * @return true, if player 1 is to move, false if it is player 2
+     */
+    public boolean isPlayerOneToMove(int ply)
+    {
+        checkPly(ply);
+        return playerOneToMove[ply];
+    }
+
+    /**
+     * Get the number of pieces of player 1 after the given number of moves.
+     * @param ply The number of moves played, between 0 and getLength()
+     * @return The number of pieces
+     */
+    public int getPlayerOnePieces(int ply)
+    {
+        checkPly(ply);
+        return playerOnePieces[ply];
+    }
+
+    /**
+     * Get the number of pieces of player 2 after the given number of moves.
+     * @param ply The number of moves played, between 0 and getLength()
+     * @return The number of pieces
+     */
+    public int getPlayerTwoPieces(int ply)
+    {
+        checkPly(ply);
+        return playerTwoPieces[ply];
+    }
+
+    /**
+     * Apply the changes of a move to the owners of the cells.
+     * @param ply The index of the move
+     * @param owners The owners of the cells
+     */
+    private void applyChanges(int ply, byte[] owners)
+    {
+        for(int i = changeStarts[ply]; i < changeStarts[ply + 1]; i++)
+            owners[changes[i]] = movers[ply];
+    }
+
+    /**
+     * Pack the owners of the cells into a snapshot, 4 cells per byte, the first cell in the lowest bits.
+     * @param owners The owners of the cells
+     * @return The snapshot
+     */
+    private static byte[] pack(byte[] owners)
+    {
+        byte[] packed = new byte[(owners.length + 3) / 4];
+        for(int position = 0; position < owners.length; position++)
+            packed[position >> 2] |= (byte) (owners[position] << ((position & 3) << 1));
+        return packed;
+    }
+
+    /**
+     * Checks that the given number of moves is within the game. If not, it throws an exception.
+     * @param ply The number of moves
+     */
+    private void checkPly(int ply)
+    {
+        if(ply<0 || ply>length)
+            throw new IllegalArgumentException("The move must be between 0 and " + length + ".");
+    }
+}
@@ -0,0 +1,867 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A headless server hosting many games of Reversi at once, for players connecting over TCP with the GameProtocol. Every connection
+ * is served by a single thread with a selector, so the server needs no thread per player and no locking: the games are only ever
+ * changed on that thread. The messages sent while handling the ready connections are queued, and written with one gathering write
+ * per connection at the end of the round; a client which does not read its messages is disconnected once too many are queued.
+ *
+ * Every move is checked with the GameBoard of the game before it is sent to both players. When the player to move has no legal
+ * move, the server skips their turn itself, and sends the skipped turn to both players like any other move. Leaving a game, or
+ * disconnecting, forfeits it.
+ *
+ * Any game in progress can be watched. A spectator gets a snapshot of the board, then a delta for every move, whose length does
+ * not depend on the size of the board. The delta of a move is encoded once and shared by every spectator, and like every other
+ * message it is written in the gathering write at the end of the round, so a spectator gets all of the moves of a round in one
+ * write. A spectator with too many bytes waiting to be written stops getting deltas; once its messages have been written, it gets
+ * a new snapshot of each game it fell behind in.
+ *
+ * Each game is a session of its own, autosaved after every move to the journal of "NET &lt;start time&gt;-&lt;game id&gt;" in the saves
+ * folder, so the games of a server can be loaded and reviewed in the app. A server hosting many games can save them to a
+ * SessionStore in the given folder instead, with --store. The server is started with
+ * <pre>java GameServer [port] [--no-save] [--store folder]</pre>
+ * or with the --server option of the app.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class GameServer implements Closeable
+{
+    private static final int MAX_REQUEST_LENGTH = 512;
+    private static final int MAX_PENDING_OUTPUT = 1 << 20;
+    private static final int MAX_WRITE_BATCH = 64;
+    private static final int MAX_SPECTATOR_BACKLOG = 64 * 1024;
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final SaveService saveService;
+    private final String savePrefix;
+    private final HashMap<Integer, HostedGame> games = new HashMap<>();
+    private final HashMap<Integer, HostedGame> waitingBySize = new HashMap<>();
+    private final ArrayList<Connection> dirty = new ArrayList<>();
+    private final ByteBuffer[] writeBatch = new ByteBuffer[MAX_WRITE_BATCH];
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger gameCount = new AtomicInteger();
+    private final AtomicInteger spectatorCount = new AtomicInteger();
+    private int nextGameId = 1, nextConnectionId = 1;
+    private Thread thread;
+    private volatile boolean running;
+
+    private final MetricsRegistry.Counter bytesIn = MetricsRegistry.get().counter(MetricsRegistry.NET_BYTES_IN);
+    private final MetricsRegistry.Counter bytesOut = MetricsRegistry.get().counter(MetricsRegistry.NET_BYTES_OUT);
+    private final MetricsRegistry.Histogram moveTimes = MetricsRegistry.get().histogram(MetricsRegistry.NET_MOVE_TIME);
+    private final MetricsRegistry.Counter moves = MetricsRegistry.get().counter(MetricsRegistry.MOVES);
+    private final MetricsRegistry.Counter resyncs = MetricsRegistry.get().counter(MetricsRegistry.NET_RESYNCS);
+
+    /**
+     * A connected client.
+     */
+    private static class Connection
+    {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer in = ByteBuffer.allocate(GameProtocol.HEADER_LENGTH + MAX_REQUEST_LENGTH);
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        private final ArrayList<HostedGame> games = new ArrayList<>(1);
+        private final ArrayList<HostedGame> watching = new ArrayList<>(1);
+        private final ArrayList<HostedGame> lagging = new ArrayList<>(1);
+        private String name;
+        private long pendingBytes;
+        private boolean dirty, closed;
+
+        private Connection(SocketChannel channel, SelectionKey key, String name)
+        {
+            this.channel = channel;
+            this.key = key;
+            this.name = name;
+        }
+    }
+
+    /**
+     * A game hosted by the server, waiting for its second player or in progress.
+     */
+    private static class HostedGame
+    {
+        private final int id, size;
+        private final Connection player1;
+        private Connection player2;
+        private final LinkedHashSet<Connection> spectators = new LinkedHashSet<>();
+        private GameBoard gameBoard;
+        private int moveNumber;
+        private Session session;
+        private String fileName;
+
+        private HostedGame(int id, int size, Connection player1)
+        {
+            this.id = id;
+            this.size = size;
+            this.player1 = player1;
+        }
+
+        /**
+         * Get the player of the given connection in this game.
+         * @param connection The connection
+         * @return PLAYER1 or PLAYER2, or NOPLAYER if the connection does not play this game
+         */
+        private int playerOf(Connection connection)
+        {
+            if(connection==player1)
+                return GameBoard.PLAYER1;
+            return connection==player2 ? GameBoard.PLAYER2 : GameBoard.NOPLAYER;
+        }
+
+        /**
+         * Get the player to move.
+         * @return PLAYER1 or PLAYER2
+         */
+        private int playerToMove()
+        {
+            return gameBoard.getCurrentPlayer()==gameBoard.getPlayer1() ? GameBoard.PLAYER1 : GameBoard.PLAYER2;
+        }
+    }
+
+    /**
+     * Constructor for the game server. The server is bound straight away, but only accepts connections once it is started.
+     * @param address The address to listen on; port 0 picks a free port
+     * @param saveService The service saving the games, or null if the games are not saved
+     * @throws IOException If the server could not be bound
+     */
+    public GameServer(InetSocketAddress address, SaveService saveService) throws IOException
+    {
+        if(address==null)
+            throw new IllegalArgumentException("The address cannot be null.");
+        this.saveService = saveService;
+        savePrefix = "NET " + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Start the server with the given arguments: the port, --no-save to play without saving the games, and --store with a folder
+     * to save the games to a session store in that folder.
+     * @param args The arguments
+     * @throws IOException If the server could not be started
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int port = GameProtocol.DEFAULT_PORT;
+        boolean save = true;
+        File storeFolder = null;
+        for(int index = 0; index < args.length; index++)
+        {
+            if(args[index].equals("--no-save"))
+                save = false;
+            else if(args[index].equals("--store") && index + 1 < args.length)
+                storeFolder = new File(args[++index]);
+            else if(!args[index].equals("--server"))
+                port = Integer.parseInt(args[index]);
+        }
+
+        SaveService saveService = null;
+        SessionStore store = null;
+        if(save && storeFolder!=null)
+        {
+            store = new SessionStore(storeFolder);
+            saveService = new SaveService(store);
+        }
+        else if(save)
+        {
+            Session.createSavesFolder();
+            saveService = new SaveService(new SaveCatalog(new File("./saves/")));
+        }
+        GameServer server = new GameServer(new InetSocketAddress(port), saveService);
+        SessionStore serverStore = store;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            if(serverStore!=null)
+                serverStore.close();
+        }));
+        MetricsRegistry.get().registerJvmMetrics();
+        server.start();
+        System.out.println("Reversi server listening on port " + server.getPort() + (!save ? ", without saving the games"
+                : store!=null ? ", saving the games to " + storeFolder + " (" + store.size() + " sessions)" : ""));
+    }
+
+    /**
+     * Start serving the clients on a thread of the server.
+     */
+    public synchronized void start()
+    {
+        if(thread!=null)
+            throw new IllegalStateException("The server has already been started.");
+        MetricsRegistry.get().gauge(MetricsRegistry.NET_CONNECTIONS, connectionCount::get);
+        MetricsRegistry.get().gauge(MetricsRegistry.NET_GAMES, gameCount::get);
+        MetricsRegistry.get().gauge(MetricsRegistry.NET_SPECTATORS, spectatorCount::get);
+        running = true;
+        thread = new Thread(this::run, "Reversi server");
+        thread.start();
+    }
+
+    /**
+     * Get the port the server listens on.
+     * @return The port
+     */
+    public int getPort()
+    {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Get the number of connected clients.
+     * @return The number of connections
+     */
+    public int getConnectionCount()
+    {
+        return connectionCount.get();
+    }
+
+    /**
+     * Get the number of games in progress.
+     * @return The number of games
+     */
+    public int getGameCount()
+    {
+        return gameCount.get();
+    }
+
+    /**
+     * Get the number of spectators, counting a connection once for every game it watches.
+     * @return The number of spectators
+     */
+    public int getSpectatorCount()
+    {
+        return spectatorCount.get();
+    }
+
+    /**
+     * Stop the server, disconnecting every client, and wait until the pending saves have been written.
+     */
+    @Override
+    public void close()
+    {
+        Thread serverThread;
+        synchronized (this) {
+            running = false;
+            serverThread = thread;
+        }
+        selector.wakeup();
+        if(serverThread!=null && serverThread!=Thread.currentThread())
+        {
+            try {
+                serverThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if(serverThread==null)
+            closeChannels();
+        if(saveService!=null)
+        {
+            saveService.flush();
+            if(saveService.getCatalog()!=null)
+                saveService.getCatalog().flush();
+        }
+    }
+
+    /**
+     * Serve the clients until the server is closed. It runs on the thread of the server.
+     */
+    private void run()
+    {
+        try {
+            while(running)
+            {
+                selector.select();
+                for(Iterator<SelectionKey> keys = selector.selectedKeys().iterator(); keys.hasNext(); )
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if(!key.isValid())
+                        continue;
+                    if(key.isAcceptable())
+                        accept();
+                    else
+                    {
+                        Connection connection = (Connection) key.attachment();
+                        if(key.isReadable())
+                            read(connection);
+                        if(!connection.closed && key.isWritable())
+                            flush(connection);
+                    }
+                }
+                flushDirty();
+            }
+        } catch (IOException e) {
+            System.out.println("The server stopped: " + e.getMessage());
+        } finally {
+            closeChannels();
+        }
+    }
+
+    /**
+     * Close the selector and every channel of the server.
+     */
+    private void closeChannels()
+    {
+        try {
+            for(SelectionKey key : selector.keys())
+                key.channel().close();
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            //the server is stopping anyway
+        }
+    }
+
+    /**
+     * Accept every pending connection.
+     * @throws IOException If the server channel failed
+     */
+    private void accept() throws IOException
+    {
+        SocketChannel channel;
+        while((channel = serverChannel.accept())!=null)
+        {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key, "Player " + nextConnectionId++));
+            connectionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Read the bytes received from a client, and handle every complete message.
+     * @param connection The connection
+     */
+    private void read(Connection connection)
+    {
+        int count;
+        try {
+            count = connection.channel.read(connection.in);
+        } catch (IOException e) {
+            count = -1;
+        }
+        if(count < 0)
+        {
+            disconnect(connection);
+            return;
+        }
+        bytesIn.add(count);
+
+        connection.in.flip();
+        ByteBuffer frame;
+        while(!connection.closed && (frame = GameProtocol.nextFrame(connection.in))!=null)
+        {
+            try {
+                handle(connection, frame);
+            } catch (BufferUnderflowException e) {
+                refuse(connection, "The message is too short.");
+            }
+        }
+        if(connection.closed)
+            return;
+        if(connection.in.remaining() >= GameProtocol.HEADER_LENGTH
+                && (connection.in.getShort(connection.in.position()) & 0xFFFF) > MAX_REQUEST_LENGTH)
+        {
+            refuse(connection, "The message is too long.");
+            return;
+        }
+        connection.in.compact();
+    }
+
+    /**
+     * Handle a message of a client.
+     * @param connection The connection
+     * @param frame The message, starting with its type
+     */
+    private void handle(Connection connection, ByteBuffer frame)
+    {
+        int type = GameProtocol.getUnsignedByte(frame);
+        switch(type)
+        {
+            case GameProtocol.HELLO:
+                String name = GameProtocol.getString(frame).trim();
+                if(!name.isEmpty())
+                    connection.name = name;
+                send(connection, GameProtocol.welcome());
+                break;
+            case GameProtocol.MATCH:
+                match(connection, GameProtocol.getUnsignedShort(frame));
+                break;
+            case GameProtocol.JOIN:
+                join(connection, frame.getInt());
+                break;
+            case GameProtocol.LIST:
+                list(connection);
+                break;
+            case GameProtocol.MOVE:
+                move(connection, frame.getInt(), GameProtocol.getUnsignedShort(frame));
+                break;
+            case GameProtocol.LEAVE:
+                leave(connection, frame.getInt());
+                break;
+            case GameProtocol.WATCH:
+                watch(connection, frame.getInt());
+                break;
+            case GameProtocol.UNWATCH:
+                unwatch(connection, frame.getInt());
+                break;
+            default:
+                refuse(connection, "Unknown message type " + type + ".");
+        }
+    }
+
+    /**
+     * Start a game against the player waiting for the same size of board, or wait for an opponent if there is none.
+     * @param connection The connection
+     * @param size The size of the board
+     */
+    private void match(Connection connection, int size)
+    {
+        try {
+            new GameBoard(new BoardPlayer("1"), new BoardPlayer("2"), size);
+        } catch (IllegalSizeException e) {
+            send(connection, GameProtocol.error(e.getMessage()));
+            return;
+        }
+
+        HostedGame waiting = waitingBySize.get(size);
+        if(waiting!=null && waiting.player1!=connection)
+        {
+            startGame(waiting, connection);
+            return;
+        }
+        if(waiting!=null)
+        {
+            send(connection, GameProtocol.error("You are already waiting for an opponent."));
+            return;
+        }
+
+        HostedGame game = new HostedGame(nextGameId++, size, connection);
+        games.put(game.id, game);
+        waitingBySize.put(size, game);
+        connection.games.add(game);
+        send(connection, GameProtocol.waiting(game.id, size));
+    }
+
+    /**
+     * Join a game waiting for its second player.
+     * @param connection The connection
+     * @param gameId The game
+     */
+    private void join(Connection connection, int gameId)
+    {
+        HostedGame game = games.get(gameId);
+        if(game==null || game.player2!=null)
+            send(connection, GameProtocol.error("The game " + gameId + " is not waiting for a player."));
+        else if(game.player1==connection)
+            send(connection, GameProtocol.error("You cannot play against yourself."));
+        else
+            startGame(game, connection);
+    }
+
+    /**
+     * Send the games waiting for their second player, then the games in progress, as many as a message can hold.
+     * @param connection The connection
+     */
+    private void list(Connection connection)
+    {
+        int count = Math.min(games.size(), GameProtocol.getMaxListedGames());
+        int[] gameIds = new int[count], sizes = new int[count], states = new int[count], spectators = new int[count];
+        String[] names1 = new String[count], names2 = new String[count];
+        int index = 0;
+        for(HostedGame game : waitingBySize.values())
+        {
+            if(index==count)
+                break;
+            gameIds[index] = game.id;
+            sizes[index] = game.size;
+            states[index] = GameProtocol.WAITING_GAME;
+            names1[index] = game.player1.name;
+            names2[index++] = "";
+        }
+        for(HostedGame game : games.values())
+        {
+            if(index==count)
+                break;
+            if(game.gameBoard==null)
+                continue;
+            gameIds[index] = game.id;
+            sizes[index] = game.size;
+            states[index] = GameProtocol.PLAYING_GAME;
+            spectators[index] = game.spectators.size();
+            names1[index] = game.player1.name;
+            names2[index++] = game.player2.name;
+        }
+        send(connection, GameProtocol.games(Arrays.copyOf(gameIds, index), Arrays.copyOf(sizes, index), Arrays.copyOf(states, index),
+                Arrays.copyOf(spectators, index), Arrays.copyOf(names1, index), Arrays.copyOf(names2, index)));
+    }
+
+    /**
+     * Start watching a game in progress, with a snapshot of its board.
+     * @param connection The connection
+     * @param gameId The game
+     */
+    private void watch(Connection connection, int gameId)
+    {
+        HostedGame game = games.get(gameId);
+        if(game==null || game.gameBoard==null)
+        {
+            send(connection, GameProtocol.error("The game " + gameId + " is not in progress."));
+            return;
+        }
+        if(!game.spectators.add(connection))
+            return;
+        connection.watching.add(game);
+        spectatorCount.incrementAndGet();
+        send(connection, GameProtocol.snapshot(game.id, game.moveNumber, game.gameBoard));
+    }
+
+    /**
+     * Stop watching a game.
+     * @param connection The connection
+     * @param gameId The game
+     */
+    private void unwatch(Connection connection, int gameId)
+    {
+        HostedGame game = games.get(gameId);
+        if(game!=null && game.spectators.remove(connection))
+        {
+            connection.watching.remove(game);
+            connection.lagging.remove(game);
+            spectatorCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Start a game with its second player.
+     * @param game The game waiting for its second player
+     * @param connection The connection of the second player
+     */
+    private void startGame(HostedGame game, Connection connection)
+    {
+        waitingBySize.remove(game.size, game);
+        game.player2 = connection;
+        connection.games.add(game);
+        game.gameBoard = new GameBoard(new BoardPlayer(game.player1.name), new BoardPlayer(connection.name), game.size);
+        game.session = new Session(new SessionPlayer(game.player1.name), new SessionPlayer(connection.name), game.gameBoard,
+                "Online game " + game.id + " in progress.");
+        game.fileName = savePrefix + "-" + game.id;
+        gameCount.incrementAndGet();
+
+        send(game.player1, GameProtocol.gameStarted(game.id, game.size, GameBoard.PLAYER1, game.player1.name, connection.name));
+        send(connection, GameProtocol.gameStarted(game.id, game.size, GameBoard.PLAYER2, game.player1.name, connection.name));
+        if(saveService!=null)
+            saveService.autoSave(game.session, game.fileName);
+    }
+
+    /**
+     * Play a move of a client, if it is legal, then skip the turn of the next player if they cannot move, or end the game.
+     * @param connection The connection
+     * @param gameId The game
+     * @param position The list position of the piece
+     */
+    private void move(Connection connection, int gameId, int position)
+    {
+        long start = System.nanoTime();
+        HostedGame game = games.get(gameId);
+        if(game==null || game.gameBoard==null || game.playerOf(connection)==GameBoard.NOPLAYER)
+        {
+            send(connection, GameProtocol.error("You are not playing the game " + gameId + "."));
+            return;
+        }
+        ArrayList<Integer> changed = game.playerOf(connection)==game.playerToMove() ? game.gameBoard.onPositionPlayed(position) : null;
+        if(changed==null)
+        {
+            send(connection, GameProtocol.illegalMove(gameId, position));
+            return;
+        }
+        moves.increment();
+        broadcast(game, GameProtocol.movePlayed(gameId, GameProtocol.PLACED, position));
+        if(!game.spectators.isEmpty())
+            fanOut(game, GameProtocol.delta(gameId, ++game.moveNumber, GameProtocol.PLACED, position,
+                    GameProtocol.countFlips(changed, game.size)));
+        else
+            game.moveNumber++;
+
+        BoardPlayer winner = game.gameBoard.checkVictory();
+        if(winner!=null)
+            endGame(game, winner==GameBoard.tiePlayer ? GameBoard.NOPLAYER : (winner==game.gameBoard.getPlayer1() ? GameBoard.PLAYER1
+                    : GameBoard.PLAYER2), GameProtocol.NORMAL_END);
+        else
+        {
+            if(!game.gameBoard.hasPossiblePositions())
+            {
+                game.gameBoard.skipTurn();
+                broadcast(game, GameProtocol.movePlayed(gameId, GameProtocol.PASSED, 0));
+                game.moveNumber++;
+                if(!game.spectators.isEmpty())
+                    fanOut(game, GameProtocol.delta(gameId, game.moveNumber, GameProtocol.PASSED, 0, null));
+            }
+            if(saveService!=null)
+                saveService.autoSave(game.session, game.fileName);
+        }
+        moveTimes.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Leave a game: stop waiting for an opponent, or resign.
+     * @param connection The connection
+     * @param gameId The game
+     */
+    private void leave(Connection connection, int gameId)
+    {
+        HostedGame game = games.get(gameId);
+        if(game==null || game.playerOf(connection)==GameBoard.NOPLAYER)
+            return;
+        if(game.gameBoard==null)
+        {
+            games.remove(gameId);
+            waitingBySize.remove(game.size, game);
+            connection.games.remove(game);
+        }
+        else
+            endGame(game, GameBoard.PLAYER1 + GameBoard.PLAYER2 - game.playerOf(connection), GameProtocol.FORFEIT);
+    }
+
+    /**
+     * End a game, tell both players about the result, and save the finished game in its session.
+     * @param game The game
+     * @param winner The winner, PLAYER1 or PLAYER2, or NOPLAYER for a tie
+     * @param reason NORMAL_END or FORFEIT
+     */
+    private void endGame(HostedGame game, int winner, int reason)
+    {
+        games.remove(game.id);
+        game.player1.games.remove(game);
+        game.player2.games.remove(game);
+        gameCount.decrementAndGet();
+
+        GameBoard gameBoard = game.gameBoard;
+        ByteBuffer gameOver = GameProtocol.gameOver(game.id, winner, reason, gameBoard.getPlayerOnePieces(),
+                gameBoard.getPlayerTwoPieces());
+        broadcast(game, gameOver);
+        for(Connection spectator : game.spectators)
+        {
+            if(spectator.lagging.remove(game))
+                send(spectator, GameProtocol.snapshot(game.id, game.moveNumber, gameBoard));
+            send(spectator, gameOver.duplicate());
+            spectator.watching.remove(game);
+        }
+        spectatorCount.addAndGet(-game.spectators.size());
+        game.spectators.clear();
+
+        Session session = game.session;
+        session.getPlayer1().changeNumberOfPieces(gameBoard.getPlayerOnePieces());
+        session.getPlayer2().changeNumberOfPieces(gameBoard.getPlayerTwoPieces());
+        if(winner==GameBoard.PLAYER1)
+            session.getPlayer1().incrementWins();
+        else if(winner==GameBoard.PLAYER2)
+            session.getPlayer2().incrementWins();
+        GameTranscript transcript = GameTranscript.of(gameBoard);
+        if(transcript!=null)
+            session.addGame(transcript);
+        String result = winner==GameBoard.NOPLAYER ? "Tie!" : "Player " + (winner==GameBoard.PLAYER1 ? session.getPlayer1()
+                : session.getPlayer2()).getName() + " is victorious" + (reason==GameProtocol.FORFEIT ? " by forfeit." : ".");
+        session.setStatus(result);
+        if(saveService!=null)
+        {
+            saveService.autoSave(session, game.fileName);
+            saveService.closeJournal(game.fileName);
+        }
+    }
+
+    /**
+     * Send a message to both players of a game.
+     * @param game The game
+     * @param frame The message, which is not changed
+     */
+    private void broadcast(HostedGame game, ByteBuffer frame)
+    {
+        send(game.player1, frame.duplicate());
+        send(game.player2, frame);
+    }
+
+    /**
+     * Send the delta of a move to every spectator of a game which is not behind. The delta is shared by the spectators, and written
+     * with their other messages at the end of the round. A spectator with too many bytes waiting to be written falls behind: it
+     * gets no more deltas of the game until it gets a new snapshot.
+     * @param game The game
+     * @param delta The delta
+     */
+    private void fanOut(HostedGame game, ByteBuffer delta)
+    {
+        for(Connection spectator : game.spectators)
+        {
+            if(spectator.lagging.contains(game))
+                continue;
+            if(spectator.pendingBytes > MAX_SPECTATOR_BACKLOG)
+                spectator.lagging.add(game);
+            else
+                send(spectator, delta.duplicate());
+        }
+    }
+
+    /**
+     * Queue a message for a client. It is written at the end of the current round of the selector.
+     * @param connection The connection
+     * @param frame The message
+     */
+    private void send(Connection connection, ByteBuffer frame)
+    {
+        if(connection.closed)
+            return;
+        connection.out.add(frame);
+        connection.pendingBytes += frame.remaining();
+        if(!connection.dirty)
+        {
+            connection.dirty = true;
+            dirty.add(connection);
+        }
+    }
+
+    /**
+     * Send an error to a client which broke the protocol, and disconnect it.
+     * @param connection The connection
+     * @param message The description of the error
+     */
+    private void refuse(Connection connection, String message)
+    {
+        send(connection, GameProtocol.error(message));
+        flush(connection);
+        disconnect(connection);
+    }
+
+    /**
+     * Write the messages queued during this round of the selector. Clients with too many messages waiting to be written are
+     * disconnected.
+     */
+    private void flushDirty()
+    {
+        for(int index = 0; index < dirty.size(); index++)
+        {
+            Connection connection = dirty.get(index);
+            connection.dirty = false;
+            if(connection.closed)
+                continue;
+            if(connection.pendingBytes > MAX_PENDING_OUTPUT)
+                disconnect(connection);
+            else
+                flush(connection);
+        }
+        dirty.clear();
+    }
+
+    /**
+     * Write as many of the queued messages of a client as its socket accepts, and wait for the socket to be writable if some are
+     * left.
+     * @param connection The connection
+     */
+    private void flush(Connection connection)
+    {
+        try {
+            while(!connection.out.isEmpty() || !connection.lagging.isEmpty())
+            {
+                if(connection.out.isEmpty())
+                    resync(connection);
+                int count = 0;
+                for(ByteBuffer frame : connection.out)
+                {
+                    writeBatch[count++] = frame;
+                    if(count==MAX_WRITE_BATCH)
+                        break;
+                }
+                long written = connection.channel.write(writeBatch, 0, count);
+                bytesOut.add(written);
+                connection.pendingBytes -= written;
+                while(!connection.out.isEmpty() && !connection.out.peek().hasRemaining())
+                    connection.out.poll();
+                if(count > 0 && writeBatch[count - 1].hasRemaining())
+                    break;
+            }
+        } catch (IOException e) {
+            disconnect(connection);
+            return;
+        } finally {
+            Arrays.fill(writeBatch, null);
+        }
+        int interest = connection.out.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+        if(connection.key.isValid() && connection.key.interestOps()!=interest)
+            connection.key.interestOps(interest);
+    }
+
+    /**
+     * Queue a new snapshot of every game a spectator fell behind in, once every other message has been written to it.
+     * @param connection The connection of the spectator
+     */
+    private void resync(Connection connection)
+    {
+        for(HostedGame game : connection.lagging)
+        {
+            ByteBuffer snapshot = GameProtocol.snapshot(game.id, game.moveNumber, game.gameBoard);
+            connection.out.add(snapshot);
+            connection.pendingBytes += snapshot.remaining();
+            resyncs.increment();
+        }
+        connection.lagging.clear();
+    }
+
+    /**
+     * Disconnect a client. Its games in progress are forfeited, and the games it was waiting in are removed.
+     * @param connection The connection
+     */
+    private void disconnect(Connection connection)
+    {
+        if(connection.closed)
+            return;
+        connection.closed = true;
+        connection.out.clear();
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            //the connection is closed anyway
+        }
+        connectionCount.decrementAndGet();
+
+        for(HostedGame game : connection.watching)
+            game.spectators.remove(connection);
+        spectatorCount.addAndGet(-connection.watching.size());
+        connection.watching.clear();
+        connection.lagging.clear();
+        for(HostedGame game : new ArrayList<>(connection.games))
+        {
+            if(game.gameBoard==null)
+            {
+                games.remove(game.id);
+                waitingBySize.remove(game.size, game);
+            }
+            else
+                endGame(game, GameBoard.PLAYER1 + GameBoard.PLAYER2 - game.playerOf(connection), GameProtocol.FORFEIT);
+        }
+        connection.games.clear();
+    }
+}
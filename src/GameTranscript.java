@@ -0,0 +1,234 @@
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The transcript of a game: the size of the board and every move played on it, in order. Transcripts can be written in the usual
+ * move-list notation, where every move is a column letter followed by a row number ("f5d6c3..."). Rows are counted from the bottom
+ * of the board, so the transcripts match the ones of other Reversi programs. Columns after "z" continue with "aa", "ab" and so on.
+ * Skipped turns are left out, as they can be worked out by replaying the game, and boards other than 8x8 are prefixed with their
+ * size ("10:e6f4...").
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class GameTranscript implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_SIZE = 8;
+
+    private final int size;
+    private final int[] moves;
+
+    /**
+     * Constructor for a game transcript.
+     * @param size The size of the board
+     * @param moves The moves, as list positions, or GameBoard.PASS for a skipped turn
+     */
+    public GameTranscript(int size, int[] moves)
+    {
+        if(size<=0)
+            throw new IllegalSizeException("The size must be positive.");
+        if(moves==null)
+            throw new IllegalArgumentException("The moves cannot be null.");
+        for(int move : moves)
+            if(move!=GameBoard.PASS && (move<0 || move>=size * size))
+                throw new IllegalArgumentException("The move " + move + " is outside of the board.");
+        this.size = size;
+        this.moves = moves.clone();
+    }
+
+    /**
+     * Create the transcript of the game played on the given board.
+     * @param gameBoard The game board
+     * @return The transcript, or null if the board does not know all of the moves played on it
+     */
+    public static GameTranscript of(GameBoard gameBoard)
+    {
+        if(!gameBoard.isHistoryComplete())
+            return null;
+        List<Integer> history = gameBoard.getHistory();
+        int[] moves = new int[history.size()];
+        for(int i = 0; i < moves.length; i++)
+            moves[i] = history.get(i);
+        return new GameTranscript(gameBoard.getSize(), moves);
+    }
+
+    /**
+     * Parse a transcript written in move-list notation.
+     * @param notation The transcript, for example "f5d6c3" or "10:e6f4"
+     * @return The transcript
+     * @throws IllegalArgumentException If the notation is not valid
+     */
+    public static GameTranscript parse(CharSequence notation)
+    {
+        int position = 0, length = notation.length();
+        int size = DEFAULT_SIZE;
+
+        int prefix = 0;
+        while(prefix < length && Character.isDigit(notation.charAt(prefix)))
+            prefix++;
+        if(prefix > 0 && prefix < length && notation.charAt(prefix)==':')
+        {
+            size = Integer.parseInt(notation.subSequence(0, prefix).toString());
+            position = prefix + 1;
+        }
+
+        int[] moves = new int[Math.max(4, length / 2)];
+        int count = 0;
+        while(position < length)
+        {
+            char c = notation.charAt(position);
+            if(Character.isWhitespace(c))
+            {
+                position++;
+                continue;
+            }
+            if(c=='-' && position + 1 < length && notation.charAt(position + 1)=='-')
+            {
+                moves = append(moves, count++, GameBoard.PASS);
+                position += 2;
+                continue;
+            }
+
+            int column = 0, letters = 0;
+            while(position < length && Character.isLetter(notation.charAt(position)))
+            {
+                column = column * 26 + (Character.toLowerCase(notation.charAt(position)) - 'a' + 1);
+                position++;
+                letters++;
+            }
+            int row = 0, digits = 0;
+            while(position < length && Character.isDigit(notation.charAt(position)))
+            {
+                row = row * 10 + (notation.charAt(position) - '0');
+                position++;
+                digits++;
+            }
+            if(letters==0 || digits==0 || column > size || row < 1 || row > size)
+                throw new IllegalArgumentException("Invalid move near character " + position + " of the transcript.");
+            moves = append(moves, count++, GameBoard.getListPosition(column - 1, size - row, size));
+        }
+
+        return new GameTranscript(size, Arrays.copyOf(moves, count));
+    }
+
+    /**
+     * Write the transcript in move-list notation. Skipped turns are left out.
+     * @param out The destination
+     * @return The destination
+     */
+    public StringBuilder appendNotation(StringBuilder out)
+    {
+        if(size!=DEFAULT_SIZE)
+            out.append(size).append(':');
+        for(int move : moves)
+            if(move!=GameBoard.PASS)
+                out.append(toNotation(move, size));
+        return out;
+    }
+
+    /**
+     * Write a single move in move-list notation.
+     * @param move The list position of the move
+     * @param size The size of the board
+     * @return The move, for example "f5"
+     */
+    public static String toNotation(int move, int size)
+    {
+        StringBuilder column = new StringBuilder();
+        for(int x = move % size + 1; x > 0; x = (x - 1) / 26)
+            column.insert(0, (char) ('a' + (x - 1) % 26));
+        return column.toString() + (size - move / size);
+    }
+
+    /**
+     * Replay the transcript on a new board. Skipped turns which are not in the transcript are added when the player to move has no
+     * possible moves.
+     * @param player1 The first player
+     * @param player2 The second player
+     * @return The board after the last move
+     * @throws IllegalArgumentException If one of the moves is illegal
+     */
+    public GameBoard replay(BoardPlayer player1, BoardPlayer player2)
+    {
+        GameBoard gameBoard = new GameBoard(player1, player2, size);
+        for(int move : moves)
+        {
+            if(move==GameBoard.PASS)
+            {
+                gameBoard.skipTurn();
+                continue;
+            }
+            if(gameBoard.onPositionPlayed(move)!=null)
+                continue;
+            if(gameBoard.getPossiblePositions().size()==0)
+            {
+                gameBoard.skipTurn();
+                if(gameBoard.onPositionPlayed(move)!=null)
+                    continue;
+            }
+            throw new IllegalArgumentException("The move " + toNotation(move, size) + " is illegal.");
+        }
+        return gameBoard;
+    }
+
+    /**
+     * Get the size of the board.
+     * @return The size of the board
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Get the number of moves, including skipped turns.
+     * @return The number of moves
+     */
+    public int getMoveCount()
+    {
+        return moves.length;
+    }
+
+    /**
+     * Get the move with the given index.
+     * @param index The index of the move, starting from 0
+     * @return The list position of the move, or GameBoard.PASS for a skipped turn
+     */
+    public int getMove(int index)
+    {
+        return moves[index];
+    }
+
+    /**
+     * Get all of the moves.
+     * @return A copy of the moves
+     */
+    public int[] getMoves()
+    {
+        return moves.clone();
+    }
+
+    @Override
+    public String toString()
+    {
+        return appendNotation(new StringBuilder()).toString();
+    }
+
+    /**
+     * Put a move at the end of the given array, growing it if needed.
+     * @param moves The moves
+     * @param index The index of the new move
+     * @param move The new move
+     * @return The array containing the new move
+     */
+    private static int[] append(int[] moves, int index, int move)
+    {
+        if(index==moves.length)
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        moves[index] = move;
+        return moves;
+    }
+}
@@ -0,0 +1,118 @@
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the icons of the app in the background. The images are decoded and scaled in parallel by a small pool of threads, while
+ * the buttons show an empty placeholder of the same size, so that the frame can appear before the icons are ready. Every icon is
+ * only loaded once for each size, and the scaled icon is kept for the buttons which ask for it later.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public final class IconLoader
+{
+    private static final ConcurrentHashMap<String, CompletableFuture<ImageIcon>> icons = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, ImageIcon> placeholders = new ConcurrentHashMap<>();
+    private static final AtomicInteger threads = new AtomicInteger();
+    private static final ExecutorService pool = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())), runnable -> {
+                Thread thread = new Thread(runnable, "Reversi icon loader " + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * The loader is only used through the static methods.
+     */
+    private IconLoader()
+    {
+    }
+
+    /**
+     * Start loading the icon at the given path, scaled to a square of the given size, unless it is already loaded or loading.
+     * @param path The path of the image
+     * @param size The width and height of the icon
+     * @return The icon once it is loaded, or null if the image could not be read
+     */
+    public static CompletableFuture<ImageIcon> load(String path, int size)
+    {
+        if(path==null)
+            throw new IllegalArgumentException("The path cannot be null.");
+        if(size<=0)
+            throw new IllegalArgumentException("The size must be positive.");
+        return icons.computeIfAbsent(size + ":" + path, key -> CompletableFuture.supplyAsync(() -> read(path, size), pool));
+    }
+
+    /**
+     * Set the icon of a button. The button shows an empty placeholder until the icon is loaded, unless it was loaded before.
+     * Must be called on the event dispatch thread, or before the button is shown.
+     * @param button The button
+     * @param path The path of the image
+     * @param size The width and height of the icon
+     */
+    public static void setIcon(AbstractButton button, String path, int size)
+    {
+        if(button==null)
+            throw new IllegalArgumentException("The button cannot be null.");
+        CompletableFuture<ImageIcon> icon = load(path, size);
+        ImageIcon loaded = icon.getNow(null);
+        button.setIcon(loaded!=null ? loaded : getPlaceholder(size));
+        if(loaded==null)
+            icon.thenAccept(image -> SwingUtilities.invokeLater(() -> {
+                if(image!=null)
+                    button.setIcon(image);
+            }));
+    }
+
+    /**
+     * Get a future which completes once every icon requested so far is loaded.
+     * @return The future
+     */
+    public static CompletableFuture<Void> allLoaded()
+    {
+        return CompletableFuture.allOf(icons.values().toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Get the empty icon shown while an icon of the given size is loading.
+     * @param size The width and height of the icon
+     * @return The placeholder
+     */
+    private static ImageIcon getPlaceholder(int size)
+    {
+        return placeholders.computeIfAbsent(size, key -> new ImageIcon(new BufferedImage(key, key, BufferedImage.TYPE_INT_ARGB)));
+    }
+
+    /**
+     * Decode an image and scale it down to the given size. Runs on the threads of the pool.
+     * @param path The path of the image
+     * @param size The width and height of the icon
+     * @return The icon, or null if the image could not be read
+     */
+    private static ImageIcon read(String path, int size)
+    {
+        BufferedImage image;
+        try {
+            image = ImageIO.read(new File(path));
+        } catch (IOException e) {
+            return null;
+        }
+        if(image==null)
+            return null;
+
+        BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        g.drawImage(image.getScaledInstance(size, size, Image.SCALE_SMOOTH), 0, 0, null);
+        g.dispose();
+        return new ImageIcon(scaled);
+    }
+}
@@ -0,0 +1,131 @@
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Writes images and animations to files on a dedicated background thread, so the game never waits for the encoder. Screenshots
+ * of the frame are painted on the event dispatch thread, which is quick, and only encoded in the background; images of the board
+ * and animations of recorded games are also drawn in the background, since they do not use any Swing component.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class ImageExporter
+{
+    private final ExecutorService encoder;
+
+    /**
+     * Constructor for the image exporter.
+     */
+    public ImageExporter()
+    {
+        encoder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Reversi image export");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Write an image to a PNG file in the background.
+     * @param image The image, which must not be changed afterwards
+     * @param file The file
+     * @param onDone Called on the event dispatch thread with true if the file was written, false otherwise; can be null
+     */
+    public void export(BufferedImage image, File file, Consumer<Boolean> onDone)
+    {
+        if(image==null)
+            throw new IllegalArgumentException("The image cannot be null.");
+        export(() -> image, file, onDone);
+    }
+
+    /**
+     * Draw the cells of a board and write the image to a PNG file, both in the background.
+     * @param renderer The renderer of the board
+     * @param owners The owner of every cell, by list position, which is copied
+     * @param size The size of the board
+     * @param pixels The width and height of the image
+     * @param file The file
+     * @param onDone Called on the event dispatch thread with true if the file was written, false otherwise; can be null
+     */
+    public void exportBoard(BoardRenderer renderer, int[] owners, int size, int pixels, File file, Consumer<Boolean> onDone)
+    {
+        if(renderer==null)
+            throw new IllegalArgumentException("The renderer cannot be null.");
+        if(owners==null)
+            throw new IllegalArgumentException("The owners cannot be null.");
+        int[] copy = owners.clone();
+        export(() -> renderer.render(copy, size, pixels), file, onDone);
+    }
+
+    /**
+     * Export a recorded game as an animation in the background. The exporter draws the frames on its own threads, and this exporter's
+     * thread writes them.
+     * @param exporter The animation exporter
+     * @param game The game
+     * @param output The GIF file, or the folder of the PNG files
+     * @param format The format of the animation
+     * @param onDone Called on the event dispatch thread with true if the animation was written, false otherwise; can be null
+     */
+    public void exportAnimation(GameAnimationExporter exporter, GameTranscript game, File output, GameAnimationExporter.Format format,
+                                Consumer<Boolean> onDone)
+    {
+        if(exporter==null)
+            throw new IllegalArgumentException("The exporter cannot be null.");
+        if(game==null)
+            throw new IllegalArgumentException("The game cannot be null.");
+        run(() -> {
+            exporter.export(game, output, format);
+            return true;
+        }, onDone);
+    }
+
+    /**
+     * Stop the exporter once the images which are waiting have been written.
+     */
+    public void close()
+    {
+        encoder.shutdown();
+    }
+
+    /**
+     * Create an image and write it to a file on the background thread.
+     * @param image Creates the image
+     * @param file The file
+     * @param onDone The listener of the result; can be null
+     */
+    private void export(Supplier<BufferedImage> image, File file, Consumer<Boolean> onDone)
+    {
+        if(file==null)
+            throw new IllegalArgumentException("The file cannot be null.");
+        run(() -> ImageIO.write(image.get(), "png", file), onDone);
+    }
+
+    /**
+     * Run an export on the background thread, and report its result on the event dispatch thread.
+     * @param export The export, which returns true if it succeeded
+     * @param onDone The listener of the result; can be null
+     */
+    private void run(Callable<Boolean> export, Consumer<Boolean> onDone)
+    {
+        encoder.execute(() -> {
+            boolean written;
+            try {
+                written = export.call();
+            } catch (Exception e) {
+                written = false;
+            }
+            if(onDone!=null)
+            {
+                boolean result = written;
+                SwingUtilities.invokeLater(() -> onDone.accept(result));
+            }
+        });
+    }
+}
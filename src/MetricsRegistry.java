@@ -0,0 +1,447 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * The performance metrics of the app: counters, gauges and latency histograms, identified by name. Metrics can be updated from any
+ * thread without locking, so they are cheap enough to be updated on every move, click and repaint.
+ *
+ * Histograms keep their values in buckets whose width grows with the value, as HdrHistogram does: every power of two is split
+ * into 32 buckets, so percentiles are accurate to about 3% whatever the range of the values, and recording a value never allocates.
+ *
+ * The registry can write a snapshot of every metric to a file periodically, as CSV rows or JSON lines depending on the extension
+ * of the file. The app does so when it is started with -Dreversi.metrics.file=&lt;file&gt;, every -Dreversi.metrics.period seconds.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public final class MetricsRegistry
+{
+    public static final String MOVES = "game.moves";
+    public static final String CLICK_LATENCY = "ui.click.latency";
+    public static final String PAINT_TIME = "render.paint";
+    public static final String FRAME_TIME = "render.frame";
+    public static final String SAVE_LATENCY = "io.save.latency";
+    public static final String SAVE_BYTES = "io.save.bytes";
+    public static final String LOAD_LATENCY = "io.load.latency";
+    public static final String LOAD_BYTES = "io.load.bytes";
+    public static final String HEAP_USED = "jvm.heap.used";
+    public static final String HEAP_MAX = "jvm.heap.max";
+    public static final String GC_COUNT = "jvm.gc.count";
+    public static final String GC_PAUSE = "jvm.gc.pause";
+    public static final String NET_CONNECTIONS = "net.connections";
+    public static final String NET_GAMES = "net.games";
+    public static final String NET_BYTES_IN = "net.bytes.in";
+    public static final String NET_BYTES_OUT = "net.bytes.out";
+    public static final String NET_MOVE_TIME = "net.move.time";
+    public static final String NET_SPECTATORS = "net.spectators";
+    public static final String NET_RESYNCS = "net.spectators.resyncs";
+    public static final String STORE_SYNCS = "io.store.syncs";
+    public static final String STORE_SYNC_TIME = "io.store.sync";
+    public static final String STORE_COMPACTED = "io.store.compacted.bytes";
+
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private ScheduledExecutorService dumper;
+    private boolean jvmMetrics;
+
+    /**
+     * A count of events, which can only grow until the registry is reset.
+     */
+    public static final class Counter
+    {
+        private final LongAdder count = new LongAdder();
+
+        /**
+         * Add one to the counter.
+         */
+        public void increment()
+        {
+            count.increment();
+        }
+
+        /**
+         * Add a number to the counter.
+         * @param amount The number to add
+         */
+        public void add(long amount)
+        {
+            count.add(amount);
+        }
+
+        /**
+         * Get the value of the counter.
+         * @return The value
+         */
+        public long get()
+        {
+            return count.sum();
+        }
+    }
+
+    /**
+     * A histogram of latencies, in nanoseconds.
+     */
+    public static final class Histogram
+    {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        /**
+         * Record a value.
+         * @param nanos The value, in nanoseconds; negative values are recorded as 0
+         */
+        public void record(long nanos)
+        {
+            long value = Math.max(0, nanos);
+            counts.incrementAndGet(bucketOf(value));
+            count.increment();
+            total.add(value);
+            if(value > max.get())
+                max.accumulateAndGet(value, Math::max);
+        }
+
+        /**
+         * Get the number of recorded values.
+         * @return The number of values
+         */
+        public long getCount()
+        {
+            return count.sum();
+        }
+
+        /**
+         * Get the mean of the recorded values.
+         * @return The mean, in nanoseconds, or 0 if no value was recorded
+         */
+        public long getMean()
+        {
+            long values = count.sum();
+            return values==0 ? 0 : total.sum() / values;
+        }
+
+        /**
+         * Get the largest recorded value.
+         * @return The largest value, in nanoseconds
+         */
+        public long getMax()
+        {
+            return max.get();
+        }
+
+        /**
+         * Get a percentile of the recorded values.
+         * @param percentile The percentile, between 0 and 100
+         * @return The value below which the given percentage of the values are, in nanoseconds, or 0 if no value was recorded
+         */
+        public long getPercentile(double percentile)
+        {
+            if(percentile<0 || percentile>100)
+                throw new IllegalArgumentException("The percentile must be between 0 and 100.");
+            long[] snapshot = new long[BUCKETS];
+            long values = 0;
+            for(int bucket = 0; bucket < BUCKETS; bucket++)
+                values += snapshot[bucket] = counts.get(bucket);
+            if(values==0)
+                return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * values));
+            long seen = 0;
+            for(int bucket = 0; bucket < BUCKETS; bucket++)
+            {
+                seen += snapshot[bucket];
+                if(seen >= rank)
+                    return Math.min(max.get(), highestValueIn(bucket));
+            }
+            return max.get();
+        }
+
+        /**
+         * Remove every recorded value.
+         */
+        private void reset()
+        {
+            for(int bucket = 0; bucket < BUCKETS; bucket++)
+                counts.set(bucket, 0);
+            count.reset();
+            total.reset();
+            max.set(0);
+        }
+
+        /**
+         * Get the bucket of a value. Values below SUB_BUCKETS have a bucket each; above, every power of two is split into
+         * SUB_BUCKETS buckets of the same width.
+         * @param value The value, which is not negative
+         * @return The index of the bucket
+         */
+        private static int bucketOf(long value)
+        {
+            if(value < SUB_BUCKETS)
+                return (int) value;
+            int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift & SUB_BUCKETS - 1);
+        }
+
+        /**
+         * Get the highest value which falls in a bucket.
+         * @param bucket The index of the bucket
+         * @return The highest value
+         */
+        private static long highestValueIn(int bucket)
+        {
+            if(bucket < SUB_BUCKETS)
+                return bucket;
+            int shift = bucket / SUB_BUCKETS - 1;
+            long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+            return lowest + (1L << shift) - 1;
+        }
+    }
+
+    /**
+     * The registry is shared by the whole app, through get().
+     */
+    private MetricsRegistry()
+    {
+    }
+
+    /**
+     * Get the registry of the app.
+     * @return The registry
+     */
+    public static MetricsRegistry get()
+    {
+        return instance;
+    }
+
+    /**
+     * Get the counter with the given name, creating it if it does not exist.
+     * @param name The name of the counter
+     * @return The counter
+     */
+    public Counter counter(String name)
+    {
+        if(name==null)
+            throw new IllegalArgumentException("The name cannot be null.");
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * Get the histogram with the given name, creating it if it does not exist.
+     * @param name The name of the histogram
+     * @return The histogram
+     */
+    public Histogram histogram(String name)
+    {
+        if(name==null)
+            throw new IllegalArgumentException("The name cannot be null.");
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Register a gauge, whose value is read whenever the metrics are shown or written. It replaces the gauge with the same name.
+     * @param name The name of the gauge
+     * @param value Reads the value of the gauge; it must be safe to call from any thread
+     */
+    public void gauge(String name, LongSupplier value)
+    {
+        if(name==null)
+            throw new IllegalArgumentException("The name cannot be null.");
+        if(value==null)
+            throw new IllegalArgumentException("The value cannot be null.");
+        gauges.put(name, value);
+    }
+
+    /**
+     * Read the value of a gauge.
+     * @param name The name of the gauge
+     * @return The value, or 0 if there is no such gauge
+     */
+    public long getGauge(String name)
+    {
+        LongSupplier gauge = gauges.get(name);
+        return gauge==null ? 0 : gauge.getAsLong();
+    }
+
+    /**
+     * Reset every counter and histogram, for example before reproducing a problem. Gauges are not affected.
+     */
+    public void reset()
+    {
+        for(Counter counter : counters.values())
+            counter.count.reset();
+        for(Histogram histogram : histograms.values())
+            histogram.reset();
+    }
+
+    /**
+     * Start writing a snapshot of every metric to a file periodically, until the app exits. A file ending in .json gets one JSON
+     * object per line for every snapshot; any other file gets CSV rows, one for every metric. Snapshots are appended to the file.
+     * @param file The file
+     * @param periodSeconds The time between two snapshots, in seconds
+     */
+    public synchronized void startDump(File file, long periodSeconds)
+    {
+        if(file==null)
+            throw new IllegalArgumentException("The file cannot be null.");
+        if(periodSeconds<=0)
+            throw new IllegalArgumentException("The period must be positive.");
+        if(dumper!=null)
+            dumper.shutdown();
+
+        boolean json = file.getName().toLowerCase().endsWith(".json");
+        if(!json && !file.exists())
+            append(file, "time,metric,type,count,value,mean,p50,p90,p99,max\n");
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Reversi metrics dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> append(file, json ? toJson(System.currentTimeMillis()) + "\n"
+                : toCsv(System.currentTimeMillis())), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Write a snapshot of every metric as a JSON object.
+     * @param time The time of the snapshot, in milliseconds since the epoch
+     * @return The JSON object, on a single line
+     */
+    public String toJson(long time)
+    {
+        StringBuilder out = new StringBuilder("{\"time\":").append(time);
+        out.append(",\"counters\":{");
+        appendJsonValues(out, new TreeMap<>(counters), Counter::get);
+        out.append("},\"gauges\":{");
+        appendJsonValues(out, new TreeMap<>(gauges), LongSupplier::getAsLong);
+        out.append("},\"histograms\":{");
+        boolean first = true;
+        for(Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet())
+        {
+            Histogram histogram = entry.getValue();
+            out.append(first ? "" : ",").append('"').append(entry.getKey()).append("\":{\"count\":").append(histogram.getCount())
+                    .append(",\"mean\":").append(histogram.getMean()).append(",\"p50\":").append(histogram.getPercentile(50))
+                    .append(",\"p90\":").append(histogram.getPercentile(90)).append(",\"p99\":").append(histogram.getPercentile(99))
+                    .append(",\"max\":").append(histogram.getMax()).append('}');
+            first = false;
+        }
+        return out.append("}}").toString();
+    }
+
+    /**
+     * Write a snapshot of every metric as CSV rows, with the columns time, metric, type, count, value, mean, p50, p90, p99 and max.
+     * Latencies are in nanoseconds.
+     * @param time The time of the snapshot, in milliseconds since the epoch
+     * @return The rows, each ending with a new line
+     */
+    public String toCsv(long time)
+    {
+        StringBuilder out = new StringBuilder();
+        for(Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet())
+            out.append(time).append(',').append(entry.getKey()).append(",counter,,").append(entry.getValue().get()).append(",,,,,\n");
+        for(Map.Entry<String, LongSupplier> entry : new TreeMap<>(gauges).entrySet())
+            out.append(time).append(',').append(entry.getKey()).append(",gauge,,").append(entry.getValue().getAsLong()).append(",,,,,\n");
+        for(Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet())
+        {
+            Histogram histogram = entry.getValue();
+            out.append(time).append(',').append(entry.getKey()).append(",histogram,").append(histogram.getCount()).append(",,")
+                    .append(histogram.getMean()).append(',').append(histogram.getPercentile(50)).append(',')
+                    .append(histogram.getPercentile(90)).append(',').append(histogram.getPercentile(99)).append(',')
+                    .append(histogram.getMax()).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Append the values of some metrics to a JSON object.
+     * @param out The JSON being written
+     * @param metrics The metrics, by name
+     * @param value Reads the value of a metric
+     * @param <T> The type of the metrics
+     */
+    private static <T> void appendJsonValues(StringBuilder out, Map<String, T> metrics, ToLongFunction<T> value)
+    {
+        boolean first = true;
+        for(Map.Entry<String, T> entry : metrics.entrySet())
+        {
+            out.append(first ? "" : ",").append('"').append(entry.getKey()).append("\":").append(value.applyAsLong(entry.getValue()));
+            first = false;
+        }
+    }
+
+    /**
+     * Append text to a file.
+     * @param file The file
+     * @param text The text
+     */
+    private static void append(File file, String text)
+    {
+        try(Writer out = new BufferedWriter(new FileWriter(file, true)))
+        {
+            out.write(text);
+        } catch (IOException e) {
+            System.out.println("The metrics could not be written to " + file + ".");
+        }
+    }
+
+    /**
+     * Register the gauges of the heap and of the garbage collectors, and record the pause of every garbage collection. The
+     * collectors which mostly run alongside the app, rather than pausing it, are left out of the pauses. It does nothing if the
+     * JVM metrics are already registered.
+     */
+    public synchronized void registerJvmMetrics()
+    {
+        if(jvmMetrics)
+            return;
+        jvmMetrics = true;
+        gauge(HEAP_USED, () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        gauge(HEAP_MAX, () -> {
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            return heap.getMax() >= 0 ? heap.getMax() : heap.getCommitted();
+        });
+
+        ArrayList<GarbageCollectorMXBean> collectors = new ArrayList<>(ManagementFactory.getGarbageCollectorMXBeans());
+        gauge(GC_COUNT, () -> {
+            long collections = 0;
+            for(GarbageCollectorMXBean collector : collectors)
+                collections += Math.max(0, collector.getCollectionCount());
+            return collections;
+        });
+
+        Histogram pauses = histogram(GC_PAUSE);
+        for(GarbageCollectorMXBean collector : collectors)
+            if(collector instanceof NotificationEmitter)
+                ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                    if(!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType()))
+                        return;
+                    GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    if(info.getGcName().contains("Concurrent") || info.getGcName().contains("Cycles"))
+                        return;
+                    pauses.record(TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration()));
+                }, null, null);
+    }
+}
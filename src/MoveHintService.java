@@ -0,0 +1,132 @@
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates the legal moves of a game board in the background. Every legal move is searched on its own worker thread with an
+ * increasing depth, and each finished depth is streamed back to the Swing event dispatch thread, so the hints get more accurate the
+ * longer the player thinks. The moves are searched like the ComputerPlayer searches them.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class MoveHintService
+{
+    private static final int MAX_DEPTH = 4;
+
+    private final ExecutorService workers;
+    private final AtomicInteger generation;
+    private final ArrayList<Future<?>> running;
+
+    /**
+     * Listener that receives the scores of the evaluated moves. It is always called on the event dispatch thread.
+     */
+    public interface HintListener
+    {
+        /**
+         * Called whenever a deeper score for a move is available.
+         * @param position The list position of the move
+         * @param score The score of the move, from the point of view of the player making it
+         * @param depth The search depth the score was computed with
+         */
+        void hintUpdated(int position, int score, int depth);
+    }
+
+    /**
+     * Constructor for the move hint service. It creates one worker per available processor.
+     */
+    public MoveHintService()
+    {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Reversi hints");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        generation = new AtomicInteger();
+        running = new ArrayList<>();
+    }
+
+    /**
+     * Start evaluating all legal moves of the given board. Any evaluation that is still running is cancelled first.
+     * The board is copied before returning, so it can keep being played on while the evaluation runs.
+     * @param gameBoard The game board to evaluate
+     * @param listener The listener which receives the scores
+     */
+    public void evaluate(GameBoard gameBoard, HintListener listener)
+    {
+        if(gameBoard==null)
+            throw new IllegalArgumentException("The game board cannot be null.");
+        if(listener==null)
+            throw new IllegalArgumentException("The listener cannot be null.");
+
+        cancel();
+        int current = generation.get();
+        GameBoard snapshot = new GameBoard(gameBoard);
+
+        for(int position : snapshot.getPossiblePositions())
+            running.add(workers.submit(() -> evaluateMove(snapshot, position, current, listener)));
+    }
+
+    /**
+     * Cancel all running evaluations. Scores which have already been computed, but not delivered, are discarded.
+     */
+    public void cancel()
+    {
+        generation.incrementAndGet();
+        for(Future<?> future : running)
+            future.cancel(true);
+        running.clear();
+    }
+
+    /**
+     * Stop the worker threads of the service.
+     */
+    public void shutdown()
+    {
+        cancel();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Search the given move with an increasing depth, publishing the score after every depth.
+     * @param gameBoard The board before the move, which is not modified
+     * @param position The list position of the move
+     * @param requestGeneration The generation of the request this search belongs to
+     * @param listener The listener which receives the scores
+     */
+    private void evaluateMove(GameBoard gameBoard, int position, int requestGeneration, HintListener listener)
+    {
+        GameBoard afterMove = new GameBoard(gameBoard);
+        BoardPlayer mover = afterMove.getCurrentPlayer();
+        afterMove.onPositionPlayed(position);
+
+        for(int depth = 1; depth <= MAX_DEPTH && isCurrent(requestGeneration); depth++)
+        {
+            int score = ComputerPlayer.search(afterMove, mover, depth - 1, -ComputerPlayer.WIN_SCORE - 1, ComputerPlayer.WIN_SCORE + 1,
+                    ComputerPlayer.DEFAULT_CORNER_BONUS, () -> !isCurrent(requestGeneration));
+            if(!isCurrent(requestGeneration))
+                return;
+
+            int finalDepth = depth;
+            SwingUtilities.invokeLater(() -> {
+                if(isCurrent(requestGeneration))
+                    listener.hintUpdated(position, score, finalDepth);
+            });
+        }
+    }
+
+    /**
+     * Checks whether the given request is still the latest one.
+     * @param requestGeneration The generation of the request
+     * @return true, if the request has not been cancelled, false otherwise
+     */
+    private boolean isCurrent(int requestGeneration)
+    {
+        return generation.get()==requestGeneration && !Thread.currentThread().isInterrupted();
+    }
+}
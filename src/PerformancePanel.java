@@ -0,0 +1,146 @@
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+
+/**
+ * A panel showing the live performance metrics of the app, next to the player status panel: the moves played per second, the
+ * latency of clicks, saves and repaints, the heap usage and the garbage collection pauses. The numbers are refreshed every second
+ * while the panel is shown, and the Reset button clears the counters and histograms, so that only the lag being reproduced is
+ * measured.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class PerformancePanel extends JPanel
+{
+    private static final int REFRESH_MILLIS = 1000;
+
+    private final MetricsRegistry metrics = MetricsRegistry.get();
+    private final Timer timer;
+    private final JLabel movesLabel, clickLabel, saveLabel, paintLabel, heapLabel, gcLabel;
+    private long lastMoves = -1;
+    private long lastTime;
+
+    /**
+     * Constructor for the performance panel.
+     */
+    public PerformancePanel()
+    {
+        metrics.registerJvmMetrics();
+        setLayout(new BoxLayout(this, BoxLayout.PAGE_AXIS));
+        setBorder(BorderFactory.createCompoundBorder(new EmptyBorder(1, 5, 1, 5), new TitledBorder("Performance")));
+        setPreferredSize(new Dimension(190, 200));
+
+        movesLabel = addMetric("Moves/sec");
+        clickLabel = addMetric("Click p50 / p99");
+        saveLabel = addMetric("Save p50 / p99");
+        paintLabel = addMetric("Paint p50 / p99");
+        heapLabel = addMetric("Heap used");
+        gcLabel = addMetric("GC pauses");
+
+        add(Box.createVerticalStrut(10));
+        JButton resetButton = new JButton("Reset");
+        resetButton.setAlignmentX(Component.LEFT_ALIGNMENT);
+        resetButton.addActionListener(e -> {
+            metrics.reset();
+            lastMoves = -1;
+            refresh();
+        });
+        add(resetButton);
+        add(Box.createVerticalGlue());
+
+        timer = new Timer(REFRESH_MILLIS, e -> refresh());
+        refresh();
+    }
+
+    /**
+     * Start refreshing the numbers when the panel is shown.
+     */
+    @Override
+    public void addNotify()
+    {
+        super.addNotify();
+        lastMoves = -1;
+        refresh();
+        timer.start();
+    }
+
+    /**
+     * Stop refreshing the numbers when the panel is hidden.
+     */
+    @Override
+    public void removeNotify()
+    {
+        timer.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * Add the name of a metric and the label of its value to the panel.
+     * @param name The name of the metric
+     * @return The label of the value
+     */
+    private JLabel addMetric(String name)
+    {
+        JLabel nameLabel = new JLabel(name);
+        nameLabel.setFont(nameLabel.getFont().deriveFont(Font.BOLD));
+        nameLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        JLabel valueLabel = new JLabel("-");
+        valueLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        valueLabel.setBorder(new EmptyBorder(0, 0, 6, 0));
+        add(nameLabel);
+        add(valueLabel);
+        return valueLabel;
+    }
+
+    /**
+     * Read the metrics and show their values.
+     */
+    private void refresh()
+    {
+        long now = System.nanoTime();
+        long moves = metrics.counter(MetricsRegistry.MOVES).get();
+        if(lastMoves >= 0 && now > lastTime)
+            movesLabel.setText(String.format("%.1f", (moves - lastMoves) * 1e9 / (now - lastTime)));
+        else
+            movesLabel.setText("-");
+        lastMoves = moves;
+        lastTime = now;
+
+        clickLabel.setText(formatLatencies(metrics.histogram(MetricsRegistry.CLICK_LATENCY)));
+        saveLabel.setText(formatLatencies(metrics.histogram(MetricsRegistry.SAVE_LATENCY)));
+        paintLabel.setText(formatLatencies(metrics.histogram(MetricsRegistry.PAINT_TIME)));
+
+        long used = metrics.getGauge(MetricsRegistry.HEAP_USED), max = metrics.getGauge(MetricsRegistry.HEAP_MAX);
+        heapLabel.setText(String.format("%d / %d MB", used >> 20, max >> 20));
+
+        MetricsRegistry.Histogram pauses = metrics.histogram(MetricsRegistry.GC_PAUSE);
+        gcLabel.setText(pauses.getCount()==0 ? "none" : String.format("%d, p99 %s, max %s", pauses.getCount(),
+                formatNanos(pauses.getPercentile(99)), formatNanos(pauses.getMax())));
+    }
+
+    /**
+     * Format the median and the 99th percentile of a histogram.
+     * @param histogram The histogram
+     * @return The formatted percentiles
+     */
+    private static String formatLatencies(MetricsRegistry.Histogram histogram)
+    {
+        if(histogram.getCount()==0)
+            return "-";
+        return formatNanos(histogram.getPercentile(50)) + " / " + formatNanos(histogram.getPercentile(99));
+    }
+
+    /**
+     * Format a duration for the panel.
+     * @param nanos The duration, in nanoseconds
+     * @return The duration, in microseconds or milliseconds
+     */
+    private static String formatNanos(long nanos)
+    {
+        if(nanos < 1000000)
+            return String.format("%d us", nanos / 1000);
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,108 @@
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zobrist hashing of board positions. Every cell has a random key per owner, and the hash of a position is the exclusive or of the
+ * keys of its occupied cells, plus a key if player 2 is to move. The keys are generated from a fixed seed, so hashes are the same
+ * in every run of the game, and can be stored on disk.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public final class PositionHash
+{
+    private static final long SEED = 0x5EED_0F_2E7E25E1L;
+    private static final ConcurrentHashMap<Integer, PositionHash> hashes = new ConcurrentHashMap<>();
+
+    private final int size;
+    private final long[] player1Keys, player2Keys;
+    private final long playerTwoToMoveKey;
+
+    /**
+     * Create the keys for a board of the given size.
+     * @param size The size of the board
+     */
+    private PositionHash(int size)
+    {
+        this.size = size;
+        SplittableRandom random = new SplittableRandom(SEED + size);
+        player1Keys = new long[size * size];
+        player2Keys = new long[size * size];
+        for(int position = 0; position < size * size; position++)
+        {
+            player1Keys[position] = random.nextLong();
+            player2Keys[position] = random.nextLong();
+        }
+        playerTwoToMoveKey = random.nextLong();
+    }
+
+    /**
+     * Get the hashing keys for boards of the given size.
+     * @param size The size of the board
+     * @return The hashing keys
+     */
+    public static PositionHash forSize(int size)
+    {
+        return hashes.computeIfAbsent(size, PositionHash::new);
+    }
+
+    /**
+     * Compute the hash of the position on the given board.
+     * @param gameBoard The board
+     * @return The hash of the position
+     */
+    public static long of(GameBoard gameBoard)
+    {
+        PositionHash keys = forSize(gameBoard.getSize());
+        long hash = gameBoard.getCurrentPlayer()==gameBoard.getPlayer2() ? keys.playerTwoToMoveKey : 0;
+        for(int position = 0; position < keys.size * keys.size; position++)
+            hash ^= keys.keyOf(position, gameBoard.getOwner(position));
+        return hash;
+    }
+
+    /**
+     * Update a hash after a move, without going over the whole board.
+     * @param hash The hash before the move
+     * @param mover GameBoard.PLAYER1 or GameBoard.PLAYER2, the player who made the move
+     * @param changed The positions changed by the move, as returned by GameBoard.onPositionPlayed(): the placed piece first, then
+     *                the flipped pieces
+     * @return The hash after the move
+     */
+    public long afterMove(long hash, int mover, List<Integer> changed)
+    {
+        int opponent = mover==GameBoard.PLAYER1 ? GameBoard.PLAYER2 : GameBoard.PLAYER1;
+        hash ^= keyOf(changed.get(0), mover);
+        for(int i = 1; i < changed.size(); i++)
+        {
+            int position = changed.get(i);
+            hash ^= keyOf(position, opponent) ^ keyOf(position, mover);
+        }
+        return hash ^ playerTwoToMoveKey;
+    }
+
+    /**
+     * Update a hash after a skipped turn.
+     * @param hash The hash before the skipped turn
+     * @return The hash after the skipped turn
+     */
+    public long afterPass(long hash)
+    {
+        return hash ^ playerTwoToMoveKey;
+    }
+
+    /**
+     * Get the key of a cell with the given owner.
+     * @param position The list position of the cell
+     * @param owner The owner of the cell
+     * @return The key, or 0 for an empty cell
+     */
+    private long keyOf(int position, int owner)
+    {
+        if(owner==GameBoard.PLAYER1)
+            return player1Keys[position];
+        if(owner==GameBoard.PLAYER2)
+            return player2Keys[position];
+        return 0;
+    }
+}
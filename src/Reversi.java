@@ -7,7 +7,12 @@ import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.AbstractMap;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
@@ -26,7 +31,19 @@ public class Reversi
     private static ArrayList<Theme> themes;
 
     private boolean autoSaveOn=false;
-    private static final TutorialFrame tutorial = new TutorialFrame();
+    private boolean hintsOn=false;
+    private boolean singleComponentBoard=false;
+    private boolean animationsOn=true;
+    private final MoveHintService hintService = new MoveHintService();
+    private final SaveService saveService = new SaveService(new SaveCatalog(new File("./saves/")));
+    private static final String[] MENU_ICONS = {"./icons/create_session.png", "./icons/save.png", "./icons/load.png",
+            "./icons/create_game.png", "./icons/quit.png", "./icons/quicksave.png", "./icons/quickload.png", "./icons/film.png",
+            "./icons/theme.png"};
+    private static final int MENU_ICON_SIZE = 18;
+    private static final int[] NEW_GAME_SIZES = {4, 6, 8, 10, 12, 16, 24, 32, 64, 128, 256};
+    private static final Integer[] BOARD_IMAGE_SIZES = {512, 1024, 2048, 4096};
+    private TutorialFrame tutorial;
+    private final ImageExporter imageExporter = new ImageExporter();
 
     private static final String WELCOME = "Welcome to Reversi! Please insert the players' name and press Play.";
     private Session currentSession;
@@ -37,20 +54,59 @@ public class Reversi
     private JFrame frame;
     private StatusBarPanel statusBar;
     private PlayerStatusPanel playerStatus;
+    private JPanel sidePanel;
+    private PerformancePanel performancePanel;
     private GameBoardGUI currentBoard;
+    private GameBoardGUI replayBoard;
+    private String statusBeforeReplay;
+    private GameClient onlineClient;
+    private OnlineListener onlineListener;
 
     /**
-     * The main function of the Reversi game
+     * The main function of the Reversi game. With --server as its first argument, a headless game server is started instead, with
+     * the arguments of GameServer.
      */
     public static void main(String[] args)
     {
+        if(args.length>0 && args[0].equals("--server"))
+        {
+            try {
+                GameServer.main(args);
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("The server could not be started: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+
+        StartupLog.begin();
+        for(String icon : MENU_ICONS)
+            IconLoader.load(icon, MENU_ICON_SIZE);
+        IconLoader.allLoaded().thenRun(() -> StartupLog.mark("Menu icons loaded"));
+        startMetricsDump();
+
         changeLook();
+        StartupLog.mark("Look and feel");
         createThemes();
         if(themes.size()==0)
             themes.add(new Theme("Classic", Color.BLACK, "Black", Color.WHITE, "White"));
         new Reversi();
     }
 
+    /**
+     * Start writing the performance metrics to the file given by the reversi.metrics.file system property, if there is one, every
+     * reversi.metrics.period seconds (10 by default).
+     */
+    private static void startMetricsDump()
+    {
+        String file = System.getProperty("reversi.metrics.file");
+        if(file==null || file.isBlank())
+            return;
+        long period = Long.getLong("reversi.metrics.period", 10);
+        MetricsRegistry.get().registerJvmMetrics();
+        MetricsRegistry.get().startDump(new File(file), Math.max(1, period));
+    }
+
     /**
      * Create the themes for the app.
      */
@@ -91,13 +147,17 @@ public class Reversi
         });
 
         makeMenuBar(frame);
+        StartupLog.mark("Menu bar");
 
         createPlayerPanel();
         createStatusBar();
         createBoard(8, null, null);
+        StartupLog.mark("Board");
 
         frame.pack();
         frame.setVisible(true);
+        StartupLog.mark("Frame shown");
+        SwingUtilities.invokeLater(() -> SwingUtilities.invokeLater(StartupLog::finish));
     }
 
     /**
@@ -110,7 +170,10 @@ public class Reversi
         {
             BorderLayout layout = (BorderLayout)(frame.getContentPane()).getLayout();
             frame.getContentPane().remove(layout.getLayoutComponent(BorderLayout.CENTER));
+            currentBoard.close();
+            replayBoard = null;
         }
+        closeOnlineClient();
         if(player1==null || player2==null)
             currentBoard = new GameBoardGUI(new BoardPlayer(""), new BoardPlayer(""), size, this);
         else
@@ -123,14 +186,7 @@ public class Reversi
      */
     private void createPlayerPanel(SessionPlayer player1, SessionPlayer player2)
     {
-        if(playerStatus!=null)
-        {
-            BorderLayout layout = (BorderLayout)(frame.getContentPane()).getLayout();
-            frame.getContentPane().remove(layout.getLayoutComponent(BorderLayout.LINE_END));
-        }
-
-        playerStatus = new PlayerStatusPanel(player1, player2, this);
-        frame.getContentPane().add(playerStatus, BorderLayout.LINE_END);
+        showPlayerStatus(new PlayerStatusPanel(player1, player2, this));
     }
 
     /**
@@ -138,14 +194,47 @@ public class Reversi
      */
     private void createPlayerPanel()
     {
-        if(playerStatus!=null)
+        showPlayerStatus(new PlayerStatusPanel(this));
+    }
+
+    /**
+     * Show a new player status panel on the side of the frame, replacing the current one. The performance panel, if it is shown,
+     * stays next to it.
+     * @param newPlayerStatus The new player status panel
+     */
+    private void showPlayerStatus(PlayerStatusPanel newPlayerStatus)
+    {
+        if(sidePanel==null)
         {
-            BorderLayout layout = (BorderLayout)(frame.getContentPane()).getLayout();
-            frame.getContentPane().remove(layout.getLayoutComponent(BorderLayout.LINE_END));
+            sidePanel = new JPanel(new BorderLayout());
+            frame.getContentPane().add(sidePanel, BorderLayout.LINE_END);
         }
+        if(playerStatus!=null)
+            sidePanel.remove(playerStatus);
 
-        playerStatus = new PlayerStatusPanel(this);
-        frame.getContentPane().add(playerStatus, BorderLayout.LINE_END);
+        playerStatus = newPlayerStatus;
+        sidePanel.add(playerStatus, BorderLayout.CENTER);
+        sidePanel.revalidate();
+    }
+
+    /**
+     * Show or hide the performance panel next to the player status panel.
+     * @param show true, to show the panel, false to hide it
+     */
+    private void showPerformancePanel(boolean show)
+    {
+        if(show && performancePanel==null)
+        {
+            performancePanel = new PerformancePanel();
+            sidePanel.add(performancePanel, BorderLayout.LINE_END);
+        }
+        else if(!show && performancePanel!=null)
+        {
+            sidePanel.remove(performancePanel);
+            performancePanel = null;
+        }
+        sidePanel.revalidate();
+        frame.pack();
     }
 
     /**
@@ -178,28 +267,17 @@ public class Reversi
         JMenu fileMenu = new JMenu("File");
         menuBar.add(fileMenu);
 
-        ImageIcon newSessionIcon, saveSessionIcon, loadSessionIcon, newGameIcon, quitIcon, quickSaveIcon, quickLoadIcon, filmIcon, themeIcon;
-        newSessionIcon = getImageIcon("./icons/create_session.png");
-        saveSessionIcon = getImageIcon("./icons/save.png");
-        loadSessionIcon = getImageIcon("./icons/load.png");
-        newGameIcon = getImageIcon("./icons/create_game.png");
-        quitIcon = getImageIcon("./icons/quit.png");
-        quickSaveIcon = getImageIcon("./icons/quicksave.png");
-        quickLoadIcon = getImageIcon("./icons/quickload.png");
-        filmIcon = getImageIcon("./icons/film.png");
-        themeIcon = getImageIcon("./icons/theme.png");
-
-        JMenuItem newSession = new JMenuItem("New Session", newSessionIcon);
+        JMenuItem newSession = createMenuItem("New Session", "./icons/create_session.png");
         newSession.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_N, SHORTCUT_MASK));
         newSession.addActionListener(e -> newSession(frame));
         fileMenu.add(newSession);
 
-        JMenuItem saveSession = new JMenuItem("Save Session", saveSessionIcon);
+        JMenuItem saveSession = createMenuItem("Save Session", "./icons/save.png");
         saveSession.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, SHORTCUT_MASK));
         saveSession.addActionListener(e -> saveSession(frame));
         fileMenu.add(saveSession);
 
-        JMenuItem loadSession = new JMenuItem("Load Session", loadSessionIcon);
+        JMenuItem loadSession = createMenuItem("Load Session", "./icons/load.png");
         loadSession.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_L, SHORTCUT_MASK));
         loadSession.addActionListener(e -> { loadSession(frame);
         });
@@ -219,27 +297,47 @@ public class Reversi
 
         fileMenu.addSeparator();
 
-        JMenuItem quickSaveItem = new JMenuItem("Quick Save", quickSaveIcon);
+        JMenuItem quickSaveItem = createMenuItem("Quick Save", "./icons/quicksave.png");
         quickSaveItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_W, SHORTCUT_MASK));
         quickSaveItem.addActionListener(e -> quickSave());
         fileMenu.add(quickSaveItem);
 
-        JMenuItem quickLoadItem = new JMenuItem("Quick Load", quickLoadIcon);
+        JMenuItem quickLoadItem = createMenuItem("Quick Load", "./icons/quickload.png");
         quickLoadItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_E, SHORTCUT_MASK));
         quickLoadItem.addActionListener(e -> quickLoad());
         fileMenu.add(quickLoadItem);
 
         fileMenu.addSeparator();
 
-        newGameItem = new JMenuItem("New Game", newGameIcon);
+        JMenuItem exportGamesItem = createMenuItem("Export Games", "./icons/save.png");
+        exportGamesItem.addActionListener(e -> exportGames());
+        fileMenu.add(exportGamesItem);
+
+        JMenuItem reviewGameItem = createMenuItem("Review Game", "./icons/film.png");
+        reviewGameItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_R, SHORTCUT_MASK));
+        reviewGameItem.addActionListener(e -> reviewGame());
+        fileMenu.add(reviewGameItem);
+
+        fileMenu.addSeparator();
+
+        newGameItem = createMenuItem("New Game", "./icons/create_game.png");
         newGameItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_G, SHORTCUT_MASK));
         newGameItem.addActionListener(e -> newGame(frame));
         newGameItem.setEnabled(false);
         fileMenu.add(newGameItem);
 
+        JMenuItem playOnlineItem = createMenuItem("Play Online", "./icons/create_game.png");
+        playOnlineItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_O, SHORTCUT_MASK));
+        playOnlineItem.addActionListener(e -> playOnline(frame));
+        fileMenu.add(playOnlineItem);
+
+        JMenuItem watchOnlineItem = createMenuItem("Watch Online", "./icons/film.png");
+        watchOnlineItem.addActionListener(e -> watchOnline(frame));
+        fileMenu.add(watchOnlineItem);
+
         fileMenu.addSeparator();
 
-        JMenuItem quitItem = new JMenuItem("Quit", quitIcon);
+        JMenuItem quitItem = createMenuItem("Quit", "./icons/quit.png");
         quitItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Q, SHORTCUT_MASK));
         quitItem.addActionListener(e -> quit());
         fileMenu.add(quitItem);
@@ -248,22 +346,64 @@ public class Reversi
         JMenu captureMenu = new JMenu("Capture");
         menuBar.add(captureMenu);
 
-        JMenuItem screenshotItem = new JMenuItem("Screenshot", filmIcon);
+        JMenuItem screenshotItem = createMenuItem("Screenshot", "./icons/film.png");
         screenshotItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F12, SHORTCUT_MASK));
         screenshotItem.addActionListener(e -> screenShot());
         captureMenu.add(screenshotItem);
 
+        JMenuItem boardImageItem = createMenuItem("Board Image", "./icons/film.png");
+        boardImageItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F12, SHORTCUT_MASK | InputEvent.SHIFT_DOWN_MASK));
+        boardImageItem.addActionListener(e -> boardImage());
+        captureMenu.add(boardImageItem);
+
+        JMenuItem animationItem = createMenuItem("Export Animation", "./icons/film.png");
+        animationItem.addActionListener(e -> exportAnimation());
+        captureMenu.add(animationItem);
+
 
         menuBar.add(Box.createHorizontalGlue());
 
         JMenu settingsMenu = new JMenu("Settings");
         menuBar.add(settingsMenu);
 
-        JMenuItem themeItem = new JMenuItem("Change theme", themeIcon);
+        JMenuItem themeItem = createMenuItem("Change theme", "./icons/theme.png");
         themeItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_T, SHORTCUT_MASK));
         themeItem.addActionListener(e -> changeTheme());
         settingsMenu.add(themeItem);
 
+        JCheckBoxMenuItem hintsItem = new JCheckBoxMenuItem("Hints OFF");
+        hintsItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_H, SHORTCUT_MASK));
+        hintsItem.addActionListener(e -> {
+            AbstractButton button = (AbstractButton) e.getSource();
+            hintsOn = button.getModel().isSelected();
+            button.setText(hintsOn?"Hints ON":"Hints OFF");
+            currentBoard.refreshHints();
+        });
+        settingsMenu.add(hintsItem);
+
+        JCheckBoxMenuItem boardViewItem = new JCheckBoxMenuItem("Single-component board");
+        boardViewItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_B, SHORTCUT_MASK));
+        boardViewItem.addActionListener(e -> {
+            singleComponentBoard = ((AbstractButton) e.getSource()).getModel().isSelected();
+            currentBoard.changeBoardView();
+            if(replayBoard!=null)
+                replayBoard.changeBoardView();
+        });
+        settingsMenu.add(boardViewItem);
+
+        JCheckBoxMenuItem animationsItem = new JCheckBoxMenuItem("Animations ON", true);
+        animationsItem.addActionListener(e -> {
+            AbstractButton button = (AbstractButton) e.getSource();
+            animationsOn = button.getModel().isSelected();
+            button.setText(animationsOn?"Animations ON":"Animations OFF");
+        });
+        settingsMenu.add(animationsItem);
+
+        JCheckBoxMenuItem performanceItem = new JCheckBoxMenuItem("Performance panel");
+        performanceItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_M, SHORTCUT_MASK));
+        performanceItem.addActionListener(e -> showPerformancePanel(((AbstractButton) e.getSource()).getModel().isSelected()));
+        settingsMenu.add(performanceItem);
+
         Action actionHelp = new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -277,31 +417,66 @@ public class Reversi
     }
 
     /**
-     * Create a screenshot of the current Reversi game.
+     * Create a screenshot of the current Reversi game. The frame is painted straight away, and the image is encoded in the background.
      */
     private void screenShot()
     {
         BufferedImage screenshot = new BufferedImage(frame.getWidth(), frame.getHeight(), BufferedImage.TYPE_INT_RGB);
-        frame.paint(screenshot.getGraphics());
+        Graphics g = screenshot.getGraphics();
+        frame.paint(g);
+        g.dispose();
 
+        File file = getCaptureFile("screenshot", ".png");
+        if(file==null)
+            showMessage(frame, "Could not save screenshot. Try again.");
+        else
+            imageExporter.export(screenshot, file, written -> showMessage(frame, written
+                    ? "The screenshot was saved successfully to " + file.getAbsolutePath()
+                    : "There was an error saving the screenshot."));
+    }
+
+    /**
+     * Save an image of the board shown, at a resolution chosen by the user. The image is drawn and encoded in the background.
+     */
+    private void boardImage()
+    {
+        GameBoardGUI shownBoard = replayBoard!=null ? replayBoard : currentBoard;
+        int[] owners = shownBoard==null ? null : shownBoard.getShownOwners();
+        if(owners==null)
+        {
+            showMessage(frame, "There is no board to save.");
+            return;
+        }
+
+        Integer pixels = (Integer) JOptionPane.showInputDialog(frame, "Choose the size of the image, in pixels:", "Board Image",
+                JOptionPane.QUESTION_MESSAGE, null, BOARD_IMAGE_SIZES, BOARD_IMAGE_SIZES[1]);
+        if(pixels==null)
+            return;
+
+        File file = getCaptureFile("board", ".png");
+        if(file==null)
+            showMessage(frame, "Could not save the board image. Try again.");
+        else
+            imageExporter.exportBoard(new BoardRenderer(currentTheme), owners, shownBoard.getSize(), pixels, file, written ->
+                    showMessage(frame, written ? "The board image was saved successfully to " + file.getAbsolutePath()
+                            : "There was an error saving the board image."));
+    }
+
+    /**
+     * Get a new file in the screenshots folder, named after the current time.
+     * @param prefix The start of the name of the file
+     * @param extension The extension of the file, with its dot, or an empty string for a folder
+     * @return The file, or null if a file with the same name already exists
+     */
+    private static File getCaptureFile(String prefix, String extension)
+    {
         File directory = new File("./screenshots/");
         if(!directory.exists())
             directory.mkdir();
 
-        int counter=1;
-
         Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-        File file = new File("./screenshots/screenshot_"+ new SimpleDateFormat("dd.MM.yyyy_HH.mm.ss").format(timestamp)+".png");
-        if(file.exists())
-            showMessage(frame, "Could not save screenshot. Try again.");
-        else {
-            try {
-                ImageIO.write(screenshot, "png", file);
-                showMessage(frame, "The screenshot was saved successfully to " + file.getAbsolutePath());
-            } catch (IOException e) {
-                showMessage(frame, "There was an error saving the screenshot.");
-            }
-        }
+        File file = new File("./screenshots/" + prefix + "_" + new SimpleDateFormat("dd.MM.yyyy_HH.mm.ss").format(timestamp) + extension);
+        return file.exists() ? null : file;
     }
 
     /**
@@ -309,6 +484,8 @@ public class Reversi
      */
     private void showTutorial()
     {
+        if(tutorial==null)
+            tutorial = new TutorialFrame();
         tutorial.setVisible(true);
     }
 
@@ -363,34 +540,24 @@ public class Reversi
                 showMessage(frame, "The file name must not be empty.");
             else
             {
-                try {
-                    updateSession();
-                    File file = new File("./saves/"+fileName+".rev");
-                    if(file.exists()) {
-                        Object[] options = {"Save",
-                                "Cancel"};
-                        int n = JOptionPane.showOptionDialog(frame,
-                                "The file already exists. Are you sure you want to overwrite?",
-                                "Save Session",
-                                JOptionPane.YES_NO_OPTION,
-                                JOptionPane.QUESTION_MESSAGE,
-                                null,
-                                options,
-                                options[1]);
-                        if (n == 0)
-                        {
-                            currentSession.saveToFile(fileName);
-                            showMessage(frame, "Save successful.");
-                        }
-                    }
-                    else
-                    {
-                        currentSession.saveToFile(fileName);
-                        showMessage(frame, "Save successful.");
-                    }
-                } catch (SaveSessionException e) {
-                    showMessage(frame, "There was an error saving the file.");
+                updateSession();
+                File file = new File(Session.getSavePath(fileName));
+                if(file.exists()) {
+                    Object[] options = {"Save",
+                            "Cancel"};
+                    int n = JOptionPane.showOptionDialog(frame,
+                            "The file already exists. Are you sure you want to overwrite?",
+                            "Save Session",
+                            JOptionPane.YES_NO_OPTION,
+                            JOptionPane.QUESTION_MESSAGE,
+                            null,
+                            options,
+                            options[1]);
+                    if (n == 0)
+                        saveService.save(currentSession, fileName, success -> showMessage(frame, success ? "Save successful." : "There was an error saving the file."));
                 }
+                else
+                    saveService.save(currentSession, fileName, success -> showMessage(frame, success ? "Save successful." : "There was an error saving the file."));
             }
         }
     }
@@ -412,11 +579,15 @@ public class Reversi
                     return true;
                 } else {
                     String filename = f.getName().toLowerCase();
-                    return filename.endsWith(".rev");
+                    return filename.endsWith(".rev") && (saveService.getCatalog().getEntry(f)!=null || SessionFormat.isValidSaveFile(f));
                 }
             }
         });
 
+        SavePreviewPanel preview = new SavePreviewPanel(saveService.getCatalog(), currentTheme);
+        fileChooser.setAccessory(preview);
+        fileChooser.addPropertyChangeListener(preview);
+
         Session.createSavesFolder();
         fileChooser.setCurrentDirectory(new File("./saves/"));
         int result = fileChooser.showOpenDialog(frame);
@@ -452,6 +623,7 @@ public class Reversi
      */
     private void load(String fileName)
     {
+        saveService.flush();
         try {
             currentSession = Session.loadFromFile(fileName);
             setStatus(currentSession.getStatus());
@@ -461,8 +633,11 @@ public class Reversi
             {
                 BorderLayout layout = (BorderLayout)(frame.getContentPane()).getLayout();
                 frame.getContentPane().remove(layout.getLayoutComponent(BorderLayout.CENTER));
+                currentBoard.close();
                 currentBoard=null;
+                replayBoard=null;
             }
+            closeOnlineClient();
             currentBoard = new GameBoardGUI(currentSession.getGameBoard(), this);
             frame.getContentPane().add(currentBoard.getParentPanel(), BorderLayout.CENTER);
 
@@ -491,12 +666,12 @@ public class Reversi
             }
         }
 
-        SizeChoice[] choices = new SizeChoice[GameBoard.MAX_BOARD_SIZE/2 - 1];
-        Object[] possibilities = new Object[GameBoard.MAX_BOARD_SIZE/2-1];
+        SizeChoice[] choices = new SizeChoice[NEW_GAME_SIZES.length];
+        Object[] possibilities = new Object[NEW_GAME_SIZES.length];
 
-        for(int i=GameBoard.MIN_BOARD_SIZE, pos=0; i<=GameBoard.MAX_BOARD_SIZE; i+=2, pos++)
+        for(int pos=0; pos<NEW_GAME_SIZES.length; pos++)
         {
-            choices[pos] = new SizeChoice(i);
+            choices[pos] = new SizeChoice(NEW_GAME_SIZES[pos]);
             possibilities[pos] = choices[pos].text;
         }
 
@@ -538,12 +713,254 @@ public class Reversi
     }
 
     /**
-     * Get the scaled image icon for the image at the given path.
-     * @param path The path of the image
-     * @return The resized image icon, or null if it could not be found
+     * Play a game against another player on a game server. The server, the name of the player and the size of the board are
+     * chosen in a dialog; the game starts as soon as another player asks the server for a game of the same size.
+     * @param frame The main Reversi frame
+     */
+    private void playOnline(JFrame frame)
+    {
+        String[] sizes = new String[NEW_GAME_SIZES.length];
+        for(int pos=0; pos<NEW_GAME_SIZES.length; pos++)
+            sizes[pos] = NEW_GAME_SIZES[pos] + " x " + NEW_GAME_SIZES[pos];
+        JComboBox<String> sizeBox = new JComboBox<>(sizes);
+        sizeBox.setSelectedItem("8 x 8");
+        JTextField serverField = new JTextField("localhost:" + GameProtocol.DEFAULT_PORT, 16);
+        JTextField nameField = new JTextField(currentSession==null ? "" : currentSession.getPlayer1().getName(), 16);
+
+        JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
+        panel.add(new JLabel("Server"));
+        panel.add(serverField);
+        panel.add(new JLabel("Your name"));
+        panel.add(nameField);
+        panel.add(new JLabel("Board size"));
+        panel.add(sizeBox);
+        if(JOptionPane.showConfirmDialog(frame, panel, "Play Online", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE)!=JOptionPane.OK_OPTION)
+            return;
+
+        String name = nameField.getText().trim();
+        if(name.isEmpty())
+        {
+            showMessage(frame, "Please insert your name.");
+            return;
+        }
+        int size = NEW_GAME_SIZES[sizeBox.getSelectedIndex()];
+        connectOnline(serverField.getText().trim(), name, client -> client.match(size));
+    }
+
+    /**
+     * Watch a game in progress on a game server. The games of the server are listed once connected, and the chosen one is shown
+     * until it ends.
+     * @param frame The main Reversi frame
+     */
+    private void watchOnline(JFrame frame)
+    {
+        String address = (String)JOptionPane.showInputDialog(frame, "Server", "Watch Online", JOptionPane.PLAIN_MESSAGE, null, null,
+                "localhost:" + GameProtocol.DEFAULT_PORT);
+        if(address!=null)
+            connectOnline(address.trim(), "Spectator", client -> {
+                onlineListener.choosingGame = true;
+                client.list();
+            });
+    }
+
+    /**
+     * Connect to a game server in the background, replacing the current connection.
+     * @param address The address of the server, as host:port; the default port is used if there is none
+     * @param name The name of the player
+     * @param onConnected Called on the event dispatch thread once connected
+     */
+    private void connectOnline(String address, String name, Consumer<GameClient> onConnected)
+    {
+        int colon = address.lastIndexOf(':');
+        String host = colon<0 ? address : address.substring(0, colon);
+        int port;
+        try {
+            port = colon<0 ? GameProtocol.DEFAULT_PORT : Integer.parseInt(address.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            port = -1;
+        }
+        if(host.isEmpty() || port<0 || port>0xFFFF)
+        {
+            showMessage(frame, "The address of the server is not valid.");
+            return;
+        }
+
+        closeOnlineClient();
+        setStatus("Connecting to " + address + "...");
+        OnlineListener listener = new OnlineListener();
+        int serverPort = port;
+        new Thread(() -> {
+            try {
+                GameClient client = GameClient.connect(host, serverPort, name, listener);
+                SwingUtilities.invokeLater(() -> {
+                    closeOnlineClient();
+                    listener.client = client;
+                    onlineClient = client;
+                    onlineListener = listener;
+                    onConnected.accept(client);
+                });
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> {
+                    setStatus("Could not connect to " + address + ".");
+                    showMessage(frame, "Could not connect to the server " + address + ".");
+                });
+            }
+        }, "Reversi connect").start();
+    }
+
+    /**
+     * Show the board of an online game, played or watched, in place of the current board.
+     * @param name1 The name of player 1
+     * @param name2 The name of player 2
+     * @param board Creates the board, once the player panel has been replaced
      */
-    private static ImageIcon getImageIcon(String path) {
-        return new ImageIcon(new ImageIcon(path).getImage().getScaledInstance(18, 18, Image.SCALE_DEFAULT));
+    private void showOnlineBoard(String name1, String name2, Supplier<GameBoardGUI> board)
+    {
+        SessionPlayer player1 = new SessionPlayer(name1), player2 = new SessionPlayer(name2);
+        createPlayerPanel(player1, player2);
+        if(currentBoard!=null)
+        {
+            BorderLayout layout = (BorderLayout)(frame.getContentPane()).getLayout();
+            frame.getContentPane().remove(layout.getLayoutComponent(BorderLayout.CENTER));
+            currentBoard.close();
+            replayBoard = null;
+        }
+        currentBoard = board.get();
+        frame.getContentPane().add(currentBoard.getParentPanel(), BorderLayout.CENTER);
+        currentSession = new Session(player1, player2, currentBoard.getBoard(), statusBar.getStatus());
+        newGameItem.setEnabled(false);
+        frame.pack();
+    }
+
+    /**
+     * Shows the messages of the game server on the board, for the client of the current online game.
+     */
+    private class OnlineListener implements GameClient.Listener
+    {
+        private GameClient client;
+        private boolean choosingGame;
+
+        @Override
+        public void onWaiting(int gameId, int size)
+        {
+            if(client==onlineClient)
+                setStatus("Waiting for an opponent for a " + size + " x " + size + " game...");
+        }
+
+        @Override
+        public void onGameStarted(int gameId, int size, int player, String name1, String name2)
+        {
+            if(client==onlineClient)
+                showOnlineBoard(name1, name2, () -> new GameBoardGUI(client, gameId, player, new BoardPlayer(name1),
+                        new BoardPlayer(name2), size, Reversi.this));
+        }
+
+        @Override
+        public void onGames(List<GameClient.GameInfo> games)
+        {
+            if(client!=onlineClient || !choosingGame)
+                return;
+            choosingGame = false;
+            Object[] inProgress = games.stream().filter(GameClient.GameInfo::isInProgress).toArray();
+            if(inProgress.length==0)
+            {
+                closeOnlineClient();
+                setStatus("There are no games in progress on the server.");
+                showMessage(frame, "There are no games in progress on the server.");
+                return;
+            }
+            GameClient.GameInfo choice = (GameClient.GameInfo)JOptionPane.showInputDialog(frame, "Choose the game to watch",
+                    "Watch Online", JOptionPane.QUESTION_MESSAGE, null, inProgress, inProgress[0]);
+            if(choice==null || client!=onlineClient)
+            {
+                closeOnlineClient();
+                setStatus("Not watching any game.");
+                return;
+            }
+            client.watch(choice.getGameId());
+        }
+
+        @Override
+        public void onSnapshot(int gameId, int moveNumber, GameBoard gameBoard)
+        {
+            if(client==onlineClient)
+                showOnlineBoard(gameBoard.getPlayer1().getName(), gameBoard.getPlayer2().getName(),
+                        () -> new GameBoardGUI(client, gameId, gameBoard, Reversi.this));
+        }
+
+        @Override
+        public void onMovePlayed(int gameId, int kind, int position)
+        {
+            if(client==onlineClient && currentBoard.getOnlineGameId()==gameId)
+                currentBoard.onRemoteMove(kind, position);
+        }
+
+        @Override
+        public void onDelta(int gameId, int moveNumber, int kind, int position, int[] flips)
+        {
+            if(client==onlineClient && currentBoard.getOnlineGameId()==gameId)
+                currentBoard.onRemoteMove(kind, position);
+        }
+
+        @Override
+        public void onIllegalMove(int gameId, int position)
+        {
+            if(client==onlineClient && currentBoard.getOnlineGameId()==gameId)
+                currentBoard.onRemoteIllegalMove();
+        }
+
+        @Override
+        public void onGameOver(int gameId, int winner, int reason)
+        {
+            if(client!=onlineClient || currentBoard.getOnlineGameId()!=gameId)
+                return;
+            currentBoard.onRemoteGameOver(winner);
+            closeOnlineClient();
+        }
+
+        @Override
+        public void onError(String message)
+        {
+            if(client==onlineClient)
+                showMessage(frame, "The server refused the request: " + message);
+        }
+
+        @Override
+        public void onDisconnected()
+        {
+            if(client!=onlineClient)
+                return;
+            closeOnlineClient();
+            setStatus("The connection to the server was lost.");
+            showMessage(frame, "The connection to the server was lost.");
+        }
+    }
+
+    /**
+     * Close the connection to the game server, if there is one.
+     */
+    private void closeOnlineClient()
+    {
+        if(onlineClient!=null)
+        {
+            onlineClient.close();
+            onlineClient = null;
+            onlineListener = null;
+        }
+    }
+
+    /**
+     * Create a menu item with an icon. The icon is loaded in the background, and the item shows an empty placeholder until then.
+     * @param text The text of the item
+     * @param iconPath The path of the image of the icon
+     * @return The menu item
+     */
+    private static JMenuItem createMenuItem(String text, String iconPath)
+    {
+        JMenuItem item = new JMenuItem(text);
+        IconLoader.setIcon(item, iconPath, MENU_ICON_SIZE);
+        return item;
     }
 
     /**
@@ -580,7 +997,11 @@ public class Reversi
                 "Quit",
                 JOptionPane.YES_NO_OPTION);
         if (choice == 0)
+        {
+            saveService.flush();
+            saveService.getCatalog().flush();
             System.exit(0);
+        }
     }
 
     /**
@@ -624,6 +1045,51 @@ public class Reversi
         return currentTheme;
     }
 
+    /**
+     * Checks whether the move hints are shown.
+     * @return true, if the hints are on, false otherwise
+     */
+    public boolean isHintsOn()
+    {
+        return hintsOn;
+    }
+
+    /**
+     * Checks whether the placed and flipped discs are animated.
+     * @return true, if the animations are on, false otherwise
+     */
+    public boolean isAnimationsOn()
+    {
+        return animationsOn;
+    }
+
+    /**
+     * Checks whether the board is painted by a single component instead of a grid of board buttons.
+     * @return true, if the board is a single component, false otherwise
+     */
+    public boolean isSingleComponentBoard()
+    {
+        return singleComponentBoard;
+    }
+
+    /**
+     * Get the service which evaluates the move hints.
+     * @return The move hint service
+     */
+    public MoveHintService getHintService()
+    {
+        return hintService;
+    }
+
+    /**
+     * Get the service which writes the save files in the background.
+     * @return The save service
+     */
+    public SaveService getSaveService()
+    {
+        return saveService;
+    }
+
     /**
      * Get the player status panel.
      * @return The player status panel
@@ -667,9 +1133,158 @@ public class Reversi
         }
         playerStatus.setReplayVisibility(true);
 
+        GameTranscript transcript = GameTranscript.of(currentBoard.getBoard());
+        if(currentSession!=null && transcript!=null)
+            currentSession.addGame(transcript);
+
         //statusBar.setSkipEnabled(false);
     }
 
+    /**
+     * Export the games of the current session to a text file, in move-list notation. The game in progress is exported after the
+     * finished ones.
+     */
+    private void exportGames()
+    {
+        if(currentSession==null)
+        {
+            showMessage(frame, "No session running, there is nothing to export!");
+            return;
+        }
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setSelectedFile(new File("games.txt"));
+        if(fileChooser.showSaveDialog(frame)!=JFileChooser.APPROVE_OPTION)
+            return;
+
+        updateSession();
+        try(TranscriptWriter writer = new TranscriptWriter(fileChooser.getSelectedFile()))
+        {
+            for(GameTranscript game : currentSession.getGames())
+                writer.write(game);
+            GameTranscript current = currentSession.getTranscript();
+            if(current!=null && current.getMoveCount() > 0 && currentBoard.getBoard().getPossiblePositions().size() > 0)
+                writer.write(current);
+            showMessage(frame, writer.getGamesWritten() + " games were exported to " + fileChooser.getSelectedFile().getAbsolutePath());
+        }
+        catch(IOException e) {
+            showMessage(frame, "There was an error exporting the games.");
+        }
+    }
+
+    /**
+     * Let the user choose one of the recorded games of the session, or the current game if it is not over yet.
+     * @param title The title of the dialog
+     * @param action What will be done with the game, as in "Choose the game to review"
+     * @return The description and the transcript of the chosen game, or null if there is none or the user cancelled
+     */
+    private Map.Entry<String, GameTranscript> chooseGame(String title, String action)
+    {
+        if(currentSession==null)
+        {
+            showMessage(frame, "No session running, there is no game to " + action + "!");
+            return null;
+        }
+
+        updateSession();
+        ArrayList<GameTranscript> games = new ArrayList<>(currentSession.getGames());
+        GameTranscript current = currentSession.getTranscript();
+        if(current!=null && current.getMoveCount() > 0 && currentBoard.getBoard().getPossiblePositions().size() > 0)
+            games.add(current);
+        if(games.isEmpty())
+        {
+            showMessage(frame, "There are no recorded games to " + action + ".");
+            return null;
+        }
+
+        String[] choices = new String[games.size()];
+        for(int i = 0; i < choices.length; i++)
+            choices[i] = (games.get(i)==current ? "Current game" : "Game " + (i + 1)) + " (" + games.get(i).getSize() + " x "
+                    + games.get(i).getSize() + ", " + games.get(i).getMoveCount() + " moves)";
+        String choice = (String) JOptionPane.showInputDialog(frame, "Choose the game to " + action + ":", title,
+                JOptionPane.QUESTION_MESSAGE, null, choices, choices[choices.length - 1]);
+        if(choice==null)
+            return null;
+        return new AbstractMap.SimpleImmutableEntry<>(choice, games.get(Arrays.asList(choices).indexOf(choice)));
+    }
+
+    /**
+     * Export one of the recorded games as an animated GIF or as a sequence of PNG images, in the colours of the current theme. The
+     * animation is drawn and written in the background.
+     */
+    private void exportAnimation()
+    {
+        Map.Entry<String, GameTranscript> choice = chooseGame("Export animation", "export");
+        if(choice==null)
+            return;
+
+        String[] formats = {"Animated GIF", "PNG images"};
+        String format = (String) JOptionPane.showInputDialog(frame, "Choose the format of the animation:", "Export animation",
+                JOptionPane.QUESTION_MESSAGE, null, formats, formats[0]);
+        if(format==null)
+            return;
+        boolean gif = format.equals(formats[0]);
+
+        File output = getCaptureFile("game", gif ? ".gif" : "");
+        if(output==null)
+        {
+            showMessage(frame, "Could not export the animation. Try again.");
+            return;
+        }
+        GameAnimationExporter exporter = new GameAnimationExporter(currentTheme, GameAnimationExporter.DEFAULT_SIZE,
+                GameAnimationExporter.DEFAULT_FRAME_DELAY, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        imageExporter.exportAnimation(exporter, choice.getValue(), output, gif ? GameAnimationExporter.Format.GIF
+                : GameAnimationExporter.Format.PNG_SEQUENCE, written -> showMessage(frame, written
+                ? "The animation was exported successfully to " + output.getAbsolutePath()
+                : "There was an error exporting the animation."));
+    }
+
+    /**
+     * Choose one of the games of the current session, finished or in progress, and show it in replay mode in place of the board.
+     */
+    private void reviewGame()
+    {
+        Map.Entry<String, GameTranscript> choice = chooseGame("Review game", "review");
+        if(choice==null)
+            return;
+
+        GameReplay replay;
+        try {
+            replay = new GameReplay(choice.getValue());
+        } catch (IllegalArgumentException e) {
+            showMessage(frame, "The game could not be replayed.");
+            return;
+        }
+
+        BorderLayout layout = (BorderLayout)(frame.getContentPane()).getLayout();
+        frame.getContentPane().remove(layout.getLayoutComponent(BorderLayout.CENTER));
+        if(replayBoard==null)
+            statusBeforeReplay = statusBar.getStatus();
+        hintService.cancel();
+        replayBoard = new GameBoardGUI(replay, this, this::closeReview);
+        frame.getContentPane().add(replayBoard.getParentPanel(), BorderLayout.CENTER);
+        setStatus("Reviewing " + choice.getKey().toLowerCase());
+        frame.pack();
+    }
+
+    /**
+     * Close the replay mode and show the board of the game in progress again.
+     */
+    private void closeReview()
+    {
+        if(replayBoard==null)
+            return;
+        frame.getContentPane().remove(replayBoard.getParentPanel());
+        replayBoard = null;
+        frame.getContentPane().add(currentBoard.getParentPanel(), BorderLayout.CENTER);
+        setStatus(statusBeforeReplay);
+        playerStatus.changePlayerOnePieces(currentBoard.getBoard().getPlayerOnePieces());
+        playerStatus.changePlayerTwoPieces(currentBoard.getBoard().getPlayerTwoPieces());
+        currentBoard.refreshHints();
+        frame.pack();
+        frame.repaint();
+    }
+
     /**
      * Show a dialog box telling the current player that he has no moves available.
      * @param player The current player
@@ -687,6 +1302,8 @@ public class Reversi
      */
     public void skipTurn()
     {
+        if(replayBoard!=null)
+            return;
         currentBoard.skipTurn();
     }
 
@@ -705,12 +1322,8 @@ public class Reversi
     public void turnPlayed()
     {
         if(autoSaveOn) {
-            try {
-                updateSession();
-                currentSession.autoSave();
-            } catch (SaveSessionException e) {
-                //do nothing
-            }
+            updateSession();
+            saveService.autoSave(currentSession);
         }
     }
 
@@ -723,11 +1336,10 @@ public class Reversi
             showMessage(frame, "No session running, there is nothing to save!");
         else {
             updateSession();
-            try {
-                Session.quickSave(currentSession);
-            } catch (SaveSessionException e) {
-                showMessage(frame, "There was an error saving the file.");
-            }
+            saveService.save(currentSession, Session.QUICK_SAVE_NAME, success -> {
+                if(!success)
+                    showMessage(frame, "There was an error saving the file.");
+            });
         }
     }
 
@@ -736,9 +1348,10 @@ public class Reversi
      */
     private void quickLoad()
     {
+        saveService.flush();
         Session.createSavesFolder();
         File dir = new File("./saves/");
-        File[] files = dir.listFiles((dir1, name) -> name.toLowerCase().endsWith(".rev"));
+        File[] files = dir.listFiles((dir1, name) -> name.toLowerCase().endsWith(".rev") && SessionFormat.isValidSaveFile(new File(dir1, name)));
         Arrays.sort(files, Comparator.comparingLong(File::lastModified).reversed());
 
         if(files.length==0)
@@ -753,7 +1366,7 @@ public class Reversi
     private void updateSession()
     {
         currentSession.setGameBoard(currentBoard.getBoard());
-        currentSession.setStatus(statusBar.getStatus());
+        currentSession.setStatus(replayBoard==null ? statusBar.getStatus() : statusBeforeReplay);
         currentSession.setPlayer1(playerStatus.getPlayer1());
         currentSession.setPlayer2(playerStatus.getPlayer2());
     }
@@ -784,8 +1397,11 @@ public class Reversi
         if(choice!=null)
         {
             currentTheme = choice;
+            DiscSprites.clear();
 
             currentBoard.changeTheme();
+            if(replayBoard!=null)
+                replayBoard.changeTheme();
             playerStatus.changeTheme();
         }
     }
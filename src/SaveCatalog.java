@@ -0,0 +1,501 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An index of the save files in the saves folder. For every save file, the catalog keeps the players, their scores, the size of the
+ * board, the player to move and the cells of the board, so the load dialog can describe a save file without loading it.
+ *
+ * The catalog is updated by the save service after every save, and a background thread watches the saves folder, so files copied,
+ * changed or deleted by hand are picked up too. Files are catalogued with SessionFormat.readSummary(), so they are not counted as
+ * loads, and files saved by older versions of the game are only catalogued by name and date, since reading them means deserializing
+ * them. The index is kept in the saves folder:
+ *
+ * <pre>
+ * header    4 bytes 'R' 'E' 'V' 'C', 1 byte version, int number of entries
+ * entry     UTF file name, long last modified, long length, long journal length, 1 byte older version,
+ *           UTF player 1, int wins, UTF player 2, int wins, 1 byte player to move, unsigned short size, packed cells
+ * </pre>
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class SaveCatalog
+{
+    public static final String INDEX_NAME = "catalog.idx";
+
+    private static final byte[] MAGIC = {'R', 'E', 'V', 'C'};
+    private static final int VERSION = 3;
+    private static final long PERSIST_DELAY_MILLIS = 2000;
+
+    private final File folder;
+    private final ConcurrentHashMap<String, Entry> entries;
+    private final ScheduledExecutorService background;
+    private final AtomicBoolean persistScheduled;
+
+    /**
+     * The description of a single save file.
+     */
+    public static class Entry
+    {
+        private final String fileName;
+        private final long lastModified, length, journalLength;
+        private final boolean olderVersion;
+        private final String player1, player2;
+        private final int wins1, wins2;
+        private final int playerToMove;
+        private final int size;
+        private final byte[] cells;
+
+        /**
+         * Constructor for a catalog entry.
+         * @param fileName The name of the save file, with the extension
+         * @param lastModified The time the save file was last modified
+         * @param length The length of the save file
+         * @param journalLength The length of the autosave journal of the save file, or 0 if it has none
+         * @param olderVersion true, if the file was saved by an older version of the game and is not described, false otherwise
+         * @param player1 The name of player 1
+         * @param wins1 The wins of player 1
+         * @param player2 The name of player 2
+         * @param wins2 The wins of player 2
+         * @param playerToMove GameBoard.PLAYER1 or GameBoard.PLAYER2, or GameBoard.NOPLAYER if there is no board
+         * @param size The size of the board, or 0 if there is no board
+         * @param cells The cells of the board, as packed by SessionFormat.packCells()
+         */
+        public Entry(String fileName, long lastModified, long length, long journalLength, boolean olderVersion, String player1,
+                     int wins1, String player2, int wins2, int playerToMove, int size, byte[] cells)
+        {
+            this.fileName = fileName;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.journalLength = journalLength;
+            this.olderVersion = olderVersion;
+            this.player1 = player1;
+            this.wins1 = wins1;
+            this.player2 = player2;
+            this.wins2 = wins2;
+            this.playerToMove = playerToMove;
+            this.size = size;
+            this.cells = cells;
+        }
+
+        /**
+         * Create the entry of a save file from the session it contains.
+         * @param file The save file
+         * @param session The session
+         * @return The entry
+         */
+        public static Entry of(File file, Session session)
+        {
+            GameBoard gameBoard = session.getGameBoard();
+            int playerToMove = GameBoard.NOPLAYER;
+            if(gameBoard!=null)
+                playerToMove = gameBoard.getCurrentPlayer()==gameBoard.getPlayer1() ? GameBoard.PLAYER1 : GameBoard.PLAYER2;
+
+            return new Entry(file.getName(), file.lastModified(), file.length(), journalOf(file).length(), false,
+                    session.getPlayer1().getName(), session.getPlayer1().getWins(),
+                    session.getPlayer2().getName(), session.getPlayer2().getWins(),
+                    playerToMove, gameBoard==null ? 0 : gameBoard.getSize(),
+                    gameBoard==null ? new byte[0] : SessionFormat.packCells(gameBoard));
+        }
+
+        /**
+         * Create the entry of a save file written by an older version of the game, which only knows the name and the date of the
+         * file.
+         * @param file The save file
+         * @return The entry
+         */
+        public static Entry ofOlderVersion(File file)
+        {
+            return new Entry(file.getName(), file.lastModified(), file.length(), journalOf(file).length(), true, "", 0, "", 0,
+                    GameBoard.NOPLAYER, 0, new byte[0]);
+        }
+
+        /**
+         * Checks whether the entry still describes the given file.
+         * @param file The save file
+         * @return true, if the file has not changed since the entry was created, false otherwise
+         */
+        public boolean isUpToDate(File file)
+        {
+            return file.lastModified()==lastModified && file.length()==length && journalOf(file).length()==journalLength;
+        }
+
+        /**
+         * Get the name of the save file.
+         * @return The file name
+         */
+        public String getFileName()
+        {
+            return fileName;
+        }
+
+        /**
+         * Checks whether the file was saved by an older version of the game, in which case only its name and date are known.
+         * @return true, if the file was saved by an older version, false otherwise
+         */
+        public boolean isOlderVersion()
+        {
+            return olderVersion;
+        }
+
+        /**
+         * Get the name of player 1.
+         * @return The name of player 1
+         */
+        public String getPlayer1()
+        {
+            return player1;
+        }
+
+        /**
+         * Get the name of player 2.
+         * @return The name of player 2
+         */
+        public String getPlayer2()
+        {
+            return player2;
+        }
+
+        /**
+         * Get the number of wins of player 1.
+         * @return The wins of player 1
+         */
+        public int getWins1()
+        {
+            return wins1;
+        }
+
+        /**
+         * Get the number of wins of player 2.
+         * @return The wins of player 2
+         */
+        public int getWins2()
+        {
+            return wins2;
+        }
+
+        /**
+         * Get the player to move.
+         * @return GameBoard.PLAYER1 or GameBoard.PLAYER2, or GameBoard.NOPLAYER if there is no board
+         */
+        public int getPlayerToMove()
+        {
+            return playerToMove;
+        }
+
+        /**
+         * Get the size of the board.
+         * @return The size of the board, or 0 if there is no board
+         */
+        public int getSize()
+        {
+            return size;
+        }
+
+        /**
+         * Get the owners of the cells of the board.
+         * @return The owner of every cell, in list order, or an empty array if there is no board
+         */
+        public int[] getOwners()
+        {
+            return SessionFormat.unpackCells(cells, size);
+        }
+
+        /**
+         * Count the pieces of the given owner on the board.
+         * @param owner GameBoard.PLAYER1 or GameBoard.PLAYER2
+         * @return The number of pieces
+         */
+        public int countPieces(int owner)
+        {
+            int count = 0;
+            for(int cell : getOwners())
+                if(cell==owner)
+                    count++;
+            return count;
+        }
+
+        /**
+         * Write the entry to the index.
+         * @param out The output
+         * @throws IOException If the entry could not be written
+         */
+        private void write(DataOutputStream out) throws IOException
+        {
+            out.writeUTF(fileName);
+            out.writeLong(lastModified);
+            out.writeLong(length);
+            out.writeLong(journalLength);
+            out.writeBoolean(olderVersion);
+            out.writeUTF(player1);
+            out.writeInt(wins1);
+            out.writeUTF(player2);
+            out.writeInt(wins2);
+            out.writeByte(playerToMove);
+            out.writeShort(size);
+            out.write(cells);
+        }
+
+        /**
+         * Read an entry written by write().
+         * @param in The input
+         * @return The entry
+         * @throws IOException If the entry could not be read
+         */
+        private static Entry read(DataInputStream in) throws IOException
+        {
+            String fileName = in.readUTF();
+            long lastModified = in.readLong();
+            long length = in.readLong();
+            long journalLength = in.readLong();
+            boolean olderVersion = in.readBoolean();
+            String player1 = in.readUTF();
+            int wins1 = in.readInt();
+            String player2 = in.readUTF();
+            int wins2 = in.readInt();
+            int playerToMove = in.readUnsignedByte();
+            int size = in.readUnsignedShort();
+            byte[] cells = new byte[size==0 ? 0 : SessionFormat.packedLength(size)];
+            in.readFully(cells);
+            return new Entry(fileName, lastModified, length, journalLength, olderVersion, player1, wins1, player2, wins2, playerToMove, size, cells);
+        }
+    }
+
+    /**
+     * Create the catalog of the given folder. The index is read straight away; checking it against the files and watching the
+     * folder happen in the background.
+     * @param folder The saves folder
+     */
+    public SaveCatalog(File folder)
+    {
+        this.folder = folder;
+        entries = new ConcurrentHashMap<>();
+        persistScheduled = new AtomicBoolean();
+        background = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "Reversi save catalog");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        readIndex();
+        background.execute(this::rebuild);
+        background.execute(this::watch);
+    }
+
+    /**
+     * Get the entry of the given save file, if the catalog knows the file in its current state.
+     * @param file The save file
+     * @return The entry, or null if the file is unknown or has changed since it was catalogued
+     */
+    public Entry getEntry(File file)
+    {
+        Entry entry = entries.get(file.getName());
+        if(entry==null || !isInFolder(file) || !entry.isUpToDate(file))
+            return null;
+        return entry;
+    }
+
+    /**
+     * Update the entry of a save file which has just been written.
+     * @param file The save file
+     * @param session The session saved in the file
+     */
+    public void update(File file, Session session)
+    {
+        entries.put(file.getName(), Entry.of(file, session));
+        schedulePersist();
+    }
+
+    /**
+     * Write the index if it has changed. It is meant to be called before quitting.
+     */
+    public void flush()
+    {
+        persistScheduled.set(false);
+        writeIndex();
+    }
+
+    /**
+     * Bring the catalog up to date with the files of the saves folder: new and changed files are catalogued, and the entries of
+     * deleted files are removed.
+     */
+    private void rebuild()
+    {
+        File[] files = folder.listFiles((dir, name) -> name.toLowerCase().endsWith(".rev"));
+        if(files==null)
+            return;
+
+        ArrayList<String> names = new ArrayList<>();
+        boolean changed = false;
+        for(File file : files)
+        {
+            names.add(file.getName());
+            changed |= refresh(file);
+        }
+        changed |= entries.keySet().retainAll(names);
+
+        if(changed)
+            schedulePersist();
+    }
+
+    /**
+     * Catalogue the given file again if it has changed.
+     * @param file The save file
+     * @return true, if the catalog has changed, false otherwise
+     */
+    private boolean refresh(File file)
+    {
+        if(!file.isFile())
+            return entries.remove(file.getName())!=null;
+
+        Entry entry = entries.get(file.getName());
+        if(entry!=null && entry.isUpToDate(file))
+            return false;
+
+        try {
+            Session session = SessionFormat.readSummary(file);
+            entries.put(file.getName(), session==null ? Entry.ofOlderVersion(file) : Entry.of(file, session));
+        } catch (LoadSessionException e) {
+            entries.remove(file.getName());
+        }
+        return true;
+    }
+
+    /**
+     * Watch the saves folder and catalogue the files that change. It runs until the application stops.
+     */
+    private void watch()
+    {
+        Session.createSavesFolder();
+        try(WatchService watcher = FileSystems.getDefault().newWatchService())
+        {
+            folder.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            while(true)
+            {
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                for(WatchEvent<?> event : key.pollEvents())
+                {
+                    if(event.kind()==StandardWatchEventKinds.OVERFLOW)
+                    {
+                        rebuild();
+                        continue;
+                    }
+
+                    String name = event.context().toString();
+                    if(name.endsWith(SessionJournal.EXTENSION) && name.length() > 1)
+                        name = name.substring(0, name.length() - SessionJournal.EXTENSION.length());
+                    if(name.toLowerCase().endsWith(".rev"))
+                        changed |= refresh(new File(folder, name));
+                }
+                if(changed)
+                    schedulePersist();
+                if(!key.reset())
+                    return;
+            }
+        }
+        catch(IOException e) {
+            System.out.println("The saves folder could not be watched.");
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write the index a short while from now, so a burst of saves only writes it once.
+     */
+    private void schedulePersist()
+    {
+        if(persistScheduled.compareAndSet(false, true))
+            background.schedule(() -> {
+                if(persistScheduled.compareAndSet(true, false))
+                    writeIndex();
+            }, PERSIST_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Read the index, if there is one. A damaged index is ignored, as it is rebuilt from the files anyway.
+     */
+    private void readIndex()
+    {
+        File index = new File(folder, INDEX_NAME);
+        if(!index.isFile())
+            return;
+
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(index))))
+        {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            for(int i = 0; i < MAGIC.length; i++)
+                if(magic[i]!=MAGIC[i])
+                    return;
+            if(in.readUnsignedByte()!=VERSION)
+                return;
+
+            int count = in.readInt();
+            for(int i = 0; i < count; i++)
+            {
+                Entry entry = Entry.read(in);
+                entries.put(entry.getFileName(), entry);
+            }
+        }
+        catch(IOException e) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Write the index atomically.
+     */
+    private synchronized void writeIndex()
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            ArrayList<Entry> snapshot = new ArrayList<>(entries.values());
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(snapshot.size());
+            for(Entry entry : snapshot)
+                entry.write(out);
+            out.flush();
+
+            Session.createSavesFolder();
+            Session.writeSaveFile(new File(folder, INDEX_NAME).getPath(), bytes.toByteArray());
+        }
+        catch(IOException e) {
+            System.out.println("The save catalog could not be written.");
+        }
+    }
+
+    /**
+     * Checks whether the given file is in the saves folder.
+     * @param file The file
+     * @return true, if the file is in the saves folder, false otherwise
+     */
+    private boolean isInFolder(File file)
+    {
+        Path parent = file.toPath().toAbsolutePath().normalize().getParent();
+        return folder.toPath().toAbsolutePath().normalize().equals(parent);
+    }
+
+    /**
+     * Get the autosave journal of a save file.
+     * @param file The save file
+     * @return The journal file, which might not exist
+     */
+    private static File journalOf(File file)
+    {
+        return new File(file.getPath() + SessionJournal.EXTENSION);
+    }
+}
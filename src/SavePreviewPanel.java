@@ -0,0 +1,114 @@
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+
+/**
+ * A preview of the save file selected in the load dialog. The description comes from the save catalog, so the file itself is never
+ * read.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class SavePreviewPanel extends JPanel implements PropertyChangeListener
+{
+    private static final int THUMBNAIL_SIZE = 120;
+
+    private final SaveCatalog catalog;
+    private final BoardRenderer renderer;
+    private final JLabel player1Label, player2Label, boardLabel;
+    private final JPanel thumbnail;
+    private SaveCatalog.Entry entry;
+
+    /**
+     * Constructor for the save preview panel.
+     * @param catalog The save catalog
+     * @param theme The theme used to draw the board
+     */
+    public SavePreviewPanel(SaveCatalog catalog, Theme theme)
+    {
+        if(catalog==null)
+            throw new IllegalArgumentException("The catalog cannot be null.");
+        if(theme==null)
+            throw new IllegalArgumentException("The theme cannot be null.");
+        this.catalog = catalog;
+        renderer = new BoardRenderer(theme);
+
+        setLayout(new BoxLayout(this, BoxLayout.PAGE_AXIS));
+        setBorder(new EmptyBorder(5, 10, 5, 5));
+        setPreferredSize(new Dimension(THUMBNAIL_SIZE + 60, THUMBNAIL_SIZE + 80));
+
+        player1Label = new JLabel(" ");
+        player2Label = new JLabel(" ");
+        boardLabel = new JLabel(" ");
+        thumbnail = new JPanel() {
+            @Override
+            public void paintComponent(Graphics g)
+            {
+                super.paintComponent(g);
+                paintThumbnail(g);
+            }
+        };
+        thumbnail.setPreferredSize(new Dimension(THUMBNAIL_SIZE, THUMBNAIL_SIZE));
+        thumbnail.setMaximumSize(thumbnail.getPreferredSize());
+        thumbnail.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        add(player1Label);
+        add(player2Label);
+        add(boardLabel);
+        add(Box.createVerticalStrut(5));
+        add(thumbnail);
+    }
+
+    /**
+     * Show the preview of the file selected in the file chooser.
+     * @param e The property change event
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent e)
+    {
+        if(JFileChooser.SELECTED_FILE_CHANGED_PROPERTY.equals(e.getPropertyName()))
+            showFile((File) e.getNewValue());
+    }
+
+    /**
+     * Show the preview of the given file.
+     * @param file The file, or null to clear the preview
+     */
+    public void showFile(File file)
+    {
+        entry = file==null ? null : catalog.getEntry(file);
+        if(entry==null || entry.isOlderVersion())
+        {
+            player1Label.setText(" ");
+            player2Label.setText(file==null ? " " : "No preview available");
+            boardLabel.setText(entry==null ? " " : "Saved by an older version of the game");
+            entry = null;
+        }
+        else
+        {
+            player1Label.setText(entry.getPlayer1() + ": " + entry.getWins1() + " wins");
+            player2Label.setText(entry.getPlayer2() + ": " + entry.getWins2() + " wins");
+            if(entry.getSize()==0)
+                boardLabel.setText("No game in progress");
+            else
+                boardLabel.setText(entry.getSize() + " x " + entry.getSize() + ", " + entry.countPieces(GameBoard.PLAYER1) + " - "
+                        + entry.countPieces(GameBoard.PLAYER2) + ", " + (entry.getPlayerToMove()==GameBoard.PLAYER1 ? entry.getPlayer1() : entry.getPlayer2()) + " to move");
+        }
+        thumbnail.repaint();
+    }
+
+    /**
+     * Paint the board of the selected save file.
+     * @param g The graphics
+     */
+    private void paintThumbnail(Graphics g)
+    {
+        if(entry==null || entry.getSize()==0)
+            return;
+
+        renderer.paint((Graphics2D) g, entry.getOwners(), entry.getSize(), 0, 0, THUMBNAIL_SIZE);
+    }
+}
@@ -0,0 +1,299 @@
+import javax.swing.*;
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Saves sessions on a dedicated background thread, so the game never waits for the disk. Every request takes a snapshot of the
+ * session straight away; if several requests for the same file are waiting to be written, only the latest one is written.
+ *
+ * The sessions are saved to files in the saves folder, or, for a server hosting many sessions, to a session store.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class SaveService
+{
+    private static final long FLUSH_TIMEOUT_SECONDS = 10;
+
+    private final ExecutorService writer;
+    private final LinkedHashMap<String, SaveRequest> pending;
+    private final HashMap<String, SessionJournal> journals;
+    private final SaveCatalog catalog;
+    private final SessionStore store;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+    private volatile long lastLatency;
+    private final MetricsRegistry.Histogram latencies = MetricsRegistry.get().histogram(MetricsRegistry.SAVE_LATENCY);
+
+    /**
+     * A snapshot waiting to be written.
+     */
+    private static class SaveRequest
+    {
+        private final Session snapshot;
+        private final boolean journaled;
+        private final Consumer<Boolean> onDone;
+
+        private SaveRequest(Session snapshot, boolean journaled, Consumer<Boolean> onDone)
+        {
+            this.snapshot = snapshot;
+            this.journaled = journaled;
+            this.onDone = onDone;
+        }
+    }
+
+    /**
+     * Constructor for the save service.
+     * @param catalog The catalog which is updated after every save
+     */
+    public SaveService(SaveCatalog catalog)
+    {
+        this(catalog, null);
+    }
+
+    /**
+     * Constructor for a save service which saves the sessions to a session store instead of files. The name of the save file of
+     * a request is the id of the session in the store.
+     * @param store The session store
+     */
+    public SaveService(SessionStore store)
+    {
+        this(null, store);
+    }
+
+    /**
+     * Constructor for the save service.
+     * @param catalog The catalog which is updated after every save, or null if the sessions are saved to the store
+     * @param store The session store, or null if the sessions are saved to files
+     */
+    private SaveService(SaveCatalog catalog, SessionStore store)
+    {
+        if(catalog==null && store==null)
+            throw new IllegalArgumentException("The catalog and the store cannot both be null.");
+        this.catalog = catalog;
+        this.store = store;
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Reversi saves");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pending = new LinkedHashMap<>();
+        journals = new HashMap<>();
+    }
+
+    /**
+     * Save the session to the file with the given name in the background.
+     * @param session The session to save
+     * @param fileName The name of the save file, without the folder and the extension
+     * @param onDone Called on the event dispatch thread with true if the save succeeded, false otherwise; can be null
+     */
+    public void save(Session session, String fileName, Consumer<Boolean> onDone)
+    {
+        submit(fileName, new SaveRequest(session.snapshot(), false, onDone));
+    }
+
+    /**
+     * Autosave the session in the background, appending to its autosave journal.
+     * @param session The session to autosave
+     */
+    public void autoSave(Session session)
+    {
+        autoSave(session, session.getAutoSaveName());
+    }
+
+    /**
+     * Autosave the session in the background to the given file, appending to its journal. It is used for sessions which are not
+     * named after their players, such as the games hosted by the server.
+     * @param session The session to autosave
+     * @param fileName The name of the save file, without the folder and the extension
+     */
+    public void autoSave(Session session, String fileName)
+    {
+        submit(fileName, new SaveRequest(session.snapshot(), true, null));
+    }
+
+    /**
+     * Close the journal of the given save file once the pending saves have been written, when the session will not be autosaved
+     * to it any more.
+     * @param fileName The name of the save file, without the folder and the extension
+     */
+    public void closeJournal(String fileName)
+    {
+        writer.execute(() -> {
+            SessionJournal journal = journals.remove(fileName);
+            if(journal!=null)
+                journal.close();
+        });
+    }
+
+    /**
+     * Wait until every pending save has been written. It is meant to be called before quitting or loading a file.
+     */
+    public void flush()
+    {
+        try {
+            writer.submit(() -> { }).get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if(store!=null)
+                store.sync();
+        } catch (Exception e) {
+            System.out.println("The pending saves could not be written.");
+        }
+    }
+
+    /**
+     * Get the catalog of the save files.
+     * @return The save catalog, or null if the sessions are saved to a session store
+     */
+    public SaveCatalog getCatalog()
+    {
+        return catalog;
+    }
+
+    /**
+     * Get the number of save requests received.
+     * @return The number of requests
+     */
+    public long getRequestCount()
+    {
+        return requests.get();
+    }
+
+    /**
+     * Get the number of files written.
+     * @return The number of writes
+     */
+    public long getWriteCount()
+    {
+        return writes.get();
+    }
+
+    /**
+     * Get the number of requests that were replaced by a newer request before being written.
+     * @return The number of coalesced requests
+     */
+    public long getCoalescedCount()
+    {
+        return coalesced.get();
+    }
+
+    /**
+     * Get the number of writes that failed.
+     * @return The number of failures
+     */
+    public long getFailureCount()
+    {
+        return failures.get();
+    }
+
+    /**
+     * Get the time taken by the last write.
+     * @return The latency in nanoseconds
+     */
+    public long getLastLatencyNanos()
+    {
+        return lastLatency;
+    }
+
+    /**
+     * Get the average time taken by a write.
+     * @return The latency in nanoseconds, or 0 if nothing was written
+     */
+    public long getAverageLatencyNanos()
+    {
+        long count = writes.get();
+        return count==0 ? 0 : totalLatency.get() / count;
+    }
+
+    /**
+     * Get the longest time taken by a write.
+     * @return The latency in nanoseconds
+     */
+    public long getMaxLatencyNanos()
+    {
+        return maxLatency.get();
+    }
+
+    /**
+     * Queue a request, replacing the request for the same file if it has not been written yet.
+     * @param fileName The name of the save file
+     * @param request The request
+     */
+    private void submit(String fileName, SaveRequest request)
+    {
+        requests.incrementAndGet();
+        String key = request.journaled ? fileName + SessionJournal.EXTENSION : fileName;
+        synchronized (pending) {
+            SaveRequest replaced = pending.get(key);
+            if(replaced!=null)
+            {
+                coalesced.incrementAndGet();
+                pending.put(key, new SaveRequest(request.snapshot, request.journaled, request.onDone!=null ? request.onDone : replaced.onDone));
+                return;
+            }
+            pending.put(key, request);
+        }
+        writer.execute(() -> write(key, fileName));
+    }
+
+    /**
+     * Write the latest request for the given file. It runs on the writer thread.
+     * @param key The key of the request in the pending requests
+     * @param fileName The name of the save file
+     */
+    private void write(String key, String fileName)
+    {
+        SaveRequest request;
+        synchronized (pending) {
+            request = pending.remove(key);
+        }
+        if(request==null)
+            return;
+
+        long start = System.nanoTime();
+        boolean success = true;
+        try {
+            if(store!=null)
+                store.put(fileName, request.snapshot);
+            else if(request.journaled)
+                journals.computeIfAbsent(fileName, SessionJournal::new).record(request.snapshot);
+            else
+                request.snapshot.saveToFile(fileName);
+            if(catalog!=null)
+                catalog.update(new File(Session.getSavePath(fileName)), request.snapshot);
+        } catch (SaveSessionException | RuntimeException e) {
+            success = false;
+            failures.incrementAndGet();
+        }
+        recordLatency(System.nanoTime() - start);
+
+        if(request.onDone!=null)
+        {
+            boolean result = success;
+            SwingUtilities.invokeLater(() -> request.onDone.accept(result));
+        }
+    }
+
+    /**
+     * Record the latency of a write.
+     * @param latency The latency in nanoseconds
+     */
+    private void recordLatency(long latency)
+    {
+        writes.incrementAndGet();
+        totalLatency.addAndGet(latency);
+        maxLatency.accumulateAndGet(latency, Math::max);
+        lastLatency = latency;
+        latencies.record(latency);
+    }
+}
@@ -0,0 +1,677 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Measures how many simultaneous games one machine can host. It starts a game server on the loopback interface, and plays games
+ * against it with simulated players, all of them served by one selector thread. Every player thinks for a random time around the
+ * think time before playing a random legal move, and asks for a new game as soon as its game ends, so the number of games in
+ * progress stays the same while it is measured.
+ *
+ * The number of games is doubled, from 64, until the 99th percentile of the round trip of a move (from sending the move until the
+ * server sends it back) exceeds the limit, or no more connections can be opened. Run it with
+ * <pre>java ServerBenchmark [--size 8] [--think 100] [--seconds 5] [--max-games 8192] [--limit 50] [--save]</pre>
+ * where the think time and the limit are in milliseconds. The players share the machine with the server, so the numbers are a
+ * lower bound of what the server sustains on its own.
+ *
+ * With --spectators, it measures the broadcast of the moves instead: the given number of spectators watch a few games (--games,
+ * 4 by default), for every size of board of --sizes (8,64,256 by default). Every spectator keeps its own copy of the board from
+ * the snapshots and deltas it receives, and checks it against the final count of pieces of every game it watched.
+ * <pre>java ServerBenchmark --spectators 2000 [--games 4] [--sizes 8,64,256] [--think 100] [--seconds 5]</pre>
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class ServerBenchmark
+{
+    private static final int FIRST_LEVEL = 64;
+    private static final long WARM_UP_NANOS = 1000000000L;
+    private static final int READ_BUFFER_LENGTH = 1024;
+    private static final int SPECTATOR_BUFFER_LENGTH = GameProtocol.HEADER_LENGTH + GameProtocol.MAX_FRAME_LENGTH;
+
+    private final InetSocketAddress address;
+    private final int size;
+    private final long thinkNanos;
+    private final Selector selector;
+    private final ArrayList<Player> players = new ArrayList<>();
+    private final ArrayList<Spectator> spectators = new ArrayList<>();
+    private final PriorityQueue<Player> turns = new PriorityQueue<>((first, second) -> Long.compare(first.due, second.due));
+    private final HashMap<Integer, Long> moveSentAt = new HashMap<>();
+    private final ArrayList<Integer> runningGames = new ArrayList<>();
+    private final ArrayDeque<Spectator> idleSpectators = new ArrayDeque<>();
+    private final Random random = new Random(42);
+    private MetricsRegistry.Histogram roundTrips = new MetricsRegistry.Histogram();
+    private MetricsRegistry.Histogram deliveries = new MetricsRegistry.Histogram();
+    private long moves, finishedGames, errors;
+    private long deltas, deltaBytes, snapshots, snapshotBytes, resyncs, checkedGames;
+
+    /**
+     * A connection of the benchmark to the server.
+     */
+    private static class Client
+    {
+        private final SocketChannel channel;
+        private final ByteBuffer in;
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+
+        private Client(SocketChannel channel, int bufferLength)
+        {
+            this.channel = channel;
+            in = ByteBuffer.allocate(bufferLength);
+        }
+    }
+
+    /**
+     * A simulated player.
+     */
+    private static class Player extends Client
+    {
+        private GameBoard gameBoard;
+        private BoardPlayer self;
+        private int gameId;
+        private int sentPosition = -1;
+        private long sentAt, due;
+        private boolean scheduled;
+
+        private Player(SocketChannel channel)
+        {
+            super(channel, READ_BUFFER_LENGTH);
+        }
+    }
+
+    /**
+     * A simulated spectator, which keeps the owners of the cells of the game it watches.
+     */
+    private static class Spectator extends Client
+    {
+        private int gameId = -1, boardSize, playerToMove;
+        private int[] owners;
+        private boolean synced;
+
+        private Spectator(SocketChannel channel)
+        {
+            super(channel, SPECTATOR_BUFFER_LENGTH);
+        }
+    }
+
+    /**
+     * Constructor for the benchmark.
+     * @param address The address of the server
+     * @param size The size of the boards played
+     * @param thinkMillis The average time a player thinks before moving, in milliseconds
+     * @throws IOException If the selector could not be opened
+     */
+    public ServerBenchmark(InetSocketAddress address, int size, long thinkMillis) throws IOException
+    {
+        this.address = address;
+        this.size = size;
+        thinkNanos = thinkMillis * 1000000L;
+        selector = Selector.open();
+    }
+
+    /**
+     * Run the benchmark with the given arguments.
+     * @param args The arguments
+     * @throws IOException If the server could not be started
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int size = 8, seconds = 5, maxGames = 8192, games = 4, spectators = 0;
+        long think = 100, limit = 50;
+        boolean save = false;
+        String sizes = "8,64,256";
+        for(int index = 0; index < args.length; index++)
+        {
+            switch(args[index])
+            {
+                case "--size": size = Integer.parseInt(args[++index]); break;
+                case "--sizes": sizes = args[++index]; break;
+                case "--think": think = Long.parseLong(args[++index]); break;
+                case "--seconds": seconds = Integer.parseInt(args[++index]); break;
+                case "--max-games": maxGames = Integer.parseInt(args[++index]); break;
+                case "--games": games = Integer.parseInt(args[++index]); break;
+                case "--spectators": spectators = Integer.parseInt(args[++index]); break;
+                case "--limit": limit = Long.parseLong(args[++index]); break;
+                case "--save": save = true; break;
+                default: throw new IllegalArgumentException("Unknown argument " + args[index] + ".");
+            }
+        }
+
+        SaveService saveService = null;
+        if(save)
+        {
+            Session.createSavesFolder();
+            saveService = new SaveService(new SaveCatalog(new File("./saves/")));
+        }
+        if(spectators > 0)
+            measureSpectators(sizes, games, spectators, think, seconds, saveService);
+        else
+            measureGames(size, maxGames, think, seconds, limit, saveService);
+        System.exit(0);
+    }
+
+    /**
+     * Double the number of games until the round trip of the moves is too slow.
+     * @param size The size of the boards
+     * @param maxGames The largest number of games tried
+     * @param think The average think time, in milliseconds
+     * @param seconds The time every number of games is measured for
+     * @param limit The largest 99th percentile of the round trip sustained, in milliseconds
+     * @param saveService The service saving the games, or null
+     * @throws IOException If the server could not be started
+     */
+    private static void measureGames(int size, int maxGames, long think, int seconds, long limit, SaveService saveService)
+            throws IOException
+    {
+        GameServer server = startServer(saveService);
+        ServerBenchmark benchmark = new ServerBenchmark(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()),
+                size, think);
+
+        System.out.printf("%d x %d boards, %d ms think time, %s, %d cores%n", size, size, think,
+                saveService!=null ? "saving every move" : "without saving", Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %10s %12s %10s %10s %10s %12s %9s%n", "games", "moves/s", "games/s", "rtt p50", "rtt p99", "rtt max",
+                "server p99", "heap MB");
+
+        int sustained = 0;
+        MetricsRegistry.Histogram serverTimes = MetricsRegistry.get().histogram(MetricsRegistry.NET_MOVE_TIME);
+        for(int games = FIRST_LEVEL; games <= maxGames; games *= 2)
+        {
+            try {
+                benchmark.addGames(games - benchmark.players.size() / 2);
+            } catch (IOException e) {
+                System.out.println("Could not open more connections: " + e.getMessage());
+                break;
+            }
+            benchmark.play(WARM_UP_NANOS);
+            benchmark.resetCounters();
+            MetricsRegistry.get().reset();
+            long start = System.nanoTime();
+            benchmark.play(seconds * 1000000000L);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            MetricsRegistry.Histogram roundTrips = benchmark.roundTrips;
+            Runtime runtime = Runtime.getRuntime();
+            System.out.printf("%8d %10.0f %12.1f %10s %10s %10s %12s %9d%n", games, benchmark.moves / elapsed,
+                    benchmark.finishedGames / 2.0 / elapsed, formatNanos(roundTrips.getPercentile(50)),
+                    formatNanos(roundTrips.getPercentile(99)), formatNanos(roundTrips.getMax()),
+                    formatNanos(serverTimes.getPercentile(99)), (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+            if(benchmark.errors > 0)
+            {
+                System.out.println(benchmark.errors + " errors at " + games + " games.");
+                break;
+            }
+            if(roundTrips.getPercentile(99) > limit * 1000000L)
+                break;
+            sustained = games;
+        }
+
+        System.out.println(sustained==0 ? "Not even " + FIRST_LEVEL + " games were sustained with a p99 round trip under " + limit
+                + " ms." : "Sustained " + sustained + " simultaneous games with a p99 round trip under " + limit + " ms.");
+        benchmark.close();
+        server.close();
+    }
+
+    /**
+     * Broadcast the moves of a few games to many spectators, for every size of board, and print how the broadcast scales with
+     * the size.
+     * @param sizes The sizes of the boards, separated by commas
+     * @param games The number of games watched
+     * @param spectatorCount The number of spectators
+     * @param think The average think time, in milliseconds
+     * @param seconds The time every size is measured for
+     * @param saveService The service saving the games, or null
+     * @throws IOException If the server could not be started
+     */
+    private static void measureSpectators(String sizes, int games, int spectatorCount, long think, int seconds,
+            SaveService saveService) throws IOException
+    {
+        System.out.printf("%d spectators of %d games, %d ms think time, %s, %d cores%n", spectatorCount, games, think,
+                saveService!=null ? "saving every move" : "without saving", Runtime.getRuntime().availableProcessors());
+        System.out.printf("%6s %9s %10s %12s %10s %10s %10s %9s %8s %12s %7s%n", "size", "moves/s", "deltas/s", "bytes/delta",
+                "snapshot", "lag p50", "lag p99", "resyncs", "checked", "server p99", "errors");
+
+        for(String value : sizes.split(","))
+        {
+            int size = Integer.parseInt(value.trim());
+            GameServer server = startServer(saveService);
+            ServerBenchmark benchmark = new ServerBenchmark(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()),
+                    size, think);
+            try {
+                benchmark.addGames(games);
+                benchmark.play(WARM_UP_NANOS / 4);
+                benchmark.addSpectators(spectatorCount);
+            } catch (IOException e) {
+                System.out.println("Could not open more connections: " + e.getMessage());
+                benchmark.close();
+                server.close();
+                return;
+            }
+            benchmark.play(WARM_UP_NANOS);
+            benchmark.resetCounters();
+            MetricsRegistry.get().reset();
+            long start = System.nanoTime();
+            benchmark.play(seconds * 1000000000L);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            MetricsRegistry.Histogram serverTimes = MetricsRegistry.get().histogram(MetricsRegistry.NET_MOVE_TIME);
+            System.out.printf("%6d %9.0f %10.0f %12.1f %10d %10s %10s %9d %8d %12s %7d%n", size, benchmark.moves / elapsed,
+                    benchmark.deltas / elapsed, benchmark.deltas==0 ? 0.0 : (double) benchmark.deltaBytes / benchmark.deltas,
+                    benchmark.snapshots==0 ? 0 : benchmark.snapshotBytes / benchmark.snapshots,
+                    formatNanos(benchmark.deliveries.getPercentile(50)), formatNanos(benchmark.deliveries.getPercentile(99)),
+                    benchmark.resyncs, benchmark.checkedGames, formatNanos(serverTimes.getPercentile(99)), benchmark.errors);
+            benchmark.close();
+            server.close();
+        }
+    }
+
+    /**
+     * Start a game server on the loopback interface, on a free port.
+     * @param saveService The service saving the games, or null
+     * @return The server
+     * @throws IOException If the server could not be started
+     */
+    private static GameServer startServer(SaveService saveService) throws IOException
+    {
+        GameServer server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), saveService);
+        server.start();
+        return server;
+    }
+
+    /**
+     * Open a connection to the server.
+     * @return The channel of the connection, in non-blocking mode
+     * @throws IOException If the connection could not be opened
+     */
+    private SocketChannel connect() throws IOException
+    {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        return channel;
+    }
+
+    /**
+     * Register a new player or spectator with the selector, to read the messages of the server.
+     * @param client The player or spectator
+     * @throws IOException If the channel could not be registered
+     */
+    private void register(Client client) throws IOException
+    {
+        client.channel.register(selector, SelectionKey.OP_READ, client);
+    }
+
+    /**
+     * Connect the players of more games. Each of them asks the server for a game straight away.
+     * @param games The number of games to add
+     * @throws IOException If a connection could not be opened
+     */
+    private void addGames(int games) throws IOException
+    {
+        for(int index = 0; index < 2 * games; index++)
+        {
+            Player player = new Player(connect());
+            register(player);
+            players.add(player);
+            send(player, GameProtocol.hello("Bot " + players.size()));
+            send(player, GameProtocol.match(size));
+        }
+    }
+
+    /**
+     * Connect spectators. Each of them watches one of the games in progress straight away.
+     * @param count The number of spectators to add
+     * @throws IOException If a connection could not be opened
+     */
+    private void addSpectators(int count) throws IOException
+    {
+        for(int index = 0; index < count; index++)
+        {
+            Spectator spectator = new Spectator(connect());
+            register(spectator);
+            spectators.add(spectator);
+            send(spectator, GameProtocol.hello("Spectator " + spectators.size()));
+            watchAnyGame(spectator);
+        }
+    }
+
+    /**
+     * Let a spectator watch one of the games in progress, or wait for the next game to start if there is none.
+     * @param spectator The spectator
+     */
+    private void watchAnyGame(Spectator spectator)
+    {
+        spectator.owners = null;
+        spectator.synced = false;
+        if(runningGames.isEmpty())
+        {
+            spectator.gameId = -1;
+            idleSpectators.add(spectator);
+            return;
+        }
+        spectator.gameId = runningGames.get(random.nextInt(runningGames.size()));
+        send(spectator, GameProtocol.watch(spectator.gameId));
+    }
+
+    /**
+     * Clear the numbers measured so far.
+     */
+    private void resetCounters()
+    {
+        roundTrips = new MetricsRegistry.Histogram();
+        deliveries = new MetricsRegistry.Histogram();
+        moves = 0;
+        finishedGames = 0;
+        errors = 0;
+        deltas = 0;
+        deltaBytes = 0;
+        snapshots = 0;
+        snapshotBytes = 0;
+        resyncs = 0;
+        checkedGames = 0;
+    }
+
+    /**
+     * Play the games for the given time: read the messages of the server, and play the moves of the players whose thinking time
+     * is over.
+     * @param nanos The time to play, in nanoseconds
+     * @throws IOException If the selector failed
+     */
+    private void play(long nanos) throws IOException
+    {
+        long end = System.nanoTime() + nanos;
+        long now;
+        while((now = System.nanoTime()) < end)
+        {
+            long next = turns.isEmpty() ? end : Math.min(end, turns.peek().due);
+            long wait = (next - now) / 1000000L;
+            if(wait > 0)
+                selector.select(wait);
+            else
+                selector.selectNow();
+
+            for(Iterator<SelectionKey> keys = selector.selectedKeys().iterator(); keys.hasNext(); )
+            {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Client client = (Client) key.attachment();
+                if(key.isValid() && key.isReadable())
+                    read(client);
+                if(key.isValid() && key.isWritable())
+                    flush(client);
+            }
+
+            now = System.nanoTime();
+            while(!turns.isEmpty() && turns.peek().due <= now)
+            {
+                Player player = turns.poll();
+                player.scheduled = false;
+                playMove(player);
+            }
+        }
+    }
+
+    /**
+     * Read the messages received by a player or a spectator.
+     * @param client The player or spectator
+     * @throws IOException If the connection failed
+     */
+    private void read(Client client) throws IOException
+    {
+        if(client.channel.read(client.in) < 0)
+            throw new IOException("The server closed a connection.");
+        client.in.flip();
+        ByteBuffer frame;
+        while((frame = GameProtocol.nextFrame(client.in))!=null)
+        {
+            if(client instanceof Player)
+                handle((Player) client, frame);
+            else
+                handle((Spectator) client, frame);
+        }
+        client.in.compact();
+    }
+
+    /**
+     * Handle a message of the server to a player.
+     * @param player The player receiving the message
+     * @param frame The message, starting with its type
+     */
+    private void handle(Player player, ByteBuffer frame)
+    {
+        switch(GameProtocol.getUnsignedByte(frame))
+        {
+            case GameProtocol.GAME_STARTED:
+                player.gameId = frame.getInt();
+                int boardSize = GameProtocol.getUnsignedShort(frame);
+                int number = GameProtocol.getUnsignedByte(frame);
+                player.gameBoard = new GameBoard(new BoardPlayer("1"), new BoardPlayer("2"), boardSize);
+                player.self = number==GameBoard.PLAYER1 ? player.gameBoard.getPlayer1() : player.gameBoard.getPlayer2();
+                if(number==GameBoard.PLAYER1)
+                {
+                    runningGames.add(player.gameId);
+                    while(!idleSpectators.isEmpty())
+                        watchAnyGame(idleSpectators.poll());
+                }
+                scheduleTurn(player);
+                break;
+            case GameProtocol.MOVE_PLAYED:
+                frame.getInt();
+                int kind = GameProtocol.getUnsignedByte(frame);
+                int position = GameProtocol.getUnsignedShort(frame);
+                if(kind==GameProtocol.PASSED)
+                    player.gameBoard.skipTurn();
+                else
+                {
+                    if(position==player.sentPosition)
+                    {
+                        roundTrips.record(System.nanoTime() - player.sentAt);
+                        moves++;
+                        player.sentPosition = -1;
+                    }
+                    if(player.gameBoard.onPositionPlayed(position)==null)
+                        errors++;
+                }
+                scheduleTurn(player);
+                break;
+            case GameProtocol.GAME_OVER:
+                finishedGames++;
+                runningGames.remove(Integer.valueOf(player.gameId));
+                moveSentAt.remove(player.gameId);
+                player.gameBoard = null;
+                send(player, GameProtocol.match(size));
+                break;
+            case GameProtocol.ILLEGAL_MOVE:
+            case GameProtocol.ERROR:
+                errors++;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Handle a message of the server to a spectator: keep its copy of the board up to date, and check it against the pieces
+     * counted by the server when the game ends.
+     * @param spectator The spectator receiving the message
+     * @param frame The message, starting with its type
+     */
+    private void handle(Spectator spectator, ByteBuffer frame)
+    {
+        int length = GameProtocol.HEADER_LENGTH + frame.remaining();
+        switch(GameProtocol.getUnsignedByte(frame))
+        {
+            case GameProtocol.SNAPSHOT:
+                if(frame.getInt()!=spectator.gameId)
+                    return;
+                spectator.boardSize = GameProtocol.getUnsignedShort(frame);
+                frame.getInt();
+                spectator.playerToMove = GameProtocol.getUnsignedByte(frame);
+                GameProtocol.getString(frame);
+                GameProtocol.getString(frame);
+                spectator.owners = GameProtocol.getOwners(frame, spectator.boardSize);
+                snapshots++;
+                snapshotBytes += length;
+                if(spectator.synced)
+                    resyncs++;
+                spectator.synced = true;
+                break;
+            case GameProtocol.DELTA:
+                int gameId = frame.getInt();
+                if(gameId!=spectator.gameId || spectator.owners==null)
+                    return;
+                frame.getInt();
+                int kind = GameProtocol.getUnsignedByte(frame);
+                int position = GameProtocol.getUnsignedShort(frame);
+                int[] flips = GameProtocol.getFlips(frame);
+                if(kind==GameProtocol.PLACED)
+                {
+                    GameProtocol.applyDelta(spectator.owners, spectator.boardSize, position, spectator.playerToMove, flips);
+                    Long sentAt = moveSentAt.get(gameId);
+                    if(sentAt!=null)
+                        deliveries.record(System.nanoTime() - sentAt);
+                }
+                spectator.playerToMove = spectator.playerToMove==GameBoard.PLAYER1 ? GameBoard.PLAYER2 : GameBoard.PLAYER1;
+                deltas++;
+                deltaBytes += length;
+                break;
+            case GameProtocol.GAME_OVER:
+                if(frame.getInt()!=spectator.gameId)
+                    return;
+                frame.get();
+                frame.get();
+                int pieces1 = frame.getInt();
+                int pieces2 = frame.getInt();
+                if(spectator.owners!=null)
+                {
+                    int[] counts = new int[3];
+                    for(int owner : spectator.owners)
+                        counts[owner]++;
+                    if(counts[GameBoard.PLAYER1]!=pieces1 || counts[GameBoard.PLAYER2]!=pieces2)
+                        errors++;
+                    checkedGames++;
+                }
+                watchAnyGame(spectator);
+                break;
+            case GameProtocol.ERROR:
+                //the game ended before the request to watch it arrived
+                watchAnyGame(spectator);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Let the player think about its next move, if it is its turn and it can move. A player which cannot move waits for the server
+     * to skip its turn.
+     * @param player The player
+     */
+    private void scheduleTurn(Player player)
+    {
+        GameBoard gameBoard = player.gameBoard;
+        if(player.scheduled || gameBoard==null || gameBoard.getCurrentPlayer()!=player.self || !gameBoard.hasPossiblePositions())
+            return;
+        player.due = System.nanoTime() + thinkNanos / 2 + (long) (random.nextDouble() * thinkNanos);
+        player.scheduled = true;
+        turns.add(player);
+    }
+
+    /**
+     * Play a random legal move of a player.
+     * @param player The player
+     */
+    private void playMove(Player player)
+    {
+        GameBoard gameBoard = player.gameBoard;
+        if(gameBoard==null || gameBoard.getCurrentPlayer()!=player.self)
+            return;
+        ArrayList<Integer> positions = gameBoard.getPossiblePositions();
+        if(positions.isEmpty())
+            return;
+        player.sentPosition = positions.get(random.nextInt(positions.size()));
+        player.sentAt = System.nanoTime();
+        moveSentAt.put(player.gameId, player.sentAt);
+        send(player, GameProtocol.move(player.gameId, player.sentPosition));
+    }
+
+    /**
+     * Send a message to the server.
+     * @param client The player or spectator sending the message
+     * @param frame The message
+     */
+    private void send(Client client, ByteBuffer frame)
+    {
+        client.out.add(frame);
+        flush(client);
+    }
+
+    /**
+     * Write the queued messages of a player or spectator, and wait for its socket to be writable if some are left.
+     * @param client The player or spectator
+     */
+    private void flush(Client client)
+    {
+        try {
+            while(!client.out.isEmpty())
+            {
+                client.channel.write(client.out.peek());
+                if(client.out.peek().hasRemaining())
+                    break;
+                client.out.poll();
+            }
+        } catch (IOException e) {
+            errors++;
+            client.out.clear();
+        }
+        SelectionKey key = client.channel.keyFor(selector);
+        int interest = client.out.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+        if(key!=null && key.isValid() && key.interestOps()!=interest)
+            key.interestOps(interest);
+    }
+
+    /**
+     * Disconnect every player and spectator.
+     */
+    private void close()
+    {
+        ArrayList<Client> clients = new ArrayList<>(players);
+        clients.addAll(spectators);
+        for(Client client : clients)
+        {
+            try {
+                client.channel.close();
+            } catch (IOException e) {
+                //the benchmark is over anyway
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            //the benchmark is over anyway
+        }
+    }
+
+    /**
+     * Format a duration for the table.
+     * @param nanos The duration, in nanoseconds
+     * @return The duration, in microseconds or milliseconds
+     */
+    private static String formatNanos(long nanos)
+    {
+        if(nanos < 1000000)
+            return String.format("%d us", nanos / 1000);
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+}
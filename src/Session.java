@@ -1,4 +1,9 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The session contains all of the information of two players and the current board that they are playing.
@@ -8,10 +13,18 @@ import java.io.*;
  */
 public class Session implements Serializable
 {
+    private static final long serialVersionUID = 5037204229510807062L;
 
     private SessionPlayer player1, player2;
     private GameBoard gameBoard;
     private String status;
+    private ArrayList<GameTranscript> games = new ArrayList<>();
+
+    public static final String QUICK_SAVE_NAME = "QUICK";
+
+    private static final MetricsRegistry.Counter saveBytes = MetricsRegistry.get().counter(MetricsRegistry.SAVE_BYTES);
+    private static final MetricsRegistry.Counter loadBytes = MetricsRegistry.get().counter(MetricsRegistry.LOAD_BYTES);
+    private static final MetricsRegistry.Histogram loadLatency = MetricsRegistry.get().histogram(MetricsRegistry.LOAD_LATENCY);
 
     /**
      * Constructor for a Session object.
@@ -28,6 +41,31 @@ public class Session implements Serializable
         this.status = status;
     }
 
+    /**
+     * Create a snapshot of the session: a deep copy which does not share any mutable state with this session. The copy can be
+     * saved on another thread while this session keeps being played.
+     * @return The snapshot of the session
+     */
+    public Session snapshot()
+    {
+        Session copy = new Session(copyPlayer(player1), copyPlayer(player2), gameBoard==null ? null : new GameBoard(gameBoard), status);
+        copy.games.addAll(games);
+        return copy;
+    }
+
+    /**
+     * Copy a session player.
+     * @param player The player
+     * @return The copy of the player
+     */
+    private static SessionPlayer copyPlayer(SessionPlayer player)
+    {
+        SessionPlayer copy = new SessionPlayer(player.getName());
+        copy.changeScore(player.getWins());
+        copy.changeNumberOfPieces(player.getPieces());
+        return copy;
+    }
+
     /**
      * Get Player 1.
      * @return Player 1
@@ -55,6 +93,35 @@ public class Session implements Serializable
         return gameBoard;
     }
 
+    /**
+     * Get the transcripts of the games finished in this session, in the order they were played.
+     * @return The transcripts of the finished games
+     */
+    public List<GameTranscript> getGames()
+    {
+        return new ArrayList<>(games);
+    }
+
+    /**
+     * Add the transcript of a finished game to the session.
+     * @param game The transcript
+     */
+    public void addGame(GameTranscript game)
+    {
+        if(game==null)
+            throw new IllegalArgumentException("The game cannot be null.");
+        games.add(game);
+    }
+
+    /**
+     * Get the transcript of the game in progress.
+     * @return The transcript, or null if there is no game in progress or its moves are not all known
+     */
+    public GameTranscript getTranscript()
+    {
+        return gameBoard==null ? null : GameTranscript.of(gameBoard);
+    }
+
     /**
      * Get the status of the game in-progress.
      * @return The status
@@ -62,7 +129,7 @@ public class Session implements Serializable
     public String getStatus(){ return status; }
 
     /**
-     * Save the session to a file with the specified name.
+     * Save the session to a file with the specified name, in the binary save format.
      * @param fileName The name of the file where the session will be saved
      * @throws SaveSessionException
      */
@@ -70,9 +137,21 @@ public class Session implements Serializable
     {
         createSavesFolder();
 
-        String saveString = "./saves/"+fileName+".rev";
-        try (ObjectOutputStream outStream = new ObjectOutputStream(new FileOutputStream(saveString, false))) {
-            outStream.writeObject(this);
+        String saveString = getSavePath(fileName);
+        GameEvents.SessionSaved event = new GameEvents.SessionSaved();
+        event.begin();
+        try {
+            byte[] data = SessionFormat.encode(this);
+            writeSaveFile(saveString, data);
+            saveBytes.add(data.length);
+            event.end();
+            if(event.shouldCommit())
+            {
+                event.file = saveString;
+                event.kind = "save";
+                event.bytes = data.length;
+                event.commit();
+            }
         }
         catch (IOException e) {
 
@@ -81,11 +160,12 @@ public class Session implements Serializable
     }
 
     /**
-     * Save the session to a file with a predefined name.
-     * @throws SaveSessionException
+     * Get the name of the autosave file of this session.
+     * @return The file name, without the folder and the extension
      */
-    public void autoSave() throws SaveSessionException {
-        saveToFile("AUTO " + this.player1.getName() + "-" + this.player2.getName());
+    public String getAutoSaveName()
+    {
+        return "AUTO " + this.player1.getName() + "-" + this.player2.getName();
     }
 
     /**
@@ -95,26 +175,91 @@ public class Session implements Serializable
      */
     public static void quickSave(Session session) throws SaveSessionException
     {
-        session.saveToFile("QUICK");
+        session.saveToFile(QUICK_SAVE_NAME);
     }
 
     /**
      * Load a session from the given file and replace the current session with the loaded one (if possible).
+     * Both the binary save format and the serialized sessions of older versions can be loaded.
      * @param fileName The name of the file from which to load the session
      * @return The loaded session
      * @throws LoadSessionException
      */
     public static Session loadFromFile(String fileName) throws LoadSessionException
     {
-        try(ObjectInputStream inStream = new ObjectInputStream(new FileInputStream(fileName)))
+        GameEvents.SessionLoaded event = new GameEvents.SessionLoaded();
+        event.begin();
+        long start = System.nanoTime();
+        try(InputStream inStream = new FileInputStream(fileName))
         {
-            return (Session) inStream.readObject();
+            byte[] data = inStream.readAllBytes();
+            Session session = SessionFormat.decode(data);
+            SessionJournal.replay(fileName, data, session);
+            event.end();
+            File journal = new File(fileName + SessionJournal.EXTENSION);
+            long bytes = data.length + (journal.isFile() ? journal.length() : 0);
+            loadLatency.record(System.nanoTime() - start);
+            loadBytes.add(bytes);
+            if(event.shouldCommit())
+            {
+                event.file = fileName;
+                event.bytes = bytes;
+                event.commit();
+            }
+            return session;
         }
-        catch(Exception ex) {
+        catch(IOException ex) {
             throw new LoadSessionException("Could not load the file.");
         }
     }
 
+    /**
+     * Get the path of the save file with the given name.
+     * @param fileName The name of the save file, without the folder and the extension
+     * @return The path of the save file
+     */
+    public static String getSavePath(String fileName)
+    {
+        return "./saves/"+fileName+".rev";
+    }
+
+    /**
+     * Write a save file atomically. The data is written and synced to a temporary file in the same folder, which then replaces the
+     * save file in a single rename, so a crash leaves either the old or the new file, but never a partial one.
+     * @param path The path of the save file
+     * @param data The contents of the save file
+     * @throws IOException If the file could not be written
+     */
+    public static void writeSaveFile(String path, byte[] data) throws IOException
+    {
+        Path target = Paths.get(path).toAbsolutePath();
+        Path folder = target.getParent();
+        Path temporary = Files.createTempFile(folder, "." + target.getFileName(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+                channel.force(true);
+            }
+
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        try (FileChannel directory = FileChannel.open(folder, StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            //not every platform can sync a folder; the rename itself is still atomic
+        }
+    }
+
     /**
      * Create a saves folder if it does not exist.
      */
@@ -151,6 +296,19 @@ public class Session implements Serializable
         this.player1 = player1;
     }
 
+    /**
+     * Restore a session, giving sessions saved before the games were recorded an empty list of games.
+     * @param in The input stream
+     * @throws IOException If the session could not be read
+     * @throws ClassNotFoundException If a class of the session could not be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        if(games==null)
+            games = new ArrayList<>();
+    }
+
     /**
      * Change player 2 to a new player.
      * @param player2 The new player 2
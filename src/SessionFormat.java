@@ -0,0 +1,454 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The binary format of the save files. A save file contains a header (the magic bytes, the format version, the length and the
+ * checksum of the rest of the file), the names and scores of both players, the status, and the board, whose cells are packed four
+ * to a byte.
+ *
+ * <pre>
+ * magic     4 bytes   'R' 'E' 'V' 'B'
+ * version   1 byte
+ * length    int       length of the payload (since version 2)
+ * checksum  int       CRC32 of the payload (since version 2)
+ * player 1  UTF name, int wins
+ * player 2  UTF name, int wins
+ * status    UTF
+ * flags     1 byte    HAS_BOARD, PLAYER_TWO_TO_MOVE, HISTORY_COMPLETE
+ * size      1 byte, unsigned short since version 4 (only if HAS_BOARD)
+ * cells     2 bits per cell, in list order, first cell in the lowest bits (only if HAS_BOARD)
+ * history   varint count, varint (move + 1) per move, 0 for a skipped turn (only if HAS_BOARD, since version 3)
+ * games     varint count, then per finished game: varint size, varint count, varint (move + 1) per move (since version 3)
+ * </pre>
+ *
+ * The header is enough to reject a truncated or foreign file without reading the payload. Files written by older versions of the
+ * game, which contain a serialized Session object, can still be read, but only when the user loads them.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public final class SessionFormat
+{
+    public static final int VERSION = 4;
+
+    private static final byte[] MAGIC = {'R', 'E', 'V', 'B'};
+    private static final int SERIALIZED_MAGIC = 0xACED;
+    private static final int HEADER_LENGTH = 13;
+
+    private static final int HAS_BOARD = 1, PLAYER_TWO_TO_MOVE = 2, HISTORY_COMPLETE = 4;
+
+    private SessionFormat()
+    {
+    }
+
+    /**
+     * Encode the given session.
+     * @param session The session to encode
+     * @return The encoded session
+     * @throws IOException If the session could not be encoded
+     */
+    public static byte[] encode(Session session) throws IOException
+    {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(128);
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        writePlayer(payload, session.getPlayer1());
+        writePlayer(payload, session.getPlayer2());
+        payload.writeUTF(session.getStatus()==null ? "" : session.getStatus());
+        writeBoard(payload, session.getGameBoard());
+        writeGames(payload, session.getGames());
+        payload.flush();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_LENGTH + payloadBytes.size());
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(payloadBytes.size());
+        out.writeInt((int) checksum(payloadBytes.toByteArray()));
+        payloadBytes.writeTo(out);
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a session from the given bytes. Both the binary format and the serialized format of older versions are accepted.
+     * @param data The encoded session
+     * @return The decoded session
+     * @throws LoadSessionException If the data is not a valid session
+     */
+    public static Session decode(byte[] data) throws LoadSessionException
+    {
+        if(isSerialized(data))
+            return decodeSerialized(data);
+        if(!isBinary(data))
+            throw new LoadSessionException("The file is not a Reversi save file.");
+
+        try
+        {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, MAGIC.length, data.length - MAGIC.length));
+            int version = in.readUnsignedByte();
+            if(version > VERSION)
+                throw new LoadSessionException("The save file was written by a newer version of the game.");
+            if(version >= 2)
+            {
+                int length = in.readInt();
+                int expectedChecksum = in.readInt();
+                CRC32 crc = new CRC32();
+                if(length!=data.length - HEADER_LENGTH)
+                    throw new LoadSessionException("The save file is damaged.");
+                crc.update(data, HEADER_LENGTH, length);
+                if((int) crc.getValue()!=expectedChecksum)
+                    throw new LoadSessionException("The save file is damaged.");
+            }
+
+            SessionPlayer player1 = readPlayer(in);
+            SessionPlayer player2 = readPlayer(in);
+            String status = in.readUTF();
+            GameBoard gameBoard = readBoard(in, version, player1, player2);
+            ArrayList<GameTranscript> games = version >= 3 ? readGames(in) : new ArrayList<>();
+
+            if(gameBoard!=null)
+            {
+                player1.changeNumberOfPieces(gameBoard.getPlayerOnePieces());
+                player2.changeNumberOfPieces(gameBoard.getPlayerTwoPieces());
+            }
+            Session session = new Session(player1, player2, gameBoard, status);
+            for(GameTranscript game : games)
+                session.addGame(game);
+            return session;
+        }
+        catch(IOException | IllegalArgumentException ex) {
+            throw new LoadSessionException("The save file is damaged.");
+        }
+    }
+
+    /**
+     * Read the session of a save file to describe it, replaying its autosave journal. Unlike Session.loadFromFile(), it is not
+     * counted as a load in the metrics or the recorded events, and files saved by older versions of the game are not deserialized.
+     * @param file The save file
+     * @return The session, or null if the file was saved by an older version of the game
+     * @throws LoadSessionException If the file is not a valid save file
+     */
+    public static Session readSummary(File file) throws LoadSessionException
+    {
+        try(InputStream in = new FileInputStream(file))
+        {
+            byte[] header = in.readNBytes(HEADER_LENGTH);
+            if(isSerialized(header))
+                return null;
+            if(!isBinary(header))
+                throw new LoadSessionException("The file is not a Reversi save file.");
+
+            byte[] payload = in.readAllBytes();
+            byte[] data = Arrays.copyOf(header, header.length + payload.length);
+            System.arraycopy(payload, 0, data, header.length, payload.length);
+            Session session = decode(data);
+            SessionJournal.replay(file.getPath(), data, session);
+            return session;
+        }
+        catch(IOException ex) {
+            throw new LoadSessionException("Could not load the file.");
+        }
+    }
+
+    /**
+     * Checks whether the given data starts with the header of the binary format.
+     * @param data The data
+     * @return true, if the data is in the binary format, false otherwise
+     */
+    public static boolean isBinary(byte[] data)
+    {
+        if(data==null || data.length <= MAGIC.length)
+            return false;
+        for(int i = 0; i < MAGIC.length; i++)
+            if(data[i]!=MAGIC[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Checks whether the given file looks like a valid save file, by reading only its header. Binary files must have a known version
+     * and exactly the length announced in the header; the checksum of the payload is only verified when the file is loaded.
+     * @param file The file to check
+     * @return true, if the file can be offered for loading, false otherwise
+     */
+    public static boolean isValidSaveFile(File file)
+    {
+        try(DataInputStream in = new DataInputStream(new FileInputStream(file)))
+        {
+            byte[] header = new byte[HEADER_LENGTH];
+            int read = in.readNBytes(header, 0, HEADER_LENGTH);
+            if(isSerialized(header))
+                return true;
+            if(read <= MAGIC.length || !isBinary(header))
+                return false;
+
+            int version = header[MAGIC.length] & 0xFF;
+            if(version==1)
+                return true;
+            if(version > VERSION || read < HEADER_LENGTH)
+                return false;
+
+            int length = (header[5] & 0xFF) << 24 | (header[6] & 0xFF) << 16 | (header[7] & 0xFF) << 8 | (header[8] & 0xFF);
+            return length==file.length() - HEADER_LENGTH;
+        }
+        catch(IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Compute the CRC32 checksum of the given data.
+     * @param data The data
+     * @return The checksum
+     */
+    private static long checksum(byte[] data)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    /**
+     * Checks whether the given data is a serialized Java object, as written by older versions of the game.
+     * @param data The data
+     * @return true, if the data is serialized, false otherwise
+     */
+    public static boolean isSerialized(byte[] data)
+    {
+        return data!=null && data.length >= 2 && ((data[0] & 0xFF) << 8 | (data[1] & 0xFF))==SERIALIZED_MAGIC;
+    }
+
+    /**
+     * Write the board, preceded by its flags.
+     * @param out The output
+     * @param gameBoard The board, or null if there is none
+     * @throws IOException If the board could not be written
+     */
+    static void writeBoard(DataOutputStream out, GameBoard gameBoard) throws IOException
+    {
+        if(gameBoard==null)
+        {
+            out.writeByte(0);
+            return;
+        }
+
+        int flags = HAS_BOARD;
+        if(gameBoard.getCurrentPlayer()==gameBoard.getPlayer2())
+            flags |= PLAYER_TWO_TO_MOVE;
+        if(gameBoard.isHistoryComplete())
+            flags |= HISTORY_COMPLETE;
+        out.writeByte(flags);
+
+        int size = gameBoard.getSize();
+        out.writeShort(size);
+        out.write(packCells(gameBoard));
+
+        writeVarInt(out, gameBoard.getMoveCount());
+        for(int index = 0; index < gameBoard.getMoveCount(); index++)
+            writeVarInt(out, gameBoard.getMove(index) + 1);
+    }
+
+    /**
+     * Read a board written by writeBoard().
+     * @param in The input
+     * @param version The version of the format
+     * @param player1 The first player of the session
+     * @param player2 The second player of the session
+     * @return The board, or null if there is none
+     * @throws IOException If the board could not be read
+     */
+    static GameBoard readBoard(DataInputStream in, int version, SessionPlayer player1, SessionPlayer player2) throws IOException
+    {
+        int flags = in.readUnsignedByte();
+        if((flags & HAS_BOARD)==0)
+            return null;
+
+        int size = version >= 4 ? in.readUnsignedShort() : in.readUnsignedByte();
+        byte[] packed = new byte[packedLength(size)];
+        in.readFully(packed);
+
+        int[] history = null;
+        if(version >= 3)
+        {
+            history = readMoves(in, size);
+            if((flags & HISTORY_COMPLETE)==0)
+                history = null;
+        }
+
+        return new GameBoard(new BoardPlayer(player1.getName()), new BoardPlayer(player2.getName()), size,
+                unpackCells(packed, size), (flags & PLAYER_TWO_TO_MOVE)==0, history);
+    }
+
+    /**
+     * Write the transcripts of the finished games of a session.
+     * @param out The output
+     * @param games The transcripts
+     * @throws IOException If the transcripts could not be written
+     */
+    private static void writeGames(DataOutputStream out, List<GameTranscript> games) throws IOException
+    {
+        writeVarInt(out, games.size());
+        for(GameTranscript game : games)
+        {
+            writeVarInt(out, game.getSize());
+            writeVarInt(out, game.getMoveCount());
+            for(int index = 0; index < game.getMoveCount(); index++)
+                writeVarInt(out, game.getMove(index) + 1);
+        }
+    }
+
+    /**
+     * Read the transcripts written by writeGames().
+     * @param in The input
+     * @return The transcripts
+     * @throws IOException If the transcripts could not be read
+     */
+    private static ArrayList<GameTranscript> readGames(DataInputStream in) throws IOException
+    {
+        int count = readVarInt(in);
+        ArrayList<GameTranscript> games = new ArrayList<>();
+        for(int i = 0; i < count; i++)
+        {
+            int size = readVarInt(in);
+            games.add(new GameTranscript(size, readMoves(in, size)));
+        }
+        return games;
+    }
+
+    /**
+     * Read a list of moves, preceded by their count.
+     * @param in The input
+     * @param size The size of the board the moves are played on
+     * @return The moves, with GameBoard.PASS for skipped turns
+     * @throws IOException If the moves could not be read
+     */
+    private static int[] readMoves(DataInputStream in, int size) throws IOException
+    {
+        int count = readVarInt(in);
+        if(count > 2 * size * size + 2)
+            throw new IOException("Too many moves for the board.");
+        int[] moves = new int[count];
+        for(int index = 0; index < count; index++)
+            moves[index] = readVarInt(in) - 1;
+        return moves;
+    }
+
+    /**
+     * Write a non-negative number in as few bytes as possible, seven bits per byte.
+     * @param out The output
+     * @param value The number
+     * @throws IOException If the number could not be written
+     */
+    static void writeVarInt(DataOutput out, int value) throws IOException
+    {
+        while((value & ~0x7F)!=0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Read a number written by writeVarInt().
+     * @param in The input
+     * @return The number
+     * @throws IOException If the number could not be read
+     */
+    static int readVarInt(DataInput in) throws IOException
+    {
+        int value = 0;
+        for(int shift = 0; shift < 32; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80)==0)
+                return value;
+        }
+        throw new IOException("The number is too long.");
+    }
+
+    /**
+     * Pack the owners of the cells of the board, four cells to a byte.
+     * @param gameBoard The board
+     * @return The packed cells
+     */
+    public static byte[] packCells(GameBoard gameBoard)
+    {
+        int size = gameBoard.getSize();
+        byte[] packed = new byte[packedLength(size)];
+        for(int position = 0; position < size * size; position++)
+            packed[position >> 2] |= gameBoard.getOwner(position) << ((position & 3) << 1);
+        return packed;
+    }
+
+    /**
+     * Unpack the owners of the cells packed by packCells().
+     * @param packed The packed cells
+     * @param size The size of the board
+     * @return The owner of every cell, in list order
+     */
+    public static int[] unpackCells(byte[] packed, int size)
+    {
+        int[] owners = new int[size * size];
+        for(int position = 0; position < owners.length; position++)
+            owners[position] = (packed[position >> 2] >> ((position & 3) << 1)) & 3;
+        return owners;
+    }
+
+    /**
+     * Get the number of bytes needed to pack the cells of a board of the given size.
+     * @param size The size of the board
+     * @return The number of bytes
+     */
+    public static int packedLength(int size)
+    {
+        return (size * size + 3) / 4;
+    }
+
+    /**
+     * Write the name and the score of a player.
+     * @param out The output
+     * @param player The player
+     * @throws IOException If the player could not be written
+     */
+    private static void writePlayer(DataOutputStream out, SessionPlayer player) throws IOException
+    {
+        out.writeUTF(player.getName());
+        out.writeInt(player.getWins());
+    }
+
+    /**
+     * Read a player written by writePlayer().
+     * @param in The input
+     * @return The player
+     * @throws IOException If the player could not be read
+     */
+    private static SessionPlayer readPlayer(DataInputStream in) throws IOException
+    {
+        SessionPlayer player = new SessionPlayer(in.readUTF());
+        player.changeScore(in.readInt());
+        return player;
+    }
+
+    /**
+     * Decode a session saved as a serialized Java object by older versions of the game.
+     * @param data The serialized session
+     * @return The session
+     * @throws LoadSessionException If the data is not a valid session
+     */
+    private static Session decodeSerialized(byte[] data) throws LoadSessionException
+    {
+        try(ObjectInputStream inStream = new ObjectInputStream(new ByteArrayInputStream(data)))
+        {
+            return (Session) inStream.readObject();
+        }
+        catch(Exception ex) {
+            throw new LoadSessionException("Could not load the file.");
+        }
+    }
+}
@@ -0,0 +1,265 @@
+import java.io.*;
+import java.util.zip.CRC32;
+
+/**
+ * The autosave journal of a session. Instead of rewriting the whole session after every move, a snapshot of the session is saved
+ * once, and every following move is appended to a journal file next to it. The journal is compacted into a new snapshot after a
+ * number of moves, or whenever the journal cannot describe the change (a new game, a new score).
+ *
+ * <pre>
+ * header    4 bytes 'R' 'E' 'V' 'J', 1 byte version, 4 bytes CRC32 of the snapshot file
+ * record    2 bytes square, 1 byte flags (PASS), 2 bytes checksum of the sequence number, square and flags
+ * </pre>
+ *
+ * Snapshots are written atomically. Appended records are not synced, to keep autosaving cheap: a journal whose header does not
+ * match the snapshot is ignored, and replaying stops at the first damaged record, so a crash only loses the last moves.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class SessionJournal
+{
+    public static final String EXTENSION = "j";
+
+    private static final byte[] MAGIC = {'R', 'E', 'V', 'J'};
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + 4;
+    private static final int RECORD_LENGTH = 5;
+    private static final int PASS_FLAG = 1;
+    private static final int COMPACT_AFTER = 32;
+
+    private static final MetricsRegistry.Counter savedBytes = MetricsRegistry.get().counter(MetricsRegistry.SAVE_BYTES);
+
+    private final String fileName;
+    private long journaledGameId;
+    private int journaledMoves;
+    private int recordsSinceSnapshot;
+    private int wins1, wins2;
+    private DataOutputStream journal;
+
+    /**
+     * Create a journal for the save file with the given name. Nothing is written until the first call to record().
+     * @param fileName The name of the save file, without the folder and the extension
+     */
+    public SessionJournal(String fileName)
+    {
+        if(fileName==null || fileName.isBlank())
+            throw new IllegalArgumentException("The file name cannot be null or empty.");
+        this.fileName = fileName;
+    }
+
+    /**
+     * Record the current state of the session. Moves played since the last call are appended to the journal; a new snapshot is
+     * written if the journal cannot describe the change, or if it has grown long enough to be compacted.
+     * @param session The session
+     * @throws SaveSessionException If the session could not be saved
+     */
+    public void record(Session session) throws SaveSessionException
+    {
+        GameBoard gameBoard = session.getGameBoard();
+        try
+        {
+            if(needsSnapshot(session))
+            {
+                writeSnapshot(session);
+                return;
+            }
+
+            GameEvents.SessionSaved event = new GameEvents.SessionSaved();
+            event.begin();
+            int records = gameBoard.getMoveCount() - journaledMoves;
+            for(int index = journaledMoves; index < gameBoard.getMoveCount(); index++)
+                writeRecord(recordsSinceSnapshot++, gameBoard.getMove(index));
+            journaledMoves = gameBoard.getMoveCount();
+            journal.flush();
+            savedBytes.add((long) records * RECORD_LENGTH);
+            event.end();
+            if(event.shouldCommit())
+            {
+                event.file = Session.getSavePath(fileName) + EXTENSION;
+                event.kind = "journal";
+                event.bytes = (long) records * RECORD_LENGTH;
+                event.commit();
+            }
+
+            if(recordsSinceSnapshot >= COMPACT_AFTER)
+                writeSnapshot(session);
+        }
+        catch(IOException e) {
+            close();
+            throw new SaveSessionException("Could not write the autosave journal.");
+        }
+    }
+
+    /**
+     * Close the journal file. The next call to record() will write a new snapshot.
+     */
+    public void close()
+    {
+        if(journal!=null)
+        {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                //the journal is replaced by the next snapshot
+            }
+        }
+        journal = null;
+    }
+
+    /**
+     * Get the name of the save file of this journal.
+     * @return The file name, without the folder and the extension
+     */
+    public String getFileName()
+    {
+        return fileName;
+    }
+
+    /**
+     * Checks whether the change since the last call can not be appended to the journal.
+     * @param session The session
+     * @return true, if a new snapshot has to be written, false otherwise
+     */
+    private boolean needsSnapshot(Session session)
+    {
+        GameBoard gameBoard = session.getGameBoard();
+        return journal==null
+                || gameBoard==null
+                || gameBoard.getGameId()!=journaledGameId
+                || gameBoard.getMoveCount() < journaledMoves
+                || session.getPlayer1().getWins()!=wins1
+                || session.getPlayer2().getWins()!=wins2;
+    }
+
+    /**
+     * Save the whole session and start a new, empty journal for it.
+     * @param session The session
+     * @throws IOException If the snapshot or the journal could not be written
+     */
+    private void writeSnapshot(Session session) throws IOException
+    {
+        close();
+
+        GameEvents.SessionSaved event = new GameEvents.SessionSaved();
+        event.begin();
+        byte[] snapshot = SessionFormat.encode(session);
+        Session.createSavesFolder();
+        Session.writeSaveFile(Session.getSavePath(fileName), snapshot);
+
+        journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(Session.getSavePath(fileName) + EXTENSION, false)));
+        journal.write(MAGIC);
+        journal.writeByte(VERSION);
+        journal.writeInt((int) checksum(snapshot));
+        journal.flush();
+        savedBytes.add(snapshot.length + HEADER_LENGTH);
+        event.end();
+        if(event.shouldCommit())
+        {
+            event.file = Session.getSavePath(fileName);
+            event.kind = "snapshot";
+            event.bytes = snapshot.length + HEADER_LENGTH;
+            event.commit();
+        }
+
+        GameBoard gameBoard = session.getGameBoard();
+        journaledGameId = gameBoard==null ? 0 : gameBoard.getGameId();
+        journaledMoves = gameBoard==null ? 0 : gameBoard.getMoveCount();
+        recordsSinceSnapshot = 0;
+        wins1 = session.getPlayer1().getWins();
+        wins2 = session.getPlayer2().getWins();
+    }
+
+    /**
+     * Append a move to the journal.
+     * @param sequence The index of the record since the snapshot
+     * @param move The list position of the move, or GameBoard.PASS
+     * @throws IOException If the record could not be written
+     */
+    private void writeRecord(int sequence, int move) throws IOException
+    {
+        int square = move==GameBoard.PASS ? 0 : move;
+        int flags = move==GameBoard.PASS ? PASS_FLAG : 0;
+        journal.writeShort(square);
+        journal.writeByte(flags);
+        journal.writeShort(recordChecksum(sequence, square, flags));
+    }
+
+    /**
+     * Replay the journal of the given save file onto the session loaded from it. If there is no journal, or it belongs to an older
+     * snapshot, the session is left unchanged.
+     * @param savePath The path of the save file
+     * @param snapshot The contents of the save file
+     * @param session The session loaded from the save file
+     */
+    public static void replay(String savePath, byte[] snapshot, Session session)
+    {
+        File journalFile = new File(savePath + EXTENSION);
+        GameBoard gameBoard = session.getGameBoard();
+        if(gameBoard==null || !journalFile.isFile())
+            return;
+
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile))))
+        {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            for(int i = 0; i < MAGIC.length; i++)
+                if(magic[i]!=MAGIC[i])
+                    return;
+            if(in.readUnsignedByte()!=VERSION || in.readInt()!=(int) checksum(snapshot))
+                return;
+
+            long records = (journalFile.length() - HEADER_LENGTH) / RECORD_LENGTH;
+            for(int sequence = 0; sequence < records; sequence++)
+            {
+                int square = in.readUnsignedShort();
+                int flags = in.readUnsignedByte();
+                if(in.readUnsignedShort()!=recordChecksum(sequence, square, flags))
+                    break;
+
+                if((flags & PASS_FLAG)!=0)
+                    gameBoard.skipTurn();
+                else if(gameBoard.onPositionPlayed(square)==null)
+                    break;
+            }
+        }
+        catch(IOException | IllegalArgumentException e) {
+            //everything replayed before the damaged part is kept
+        }
+
+        session.getPlayer1().changeNumberOfPieces(gameBoard.getPlayerOnePieces());
+        session.getPlayer2().changeNumberOfPieces(gameBoard.getPlayerTwoPieces());
+    }
+
+    /**
+     * Compute the CRC32 checksum of the given data.
+     * @param data The data
+     * @return The checksum
+     */
+    private static long checksum(byte[] data)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    /**
+     * Compute the checksum of a record. The sequence number is included, so records cannot be reordered or replayed twice.
+     * @param sequence The index of the record since the snapshot
+     * @param square The square of the record
+     * @param flags The flags of the record
+     * @return The 16-bit checksum
+     */
+    private static int recordChecksum(int sequence, int square, int flags)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(sequence >>> 24);
+        crc.update(sequence >>> 16);
+        crc.update(sequence >>> 8);
+        crc.update(sequence);
+        crc.update(square >>> 8);
+        crc.update(square);
+        crc.update(flags);
+        return (int) (crc.getValue() & 0xFFFF);
+    }
+}
@@ -0,0 +1,741 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * A store for the many sessions of a game server, kept in a few large files instead of one file per session. Every save is
+ * appended to the newest segment file, and an index in memory maps the id of every session to its latest record, so a session
+ * is loaded with a single read. When a segment is full, a new one is started.
+ *
+ * Saves are made durable in groups: one background thread syncs the newest segment whenever something was appended since its last
+ * sync, so the threads waiting in save() share one sync between them instead of syncing once each. Older records of a session
+ * are garbage; another background thread copies the live records of the segments which are mostly garbage to the newest segment,
+ * and deletes them.
+ *
+ * <pre>
+ * segment   4 bytes 'R' 'E' 'V' 'L', 1 byte version, then records
+ * record    int length of the body, int CRC32 of the body, then the body:
+ *           byte type (PUT, DELETE), short length and UTF-8 bytes of the id, session in the binary save format (PUT only)
+ * </pre>
+ *
+ * When the store is opened, the segments are read in order to rebuild the index. A record which is damaged or cut short ends its
+ * segment, so a crash while appending only loses the saves which had not been synced yet.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class SessionStore implements Closeable
+{
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    private static final byte[] MAGIC = {'R', 'E', 'V', 'L'};
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+    private static final int RECORD_HEADER_LENGTH = 8;
+    private static final int PUT = 1, DELETE = 2;
+    private static final String PREFIX = "segment-", EXTENSION = ".log";
+    private static final double GARBAGE_RATIO = 0.5;
+    private static final long COMPACT_PERIOD_SECONDS = 30;
+    private static final int MAX_READ_ATTEMPTS = 3;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final MetricsRegistry.Counter savedBytes = MetricsRegistry.get().counter(MetricsRegistry.SAVE_BYTES);
+    private static final MetricsRegistry.Counter loadedBytes = MetricsRegistry.get().counter(MetricsRegistry.LOAD_BYTES);
+    private static final MetricsRegistry.Counter syncs = MetricsRegistry.get().counter(MetricsRegistry.STORE_SYNCS);
+    private static final MetricsRegistry.Histogram syncTimes = MetricsRegistry.get().histogram(MetricsRegistry.STORE_SYNC_TIME);
+    private static final MetricsRegistry.Counter compactedBytes = MetricsRegistry.get().counter(MetricsRegistry.STORE_COMPACTED);
+
+    private final File folder;
+    private final long segmentBytes;
+    private final HashMap<String, Location> index = new HashMap<>();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final Thread syncer;
+    private final ScheduledExecutorService compactor;
+    private final Object compaction = new Object();
+    private Segment active;
+    private long appended, synced;
+    private IOException syncFailure;
+    private boolean closed;
+
+    /**
+     * A segment file.
+     */
+    private static class Segment
+    {
+        private final int number;
+        private final File file;
+        private final FileChannel channel;
+        private long length, liveBytes;
+
+        private Segment(int number, File file, FileChannel channel, long length)
+        {
+            this.number = number;
+            this.file = file;
+            this.channel = channel;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Where the latest record of a session is.
+     */
+    private static class Location
+    {
+        private final Segment segment;
+        private final long offset;
+        private final int length;
+
+        private Location(Segment segment, long offset, int length)
+        {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Open the store in the given folder, with segments of the default size. The folder is created if it does not exist.
+     * @param folder The folder of the segment files
+     * @throws IOException If the segments could not be read
+     */
+    public SessionStore(File folder) throws IOException
+    {
+        this(folder, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Open the store in the given folder. The index is rebuilt from the segment files, and the background threads are started.
+     * @param folder The folder of the segment files
+     * @param segmentBytes The size above which a new segment is started
+     * @throws IOException If the segments could not be read
+     */
+    public SessionStore(File folder, long segmentBytes) throws IOException
+    {
+        if(folder==null)
+            throw new IllegalArgumentException("The folder cannot be null.");
+        if(segmentBytes <= HEADER_LENGTH)
+            throw new IllegalArgumentException("The segments are too small.");
+        if(!folder.isDirectory() && !folder.mkdirs())
+            throw new IOException("Could not create the folder " + folder + ".");
+        this.folder = folder;
+        this.segmentBytes = segmentBytes;
+
+        File[] files = folder.listFiles((directory, name) -> name.startsWith(PREFIX) && name.endsWith(EXTENSION));
+        TreeMap<Integer, File> sorted = new TreeMap<>();
+        for(File file : files==null ? new File[0] : files)
+        {
+            try {
+                sorted.put(Integer.parseInt(file.getName().substring(PREFIX.length(), file.getName().length() - EXTENSION.length())), file);
+            } catch (NumberFormatException e) {
+                //not a segment of this store
+            }
+        }
+        try {
+            for(Map.Entry<Integer, File> entry : sorted.entrySet())
+                recover(entry.getKey(), entry.getValue(), entry.getKey().equals(sorted.lastKey()));
+            if(segments.isEmpty() || segments.lastEntry().getValue().length >= segmentBytes)
+                startSegment();
+            else
+                active = segments.lastEntry().getValue();
+        } catch (IOException e) {
+            for(Segment segment : segments.values())
+                segment.channel.close();
+            throw e;
+        }
+
+        syncer = new Thread(this::syncLoop, "Reversi store sync");
+        syncer.setDaemon(true);
+        syncer.start();
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Reversi store compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactQuietly, COMPACT_PERIOD_SECONDS, COMPACT_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Save a session and wait until it is on the disk. Threads saving at the same time share the sync.
+     * @param id The id of the session
+     * @param session The session
+     * @throws SaveSessionException If the session could not be saved
+     */
+    public void save(String id, Session session) throws SaveSessionException
+    {
+        awaitDurable(put(id, session));
+    }
+
+    /**
+     * Append a session to the store without waiting for it to reach the disk. It can be loaded straight away.
+     * @param id The id of the session
+     * @param session The session
+     * @return The ticket to pass to awaitDurable() to wait until the session is on the disk
+     * @throws SaveSessionException If the session could not be saved
+     */
+    public long put(String id, Session session) throws SaveSessionException
+    {
+        if(session==null)
+            throw new IllegalArgumentException("The session cannot be null.");
+        byte[] encoded;
+        try {
+            encoded = SessionFormat.encode(session);
+        } catch (IOException e) {
+            throw new SaveSessionException("Could not encode the session.");
+        }
+        try {
+            return append(record(PUT, id, encoded), id);
+        } catch (IOException e) {
+            throw new SaveSessionException("Could not write to the session store.");
+        }
+    }
+
+    /**
+     * Remove a session from the store.
+     * @param id The id of the session
+     * @return true, if the session was in the store, false otherwise
+     * @throws SaveSessionException If the removal could not be written
+     */
+    public boolean delete(String id) throws SaveSessionException
+    {
+        ByteBuffer record = record(DELETE, id, new byte[0]);
+        synchronized (this) {
+            ensureOpen();
+            if(!index.containsKey(id))
+                return false;
+            try {
+                append(record, id);
+            } catch (IOException e) {
+                throw new SaveSessionException("Could not write to the session store.");
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Load a session from the store.
+     * @param id The id of the session
+     * @return The session, or null if there is no session with this id
+     * @throws LoadSessionException If the session could not be read
+     */
+    public Session load(String id) throws LoadSessionException
+    {
+        for(int attempt = 1; ; attempt++)
+        {
+            Location location;
+            synchronized (this) {
+                if(closed)
+                    throw new LoadSessionException("The session store is closed.");
+                location = index.get(id);
+            }
+            if(location==null)
+                return null;
+
+            ByteBuffer record = ByteBuffer.allocate(location.length);
+            try {
+                while(record.hasRemaining())
+                    if(location.segment.channel.read(record, location.offset + record.position()) < 0)
+                        throw new LoadSessionException("The session store is damaged.");
+            } catch (ClosedChannelException e) {
+                //the segment was compacted in the meantime, so the index points somewhere else now
+                if(attempt < MAX_READ_ATTEMPTS)
+                    continue;
+                throw new LoadSessionException("Could not read from the session store.");
+            } catch (IOException e) {
+                throw new LoadSessionException("Could not read from the session store.");
+            }
+
+            record.flip();
+            int length = record.getInt();
+            int checksum = record.getInt();
+            if(length!=location.length - RECORD_HEADER_LENGTH || checksum!=checksum(record.array(), RECORD_HEADER_LENGTH, length))
+                throw new LoadSessionException("The session store is damaged.");
+            record.get();
+            record.position(record.position() + 2 + (record.getShort(record.position()) & 0xFFFF));
+            byte[] encoded = new byte[record.remaining()];
+            record.get(encoded);
+            loadedBytes.add(location.length);
+            return SessionFormat.decode(encoded);
+        }
+    }
+
+    /**
+     * Checks whether a session is in the store.
+     * @param id The id of the session
+     * @return true, if there is a session with this id, false otherwise
+     */
+    public synchronized boolean contains(String id)
+    {
+        return index.containsKey(id);
+    }
+
+    /**
+     * Get the ids of the sessions in the store.
+     * @return A copy of the ids
+     */
+    public synchronized List<String> getIds()
+    {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * Get the number of sessions in the store.
+     * @return The number of sessions
+     */
+    public synchronized int size()
+    {
+        return index.size();
+    }
+
+    /**
+     * Get the number of segment files.
+     * @return The number of segments
+     */
+    public synchronized int getSegmentCount()
+    {
+        return segments.size();
+    }
+
+    /**
+     * Get the size of the segment files.
+     * @return The size, in bytes
+     */
+    public synchronized long getDiskBytes()
+    {
+        long bytes = 0;
+        for(Segment segment : segments.values())
+            bytes += segment.length;
+        return bytes;
+    }
+
+    /**
+     * Get the size of the latest records of the sessions, which is what the segments would take if they had no garbage.
+     * @return The size, in bytes
+     */
+    public synchronized long getLiveBytes()
+    {
+        long bytes = 0;
+        for(Segment segment : segments.values())
+            bytes += segment.liveBytes;
+        return bytes;
+    }
+
+    /**
+     * Wait until everything appended so far is on the disk.
+     * @throws SaveSessionException If the store could not be synced
+     */
+    public void sync() throws SaveSessionException
+    {
+        long ticket;
+        synchronized (this) {
+            ticket = appended;
+        }
+        awaitDurable(ticket);
+    }
+
+    /**
+     * Wait until the sessions appended up to the given ticket are on the disk.
+     * @param ticket The ticket returned by put()
+     * @throws SaveSessionException If the store could not be synced, or was closed first
+     */
+    public synchronized void awaitDurable(long ticket) throws SaveSessionException
+    {
+        boolean interrupted = false;
+        while(synced < ticket && syncFailure==null && !closed)
+        {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted)
+            Thread.currentThread().interrupt();
+        if(synced < ticket)
+            throw new SaveSessionException(syncFailure!=null ? "Could not sync the session store." : "The session store is closed.");
+    }
+
+    /**
+     * Copy the live records of the segments which are mostly garbage to the newest segment, and delete them.
+     * @return The number of bytes freed on the disk
+     * @throws IOException If a segment could not be compacted
+     */
+    public long compact() throws IOException
+    {
+        synchronized (compaction) {
+            ArrayList<Segment> candidates = new ArrayList<>();
+            synchronized (this) {
+                ensureOpen();
+                for(Segment segment : segments.values())
+                    if(segment!=active && segment.liveBytes <= segment.length * (1 - GARBAGE_RATIO))
+                        candidates.add(segment);
+            }
+
+            long freed = 0;
+            for(Segment segment : candidates)
+            {
+                long copied = copyLiveRecords(segment);
+                try {
+                    sync();
+                } catch (SaveSessionException e) {
+                    throw new IOException("Could not sync the copied records.");
+                }
+                synchronized (this) {
+                    segments.remove(segment.number);
+                }
+                segment.channel.close();
+                if(!segment.file.delete())
+                    throw new IOException("Could not delete " + segment.file + ".");
+                freed += segment.length - copied;
+            }
+            compactedBytes.add(freed);
+            return freed;
+        }
+    }
+
+    /**
+     * Sync what is left, stop the background threads and close the segment files.
+     */
+    @Override
+    public void close()
+    {
+        try {
+            sync();
+        } catch (SaveSessionException e) {
+            //the store is closing anyway, and the failure was reported to the waiting savers
+        }
+        compactor.shutdown();
+        synchronized (compaction) {
+            synchronized (this) {
+                if(closed)
+                    return;
+                closed = true;
+                notifyAll();
+            }
+        }
+        try {
+            syncer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for(Segment segment : segments.values())
+        {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                //nothing is written any more
+            }
+        }
+    }
+
+    /**
+     * Build a record.
+     * @param type The type of the record, PUT or DELETE
+     * @param id The id of the session
+     * @param encoded The session in the binary save format, empty for DELETE
+     * @return The record, ready to be appended
+     */
+    private static ByteBuffer record(int type, String id, byte[] encoded)
+    {
+        if(id==null || id.isBlank())
+            throw new IllegalArgumentException("The id cannot be null or empty.");
+        byte[] name = id.getBytes(StandardCharsets.UTF_8);
+        if(name.length > 0xFFFF)
+            throw new IllegalArgumentException("The id is too long.");
+
+        int length = 1 + 2 + name.length + encoded.length;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + length);
+        record.putInt(length).putInt(0).put((byte) type).putShort((short) name.length).put(name).put(encoded);
+        record.putInt(4, checksum(record.array(), RECORD_HEADER_LENGTH, length));
+        return record.flip();
+    }
+
+    /**
+     * Append a record to the newest segment and update the index.
+     * @param record The record
+     * @param id The id of the session of the record
+     * @return The ticket of the record
+     * @throws IOException If the record could not be written, or an earlier sync failed
+     */
+    private synchronized long append(ByteBuffer record, String id) throws IOException
+    {
+        ensureOpen();
+        if(syncFailure!=null)
+            throw new IOException("The session store could not be synced.");
+        if(active.length + record.remaining() > segmentBytes && active.length > HEADER_LENGTH)
+        {
+            active.channel.force(false);
+            startSegment();
+        }
+
+        int length = record.remaining();
+        long offset = active.length;
+        while(record.hasRemaining())
+            active.channel.write(record, offset + record.position());
+        active.length += length;
+        appended += length;
+        savedBytes.add(length);
+
+        Location previous;
+        if(record.get(RECORD_HEADER_LENGTH)==PUT)
+        {
+            previous = index.put(id, new Location(active, offset, length));
+            active.liveBytes += length;
+        }
+        else
+            previous = index.remove(id);
+        if(previous!=null)
+            previous.segment.liveBytes -= previous.length;
+        notifyAll();
+        return appended;
+    }
+
+    /**
+     * Copy the records of a segment which the index still points to, and the removals which may hide an older record, to the
+     * newest segment. It runs on the compaction thread; the segment is not written any more, so it is read without locking.
+     * @param segment The segment
+     * @return The number of bytes copied
+     * @throws IOException If the segment could not be read, or the records could not be written
+     */
+    private long copyLiveRecords(Segment segment) throws IOException
+    {
+        long copied = 0;
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.file), BUFFER_SIZE)))
+        {
+            in.skipNBytes(HEADER_LENGTH);
+            for(long offset = HEADER_LENGTH; offset < segment.length; )
+            {
+                int length = in.readInt();
+                ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + length);
+                record.putInt(length);
+                in.readFully(record.array(), 4, RECORD_HEADER_LENGTH - 4 + length);
+                String id = readId(record);
+
+                synchronized (this) {
+                    boolean copy;
+                    if(record.get(RECORD_HEADER_LENGTH)==PUT)
+                    {
+                        Location location = index.get(id);
+                        copy = location!=null && location.segment==segment && location.offset==offset;
+                    }
+                    else
+                        copy = !index.containsKey(id) && segments.firstKey()!=segment.number;
+                    if(copy)
+                    {
+                        append(record.clear(), id);
+                        copied += record.capacity();
+                    }
+                }
+                offset += record.capacity();
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * Read a segment file when the store is opened, and add its records to the index.
+     * @param number The number of the segment
+     * @param file The segment file
+     * @param last true, if it is the newest segment, whose damaged end is cut off so new records can be appended
+     * @throws IOException If the segment could not be read
+     */
+    private void recover(int number, File file, boolean last) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segment segment = new Segment(number, file, channel, 0);
+        segments.put(number, segment);
+        long fileLength = channel.size();
+        long offset = 0;
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)))
+        {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            for(int i = 0; i < MAGIC.length; i++)
+                if(magic[i]!=MAGIC[i])
+                    throw new IOException(file + " is not a segment of a session store.");
+            if(in.readUnsignedByte()!=VERSION)
+                throw new IOException(file + " was written by another version.");
+            offset = HEADER_LENGTH;
+
+            while(offset + RECORD_HEADER_LENGTH <= fileLength)
+            {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if(length < 3 || offset + RECORD_HEADER_LENGTH + length > fileLength)
+                    break;
+                ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + length);
+                record.putInt(length).putInt(checksum);
+                in.readFully(record.array(), RECORD_HEADER_LENGTH, length);
+                if(checksum!=checksum(record.array(), RECORD_HEADER_LENGTH, length))
+                    break;
+
+                String id = readId(record);
+                Location previous;
+                if(record.get(RECORD_HEADER_LENGTH)==PUT)
+                {
+                    previous = index.put(id, new Location(segment, offset, record.capacity()));
+                    segment.liveBytes += record.capacity();
+                }
+                else
+                    previous = index.remove(id);
+                if(previous!=null)
+                    previous.segment.liveBytes -= previous.length;
+                offset += record.capacity();
+            }
+        }
+        catch(EOFException e) {
+            //the segment was cut short
+        }
+
+        if(offset==0)
+            writeHeader(segment);
+        else
+        {
+            segment.length = offset;
+            if(offset < fileLength && last)
+            {
+                channel.truncate(offset);
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * Start a new, empty segment, which becomes the one appended to.
+     * @throws IOException If the segment file could not be created
+     */
+    private void startSegment() throws IOException
+    {
+        int number = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        File file = new File(folder, String.format("%s%08d%s", PREFIX, number, EXTENSION));
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        Segment segment = new Segment(number, file, channel, 0);
+        writeHeader(segment);
+        segments.put(number, segment);
+        active = segment;
+    }
+
+    /**
+     * Write the header of an empty segment.
+     * @param segment The segment
+     * @throws IOException If the header could not be written
+     */
+    private static void writeHeader(Segment segment) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).put(MAGIC).put((byte) VERSION).flip();
+        segment.channel.truncate(0);
+        while(header.hasRemaining())
+            segment.channel.write(header, header.position());
+        segment.channel.force(true);
+        segment.length = HEADER_LENGTH;
+    }
+
+    /**
+     * Sync the newest segment whenever something was appended since the last sync, until the store is closed or a sync fails. It
+     * runs on the sync thread. The segments before the newest are synced when they are left, so syncing the newest one is enough.
+     */
+    private void syncLoop()
+    {
+        while(true)
+        {
+            FileChannel channel;
+            long target;
+            synchronized (this) {
+                while(synced==appended && !closed)
+                {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        //the sync thread only stops when the store is closed
+                    }
+                }
+                if(synced==appended)
+                    return;
+                channel = active.channel;
+                target = appended;
+            }
+
+            long start = System.nanoTime();
+            IOException failure = null;
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                //the segment was left, and synced, in the meantime
+            } catch (IOException e) {
+                failure = e;
+            }
+            syncTimes.record(System.nanoTime() - start);
+            syncs.increment();
+
+            synchronized (this) {
+                if(failure!=null)
+                    syncFailure = failure;
+                else
+                    synced = Math.max(synced, target);
+                notifyAll();
+                if(failure!=null)
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Compact the store from the compaction thread, where a failure can only be reported.
+     */
+    private void compactQuietly()
+    {
+        try {
+            compact();
+        } catch (IOException e) {
+            System.out.println("The session store could not be compacted: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            //the store was closed
+        }
+    }
+
+    /**
+     * Make sure the store is still open.
+     */
+    private void ensureOpen()
+    {
+        if(closed)
+            throw new IllegalStateException("The session store is closed.");
+    }
+
+    /**
+     * Read the id of a record.
+     * @param record The record, starting with its header
+     * @return The id
+     */
+    private static String readId(ByteBuffer record)
+    {
+        int length = record.getShort(RECORD_HEADER_LENGTH + 1) & 0xFFFF;
+        return new String(record.array(), RECORD_HEADER_LENGTH + 3, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compute the CRC32 checksum of part of an array.
+     * @param data The array
+     * @param offset The start of the part
+     * @param length The length of the part
+     * @return The checksum
+     */
+    private static int checksum(byte[] data, int offset, int length)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,76 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+/**
+ * The log of the startup of the app. Every step of the startup is marked with the time since main() was called, and once the main
+ * frame can react to the user, the log is printed together with the time to the first interactive frame and the time since the
+ * virtual machine was started.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public final class StartupLog
+{
+    private static long start = System.nanoTime();
+    private static final ArrayList<String> steps = new ArrayList<>();
+    private static boolean finished;
+
+    /**
+     * The log is only used through the static methods.
+     */
+    private StartupLog()
+    {
+    }
+
+    /**
+     * Start the log. Should be called first thing in main().
+     */
+    public static synchronized void begin()
+    {
+        start = System.nanoTime();
+        steps.clear();
+        finished = false;
+    }
+
+    /**
+     * Mark the end of a step of the startup. Steps marked after the log was printed are printed on their own.
+     * @param step The name of the step
+     */
+    public static synchronized void mark(String step)
+    {
+        if(step==null)
+            throw new IllegalArgumentException("The step cannot be null.");
+        long time = elapsed();
+        if(finished)
+            System.out.println("Startup: " + step + " after " + time + " ms");
+        else
+            steps.add(String.format("  %-28s %6d ms", step, time));
+    }
+
+    /**
+     * Mark the first interactive frame, and print the log.
+     */
+    public static synchronized void finish()
+    {
+        if(finished)
+            return;
+        long time = elapsed();
+        long sinceLaunch = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        steps.add(String.format("  %-28s %6d ms", "First interactive frame", time));
+        finished = true;
+
+        System.out.println("Startup log:");
+        for(String line : steps)
+            System.out.println(line);
+        System.out.println("Time to first interactive frame: " + time + " ms (" + sinceLaunch + " ms since launch)");
+    }
+
+    /**
+     * Get the time since the startup began.
+     * @return The time, in milliseconds
+     */
+    private static synchronized long elapsed()
+    {
+        return (System.nanoTime() - start) / 1000000;
+    }
+}
@@ -0,0 +1,261 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the session store against one save file per session: how fast sessions are saved durably by several threads at once,
+ * how fast they are loaded, how much a compaction frees once every session has been saved several times, and how long the store
+ * takes to open again. Run it with
+ * <pre>java StoreBenchmark [--sessions 20000] [--threads 8] [--files 1000] [--rewrites 3] [--segment-mb 4] [--folder store-benchmark]</pre>
+ * where --files is the number of sessions also saved to files, for the comparison. The folder is deleted at the end, so it should
+ * be on the disk the store is meant for; a folder in memory, such as /tmp on some systems, makes every sync free.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class StoreBenchmark
+{
+    private static final int DISTINCT_SESSIONS = 256;
+    private static final int MAX_LOOKUPS = 100000;
+
+    private final int threads;
+    private final ExecutorService pool;
+    private final Session[] sessions = new Session[DISTINCT_SESSIONS];
+
+    /**
+     * A step of the benchmark, run for one session.
+     */
+    private interface Step
+    {
+        /**
+         * Run the step.
+         * @param index The index of the session
+         * @throws Exception If the step failed
+         */
+        void run(int index) throws Exception;
+    }
+
+    /**
+     * Constructor for the benchmark. A few sessions of random games are prepared, and reused under different ids.
+     * @param threads The number of threads saving and loading at once
+     */
+    public StoreBenchmark(int threads)
+    {
+        this.threads = threads;
+        pool = Executors.newFixedThreadPool(threads);
+        Random random = new Random(42);
+        for(int i = 0; i < DISTINCT_SESSIONS; i++)
+        {
+            GameBoard gameBoard = new GameBoard(new BoardPlayer("Bot " + i), new BoardPlayer("Bot " + (i + 1)), 8);
+            int moves = random.nextInt(61);
+            for(int move = 0; move < moves; move++)
+            {
+                ArrayList<Integer> positions = gameBoard.getPossiblePositions();
+                if(positions.isEmpty())
+                {
+                    gameBoard.skipTurn();
+                    if(!gameBoard.hasPossiblePositions())
+                        break;
+                    continue;
+                }
+                gameBoard.onPositionPlayed(positions.get(random.nextInt(positions.size())));
+            }
+            sessions[i] = new Session(new SessionPlayer("Bot " + i), new SessionPlayer("Bot " + (i + 1)), gameBoard, "Playing");
+        }
+    }
+
+    /**
+     * Run the benchmark with the given arguments.
+     * @param args The arguments
+     * @throws Exception If the benchmark failed
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int sessionCount = 20000, threads = 8, files = 1000, rewrites = 3;
+        long segmentBytes = 4L << 20;
+        File folder = new File("store-benchmark");
+        for(int index = 0; index < args.length; index++)
+        {
+            switch(args[index])
+            {
+                case "--sessions": sessionCount = Integer.parseInt(args[++index]); break;
+                case "--threads": threads = Integer.parseInt(args[++index]); break;
+                case "--files": files = Integer.parseInt(args[++index]); break;
+                case "--rewrites": rewrites = Integer.parseInt(args[++index]); break;
+                case "--segment-mb": segmentBytes = Long.parseLong(args[++index]) << 20; break;
+                case "--folder": folder = new File(args[++index]); break;
+                default: throw new IllegalArgumentException("Unknown argument " + args[index] + ".");
+            }
+        }
+        if(folder.exists())
+            throw new IllegalArgumentException(folder + " already exists, and would be deleted.");
+
+        StoreBenchmark benchmark = new StoreBenchmark(threads);
+        try {
+            benchmark.run(folder, sessionCount, Math.min(files, sessionCount), rewrites, segmentBytes);
+        } finally {
+            delete(folder);
+            benchmark.pool.shutdown();
+        }
+    }
+
+    /**
+     * Run every step of the benchmark, and print the results.
+     * @param folder The folder of the store and the save files
+     * @param sessionCount The number of sessions saved to the store
+     * @param files The number of sessions saved to files
+     * @param rewrites The number of times every session is saved again before the compaction
+     * @param segmentBytes The size of the segments of the store
+     * @throws Exception If a step failed
+     */
+    private void run(File folder, int sessionCount, int files, int rewrites, long segmentBytes) throws Exception
+    {
+        File filesFolder = new File(folder, "files");
+        File storeFolder = new File(folder, "store");
+        if(!filesFolder.mkdirs())
+            throw new IOException("Could not create " + filesFolder + ".");
+        System.out.printf("%d sessions, %d threads, %d cores, %s%n", sessionCount, threads, Runtime.getRuntime().availableProcessors(),
+                folder.getAbsoluteFile().getParent());
+        System.out.printf("%-22s %9s %12s %10s %10s%n", "", "count", "per second", "p50", "p99");
+
+        measure("save to files", files, index -> Session.writeSaveFile(filePath(filesFolder, index), SessionFormat.encode(session(index))));
+        measure("load from files", files, index -> Session.loadFromFile(filePath(filesFolder, index)));
+
+        SessionStore store = new SessionStore(storeFolder, segmentBytes);
+        MetricsRegistry.Counter syncs = MetricsRegistry.get().counter(MetricsRegistry.STORE_SYNCS);
+        long syncsBefore = syncs.get();
+        measure("save to store", sessionCount, index -> store.save(id(index), session(index)));
+        System.out.printf("%-22s %.1f saves per sync%n", "", (double) sessionCount / Math.max(1, syncs.get() - syncsBefore));
+
+        Random random = new Random(7);
+        int[] lookups = new int[Math.min(MAX_LOOKUPS, 5 * sessionCount)];
+        for(int i = 0; i < lookups.length; i++)
+            lookups[i] = random.nextInt(sessionCount);
+        AtomicLong misses = new AtomicLong();
+        measure("load from store", lookups.length, index -> {
+            Session session = store.load(id(lookups[index]));
+            if(session==null || session.getGameBoard().getMoveCount()!=session(lookups[index]).getGameBoard().getMoveCount())
+                misses.incrementAndGet();
+        });
+
+        for(int round = 0; round < rewrites; round++)
+            measure("save again, no wait", sessionCount, index -> store.put(id(index), session(index)));
+        store.sync();
+        long diskBefore = store.getDiskBytes();
+        long start = System.nanoTime();
+        long freed = store.compact();
+        System.out.printf("%-22s %d MB on disk, %d MB live, %d MB freed in %d ms, %d segments left%n", "compaction", diskBefore >> 20,
+                store.getLiveBytes() >> 20, freed >> 20, (System.nanoTime() - start) / 1000000, store.getSegmentCount());
+        store.close();
+
+        start = System.nanoTime();
+        SessionStore reopened = new SessionStore(storeFolder, segmentBytes);
+        long recovery = System.nanoTime() - start;
+        for(int i = 0; i < 1000; i++)
+        {
+            int index = random.nextInt(sessionCount);
+            Session session = reopened.load(id(index));
+            if(session==null || session.getGameBoard().getMoveCount()!=session(index).getGameBoard().getMoveCount())
+                misses.incrementAndGet();
+        }
+        System.out.printf("%-22s %d sessions in %d MB recovered in %d ms%n", "open", reopened.size(), reopened.getDiskBytes() >> 20,
+                recovery / 1000000);
+        if(reopened.size()!=sessionCount || misses.get() > 0)
+            System.out.println("The store lost sessions: " + reopened.size() + " of " + sessionCount + ", " + misses.get() + " wrong loads.");
+        reopened.close();
+    }
+
+    /**
+     * Run a step for the given number of sessions, spread over the threads, and print how fast it was.
+     * @param name The name of the step
+     * @param count The number of sessions
+     * @param step The step
+     * @throws Exception If the step failed for a session
+     */
+    private void measure(String name, int count, Step step) throws Exception
+    {
+        MetricsRegistry.Histogram latencies = new MetricsRegistry.Histogram();
+        AtomicLong next = new AtomicLong();
+        List<Future<Void>> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for(int thread = 0; thread < threads; thread++)
+        {
+            workers.add(pool.submit(() -> {
+                for(int index = (int) next.getAndIncrement(); index < count; index = (int) next.getAndIncrement())
+                {
+                    long stepStart = System.nanoTime();
+                    step.run(index);
+                    latencies.record(System.nanoTime() - stepStart);
+                }
+                return null;
+            }));
+        }
+        for(Future<Void> worker : workers)
+            worker.get();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-22s %9d %12.0f %10s %10s%n", name, count, count / elapsed, formatNanos(latencies.getPercentile(50)),
+                formatNanos(latencies.getPercentile(99)));
+    }
+
+    /**
+     * Get the session saved under the given index.
+     * @param index The index of the session
+     * @return The session
+     */
+    private Session session(int index)
+    {
+        return sessions[index % DISTINCT_SESSIONS];
+    }
+
+    /**
+     * Get the id of the session with the given index, in the form used by the game server.
+     * @param index The index of the session
+     * @return The id
+     */
+    private static String id(int index)
+    {
+        return "NET benchmark-" + index;
+    }
+
+    /**
+     * Get the path of the save file of the session with the given index.
+     * @param folder The folder of the save files
+     * @param index The index of the session
+     * @return The path
+     */
+    private static String filePath(File folder, int index)
+    {
+        return new File(folder, id(index) + ".rev").getPath();
+    }
+
+    /**
+     * Delete a folder and everything in it.
+     * @param file The folder or file
+     */
+    private static void delete(File file)
+    {
+        File[] children = file.listFiles();
+        if(children!=null)
+            for(File child : children)
+                delete(child);
+        file.delete();
+    }
+
+    /**
+     * Format a duration for the table.
+     * @param nanos The duration, in nanoseconds
+     * @return The duration, in microseconds or milliseconds
+     */
+    private static String formatNanos(long nanos)
+    {
+        if(nanos < 1000000)
+            return String.format("%d us", nanos / 1000);
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+}
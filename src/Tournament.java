@@ -0,0 +1,494 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Plays a tournament between computer players, round-robin or Swiss, and rates them. The games are played at once on a pool of
+ * threads, one per core by default, and every game is written to the results file as soon as it ends, so a long tournament can
+ * be followed, and what was played is kept if it is stopped.
+ *
+ * Every pairing plays the same openings, each of them twice with the colours swapped, so neither player gets the better openings
+ * or the first move more often. An opening is a number of random moves from the start, drawn from the seed of the tournament, so
+ * the games of deterministic players are not all the same.
+ *
+ * The ratings are Elo ratings fitted to every result so far, by maximum likelihood, with one virtual draw between every two players
+ * so a player who never scored still has a finite rating; the average rating is 0. They are fitted again after every game, starting
+ * from the previous ratings, which takes a few iterations. The margin of a rating is an approximate 95% confidence interval, from the
+ * number of games it rests on and how close they were expected to be. Run it with
+ * <pre>java Tournament [--players random,greedy,search:2,search:3] [--format round-robin|swiss] [--games 10] [--rounds 5]
+ *                     [--sizes 8] [--openings 4] [--threads cores] [--seed 1] [--out tournament.csv]</pre>
+ * where --games is the number of games of every pair in a round-robin, and of every pairing of a Swiss round (2 by default).
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class Tournament implements Closeable
+{
+    private static final double ELO_PER_NATURAL_UNIT = 400 / Math.log(10);
+    private static final double Z_95 = 1.96;
+    private static final double PRIOR_GAMES = 1;
+    private static final int MAX_RATING_ITERATIONS = 200;
+    private static final double RATING_TOLERANCE = 0.001;
+    private static final int REPORTS = 10;
+
+    private final List<ComputerPlayer> players;
+    private final int openingMoves;
+    private final long seed;
+    private final ExecutorService pool;
+    private final PrintWriter results;
+    private final int[][] halfPoints;
+    private final int[][] games;
+    private final int[] wins, draws, losses;
+    private final double[] ratings;
+    private final long start = System.nanoTime();
+    private int gameNumber, played;
+
+    /**
+     * A game to play.
+     */
+    private static class Game
+    {
+        private final int number, size, opening;
+        private final int first, second;
+
+        private Game(int number, int size, int opening, int first, int second)
+        {
+            this.number = number;
+            this.size = size;
+            this.opening = opening;
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    /**
+     * A game which has been played.
+     */
+    private static class Result
+    {
+        private final Game game;
+        private final GameBoard gameBoard;
+        private final long nanos;
+
+        private Result(Game game, GameBoard gameBoard, long nanos)
+        {
+            this.game = game;
+            this.gameBoard = gameBoard;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * Constructor for a tournament.
+     * @param players The players, at least two
+     * @param openingMoves The number of random moves each opening starts with
+     * @param seed The seed the openings and the random choices are drawn from
+     * @param threads The number of games played at once
+     * @param resultsFile The file every game is written to, which is replaced if it exists
+     * @throws IOException If the results file could not be created
+     */
+    public Tournament(List<ComputerPlayer> players, int openingMoves, long seed, int threads, File resultsFile) throws IOException
+    {
+        if(players==null || players.size() < 2)
+            throw new IllegalArgumentException("A tournament needs at least two players.");
+        if(openingMoves < 0)
+            throw new IllegalArgumentException("The number of opening moves cannot be negative.");
+        if(threads < 1)
+            throw new IllegalArgumentException("A tournament needs at least one thread.");
+        this.players = new ArrayList<>(players);
+        this.openingMoves = openingMoves;
+        this.seed = seed;
+        int count = players.size();
+        halfPoints = new int[count][count];
+        games = new int[count][count];
+        wins = new int[count];
+        draws = new int[count];
+        losses = new int[count];
+        ratings = new double[count];
+
+        results = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(resultsFile), StandardCharsets.UTF_8)));
+        results.println("game,size,opening,player1,player2,result,pieces1,pieces2,millis,rating1,rating2,moves");
+        results.flush();
+        pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Reversi tournament");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Run a tournament with the given arguments, and print the standings as it goes.
+     * @param args The arguments
+     * @throws Exception If the tournament could not be played
+     */
+    public static void main(String[] args) throws Exception
+    {
+        String players = "random,greedy,search:2,search:3", format = "round-robin", sizes = "8";
+        int gamesPerPairing = -1, rounds = 5, openingMoves = 4, threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        File out = new File("tournament.csv");
+        for(int index = 0; index < args.length; index++)
+        {
+            switch(args[index])
+            {
+                case "--players": players = args[++index]; break;
+                case "--format": format = args[++index]; break;
+                case "--games": gamesPerPairing = Integer.parseInt(args[++index]); break;
+                case "--rounds": rounds = Integer.parseInt(args[++index]); break;
+                case "--sizes": sizes = args[++index]; break;
+                case "--openings": openingMoves = Integer.parseInt(args[++index]); break;
+                case "--threads": threads = Integer.parseInt(args[++index]); break;
+                case "--seed": seed = Long.parseLong(args[++index]); break;
+                case "--out": out = new File(args[++index]); break;
+                default: throw new IllegalArgumentException("Unknown argument " + args[index] + ".");
+            }
+        }
+
+        ArrayList<ComputerPlayer> computerPlayers = new ArrayList<>();
+        for(String description : players.split(","))
+            computerPlayers.add(ComputerPlayer.parse(description));
+        int[] boardSizes = Arrays.stream(sizes.split(",")).mapToInt(size -> Integer.parseInt(size.trim())).toArray();
+
+        try(Tournament tournament = new Tournament(computerPlayers, openingMoves, seed, threads, out))
+        {
+            System.out.printf("%s of %d players on %s boards, %d threads, results in %s%n", format, computerPlayers.size(), sizes,
+                    threads, out);
+            if(format.equals("round-robin"))
+            {
+                tournament.playRoundRobin(gamesPerPairing < 0 ? 10 : gamesPerPairing, boardSizes);
+                tournament.printStandings();
+            }
+            else if(format.equals("swiss"))
+                tournament.playSwiss(rounds, gamesPerPairing < 0 ? 2 : gamesPerPairing, boardSizes);
+            else
+                throw new IllegalArgumentException("Unknown format " + format + ".");
+        }
+    }
+
+    /**
+     * Play a round-robin: every player plays every other player the given number of games on each size of board.
+     * @param gamesPerPair The number of games of every pair of players on every size
+     * @param sizes The sizes of the boards
+     * @throws IOException If a game could not be written to the results file
+     * @throws InterruptedException If the thread was interrupted while waiting for the games
+     * @throws ExecutionException If a game failed
+     */
+    public void playRoundRobin(int gamesPerPair, int[] sizes) throws IOException, InterruptedException, ExecutionException
+    {
+        ArrayList<Game> schedule = new ArrayList<>();
+        for(int game = 0; game < gamesPerPair; game++)
+            for(int size : sizes)
+                for(int first = 0; first < players.size(); first++)
+                    for(int second = first + 1; second < players.size(); second++)
+                        schedule.add(game % 2==0 ? new Game(gameNumber++, size, game / 2, first, second)
+                                : new Game(gameNumber++, size, game / 2, second, first));
+        play(schedule, Math.max(1, schedule.size() / REPORTS));
+    }
+
+    /**
+     * Play a Swiss tournament: every round, the players are paired with players of a similar score they have not played yet, and
+     * every pairing plays the given number of games on each size of board. With an odd number of players, the lowest player who
+     * had no bye yet sits the round out, and scores as if every game had been won.
+     * @param rounds The number of rounds
+     * @param gamesPerPairing The number of games of every pairing on every size
+     * @param sizes The sizes of the boards
+     * @throws IOException If a game could not be written to the results file
+     * @throws InterruptedException If the thread was interrupted while waiting for the games
+     * @throws ExecutionException If a game failed
+     */
+    public void playSwiss(int rounds, int gamesPerPairing, int[] sizes) throws IOException, InterruptedException, ExecutionException
+    {
+        int count = players.size();
+        int[] swissPoints = new int[count];
+        boolean[] hadBye = new boolean[count];
+        for(int round = 0; round < rounds; round++)
+        {
+            int[] pointsBefore = new int[count];
+            for(int player = 0; player < count; player++)
+                pointsBefore[player] = totalHalfPoints(player);
+
+            Integer[] order = new Integer[count];
+            for(int player = 0; player < count; player++)
+                order[player] = player;
+            Arrays.sort(order, Comparator.comparingInt((Integer player) -> -swissPoints[player])
+                    .thenComparingDouble(player -> -ratings[player]));
+
+            boolean[] paired = new boolean[count];
+            int bye = -1;
+            if(count % 2==1)
+            {
+                for(int rank = count - 1; rank >= 0 && bye==-1; rank--)
+                    if(!hadBye[order[rank]])
+                        bye = order[rank];
+                if(bye==-1)
+                    bye = order[count - 1];
+                hadBye[bye] = true;
+                paired[bye] = true;
+                swissPoints[bye] += 2 * gamesPerPairing * sizes.length;
+            }
+
+            ArrayList<Game> schedule = new ArrayList<>();
+            StringBuilder pairings = new StringBuilder();
+            for(int rank = 0; rank < count; rank++)
+            {
+                int player = order[rank];
+                if(paired[player])
+                    continue;
+                int opponent = -1;
+                for(int other = rank + 1; other < count; other++)
+                    if(!paired[order[other]] && (opponent==-1 || games[player][order[other]] < games[player][opponent]))
+                        opponent = order[other];
+                paired[player] = true;
+                paired[opponent] = true;
+                pairings.append(pairings.length()==0 ? "" : ", ").append(players.get(player)).append(" - ").append(players.get(opponent));
+                for(int game = 0; game < gamesPerPairing; game++)
+                    for(int size : sizes)
+                    {
+                        int opening = round * gamesPerPairing + game / 2;
+                        schedule.add(game % 2==0 ? new Game(gameNumber++, size, opening, player, opponent)
+                                : new Game(gameNumber++, size, opening, opponent, player));
+                    }
+            }
+
+            System.out.println("Round " + (round + 1) + ": " + pairings + (bye==-1 ? "" : ", bye for " + players.get(bye)));
+            play(schedule, 0);
+            for(int player = 0; player < count; player++)
+                swissPoints[player] += totalHalfPoints(player) - pointsBefore[player];
+            printStandings();
+        }
+    }
+
+    /**
+     * Play games on the pool, and record each of them as soon as it ends.
+     * @param schedule The games
+     * @param reportEvery The number of games between two printed standings, or 0 to print none
+     * @throws IOException If a game could not be written to the results file
+     * @throws InterruptedException If the thread was interrupted while waiting for the games
+     * @throws ExecutionException If a game failed
+     */
+    private void play(List<Game> schedule, int reportEvery) throws IOException, InterruptedException, ExecutionException
+    {
+        CompletionService<Result> completion = new ExecutorCompletionService<>(pool);
+        for(Game game : schedule)
+            completion.submit(() -> play(game));
+        for(int index = 0; index < schedule.size(); index++)
+        {
+            record(completion.take().get());
+            if(reportEvery > 0 && (index + 1) % reportEvery==0 && index + 1 < schedule.size())
+                printStandings();
+        }
+    }
+
+    /**
+     * Play a game. It runs on a thread of the pool; the players keep no state, so they can play several games at once.
+     * @param game The game
+     * @return The game played
+     */
+    private Result play(Game game)
+    {
+        long gameStart = System.nanoTime();
+        ComputerPlayer first = players.get(game.first);
+        ComputerPlayer second = players.get(game.second);
+        GameBoard gameBoard = new GameBoard(new BoardPlayer(first.getName()), new BoardPlayer(second.getName()), game.size);
+
+        Random openingRandom = new Random(seed * 31 + game.size * 1000003L + game.opening);
+        for(int move = 0; move < openingMoves; move++)
+        {
+            ArrayList<Integer> positions = gameBoard.getPossiblePositions();
+            if(positions.isEmpty())
+                break;
+            gameBoard.onPositionPlayed(positions.get(openingRandom.nextInt(positions.size())));
+        }
+
+        Random random = new Random(seed * 1000003 + game.number);
+        while(true)
+        {
+            ComputerPlayer mover = gameBoard.getCurrentPlayer()==gameBoard.getPlayer1() ? first : second;
+            int position = mover.chooseMove(gameBoard, random);
+            if(position!=-1)
+                gameBoard.onPositionPlayed(position);
+            else
+            {
+                gameBoard.skipTurn();
+                if(!gameBoard.hasPossiblePositions())
+                    break;
+            }
+        }
+        return new Result(game, gameBoard, System.nanoTime() - gameStart);
+    }
+
+    /**
+     * Record a game which has been played: count its result, fit the ratings again, and write it to the results file.
+     * @param result The game
+     * @throws IOException If the game could not be written
+     */
+    private void record(Result result) throws IOException
+    {
+        Game game = result.game;
+        int pieces1 = result.gameBoard.getPlayerOnePieces();
+        int pieces2 = result.gameBoard.getPlayerTwoPieces();
+        int firstHalfPoints = pieces1 > pieces2 ? 2 : pieces1==pieces2 ? 1 : 0;
+        halfPoints[game.first][game.second] += firstHalfPoints;
+        halfPoints[game.second][game.first] += 2 - firstHalfPoints;
+        games[game.first][game.second]++;
+        games[game.second][game.first]++;
+        if(firstHalfPoints==1)
+        {
+            draws[game.first]++;
+            draws[game.second]++;
+        }
+        else
+        {
+            wins[firstHalfPoints==2 ? game.first : game.second]++;
+            losses[firstHalfPoints==2 ? game.second : game.first]++;
+        }
+        played++;
+        fitRatings();
+
+        StringBuilder moves = new StringBuilder();
+        GameTranscript transcript = GameTranscript.of(result.gameBoard);
+        if(transcript!=null)
+            transcript.appendNotation(moves);
+        results.printf("%d,%d,%d,%s,%s,%s,%d,%d,%d,%.1f,%.1f,%s%n", game.number, game.size, game.opening, players.get(game.first),
+                players.get(game.second), firstHalfPoints==2 ? "1-0" : firstHalfPoints==1 ? "1/2-1/2" : "0-1", pieces1, pieces2,
+                result.nanos / 1000000, ratings[game.first], ratings[game.second], moves);
+        results.flush();
+        if(results.checkError())
+            throw new IOException("Could not write to the results file.");
+    }
+
+    /**
+     * Fit the ratings to the results so far, starting from the previous ratings. It uses the minorization-maximization algorithm
+     * for the Bradley-Terry model, in which a player with strength g scores against a player with strength h with probability
+     * g / (g + h), and a rating is 400 * log10 of a strength.
+     */
+    private void fitRatings()
+    {
+        int count = players.size();
+        double[] strengths = new double[count];
+        for(int player = 0; player < count; player++)
+            strengths[player] = Math.pow(10, ratings[player] / 400);
+
+        for(int iteration = 0; iteration < MAX_RATING_ITERATIONS; iteration++)
+        {
+            double change = 0, logSum = 0;
+            for(int player = 0; player < count; player++)
+            {
+                double scored = 0, expected = 0;
+                for(int opponent = 0; opponent < count; opponent++)
+                {
+                    if(opponent==player)
+                        continue;
+                    scored += halfPoints[player][opponent] / 2.0 + PRIOR_GAMES / 2;
+                    expected += (games[player][opponent] + PRIOR_GAMES) / (strengths[player] + strengths[opponent]);
+                }
+                strengths[player] = scored / expected;
+                logSum += Math.log10(strengths[player]);
+            }
+            double mean = logSum / count;
+            for(int player = 0; player < count; player++)
+            {
+                double rating = 400 * (Math.log10(strengths[player]) - mean);
+                change = Math.max(change, Math.abs(rating - ratings[player]));
+                ratings[player] = rating;
+                strengths[player] = Math.pow(10, rating / 400);
+            }
+            if(change < RATING_TOLERANCE)
+                break;
+        }
+    }
+
+    /**
+     * Get the margin of the rating of a player: the half-width of its approximate 95% confidence interval, from the Fisher
+     * information of its games, holding the ratings of the other players fixed.
+     * @param player The index of the player
+     * @return The margin, in Elo points, or infinity if the player has not played
+     */
+    public double getMargin(int player)
+    {
+        double information = 0;
+        for(int opponent = 0; opponent < players.size(); opponent++)
+        {
+            if(opponent==player)
+                continue;
+            double expected = 1 / (1 + Math.pow(10, (ratings[opponent] - ratings[player]) / 400));
+            information += games[player][opponent] * expected * (1 - expected);
+        }
+        return information==0 ? Double.POSITIVE_INFINITY : Z_95 * ELO_PER_NATURAL_UNIT / Math.sqrt(information);
+    }
+
+    /**
+     * Get the rating of a player.
+     * @param player The index of the player
+     * @return The rating, in Elo points, relative to the average player
+     */
+    public double getRating(int player)
+    {
+        return ratings[player];
+    }
+
+    /**
+     * Get the number of games played so far.
+     * @return The number of games
+     */
+    public int getGamesPlayed()
+    {
+        return played;
+    }
+
+    /**
+     * Print the players ordered by rating, with their results and the rate of the games so far.
+     */
+    public void printStandings()
+    {
+        Integer[] order = new Integer[players.size()];
+        for(int player = 0; player < order.length; player++)
+            order[player] = player;
+        Arrays.sort(order, Comparator.comparingDouble((Integer player) -> -ratings[player]));
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("After %d games (%.1f games/s):%n", played, played / elapsed);
+        System.out.printf("%4s %-20s %7s %7s %7s %7s %7s %8s %7s%n", "rank", "player", "games", "wins", "draws", "losses", "score",
+                "elo", "+/-");
+        for(int rank = 0; rank < order.length; rank++)
+        {
+            int player = order[rank];
+            int gamesPlayed = wins[player] + draws[player] + losses[player];
+            System.out.printf("%4d %-20s %7d %7d %7d %7d %6.1f%% %8.1f %7.1f%n", rank + 1, players.get(player), gamesPlayed,
+                    wins[player], draws[player], losses[player], gamesPlayed==0 ? 0.0 : 50.0 * totalHalfPoints(player) / gamesPlayed,
+                    ratings[player], getMargin(player));
+        }
+    }
+
+    /**
+     * Stop the threads of the tournament and close the results file.
+     */
+    @Override
+    public void close()
+    {
+        pool.shutdownNow();
+        results.close();
+    }
+
+    /**
+     * Get the half-points scored by a player against every other player.
+     * @param player The index of the player
+     * @return The half-points
+     */
+    private int totalHalfPoints(int player)
+    {
+        int total = 0;
+        for(int opponent = 0; opponent < players.size(); opponent++)
+            total += halfPoints[player][opponent];
+        return total;
+    }
+}
@@ -0,0 +1,75 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads game transcripts written in move-list notation, one game per line, as written by TranscriptWriter. Games are read one at a
+ * time, so files of any size can be read in constant memory. Empty lines and lines starting with '#' are skipped.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class TranscriptReader implements Closeable
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final BufferedReader in;
+    private long lineNumber;
+
+    /**
+     * Create a transcript reader which reads from the given file.
+     * @param file The file
+     * @throws IOException If the file could not be opened
+     */
+    public TranscriptReader(File file) throws IOException
+    {
+        this(new FileInputStream(file));
+    }
+
+    /**
+     * Create a transcript reader which reads from the given stream.
+     * @param in The input stream
+     */
+    public TranscriptReader(InputStream in)
+    {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII), BUFFER_SIZE);
+    }
+
+    /**
+     * Read the next game.
+     * @return The transcript of the game, or null if there are no more games
+     * @throws IOException If the game could not be read, or is not valid
+     */
+    public GameTranscript read() throws IOException
+    {
+        String line;
+        while((line = in.readLine())!=null)
+        {
+            lineNumber++;
+            String trimmed = line.trim();
+            if(trimmed.isEmpty() || trimmed.charAt(0)=='#')
+                continue;
+
+            try {
+                return GameTranscript.parse(trimmed);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the number of the last line read.
+     * @return The line number, starting from 1
+     */
+    public long getLineNumber()
+    {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+}
@@ -0,0 +1,72 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes game transcripts to a text file in move-list notation, one game per line. Every game is written as soon as it is given,
+ * so any number of games can be written without keeping them in memory.
+ *
+ * @author Andrei Constantin
+ * @version 19-10-2026
+ */
+public class TranscriptWriter implements Closeable, Flushable
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer out;
+    private final StringBuilder line;
+    private long gamesWritten;
+
+    /**
+     * Create a transcript writer which writes to the given file, replacing it if it exists.
+     * @param file The file
+     * @throws IOException If the file could not be opened
+     */
+    public TranscriptWriter(File file) throws IOException
+    {
+        this(new FileOutputStream(file));
+    }
+
+    /**
+     * Create a transcript writer which writes to the given stream.
+     * @param out The output stream
+     */
+    public TranscriptWriter(OutputStream out)
+    {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII), BUFFER_SIZE);
+        line = new StringBuilder();
+    }
+
+    /**
+     * Write a game.
+     * @param game The transcript of the game
+     * @throws IOException If the game could not be written
+     */
+    public void write(GameTranscript game) throws IOException
+    {
+        line.setLength(0);
+        game.appendNotation(line).append('\n');
+        out.append(line);
+        gamesWritten++;
+    }
+
+    /**
+     * Get the number of games written so far.
+     * @return The number of games
+     */
+    public long getGamesWritten()
+    {
+        return gamesWritten;
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        out.close();
+    }
+}